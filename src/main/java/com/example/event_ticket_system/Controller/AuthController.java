@@ -40,9 +40,6 @@ public class AuthController {
     @Autowired
     private UserService userService;
 
-    @Autowired
-    private EmailService emailService;
-
     @Autowired
     private UserRepository userRepository;
 
@@ -58,6 +55,9 @@ public class AuthController {
     @Autowired
     private VerificationCodeService verificationCodeService;
 
+    @Autowired
+    private OtpDispatchService otpDispatchService;
+
     @PostMapping("/register")
     public ResponseEntity<?> registerAccount(@Valid @RequestBody RegisterRequestDTO registerRequestDTO, BindingResult bindingResult) {
         try {
@@ -273,14 +273,13 @@ public class AuthController {
             );
         }
 
-        // Tạo mã xác thực và lưu trữ
-        String code = verificationCodeService.generateAndSaveCode(request.getEmail());
-        emailService.sendVerificationEmail(request.getEmail(), code);
+        // Tạo mã và xếp hàng gửi; không chờ SMTP
+        otpDispatchService.dispatch(request.getEmail());
 
         return APIResponse.responseBuilder(
                         null,
-                        "Mã xác thực đã được gửi đến email của bạn. Vui lòng kiểm tra email.",
-                        HttpStatus.OK
+                        "Mã xác thực đang được gửi đến email của bạn. Vui lòng kiểm tra email.",
+                        HttpStatus.ACCEPTED
                 );
     }
 
@@ -355,14 +354,13 @@ public class AuthController {
             );
         }
 
-        // Tạo và lưu mã xác thực cho email
-        String code = verificationCodeService.generateAndSaveCode(email);
-        emailService.sendVerificationEmail(email, code);
+        // Tạo mã và xếp hàng gửi; yêu cầu gửi lại liên tiếp được gộp
+        otpDispatchService.dispatch(email);
 
         return APIResponse.responseBuilder(
                 null,
-                "Mã xác thực đã được gửi đến email của bạn. Vui lòng kiểm tra email.",
-                HttpStatus.OK
+                "Mã xác thực đang được gửi đến email của bạn. Vui lòng kiểm tra email.",
+                HttpStatus.ACCEPTED
         );
     }
 
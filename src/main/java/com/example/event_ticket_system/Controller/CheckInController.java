@@ -0,0 +1,83 @@
+package com.example.event_ticket_system.Controller;
+
+import com.example.event_ticket_system.DTO.request.CheckInRequestDto;
+import com.example.event_ticket_system.DTO.response.APIResponse;
+import com.example.event_ticket_system.DTO.response.CheckInResultDto;
+import com.example.event_ticket_system.DTO.response.CheckInSummaryDto;
+import com.example.event_ticket_system.Service.CheckInService;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/organizer/events/{eventId}/check-in")
+@RequiredArgsConstructor
+public class CheckInController {
+    private final CheckInService checkInService;
+
+    @PostMapping
+    public ResponseEntity<Object> checkIn(@PathVariable Integer eventId,
+                                          @RequestBody @Valid CheckInRequestDto checkInRequestDto,
+                                          BindingResult bindingResult,
+                                          HttpServletRequest request) {
+        try {
+            if (bindingResult.hasErrors()) {
+                Map<String, String> errors = new HashMap<>();
+                bindingResult.getFieldErrors().forEach(error ->
+                        errors.put(error.getField(), error.getDefaultMessage())
+                );
+                return APIResponse.responseBuilder(
+                        errors,
+                        "Validation failed",
+                        HttpStatus.BAD_REQUEST
+                );
+            }
+            CheckInResultDto result = checkInService.checkIn(eventId, checkInRequestDto.getToken(), request);
+            return switch (result.getStatus()) {
+                case admitted -> APIResponse.responseBuilder(result, "Ticket admitted", HttpStatus.OK);
+                case already_admitted -> APIResponse.responseBuilder(result, "Ticket has already been fully admitted", HttpStatus.CONFLICT);
+                case wrong_event -> APIResponse.responseBuilder(result, "Ticket belongs to another event", HttpStatus.BAD_REQUEST);
+                case invalid_ticket -> APIResponse.responseBuilder(result, "Ticket is not valid", HttpStatus.BAD_REQUEST);
+            };
+        } catch (SecurityException e) {
+            return APIResponse.responseBuilder(null, e.getMessage(), HttpStatus.FORBIDDEN);
+        } catch (EntityNotFoundException e) {
+            return APIResponse.responseBuilder(null, e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            log.error("Check-in failed for event {}", eventId, e);
+            return APIResponse.responseBuilder(
+                    null,
+                    "An unexpected error occurred: " + e.getMessage(),
+                    HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<Object> getSummary(@PathVariable Integer eventId, HttpServletRequest request) {
+        try {
+            CheckInSummaryDto summary = checkInService.getSummary(eventId, request);
+            return APIResponse.responseBuilder(summary, "Check-in summary retrieved successfully", HttpStatus.OK);
+        } catch (SecurityException e) {
+            return APIResponse.responseBuilder(null, e.getMessage(), HttpStatus.FORBIDDEN);
+        } catch (EntityNotFoundException e) {
+            return APIResponse.responseBuilder(null, e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    "An unexpected error occurred: " + e.getMessage(),
+                    HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+}
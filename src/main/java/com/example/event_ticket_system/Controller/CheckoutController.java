@@ -1,11 +1,16 @@
 package com.example.event_ticket_system.Controller;
 
 import com.example.event_ticket_system.DTO.request.OrderRequestDto;
+import com.example.event_ticket_system.DTO.response.PaymentLinkResponseDto;
 import com.example.event_ticket_system.Entity.Event;
 import com.example.event_ticket_system.Entity.Ticket;
+import com.example.event_ticket_system.Enums.PaymentLinkStatus;
 import com.example.event_ticket_system.Repository.EventRepository;
 import com.example.event_ticket_system.Repository.TicketRepository;
+import com.example.event_ticket_system.Security.JwtUtil;
+import com.example.event_ticket_system.Service.IdempotencyService;
 import com.example.event_ticket_system.Service.OrderService;
+import com.example.event_ticket_system.Service.WaitingRoomService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
@@ -15,11 +20,11 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
-import vn.payos.type.CheckoutResponseData;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Slf4j
 @Controller
@@ -27,11 +32,16 @@ public class CheckoutController {
     private final OrderService orderService;
     private final EventRepository eventRepository;
     private final TicketRepository ticketRepository;
+    private final WaitingRoomService waitingRoomService;
+    private final JwtUtil jwtUtil;
 
-    public CheckoutController(OrderService orderService, EventRepository eventRepository, TicketRepository ticketRepository) {
+    public CheckoutController(OrderService orderService, EventRepository eventRepository, TicketRepository ticketRepository,
+                              WaitingRoomService waitingRoomService, JwtUtil jwtUtil) {
         this.orderService = orderService;
         this.eventRepository = eventRepository;
         this.ticketRepository = ticketRepository;
+        this.waitingRoomService = waitingRoomService;
+        this.jwtUtil = jwtUtil;
     }
 
     @RequestMapping(value = "/success")
@@ -96,12 +106,41 @@ public class CheckoutController {
             orderRequestDto.setReturnUrl(returnUrl);
             orderRequestDto.setCancelUrl(cancelUrl);
 
-            // Call OrderService to create order and payment link
-            CheckoutResponseData data = orderService.createOrder(orderRequestDto, request);
+            // Form HTML không gửi được header nên nhận key qua cả tham số idempotencyKey
+            String idempotencyKey = request.getHeader(IdempotencyService.HEADER);
+            if (idempotencyKey == null) {
+                idempotencyKey = request.getParameter("idempotencyKey");
+            }
+            Optional<PaymentLinkResponseDto> replayed = orderService.findIdempotentOrder(orderRequestDto, idempotencyKey, request);
+            PaymentLinkResponseDto data;
+            if (replayed.isPresent()) {
+                data = replayed.get();
+            } else {
+                // Kiểm tra lượt vào phòng chờ trước khi đọc DB
+                String queueToken = request.getParameter("queueToken");
+                Integer userId = jwtUtil.extractUserId(request.getHeader("Authorization").substring(7));
+                if (!waitingRoomService.checkAdmission(eventId, userId, queueToken).canOrder()) {
+                    httpServletResponse.setStatus(429);
+                    return;
+                }
+                // Call OrderService to create order and payment link
+                data = orderService.createOrder(orderRequestDto, idempotencyKey, request);
+                waitingRoomService.complete(queueToken);
+            }
 
+            if (data.getStatus() != PaymentLinkStatus.created) {
+                // Link chưa sẵn sàng (hoặc thất bại): trỏ client sang API hỏi trạng thái
+                httpServletResponse.setHeader("Location", "/api/orders/" + data.getPayosOrderCode() + "/payment-link");
+                httpServletResponse.setStatus(data.getStatus() == PaymentLinkStatus.failed ? 502 : 202);
+                return;
+            }
             // Redirect to PayOS checkout URL
             httpServletResponse.setHeader("Location", data.getCheckoutUrl());
             httpServletResponse.setStatus(302);
+        } catch (SecurityException e) {
+            httpServletResponse.setStatus(403);
+        } catch (IllegalStateException e) {
+            httpServletResponse.setStatus(409);
         } catch (Exception e) {
             e.printStackTrace();
             httpServletResponse.setStatus(500);
@@ -95,13 +95,14 @@ public class EventController {
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
             LocalDateTime endTime,
             @RequestParam(defaultValue = "1") Integer page,
-            @RequestParam(defaultValue = "10") Integer size) {
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String cursor) {
         try {
             if (page <= 0 && size <= 0) {
                 page = 1;
                 size = 1;
             }
-            Map<String, Object> response = eventService.getEventsByOrganizer(request, status, approveStatus, startTime, endTime, name, page, size);
+            Map<String, Object> response = eventService.getEventsByOrganizer(request, status, approveStatus, startTime, endTime, name, page, size, cursor);
             return APIResponse.responseBuilder(
                     response,
                     "Events retrieved successfully",
@@ -119,6 +120,12 @@ public class EventController {
                     e.getMessage(),
                     HttpStatus.NOT_FOUND
             );
+        } catch (IllegalArgumentException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.BAD_REQUEST
+            );
         } catch (Exception e) {
             return APIResponse.responseBuilder(
                     null,
@@ -165,18 +172,26 @@ public class EventController {
             @RequestParam(required = false) String name,
             @RequestParam(defaultValue = "1") Integer page,
             @RequestParam(defaultValue = "10") Integer size,
-            @RequestParam(required = false) String sortBy) {
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean includeTotal) {
         try {
             if (page <= 0 && size <= 0) {
                 page = 1;
                 size = 1;
             }
-            Map<String, Object> response = eventService.getRecommendEvents(category, address, startTime, endTime, name, page, size, sortBy);
+            Map<String, Object> response = eventService.getRecommendEvents(category, address, startTime, endTime, name, page, size, sortBy, cursor, includeTotal);
             return APIResponse.responseBuilder(
                     response,
                     "Recommended events retrieved successfully",
                     HttpStatus.OK
             );
+        } catch (IllegalArgumentException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.BAD_REQUEST
+            );
         } catch (Exception e) {
             return APIResponse.responseBuilder(
                     null,
@@ -198,13 +213,14 @@ public class EventController {
             LocalDateTime endTime,
             @RequestParam(required = false) String name,
             @RequestParam(defaultValue = "1") Integer page,
-            @RequestParam(defaultValue = "10") Integer size) {
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String cursor) {
         try {
             if (page <= 0 && size <= 0) {
                 page = 1;
                 size = 1;
             }
-            Map<String, Object> response = eventService.getPendingEvents(request, address, startTime, endTime, name, page, size);
+            Map<String, Object> response = eventService.getPendingEvents(request, address, startTime, endTime, name, page, size, cursor);
             return APIResponse.responseBuilder(
                     response,
                     "Pending events retrieved successfully",
@@ -222,6 +238,12 @@ public class EventController {
                     e.getMessage(),
                     HttpStatus.NOT_FOUND
             );
+        } catch (IllegalArgumentException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.BAD_REQUEST
+            );
         } catch (Exception e) {
             return APIResponse.responseBuilder(
                     null,
@@ -245,13 +267,14 @@ public class EventController {
             LocalDateTime endTime,
             @RequestParam(required = false) String name,
             @RequestParam(defaultValue = "1") Integer page,
-            @RequestParam(defaultValue = "10") Integer size) {
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String cursor) {
         try {
             if (page <= 0 && size <= 0) {
                 page = 1;
                 size = 1;
             }
-            Map<String, Object> response = eventService.getListEvents(request, status, approvalStatus, address, startTime, endTime, name, page, size);
+            Map<String, Object> response = eventService.getListEvents(request, status, approvalStatus, address, startTime, endTime, name, page, size, cursor);
             return APIResponse.responseBuilder(
                     response,
                     "Events retrieved successfully",
@@ -269,6 +292,12 @@ public class EventController {
                     e.getMessage(),
                     HttpStatus.NOT_FOUND
             );
+        } catch (IllegalArgumentException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.BAD_REQUEST
+            );
         } catch (Exception e) {
             return APIResponse.responseBuilder(
                     null,
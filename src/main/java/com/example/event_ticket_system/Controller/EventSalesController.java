@@ -0,0 +1,71 @@
+package com.example.event_ticket_system.Controller;
+
+import com.example.event_ticket_system.DTO.response.APIResponse;
+import com.example.event_ticket_system.DTO.response.TicketsSoldMismatchProjection;
+import com.example.event_ticket_system.Service.EventSalesService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/events/tickets-sold")
+@RequiredArgsConstructor
+public class EventSalesController {
+    private final EventSalesService eventSalesService;
+
+    @GetMapping("/reconciliation")
+    public ResponseEntity<Object> reconcile() {
+        try {
+            List<TicketsSoldMismatchProjection> mismatches = eventSalesService.findMismatches();
+
+            Map<String, Object> responseData = new HashMap<>();
+            responseData.put("consistent", mismatches.isEmpty());
+            responseData.put("mismatches", mismatches);
+            return APIResponse.responseBuilder(
+                    responseData,
+                    "Tickets sold reconciliation completed",
+                    HttpStatus.OK
+            );
+        } catch (Exception e) {
+            log.error("Tickets sold reconciliation failed", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    "An unexpected error occurred: " + e.getMessage(),
+                    HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    // Tính lại tickets_sold từ order_tickets (chạy một lần sau khi thêm cột, hoặc khi kiểm tra báo lệch)
+    @PostMapping("/backfill")
+    public ResponseEntity<Object> backfill() {
+        try {
+            int events = eventSalesService.backfill();
+
+            Map<String, Object> responseData = new HashMap<>();
+            responseData.put("recomputedEvents", events);
+            return APIResponse.responseBuilder(
+                    responseData,
+                    "Tickets sold backfill completed",
+                    HttpStatus.OK
+            );
+        } catch (Exception e) {
+            log.error("Tickets sold backfill failed", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    "An unexpected error occurred: " + e.getMessage(),
+                    HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+}
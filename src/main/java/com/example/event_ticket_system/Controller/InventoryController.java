@@ -0,0 +1,51 @@
+package com.example.event_ticket_system.Controller;
+
+import com.example.event_ticket_system.DTO.response.APIResponse;
+import com.example.event_ticket_system.DTO.response.InventoryReconciliationDto;
+import com.example.event_ticket_system.Service.InventoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/inventory")
+@RequiredArgsConstructor
+public class InventoryController {
+    private final InventoryService inventoryService;
+
+    @GetMapping("/reconciliation")
+    public ResponseEntity<Object> reconcile() {
+        try {
+            List<InventoryReconciliationDto> tickets = inventoryService.reconcile();
+            List<InventoryReconciliationDto> mismatches = tickets.stream()
+                    .filter(ticket -> !ticket.isConsistent())
+                    .toList();
+
+            Map<String, Object> responseData = new HashMap<>();
+            responseData.put("consistent", mismatches.isEmpty());
+            responseData.put("checkedTickets", tickets.size());
+            responseData.put("mismatches", mismatches);
+            return APIResponse.responseBuilder(
+                    responseData,
+                    "Inventory reconciliation completed",
+                    HttpStatus.OK
+            );
+        } catch (Exception e) {
+            log.error("Inventory reconciliation failed", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    "An unexpected error occurred: " + e.getMessage(),
+                    HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+}
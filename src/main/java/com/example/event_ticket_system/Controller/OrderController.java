@@ -3,18 +3,23 @@ package com.example.event_ticket_system.Controller;
 import com.example.event_ticket_system.DTO.request.OrderRequestDto;
 import com.example.event_ticket_system.DTO.request.cancellationReasonBody;
 import com.example.event_ticket_system.DTO.response.APIResponse;
+import com.example.event_ticket_system.DTO.response.PaymentLinkResponseDto;
+import com.example.event_ticket_system.DTO.response.WaitingRoomStatusDto;
 import com.example.event_ticket_system.Entity.Order;
-import com.example.event_ticket_system.Entity.OrderTicket;
-import com.example.event_ticket_system.Entity.Ticket;
 import com.example.event_ticket_system.Entity.User;
 import com.example.event_ticket_system.Enums.OrderStatus;
+import com.example.event_ticket_system.Enums.PaymentLinkStatus;
 import com.example.event_ticket_system.Enums.UserRole;
 import com.example.event_ticket_system.Repository.OrderRepository;
-import com.example.event_ticket_system.Repository.OrderTicketRepository;
-import com.example.event_ticket_system.Repository.TicketRepository;
 import com.example.event_ticket_system.Repository.UserRepository;
 import com.example.event_ticket_system.Security.JwtUtil;
+import com.example.event_ticket_system.Service.CheckInService;
+import com.example.event_ticket_system.Service.EventSalesService;
+import com.example.event_ticket_system.Service.InventoryService;
+import com.example.event_ticket_system.Service.IdempotencyService;
 import com.example.event_ticket_system.Service.OrderService;
+import com.example.event_ticket_system.Service.PaymentLinkService;
+import com.example.event_ticket_system.Service.WaitingRoomService;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.transaction.Transactional;
@@ -26,13 +31,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import vn.payos.PayOS;
-import vn.payos.type.CheckoutResponseData;
 import vn.payos.type.PaymentLinkData;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -41,8 +46,11 @@ public class OrderController {
     private final OrderService orderService;
     private final PayOS payOS;
     private final OrderRepository orderRepository;
-    private final OrderTicketRepository orderTicketRepository;
-    private final TicketRepository ticketRepository;
+    private final InventoryService inventoryService;
+    private final EventSalesService eventSalesService;
+    private final CheckInService checkInService;
+    private final WaitingRoomService waitingRoomService;
+    private final PaymentLinkService paymentLinkService;
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
 
@@ -66,17 +74,55 @@ public class OrderController {
                 );
             }
 
-            // Create order and payment link
-            CheckoutResponseData checkoutData = orderService.createOrder(orderRequestDto, request);
+            // Request lặp lại (cùng Idempotency-Key) nhận lại kết quả cũ, không qua phòng chờ và không giữ vé lần nữa
+            String idempotencyKey = request.getHeader(IdempotencyService.HEADER);
+            Optional<PaymentLinkResponseDto> replayed = orderService.findIdempotentOrder(orderRequestDto, idempotencyKey, request);
+            PaymentLinkResponseDto paymentLink;
+            if (replayed.isPresent()) {
+                paymentLink = replayed.get();
+            } else {
+                // Sự kiện đang bật phòng chờ: chỉ người đã tới lượt mới được chạm vào DB
+                String queueToken = request.getHeader("X-Queue-Token");
+                Integer userId = jwtUtil.extractUserId(request.getHeader("Authorization").substring(7));
+                WaitingRoomStatusDto queueStatus = waitingRoomService.checkAdmission(orderRequestDto.getEventId(), userId, queueToken);
+                if (!queueStatus.canOrder()) {
+                    return APIResponse.responseBuilder(
+                            queueStatus,
+                            "Please wait for your turn in the waiting room",
+                            HttpStatus.TOO_MANY_REQUESTS
+                    );
+                }
+
+                // Create order and payment link
+                paymentLink = orderService.createOrder(orderRequestDto, idempotencyKey, request);
+                waitingRoomService.complete(queueToken);
+            }
             Map<String, Object> responseData = new HashMap<>();
-            responseData.put("orderId", checkoutData.getOrderCode());
-            responseData.put("checkoutUrl", checkoutData.getCheckoutUrl());
-            responseData.put("paymentLinkId", checkoutData.getPaymentLinkId());
+            responseData.put("orderId", paymentLink.getPayosOrderCode());
+            responseData.put("checkoutUrl", paymentLink.getCheckoutUrl());
+            responseData.put("paymentLinkId", paymentLink.getPaymentLinkId());
+            responseData.put("paymentLinkStatus", paymentLink.getStatus());
 
+            if (paymentLink.getStatus() == PaymentLinkStatus.created) {
+                return APIResponse.responseBuilder(
+                        responseData,
+                        "Order and payment link successfully created",
+                        HttpStatus.CREATED
+                );
+            }
+            if (paymentLink.getStatus() == PaymentLinkStatus.failed) {
+                return APIResponse.responseBuilder(
+                        responseData,
+                        "Payment link could not be created, the order has been cancelled",
+                        HttpStatus.BAD_GATEWAY
+                );
+            }
+            // Đơn đã được tạo, link chưa sẵn sàng: client hỏi lại qua /api/orders/{orderCode}/payment-link
+            responseData.put("pollUrl", "/api/orders/" + paymentLink.getPayosOrderCode() + "/payment-link");
             return APIResponse.responseBuilder(
                     responseData,
-                    "Order and payment link successfully created",
-                    HttpStatus.CREATED
+                    "Order created, payment link is being prepared",
+                    HttpStatus.ACCEPTED
             );
         } catch (SecurityException e) {
             return APIResponse.responseBuilder(
@@ -96,6 +142,43 @@ public class OrderController {
                     e.getMessage(),
                     HttpStatus.BAD_REQUEST
             );
+        } catch (IllegalStateException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.CONFLICT
+            );
+        } catch (Exception e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    "An unexpected error occurred: " + e.getMessage(),
+                    HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    @GetMapping("/{orderCode}/payment-link")
+    public ResponseEntity<Object> getPaymentLink(@PathVariable("orderCode") long orderCode, HttpServletRequest request) {
+        try {
+            Integer userId = jwtUtil.extractUserId(request.getHeader("Authorization").substring(7));
+            PaymentLinkResponseDto paymentLink = paymentLinkService.getPaymentLink(orderCode, userId);
+            return APIResponse.responseBuilder(
+                    paymentLink,
+                    "Payment link status retrieved successfully",
+                    HttpStatus.OK
+            );
+        } catch (SecurityException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.FORBIDDEN
+            );
+        } catch (EntityNotFoundException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.NOT_FOUND
+            );
         } catch (Exception e) {
             return APIResponse.responseBuilder(
                     null,
@@ -183,7 +266,7 @@ public class OrderController {
 
     @PutMapping("/{orderId}")
     @Transactional
-    public ResponseEntity<Object> cancelOrder(@PathVariable("orderId") int orderId,
+    public ResponseEntity<Object> cancelOrder(@PathVariable("orderId") long orderId,
                                               @RequestBody cancellationReasonBody cancellationReasonBody,
                                               HttpServletRequest request) {
         try {
@@ -198,20 +281,18 @@ public class OrderController {
             PaymentLinkData payosOrder = payOS.cancelPaymentLink(orderId, cancellationReasonBody.getCancellationReason());
 
             // Update order status
-            Order order = orderRepository.findByPayosOrderCode((long) orderId);
+            Order order = orderRepository.findByPayosOrderCode(orderId);
             if (order == null) {
                 throw new EntityNotFoundException("Order not found for PayOS order code: " + orderId);
             }
-            order.setStatus(OrderStatus.cancelled);
-            order.setCancellationReason(cancellationReasonBody.getCancellationReason());
-            orderRepository.save(order);
-
-            // Restore ticket quantities
-            List<OrderTicket> orderTickets = orderTicketRepository.findByOrder(order);
-            for (OrderTicket orderTicket : orderTickets) {
-                Ticket ticket = orderTicket.getTicket();
-                ticket.setQuantitySold(ticket.getQuantitySold() - orderTicket.getQuantity());
-                ticketRepository.save(ticket);
+            // Restore ticket quantities only if this request is the one that cancelled the order
+            String previousStatus = orderRepository.lockOrderStatus(order.getOrderId());
+            if (orderRepository.cancelIfNotCancelled(order.getOrderId(), cancellationReasonBody.getCancellationReason()) > 0) {
+                if (OrderStatus.paid.name().equals(previousStatus)) {
+                    eventSalesService.recordPaidCancelled(List.of(order.getOrderId()));
+                    checkInService.revokeOrder(order.getOrderId());
+                }
+                inventoryService.releaseOrder(order.getOrderId());
             }
 
             return APIResponse.responseBuilder(
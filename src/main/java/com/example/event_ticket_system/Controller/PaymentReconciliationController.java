@@ -0,0 +1,47 @@
+package com.example.event_ticket_system.Controller;
+
+import com.example.event_ticket_system.DTO.response.APIResponse;
+import com.example.event_ticket_system.DTO.response.PaymentReconciliationReportDto;
+import com.example.event_ticket_system.Service.PaymentReconciliationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/payments")
+@RequiredArgsConstructor
+public class PaymentReconciliationController {
+    private final PaymentReconciliationService paymentReconciliationService;
+
+    // Mặc định chỉ chạy thử (dry-run); truyền dryRun=false để áp kết quả
+    @PostMapping("/reconciliation")
+    public ResponseEntity<Object> reconcile(@RequestParam(value = "dryRun", defaultValue = "true") boolean dryRun) {
+        try {
+            PaymentReconciliationReportDto report = paymentReconciliationService.reconcile(dryRun);
+            return APIResponse.responseBuilder(
+                    report,
+                    dryRun ? "Payment reconciliation dry run completed" : "Payment reconciliation completed",
+                    HttpStatus.OK
+            );
+        } catch (IllegalStateException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.CONFLICT
+            );
+        } catch (Exception e) {
+            log.error("Payment reconciliation failed", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    "An unexpected error occurred: " + e.getMessage(),
+                    HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+}
@@ -1,24 +1,36 @@
 package com.example.event_ticket_system.Controller;
 
 import com.example.event_ticket_system.DTO.response.APIResponse;
+import com.example.event_ticket_system.DTO.response.QrImageDto;
 import com.example.event_ticket_system.DTO.response.TicketResponseDTO;
+import com.example.event_ticket_system.Service.TicketPdfService;
+import com.example.event_ticket_system.Service.TicketQrService;
 import com.example.event_ticket_system.Service.TicketService;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api")
 @RequiredArgsConstructor
 public class TicketController {
     private final TicketService ticketService;
+    private final TicketQrService ticketQrService;
+    private final TicketPdfService ticketPdfService;
 
     @GetMapping("/users/ticket/{userId}")
     public ResponseEntity<?> getTicketsByUserId(@PathVariable Integer userId, HttpServletRequest request) {
@@ -43,4 +55,85 @@ public class TicketController {
             );
         }
     }
+
+    @GetMapping("/users/ticket/{userId}/qr/{orderTicketId}")
+    public ResponseEntity<?> getTicketQrCode(@PathVariable Integer userId,
+                                             @PathVariable Integer orderTicketId,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                             HttpServletRequest request) {
+        try {
+            QrImageDto image = ticketQrService.getTicketQrCode(userId, orderTicketId, request);
+            // Ảnh chỉ phụ thuộc payload nên client đã có bản cùng ETag thì không cần gửi lại
+            if (matches(ifNoneMatch, image.getEtag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(image.getEtag()).build();
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.IMAGE_PNG)
+                    .eTag(image.getEtag())
+                    .cacheControl(CacheControl.maxAge(1, TimeUnit.DAYS).cachePrivate())
+                    .body(image.getPng());
+        } catch (SecurityException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    "You do not have permission to view tickets for this user.",
+                    HttpStatus.FORBIDDEN
+            );
+        } catch (EntityNotFoundException e) {
+            return APIResponse.responseBuilder(null, e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (IllegalStateException e) {
+            return APIResponse.responseBuilder(null, e.getMessage(), HttpStatus.CONFLICT);
+        } catch (Exception e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    "An error occurred while retrieving the QR code: " + e.getMessage(),
+                    HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    @GetMapping("/users/ticket/{userId}/pdf/{orderId}")
+    public ResponseEntity<?> getOrderTicketsPdf(@PathVariable Integer userId,
+                                                @PathVariable Integer orderId,
+                                                HttpServletRequest request) {
+        try {
+            byte[] pdf = ticketPdfService.getOrderTicketsPdf(userId, orderId, request);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_PDF)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                            .filename("Ve_" + orderId + ".pdf")
+                            .build()
+                            .toString())
+                    .cacheControl(CacheControl.noStore())
+                    .body(pdf);
+        } catch (SecurityException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    "You do not have permission to view tickets for this user.",
+                    HttpStatus.FORBIDDEN
+            );
+        } catch (EntityNotFoundException e) {
+            return APIResponse.responseBuilder(null, e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (IllegalStateException e) {
+            return APIResponse.responseBuilder(null, e.getMessage(), HttpStatus.CONFLICT);
+        } catch (Exception e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    "An error occurred while generating the e-tickets: " + e.getMessage(),
+                    HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
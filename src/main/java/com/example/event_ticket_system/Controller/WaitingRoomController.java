@@ -0,0 +1,143 @@
+package com.example.event_ticket_system.Controller;
+
+import com.example.event_ticket_system.DTO.request.WaitingRoomConfigRequestDto;
+import com.example.event_ticket_system.DTO.response.APIResponse;
+import com.example.event_ticket_system.DTO.response.WaitingRoomStatusDto;
+import com.example.event_ticket_system.Entity.WaitingRoomConfig;
+import com.example.event_ticket_system.Security.JwtUtil;
+import com.example.event_ticket_system.Service.WaitingRoomService;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class WaitingRoomController {
+    private final WaitingRoomService waitingRoomService;
+    private final JwtUtil jwtUtil;
+
+    @PostMapping("/waiting-room/events/{eventId}")
+    public ResponseEntity<Object> join(@PathVariable("eventId") Integer eventId, HttpServletRequest request) {
+        try {
+            Integer userId = jwtUtil.extractUserId(request.getHeader("Authorization").substring(7));
+            WaitingRoomStatusDto status = waitingRoomService.join(eventId, userId);
+            return APIResponse.responseBuilder(
+                    status,
+                    "Joined waiting room successfully",
+                    HttpStatus.OK
+            );
+        } catch (Exception e) {
+            log.error("Unexpected error while joining waiting room", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    "An unexpected error occurred: " + e.getMessage(),
+                    HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    @GetMapping("/waiting-room/{queueToken}")
+    public ResponseEntity<Object> getStatus(@PathVariable("queueToken") String queueToken) {
+        try {
+            return APIResponse.responseBuilder(
+                    waitingRoomService.getStatus(queueToken),
+                    "Waiting room status retrieved successfully",
+                    HttpStatus.OK
+            );
+        } catch (EntityNotFoundException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.NOT_FOUND
+            );
+        } catch (Exception e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    "An unexpected error occurred: " + e.getMessage(),
+                    HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    // EventSource không gửi được header Authorization nên token hàng đợi đóng vai trò định danh
+    @GetMapping(value = "/waiting-room/{queueToken}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@PathVariable("queueToken") String queueToken) {
+        return waitingRoomService.stream(queueToken);
+    }
+
+    @GetMapping("/admin/waiting-room/events/{eventId}")
+    public ResponseEntity<Object> getConfig(@PathVariable("eventId") Integer eventId) {
+        try {
+            return APIResponse.responseBuilder(
+                    waitingRoomService.getConfig(eventId),
+                    "Waiting room configuration retrieved successfully",
+                    HttpStatus.OK
+            );
+        } catch (EntityNotFoundException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.NOT_FOUND
+            );
+        } catch (Exception e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    "An unexpected error occurred: " + e.getMessage(),
+                    HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    @PutMapping("/admin/waiting-room/events/{eventId}")
+    public ResponseEntity<Object> updateConfig(@PathVariable("eventId") Integer eventId,
+                                               @RequestBody @Valid WaitingRoomConfigRequestDto dto,
+                                               BindingResult bindingResult) {
+        try {
+            Map<String, String> errors = new HashMap<>();
+            if (bindingResult.hasErrors()) {
+                bindingResult.getFieldErrors().forEach(error ->
+                        errors.put(error.getField(), error.getDefaultMessage())
+                );
+            }
+            if (!errors.isEmpty()) {
+                return APIResponse.responseBuilder(
+                        errors,
+                        "Validation failed",
+                        HttpStatus.BAD_REQUEST
+                );
+            }
+            WaitingRoomConfig config = waitingRoomService.updateConfig(eventId, dto);
+            return APIResponse.responseBuilder(
+                    config,
+                    "Waiting room configuration updated successfully",
+                    HttpStatus.OK
+            );
+        } catch (EntityNotFoundException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.NOT_FOUND
+            );
+        } catch (Exception e) {
+            log.error("Unexpected error while updating waiting room configuration", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    "An unexpected error occurred: " + e.getMessage(),
+                    HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.event_ticket_system.DTO.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class CheckInRequestDto {
+    @NotBlank(message = "Ticket token is required")
+    @Size(max = 64, message = "Ticket token is too long")
+    private String token;
+}
@@ -0,0 +1,22 @@
+package com.example.event_ticket_system.DTO.request;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class WaitingRoomConfigRequestDto {
+    @NotNull(message = "enabled is required")
+    private Boolean enabled;
+
+    @NotNull(message = "Admission rate is required")
+    @Min(value = 1, message = "Admission rate must be at least 1 per second")
+    @Max(value = 1000, message = "Admission rate must not exceed 1000 per second")
+    private Integer admissionRatePerSecond;
+
+    @NotNull(message = "Admission window is required")
+    @Min(value = 60, message = "Admission window must be at least 60 seconds")
+    @Max(value = 3600, message = "Admission window must not exceed 3600 seconds")
+    private Integer admissionWindowSeconds;
+}
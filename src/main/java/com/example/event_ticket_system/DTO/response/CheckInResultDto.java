@@ -0,0 +1,15 @@
+package com.example.event_ticket_system.DTO.response;
+
+import com.example.event_ticket_system.Enums.CheckInStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CheckInResultDto {
+    private CheckInStatus status;
+    private Integer orderTicketId;
+    // Số lượt đã vào sau lần quét này / số lượt tối đa của vé
+    private Integer admittedCount;
+    private Integer quantity;
+}
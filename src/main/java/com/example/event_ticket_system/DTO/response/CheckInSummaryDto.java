@@ -0,0 +1,12 @@
+package com.example.event_ticket_system.DTO.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CheckInSummaryDto {
+    private Integer eventId;
+    private long totalAdmissions;
+    private long admitted;
+}
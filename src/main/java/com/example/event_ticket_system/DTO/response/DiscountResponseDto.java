@@ -0,0 +1,30 @@
+package com.example.event_ticket_system.DTO.response;
+
+import com.example.event_ticket_system.Entity.Discount;
+import com.example.event_ticket_system.Enums.DiscountType;
+
+import java.time.LocalDate;
+
+// Bản chụp bất biến của mã giảm giá, an toàn để giữ trong cache và dùng chung giữa các request
+public record DiscountResponseDto(
+        Integer discountId,
+        String code,
+        String description,
+        DiscountType discountType,
+        Double value,
+        LocalDate validFrom,
+        LocalDate validTo,
+        Integer eventId,
+        Integer maxUsage
+) {
+    public static DiscountResponseDto from(Discount discount) {
+        return new DiscountResponseDto(discount.getDiscountId(), discount.getCode(), discount.getDescription(),
+                discount.getDiscountType(), discount.getValue(), discount.getValidFrom(), discount.getValidTo(),
+                discount.getEvent() != null ? discount.getEvent().getEventId() : null, discount.getMaxUsage());
+    }
+
+    public DiscountResponseDto withMaxUsage(Integer maxUsage) {
+        return new DiscountResponseDto(discountId, code, description, discountType, value,
+                validFrom, validTo, eventId, maxUsage);
+    }
+}
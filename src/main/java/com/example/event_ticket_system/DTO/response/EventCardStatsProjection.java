@@ -0,0 +1,6 @@
+package com.example.event_ticket_system.DTO.response;
+
+public interface EventCardStatsProjection {
+    Integer getEventId();
+    Double getMinPrice();
+}
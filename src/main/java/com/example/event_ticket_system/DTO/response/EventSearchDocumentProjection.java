@@ -0,0 +1,11 @@
+package com.example.event_ticket_system.DTO.response;
+
+public interface EventSearchDocumentProjection {
+    Integer getEventId();
+    String getEventName();
+    String getAddressName();
+    String getAddressDetail();
+    String getWardName();
+    String getDistrictName();
+    String getProvinceName();
+}
@@ -0,0 +1,22 @@
+package com.example.event_ticket_system.DTO.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class InventoryReconciliationDto {
+    private Integer ticketId;
+    private Integer quantityTotal;
+    // Giá trị quantity_sold đang lưu trong bảng tickets
+    private Integer tableQuantitySold;
+    // Tổng số vé trong order_tickets của các đơn chưa bị huỷ
+    private Long orderedQuantity;
+    // Số vé đã bán theo bộ đếm trong bộ nhớ (null khi dùng engine database)
+    private Integer counterQuantitySold;
+    // Phần chênh lệch chưa được ghi xuống bảng tickets
+    private Integer unflushedDelta;
+    private boolean consistent;
+}
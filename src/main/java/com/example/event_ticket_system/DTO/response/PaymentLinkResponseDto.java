@@ -0,0 +1,16 @@
+package com.example.event_ticket_system.DTO.response;
+
+import com.example.event_ticket_system.Enums.PaymentLinkStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentLinkResponseDto {
+    private Long payosOrderCode;
+    private PaymentLinkStatus status;
+    private String checkoutUrl;
+    private String paymentLinkId;
+}
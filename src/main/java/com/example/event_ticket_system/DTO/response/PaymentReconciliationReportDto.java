@@ -0,0 +1,27 @@
+package com.example.event_ticket_system.DTO.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class PaymentReconciliationReportDto {
+    // true: chỉ báo cáo, không ghi gì xuống DB
+    private boolean dryRun;
+    // Số đơn đã hỏi trạng thái PayOS
+    private int checkedOrders;
+    // Đơn pending mà PayOS báo đã thanh toán đủ -> chuyển sang paid
+    private List<Integer> paidOrderIds;
+    // Đơn pending mà link PayOS đã huỷ/hết hạn -> huỷ và trả vé
+    private List<Integer> cancelledOrderIds;
+    private int stillPendingOrders;
+    // Đơn đã bị huỷ tự động nhưng PayOS báo đã thu tiền: cần xử lý tay
+    private List<Integer> paidButCancelledOrderIds;
+    // PayOS báo PAID nhưng số tiền không khớp với đơn
+    private List<Integer> amountMismatchOrderIds;
+    // Không lấy được trạng thái từ PayOS (lỗi mạng, không tìm thấy link...)
+    private List<Integer> failedOrderIds;
+    private long durationMillis;
+}
@@ -0,0 +1,8 @@
+package com.example.event_ticket_system.DTO.response;
+
+import java.time.LocalDateTime;
+
+public interface PendingOrderProjection {
+    Integer getOrderId();
+    LocalDateTime getOrderDate();
+}
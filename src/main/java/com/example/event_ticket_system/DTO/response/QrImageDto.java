@@ -0,0 +1,12 @@
+package com.example.event_ticket_system.DTO.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class QrImageDto {
+    private byte[] png;
+    // ETag mạnh, đã có dấu ngoặc kép
+    private String etag;
+}
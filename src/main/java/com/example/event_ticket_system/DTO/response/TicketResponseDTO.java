@@ -31,6 +31,7 @@ public class TicketResponseDTO {
         private String ticketType;
         private Double unitPrice;
         private Integer quantity;
-        private byte[] qrCode;
+        // Đường dẫn tới ảnh QR (chỉ có với đơn đã thanh toán); danh sách vé không chứa ảnh
+        private String qrCodeUrl;
     }
 }
@@ -0,0 +1,7 @@
+package com.example.event_ticket_system.DTO.response;
+
+public interface TicketStockProjection {
+    Integer getTicketId();
+    Integer getQuantityTotal();
+    Integer getQuantitySold();
+}
@@ -0,0 +1,9 @@
+package com.example.event_ticket_system.DTO.response;
+
+public interface TicketsSoldMismatchProjection {
+    Integer getEventId();
+    // Giá trị tickets_sold đang lưu trong bảng events
+    Integer getTicketsSold();
+    // Tổng số vé trong order_tickets của các đơn đã thanh toán
+    Long getPaidQuantity();
+}
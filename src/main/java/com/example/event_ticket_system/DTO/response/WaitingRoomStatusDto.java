@@ -0,0 +1,25 @@
+package com.example.event_ticket_system.DTO.response;
+
+import com.example.event_ticket_system.Enums.WaitingRoomStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitingRoomStatusDto {
+    private Integer eventId;
+    private String queueToken;
+    private WaitingRoomStatus status;
+    // Vị trí gần đúng trong hàng đợi, null khi không còn phải chờ
+    private Long position;
+    private Long estimatedWaitSeconds;
+    private LocalDateTime admittedUntil;
+
+    public boolean canOrder() {
+        return status != WaitingRoomStatus.waiting;
+    }
+}
@@ -11,7 +11,15 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name="events")
+@Table(name="events", indexes = {
+        // Danh sách "bán chạy": lọc theo duyệt/trạng thái rồi sắp theo số vé đã bán
+        @Index(name = "idx_events_listing_tickets_sold", columnList = "approval_status, status, tickets_sold"),
+        // Phân trang keyset: (cột sắp xếp, event_id) sau điều kiện lọc bằng của từng danh sách
+        @Index(name = "idx_events_keyset_approval_updated", columnList = "approval_status, updated_at, event_id"),
+        @Index(name = "idx_events_keyset_approval_start", columnList = "approval_status, start_time, event_id"),
+        @Index(name = "idx_events_keyset_organizer_updated", columnList = "organizer_id, updated_at, event_id"),
+        @Index(name = "idx_events_keyset_updated", columnList = "updated_at, event_id")
+})
 public class Event {
     @Id
     @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
@@ -69,4 +77,9 @@ public class Event {
 
     @Column(name="rejection_reason")
     private String rejectionReason;
+
+    // Tổng số vé thuộc các đơn đã thanh toán; do EventSalesService cập nhật bằng UPDATE cộng dồn, không ghi qua entity
+    @Column(name = "tickets_sold", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "INT NOT NULL DEFAULT 0")
+    private int ticketsSold;
 }
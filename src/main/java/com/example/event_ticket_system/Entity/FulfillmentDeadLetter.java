@@ -0,0 +1,41 @@
+package com.example.event_ticket_system.Entity;
+
+import com.example.event_ticket_system.Enums.FulfillmentStage;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Việc giao vé đã hết số lần thử, giữ lại để admin xử lý tay.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "fulfillment_dead_letters")
+public class FulfillmentDeadLetter {
+    @Id
+    @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
+    @Column(name = "dead_letter_id")
+    private Integer deadLetterId;
+
+    @Column(name = "job_id", nullable = false)
+    private Integer jobId;
+
+    @Column(name = "order_id", nullable = false)
+    private Integer orderId;
+
+    @Column(name = "stage", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private FulfillmentStage stage;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "error", length = 2000)
+    private String error;
+
+    @Column(name = "failed_at", nullable = false)
+    private java.time.LocalDateTime failedAt;
+}
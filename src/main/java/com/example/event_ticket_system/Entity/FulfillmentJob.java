@@ -0,0 +1,54 @@
+package com.example.event_ticket_system.Entity;
+
+import com.example.event_ticket_system.Enums.FulfillmentJobStatus;
+import com.example.event_ticket_system.Enums.FulfillmentStage;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Việc giao vé sau khi đơn được thanh toán (tạo QR rồi gửi email), ghi cùng transaction với việc
+ * chuyển đơn sang paid. Mỗi bước chạy trên pool riêng, lỗi được thử lại theo next_attempt_at.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "fulfillment_jobs", indexes = {
+        @Index(name = "idx_fulfillment_jobs_status_next_attempt", columnList = "status, next_attempt_at")
+})
+public class FulfillmentJob {
+    @Id
+    @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
+    @Column(name = "job_id")
+    private Integer jobId;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", referencedColumnName = "order_id", nullable = false, unique = true)
+    private Order order;
+
+    @Column(name = "stage", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private FulfillmentStage stage = FulfillmentStage.qr_code;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private FulfillmentJobStatus status = FulfillmentJobStatus.pending;
+
+    // Số lần thử của bước hiện tại, về 0 khi sang bước mới
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private java.time.LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private java.time.LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private java.time.LocalDateTime updatedAt;
+}
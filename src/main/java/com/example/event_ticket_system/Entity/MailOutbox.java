@@ -0,0 +1,61 @@
+package com.example.event_ticket_system.Entity;
+
+import com.example.event_ticket_system.Enums.MailStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Email chờ gửi: toàn bộ MIME message (kể cả file đính kèm) đã được dựng sẵn lúc xếp hàng,
+ * worker của MailOutboxService chỉ việc gửi qua một kết nối SMTP dùng lại được.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "mail_outbox", indexes = {
+        @Index(name = "idx_mail_outbox_status_priority_next_attempt", columnList = "status, priority, next_attempt_at")
+})
+public class MailOutbox {
+    @Id
+    @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
+    @Column(name = "mail_id")
+    private Long mailId;
+
+    @Column(name = "recipient", nullable = false, length = 320)
+    private String recipient;
+
+    @Column(name = "subject", length = 255)
+    private String subject;
+
+    // Số lớn gửi trước
+    @Column(name = "priority", nullable = false)
+    private Integer priority = 0;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private MailStatus status = MailStatus.pending;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private java.time.LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Lob
+    @Column(name = "mime_message", nullable = false, columnDefinition = "MEDIUMBLOB")
+    private byte[] mimeMessage;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private java.time.LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private java.time.LocalDateTime updatedAt;
+
+    @Column(name = "sent_at")
+    private java.time.LocalDateTime sentAt;
+}
@@ -9,8 +9,13 @@ import lombok.*;
 @NoArgsConstructor
 @AllArgsConstructor
 public class OrderTicket {
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // IDENTITY buộc Hibernate insert từng dòng; sequence pooled (bảng order_tickets_seq trên MySQL)
+    // cấp sẵn 50 id một lần nên các dòng của một đơn được insert theo JDBC batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_tickets_seq")
+    @SequenceGenerator(name = "order_tickets_seq", sequenceName = "order_tickets_seq", allocationSize = OrderTicket.ID_ALLOCATION_SIZE)
     @Column(name = "order_ticket_id")
     private Integer orderTicketId;
 
@@ -28,8 +33,12 @@ public class OrderTicket {
     @Column(name = "unit_price", nullable = false)
     private double unitPrice;
 
-    @Lob
-    @Column(name = "qr_code", columnDefinition = "MEDIUMBLOB")
-    @Basic(fetch = FetchType.LAZY)
-    private byte[] qrCode;
+    // Nội dung của mã QR (token vé Base45 có chữ ký); ảnh được vẽ khi cần (TicketQrService), không lưu trong bảng.
+    // Cột qr_code (MEDIUMBLOB) cũ không còn được map để mọi truy vấn vé không phải kéo theo ảnh
+    @Column(name = "qr_payload", length = 255)
+    private String qrPayload;
+
+    // Số lượt đã vào cổng (tối đa quantity); được ghi trễ từ CheckInService
+    @Column(name = "admitted_count", nullable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private int admittedCount;
 }
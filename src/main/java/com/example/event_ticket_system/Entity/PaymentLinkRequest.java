@@ -0,0 +1,77 @@
+package com.example.event_ticket_system.Entity;
+
+import com.example.event_ticket_system.Enums.PaymentLinkStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outbox cho việc tạo link thanh toán PayOS: được ghi cùng transaction với đơn hàng,
+ * sau đó worker mới gọi PayOS ngoài transaction và gắn link vào đây.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "payment_link_requests", indexes = {
+        @Index(name = "idx_payment_link_requests_status_next_attempt", columnList = "status, next_attempt_at")
+})
+public class PaymentLinkRequest {
+    @Id
+    @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
+    @Column(name = "request_id")
+    private Integer requestId;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", referencedColumnName = "order_id", nullable = false, unique = true)
+    private Order order;
+
+    @Column(name = "payos_order_code", nullable = false, unique = true)
+    private Long payosOrderCode;
+
+    // orderCode đang dùng ở PayOS (null = payosOrderCode); đổi khi link cũ bị bỏ vì PayOS không nhận lại mã trùng.
+    // payosOrderCode giữ nguyên để client vẫn hỏi trạng thái bằng mã đã nhận lúc đặt hàng
+    @Column(name = "link_order_code", unique = true)
+    private Long linkOrderCode;
+
+    @Column(name = "amount", nullable = false)
+    private Integer amount;
+
+    @Column(name = "item_name", nullable = false)
+    private String itemName;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Column(name = "return_url", length = 1000)
+    private String returnUrl;
+
+    @Column(name = "cancel_url", length = 1000)
+    private String cancelUrl;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private PaymentLinkStatus status = PaymentLinkStatus.pending;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private java.time.LocalDateTime nextAttemptAt;
+
+    @Column(name = "checkout_url", length = 1000)
+    private String checkoutUrl;
+
+    @Column(name = "payment_link_id")
+    private String paymentLinkId;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private java.time.LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private java.time.LocalDateTime updatedAt;
+}
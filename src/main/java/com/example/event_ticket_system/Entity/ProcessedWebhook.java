@@ -0,0 +1,33 @@
+package com.example.event_ticket_system.Entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sổ ghi các webhook PayOS đã xử lý; khoá duy nhất (payos_order_code, reference) chặn việc xử lý lặp
+ * khi PayOS gửi lại, kể cả khi hai lần gửi tới hai node cùng lúc.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "processed_webhooks", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_processed_webhooks_order_code_reference", columnNames = {"payos_order_code", "reference"})
+})
+public class ProcessedWebhook {
+    @Id
+    @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
+    @Column(name = "processed_webhook_id")
+    private Integer processedWebhookId;
+
+    @Column(name = "payos_order_code", nullable = false)
+    private Long payosOrderCode;
+
+    @Column(name = "reference", nullable = false, length = 100)
+    private String reference;
+
+    @Column(name = "processed_at", nullable = false)
+    private java.time.LocalDateTime processedAt;
+}
@@ -0,0 +1,31 @@
+package com.example.event_ticket_system.Entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "waiting_room_configs")
+public class WaitingRoomConfig {
+    @Id
+    @Column(name = "event_id")
+    private Integer eventId;
+
+    @Column(name = "enabled", nullable = false)
+    private Boolean enabled;
+
+    // Số người được vào trang đặt vé mỗi giây
+    @Column(name = "admission_rate_per_second", nullable = false)
+    private Integer admissionRatePerSecond;
+
+    // Thời gian người đã được vào có thể đặt vé trước khi phải xếp hàng lại
+    @Column(name = "admission_window_seconds", nullable = false)
+    private Integer admissionWindowSeconds;
+
+    @Column(name = "updated_at")
+    private java.time.LocalDateTime updatedAt;
+}
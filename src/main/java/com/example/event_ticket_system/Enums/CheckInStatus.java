@@ -0,0 +1,8 @@
+package com.example.event_ticket_system.Enums;
+
+public enum CheckInStatus {
+    admitted,
+    already_admitted,
+    invalid_ticket,
+    wrong_event,
+}
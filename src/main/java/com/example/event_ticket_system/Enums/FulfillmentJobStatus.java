@@ -0,0 +1,8 @@
+package com.example.event_ticket_system.Enums;
+
+public enum FulfillmentJobStatus {
+    pending,
+    processing,
+    completed,
+    dead,
+}
@@ -0,0 +1,7 @@
+package com.example.event_ticket_system.Enums;
+
+public enum FulfillmentStage {
+    qr_code,
+    email,
+    completed,
+}
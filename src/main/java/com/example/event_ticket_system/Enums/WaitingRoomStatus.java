@@ -0,0 +1,7 @@
+package com.example.event_ticket_system.Enums;
+
+public enum WaitingRoomStatus {
+    not_required,
+    waiting,
+    admitted,
+}
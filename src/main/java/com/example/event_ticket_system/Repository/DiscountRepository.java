@@ -3,6 +3,9 @@ package com.example.event_ticket_system.Repository;
 import com.example.event_ticket_system.Entity.Discount;
 import com.example.event_ticket_system.Entity.Event;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,4 +16,10 @@ public interface DiscountRepository extends JpaRepository<Discount, Integer> {
     Optional<Discount> findByCode(String code);
 
     List<Discount> findByEvent(Event event);
+
+    // Trừ một lượt dùng nếu còn; trả về 0 khi mã đã hết lượt (không thể dùng quá maxUsage khi mua đồng thời)
+    @Modifying
+    @Query("UPDATE Discount d SET d.maxUsage = d.maxUsage - 1 " +
+            "WHERE d.discountId = :discountId AND d.maxUsage > 0")
+    int redeem(@Param("discountId") Integer discountId);
 }
@@ -1,23 +1,37 @@
 package com.example.event_ticket_system.Repository;
 
+import com.example.event_ticket_system.DTO.response.EventSearchDocumentProjection;
 import com.example.event_ticket_system.DTO.response.RecommendEventsResponseDto;
+import com.example.event_ticket_system.DTO.response.TicketsSoldMismatchProjection;
 import com.example.event_ticket_system.Entity.Event;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface EventRepository extends JpaRepository<Event, Integer>, JpaSpecificationExecutor<Event> {
+public interface EventRepository extends JpaRepository<Event, Integer>, JpaSpecificationExecutor<Event>, EventWindowRepository {
+    // Nạp người tổ chức và địa chỉ (phường -> quận -> tỉnh) bằng join thay vì mỗi dòng vài câu SELECT riêng
+    @Override
+    @EntityGraph(attributePaths = {"organizer", "ward", "ward.district", "ward.district.province"})
+    Page<Event> findAll(Specification<Event> spec, Pageable pageable);
+
     @Query("SELECT e FROM Event e " +
             "WHERE e.category IN :genres " +
             "AND e.startTime >= :now " +
             "AND e.status = com.example.event_ticket_system.Enums.EventStatus.upcoming " +
             "AND e.approvalStatus = com.example.event_ticket_system.Enums.ApprovalStatus.approved")
+    @EntityGraph(attributePaths = {"organizer", "ward", "ward.district", "ward.district.province"})
     List<Event> findUpcomingEventsByGenres(@Param("genres") List<String> genres,
                                            @Param("now") LocalDateTime now);
 
@@ -26,5 +40,55 @@ public interface EventRepository extends JpaRepository<Event, Integer>, JpaSpeci
             "WHERE e.startTime >= :now " +
             "AND e.status = com.example.event_ticket_system.Enums.EventStatus.upcoming " +
             "AND e.approvalStatus = com.example.event_ticket_system.Enums.ApprovalStatus.approved")
+    @EntityGraph(attributePaths = {"organizer", "ward", "ward.district", "ward.district.province"})
     List<Event> findAllUpcomingEvents(@Param("now") LocalDateTime now);
+
+    // Cộng (sign = 1) hoặc trừ (sign = -1) số vé của các đơn vào tickets_sold, gộp theo sự kiện trong một câu UPDATE
+    @Modifying
+    @Query(value = "UPDATE events e JOIN (" +
+            "SELECT t.event_id, SUM(ot.quantity) AS quantity FROM order_tickets ot " +
+            "JOIN tickets t ON t.ticket_id = ot.ticket_id " +
+            "WHERE ot.order_id IN (:orderIds) GROUP BY t.event_id) s ON s.event_id = e.event_id " +
+            "SET e.tickets_sold = e.tickets_sold + :sign * s.quantity",
+            nativeQuery = true)
+    int adjustTicketsSoldForOrders(@Param("orderIds") Collection<Integer> orderIds, @Param("sign") int sign);
+
+    @Query("SELECT e.eventId FROM Event e WHERE e.eventId > :afterId ORDER BY e.eventId")
+    List<Integer> findEventIdsAfter(@Param("afterId") Integer afterId, Pageable pageable);
+
+    // Tính lại tickets_sold từ order_tickets của các đơn đã thanh toán (backfill / sửa lệch)
+    @Modifying
+    @Query(value = "UPDATE events e LEFT JOIN (" +
+            "SELECT t.event_id, SUM(ot.quantity) AS quantity FROM order_tickets ot " +
+            "JOIN orders o ON o.order_id = ot.order_id " +
+            "JOIN tickets t ON t.ticket_id = ot.ticket_id " +
+            "WHERE o.status = 'paid' AND t.event_id IN (:eventIds) GROUP BY t.event_id) s ON s.event_id = e.event_id " +
+            "SET e.tickets_sold = COALESCE(s.quantity, 0) " +
+            "WHERE e.event_id IN (:eventIds)",
+            nativeQuery = true)
+    int recomputeTicketsSold(@Param("eventIds") Collection<Integer> eventIds);
+
+    @Query(value = "SELECT e.event_id AS eventId, e.tickets_sold AS ticketsSold, COALESCE(s.quantity, 0) AS paidQuantity " +
+            "FROM events e LEFT JOIN (" +
+            "SELECT t.event_id, SUM(ot.quantity) AS quantity FROM order_tickets ot " +
+            "JOIN orders o ON o.order_id = ot.order_id " +
+            "JOIN tickets t ON t.ticket_id = ot.ticket_id " +
+            "WHERE o.status = 'paid' GROUP BY t.event_id) s ON s.event_id = e.event_id " +
+            "WHERE e.tickets_sold <> COALESCE(s.quantity, 0) " +
+            "ORDER BY e.event_id",
+            nativeQuery = true)
+    List<TicketsSoldMismatchProjection> findTicketsSoldMismatches();
+
+    // Nội dung văn bản của sự kiện cho chỉ mục tìm kiếm trong bộ nhớ, nạp theo lô eventId tăng dần
+    @Query("SELECT e.eventId AS eventId, e.eventName AS eventName, e.addressName AS addressName, " +
+            "e.addressDetail AS addressDetail, w.name AS wardName, d.name AS districtName, p.name AS provinceName " +
+            "FROM Event e JOIN e.ward w JOIN w.district d JOIN d.province p " +
+            "WHERE e.eventId > :afterId ORDER BY e.eventId")
+    List<EventSearchDocumentProjection> findSearchDocumentsAfter(@Param("afterId") Integer afterId, Pageable pageable);
+
+    @Query("SELECT e.eventId AS eventId, e.eventName AS eventName, e.addressName AS addressName, " +
+            "e.addressDetail AS addressDetail, w.name AS wardName, d.name AS districtName, p.name AS provinceName " +
+            "FROM Event e JOIN e.ward w JOIN w.district d JOIN d.province p " +
+            "WHERE e.updatedAt >= :since")
+    List<EventSearchDocumentProjection> findSearchDocumentsUpdatedSince(@Param("since") LocalDateTime since);
 }
@@ -0,0 +1,17 @@
+package com.example.event_ticket_system.Repository;
+
+import com.example.event_ticket_system.Entity.Event;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface EventWindowRepository {
+    // Tối đa limit sự kiện đầu tiên theo sort, nạp kèm người tổ chức và địa chỉ; không chạy câu COUNT như findAll(spec, pageable)
+    List<Event> findWindow(Specification<Event> specification, Sort sort, int limit);
+
+    // Một trang dạng Slice (đọc size + 1 dòng để biết hasNext), không COUNT; pageable không sắp xếp thì giữ ORDER BY của specification
+    Slice<Event> findSlice(Specification<Event> specification, Pageable pageable);
+}
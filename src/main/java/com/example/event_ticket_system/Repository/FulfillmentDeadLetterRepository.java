@@ -0,0 +1,9 @@
+package com.example.event_ticket_system.Repository;
+
+import com.example.event_ticket_system.Entity.FulfillmentDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FulfillmentDeadLetterRepository extends JpaRepository<FulfillmentDeadLetter, Integer> {
+}
@@ -0,0 +1,66 @@
+package com.example.event_ticket_system.Repository;
+
+import com.example.event_ticket_system.Entity.FulfillmentJob;
+import com.example.event_ticket_system.Enums.FulfillmentStage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface FulfillmentJobRepository extends JpaRepository<FulfillmentJob, Integer> {
+    // Nhận việc: chỉ một worker (trên bất kỳ node nào) chuyển được pending -> processing
+    @Modifying
+    @Query("UPDATE FulfillmentJob j SET j.status = com.example.event_ticket_system.Enums.FulfillmentJobStatus.processing, " +
+            "j.attempts = j.attempts + 1, j.updatedAt = :now " +
+            "WHERE j.jobId = :jobId " +
+            "AND j.status = com.example.event_ticket_system.Enums.FulfillmentJobStatus.pending")
+    int claim(@Param("jobId") Integer jobId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE FulfillmentJob j SET j.stage = :stage, " +
+            "j.status = com.example.event_ticket_system.Enums.FulfillmentJobStatus.pending, " +
+            "j.attempts = 0, j.nextAttemptAt = :now, j.lastError = null, j.updatedAt = :now " +
+            "WHERE j.jobId = :jobId")
+    int advance(@Param("jobId") Integer jobId, @Param("stage") FulfillmentStage stage, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE FulfillmentJob j SET j.stage = com.example.event_ticket_system.Enums.FulfillmentStage.completed, " +
+            "j.status = com.example.event_ticket_system.Enums.FulfillmentJobStatus.completed, " +
+            "j.lastError = null, j.updatedAt = :now " +
+            "WHERE j.jobId = :jobId")
+    int markCompleted(@Param("jobId") Integer jobId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE FulfillmentJob j SET j.status = com.example.event_ticket_system.Enums.FulfillmentJobStatus.pending, " +
+            "j.lastError = :error, j.nextAttemptAt = :nextAttemptAt, j.updatedAt = :now " +
+            "WHERE j.jobId = :jobId")
+    int markRetry(@Param("jobId") Integer jobId,
+                  @Param("error") String error,
+                  @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                  @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE FulfillmentJob j SET j.status = com.example.event_ticket_system.Enums.FulfillmentJobStatus.dead, " +
+            "j.lastError = :error, j.updatedAt = :now " +
+            "WHERE j.jobId = :jobId")
+    int markDead(@Param("jobId") Integer jobId, @Param("error") String error, @Param("now") LocalDateTime now);
+
+    // Worker chết giữa chừng (node bị tắt) thì trả việc về pending cho lần quét sau
+    @Modifying
+    @Query("UPDATE FulfillmentJob j SET j.status = com.example.event_ticket_system.Enums.FulfillmentJobStatus.pending, " +
+            "j.nextAttemptAt = :now " +
+            "WHERE j.status = com.example.event_ticket_system.Enums.FulfillmentJobStatus.processing " +
+            "AND j.updatedAt < :staleBefore")
+    int resetStale(@Param("staleBefore") LocalDateTime staleBefore, @Param("now") LocalDateTime now);
+
+    @Query("SELECT j FROM FulfillmentJob j " +
+            "WHERE j.status = com.example.event_ticket_system.Enums.FulfillmentJobStatus.pending " +
+            "AND j.nextAttemptAt <= :now ORDER BY j.nextAttemptAt")
+    List<FulfillmentJob> findDueJobs(@Param("now") LocalDateTime now, Pageable pageable);
+}
@@ -0,0 +1,76 @@
+package com.example.event_ticket_system.Repository;
+
+import com.example.event_ticket_system.Entity.MailOutbox;
+import com.example.event_ticket_system.Enums.MailStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MailOutboxRepository extends JpaRepository<MailOutbox, Long> {
+    // Khoá một lô email đến hạn có priority >= minPriority, ưu tiên cao trước; SKIP LOCKED để các worker/node không chờ nhau
+    @Query(value = "SELECT mail_id FROM mail_outbox " +
+            "WHERE status = 'pending' AND next_attempt_at <= :now AND priority >= :minPriority " +
+            "ORDER BY priority DESC, next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockDueMailIds(@Param("now") LocalDateTime now,
+                              @Param("minPriority") int minPriority,
+                              @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE MailOutbox m SET m.status = com.example.event_ticket_system.Enums.MailStatus.sending, " +
+            "m.attempts = m.attempts + 1, m.updatedAt = :now " +
+            "WHERE m.mailId IN :mailIds")
+    int markSending(@Param("mailIds") Collection<Long> mailIds, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE MailOutbox m SET m.status = com.example.event_ticket_system.Enums.MailStatus.sent, " +
+            "m.lastError = null, m.sentAt = :now, m.updatedAt = :now " +
+            "WHERE m.mailId IN :mailIds")
+    int markSent(@Param("mailIds") Collection<Long> mailIds, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE MailOutbox m SET m.status = com.example.event_ticket_system.Enums.MailStatus.pending, " +
+            "m.lastError = :error, m.nextAttemptAt = :nextAttemptAt, m.updatedAt = :now " +
+            "WHERE m.mailId = :mailId")
+    int markRetry(@Param("mailId") Long mailId,
+                  @Param("error") String error,
+                  @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                  @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE MailOutbox m SET m.status = com.example.event_ticket_system.Enums.MailStatus.dead, " +
+            "m.lastError = :error, m.updatedAt = :now " +
+            "WHERE m.mailId = :mailId")
+    int markDead(@Param("mailId") Long mailId, @Param("error") String error, @Param("now") LocalDateTime now);
+
+    // Trả lại phần còn lại của lô khi dừng giữa chừng (SMTP báo 4xx); lần thử chưa diễn ra nên không tính
+    @Modifying
+    @Query("UPDATE MailOutbox m SET m.status = com.example.event_ticket_system.Enums.MailStatus.pending, " +
+            "m.attempts = m.attempts - 1, m.nextAttemptAt = :nextAttemptAt, m.updatedAt = :now " +
+            "WHERE m.mailId IN :mailIds " +
+            "AND m.status = com.example.event_ticket_system.Enums.MailStatus.sending")
+    int release(@Param("mailIds") Collection<Long> mailIds,
+                @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                @Param("now") LocalDateTime now);
+
+    // Worker chết giữa chừng (node bị tắt) thì trả email về pending
+    @Modifying
+    @Query("UPDATE MailOutbox m SET m.status = com.example.event_ticket_system.Enums.MailStatus.pending, " +
+            "m.nextAttemptAt = :now " +
+            "WHERE m.status = com.example.event_ticket_system.Enums.MailStatus.sending " +
+            "AND m.updatedAt < :staleBefore")
+    int resetStale(@Param("staleBefore") LocalDateTime staleBefore, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM MailOutbox m " +
+            "WHERE m.status = com.example.event_ticket_system.Enums.MailStatus.sent AND m.sentAt < :before")
+    int purgeSent(@Param("before") LocalDateTime before);
+
+    long countByStatus(MailStatus status);
+}
@@ -1,20 +1,109 @@
 package com.example.event_ticket_system.Repository;
 
+import com.example.event_ticket_system.DTO.response.ExpiredOrderProjection;
+import com.example.event_ticket_system.DTO.response.PendingOrderProjection;
+import com.example.event_ticket_system.DTO.response.ReconciliationCandidateProjection;
 import com.example.event_ticket_system.Entity.Order;
 import com.example.event_ticket_system.Enums.OrderStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order,Integer> {
     Order findByPayosOrderCode(Long payosOrderCode);
-    List<Order> findByStatusAndOrderDateBefore(OrderStatus orderStatus, LocalDateTime cutoff);
+
+    @Query("SELECT MAX(o.payosOrderCode) FROM Order o")
+    Long findMaxPayosOrderCode();
+    long countByStatusAndOrderDateBefore(OrderStatus orderStatus, LocalDateTime cutoff);
     List<Order> findByUserId(Integer userId);
     Page<Order> findAll(Specification<Order> specification, Pageable pageable);
+
+    // Chỉ lấy id và thời điểm đặt của các đơn pending để dựng lại lịch hết hạn khi khởi động
+    @Query("SELECT o.orderId AS orderId, o.orderDate AS orderDate FROM Order o " +
+            "WHERE o.status = com.example.event_ticket_system.Enums.OrderStatus.pending")
+    List<PendingOrderProjection> findPendingOrders();
+
+    // Chuyển trạng thái sang cancelled đúng một lần, để vé chỉ được trả lại một lần
+    @Modifying
+    @Query("UPDATE Order o SET o.status = com.example.event_ticket_system.Enums.OrderStatus.cancelled, " +
+            "o.cancellationReason = :reason " +
+            "WHERE o.orderId = :orderId " +
+            "AND o.status <> com.example.event_ticket_system.Enums.OrderStatus.cancelled")
+    int cancelIfNotCancelled(@Param("orderId") Integer orderId, @Param("reason") String reason);
+
+    // Chỉ huỷ đơn còn pending (đơn vừa được thanh toán sẽ không bị huỷ nhầm)
+    @Modifying
+    @Query("UPDATE Order o SET o.status = com.example.event_ticket_system.Enums.OrderStatus.cancelled, " +
+            "o.cancellationReason = :reason " +
+            "WHERE o.orderId = :orderId " +
+            "AND o.status = com.example.event_ticket_system.Enums.OrderStatus.pending")
+    int cancelIfPending(@Param("orderId") Integer orderId, @Param("reason") String reason);
+
+    // Khoá một lô đơn pending đã quá hạn; SKIP LOCKED để nhiều node (hoặc timing wheel) không chờ nhau
+    @Query(value = "SELECT order_id AS orderId, payos_order_code AS payosOrderCode FROM orders " +
+            "WHERE status = 'pending' AND order_date < :cutoff " +
+            "ORDER BY order_id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<ExpiredOrderProjection> lockExpiredPendingOrders(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = com.example.event_ticket_system.Enums.OrderStatus.cancelled, " +
+            "o.cancellationReason = :reason " +
+            "WHERE o.orderId IN :orderIds " +
+            "AND o.status = com.example.event_ticket_system.Enums.OrderStatus.pending")
+    int cancelPendingOrders(@Param("orderIds") Collection<Integer> orderIds, @Param("reason") String reason);
+
+    // Chỉ đơn còn pending mới được chuyển sang paid; webhook lặp lại hoặc đơn đã huỷ trả về 0
+    @Modifying
+    @Query("UPDATE Order o SET o.status = com.example.event_ticket_system.Enums.OrderStatus.paid " +
+            "WHERE o.orderId = :orderId " +
+            "AND o.status = com.example.event_ticket_system.Enums.OrderStatus.pending")
+    int markPaidIfPending(@Param("orderId") Integer orderId);
+
+    // Đổi sang orderCode mới khi link cũ ở PayOS không dùng lại được; chỉ áp cho đơn còn pending
+    @Modifying
+    @Query("UPDATE Order o SET o.payosOrderCode = :payosOrderCode " +
+            "WHERE o.orderId = :orderId " +
+            "AND o.status = com.example.event_ticket_system.Enums.OrderStatus.pending")
+    int replacePayosOrderCodeIfPending(@Param("orderId") Integer orderId, @Param("payosOrderCode") Long payosOrderCode);
+
+    // Đơn pending đủ cũ để đối soát với PayOS (webhook có thể đã bị mất)
+    @Query("SELECT o.orderId AS orderId, o.payosOrderCode AS payosOrderCode, o.totalAmount AS totalAmount FROM Order o " +
+            "WHERE o.status = com.example.event_ticket_system.Enums.OrderStatus.pending " +
+            "AND o.orderDate < :cutoff AND o.payosOrderCode IS NOT NULL " +
+            "ORDER BY o.orderId")
+    List<ReconciliationCandidateProjection> findPendingForReconciliation(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    // Đơn bị huỷ tự động gần đây; nếu PayOS báo đã thu tiền thì cần xử lý tay (vé đã trả về kho)
+    @Query("SELECT o.orderId AS orderId, o.payosOrderCode AS payosOrderCode, o.totalAmount AS totalAmount FROM Order o " +
+            "WHERE o.status = com.example.event_ticket_system.Enums.OrderStatus.cancelled " +
+            "AND o.cancellationReason = :reason AND o.orderDate >= :since AND o.payosOrderCode IS NOT NULL " +
+            "ORDER BY o.orderId")
+    List<ReconciliationCandidateProjection> findCancelledForReconciliation(@Param("reason") String reason,
+                                                                           @Param("since") LocalDateTime since,
+                                                                           Pageable pageable);
+
+    // Khoá các đơn còn pending trong danh sách trước khi áp kết quả đối soát
+    @Query(value = "SELECT order_id FROM orders WHERE order_id IN (:orderIds) AND status = 'pending' FOR UPDATE",
+            nativeQuery = true)
+    List<Integer> lockPendingOrderIds(@Param("orderIds") Collection<Integer> orderIds);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = com.example.event_ticket_system.Enums.OrderStatus.paid " +
+            "WHERE o.orderId IN :orderIds " +
+            "AND o.status = com.example.event_ticket_system.Enums.OrderStatus.pending")
+    int markPendingOrdersPaid(@Param("orderIds") Collection<Integer> orderIds);
+
+    // Khoá đơn và đọc trạng thái hiện tại, để biết lần huỷ này có huỷ một đơn đã thanh toán hay không
+    @Query(value = "SELECT status FROM orders WHERE order_id = :orderId FOR UPDATE", nativeQuery = true)
+    String lockOrderStatus(@Param("orderId") Integer orderId);
 }
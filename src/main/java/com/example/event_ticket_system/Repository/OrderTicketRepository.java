@@ -1,17 +1,22 @@
 package com.example.event_ticket_system.Repository;
 
+import com.example.event_ticket_system.DTO.response.AdmissionProjection;
 import com.example.event_ticket_system.DTO.response.DailyTicketSalesProjection;
 import com.example.event_ticket_system.DTO.response.DailyTicketTypeSalesProjection;
+import com.example.event_ticket_system.DTO.response.TicketQuantityProjection;
 import com.example.event_ticket_system.Entity.Order;
 import com.example.event_ticket_system.Entity.OrderTicket;
 import com.example.event_ticket_system.Entity.Event;
 import com.example.event_ticket_system.Entity.Ticket;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderTicketRepository extends JpaRepository<OrderTicket, Integer> {
@@ -28,6 +33,70 @@ public interface OrderTicketRepository extends JpaRepository<OrderTicket, Intege
 
     List<OrderTicket> findByOrderOrderId(Integer orderId);
 
+    // Nạp sẵn loại vé và sự kiện cho bước tạo QR / gửi email (chạy ngoài transaction)
+    @Query("SELECT ot FROM OrderTicket ot JOIN FETCH ot.ticket t JOIN FETCH t.event " +
+            "WHERE ot.order.orderId = :orderId ORDER BY ot.orderTicketId")
+    List<OrderTicket> findWithTicketAndEventByOrderId(@Param("orderId") Integer orderId);
+
+    // Nạp đủ dữ liệu để kiểm tra quyền và dựng payload QR của một vé
+    @Query("SELECT ot FROM OrderTicket ot JOIN FETCH ot.order o JOIN FETCH o.user " +
+            "JOIN FETCH ot.ticket t JOIN FETCH t.event WHERE ot.orderTicketId = :orderTicketId")
+    Optional<OrderTicket> findWithOrderAndTicketById(@Param("orderTicketId") Integer orderTicketId);
+
+    @Modifying
+    @Query("UPDATE OrderTicket ot SET ot.qrPayload = :qrPayload WHERE ot.orderTicketId = :orderTicketId")
+    int updateQrPayload(@Param("orderTicketId") Integer orderTicketId, @Param("qrPayload") String qrPayload);
+
+    // Xoá ảnh QR cũ (cột không còn được map) sau khi vé đã có payload
+    @Modifying
+    @Query(value = "UPDATE order_tickets SET qr_code = NULL WHERE order_ticket_id = :orderTicketId AND qr_code IS NOT NULL",
+            nativeQuery = true)
+    int clearLegacyQrCode(@Param("orderTicketId") Integer orderTicketId);
+
+    // Vé đã thanh toán của sự kiện để nạp trạng thái soát vé, sắp theo id
+    @Query("SELECT ot.orderTicketId AS orderTicketId, ot.quantity AS quantity, ot.admittedCount AS admittedCount " +
+            "FROM OrderTicket ot " +
+            "WHERE ot.ticket.event.eventId = :eventId " +
+            "AND ot.order.status = com.example.event_ticket_system.Enums.OrderStatus.paid " +
+            "ORDER BY ot.orderTicketId")
+    List<AdmissionProjection> findAdmissionsByEventId(@Param("eventId") Integer eventId);
+
+    @Query("SELECT DISTINCT ot.ticket.event.eventId FROM OrderTicket ot WHERE ot.order.orderId = :orderId")
+    List<Integer> findEventIdsByOrderId(@Param("orderId") Integer orderId);
+
+    @Query("SELECT ot.orderTicketId AS orderTicketId, ot.quantity AS quantity, ot.admittedCount AS admittedCount " +
+            "FROM OrderTicket ot " +
+            "WHERE ot.orderTicketId = :orderTicketId " +
+            "AND ot.ticket.event.eventId = :eventId " +
+            "AND ot.order.status = com.example.event_ticket_system.Enums.OrderStatus.paid")
+    Optional<AdmissionProjection> findAdmission(@Param("orderTicketId") Integer orderTicketId, @Param("eventId") Integer eventId);
+
+    // Chỉ tăng: lần ghi đến muộn với số nhỏ hơn không làm giảm số lượt đã lưu
+    @Modifying
+    @Query("UPDATE OrderTicket ot SET ot.admittedCount = :admittedCount " +
+            "WHERE ot.orderTicketId = :orderTicketId AND ot.admittedCount < :admittedCount")
+    int updateAdmittedCount(@Param("orderTicketId") Integer orderTicketId, @Param("admittedCount") int admittedCount);
+
+    @Query("SELECT ot.ticket.ticketId AS ticketId, SUM(ot.quantity) AS quantity " +
+            "FROM OrderTicket ot " +
+            "WHERE ot.order.orderId = :orderId " +
+            "GROUP BY ot.ticket.ticketId")
+    List<TicketQuantityProjection> sumQuantityByTicketForOrder(@Param("orderId") Integer orderId);
+
+    // Gộp số vé theo loại vé cho cả một lô đơn, để trả vé bằng một lần cập nhật mỗi loại
+    @Query("SELECT ot.ticket.ticketId AS ticketId, SUM(ot.quantity) AS quantity " +
+            "FROM OrderTicket ot " +
+            "WHERE ot.order.orderId IN :orderIds " +
+            "GROUP BY ot.ticket.ticketId")
+    List<TicketQuantityProjection> sumQuantityByTicketForOrders(@Param("orderIds") Collection<Integer> orderIds);
+
+    // Số vé đang bị giữ hoặc đã bán theo từng loại vé (bỏ qua đơn đã huỷ)
+    @Query("SELECT ot.ticket.ticketId AS ticketId, SUM(ot.quantity) AS quantity " +
+            "FROM OrderTicket ot " +
+            "WHERE ot.order.status <> com.example.event_ticket_system.Enums.OrderStatus.cancelled " +
+            "GROUP BY ot.ticket.ticketId")
+    List<TicketQuantityProjection> sumActiveQuantityByTicket();
+
     boolean existsByTicket(Ticket ticket);
 
     // Sử dụng interface projection
@@ -0,0 +1,34 @@
+package com.example.event_ticket_system.Repository;
+
+import com.example.event_ticket_system.Entity.OrderTicket;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Các dòng order_tickets cũ được tạo bằng AUTO_INCREMENT, nên trước khi nhận request phải đẩy
+ * bảng order_tickets_seq vượt qua id lớn nhất hiện có để id cấp từ sequence không bị trùng.
+ * Chỉ tăng, không bao giờ giảm, nên chạy lại trên nhiều node cùng lúc vẫn an toàn.
+ */
+@Slf4j
+@Component
+// Chạy sau khi Hibernate đã tạo bảng order_tickets_seq
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class OrderTicketSequenceInitializer {
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void alignSequence() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(order_ticket_id), 0) FROM order_tickets", Long.class);
+        // Optimizer pooled dùng giá trị đọc được làm cận trên của khối id, nên chừa thêm một khối
+        long floor = (maxId == null ? 0 : maxId) + OrderTicket.ID_ALLOCATION_SIZE + 1;
+        int updated = jdbcTemplate.update("UPDATE order_tickets_seq SET next_val = ? WHERE next_val < ?", floor, floor);
+        if (updated > 0) {
+            log.info("Moved order_tickets_seq to {} (max order_ticket_id = {})", floor, maxId);
+        }
+    }
+}
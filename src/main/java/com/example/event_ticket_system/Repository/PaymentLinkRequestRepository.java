@@ -0,0 +1,71 @@
+package com.example.event_ticket_system.Repository;
+
+import com.example.event_ticket_system.Entity.PaymentLinkRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PaymentLinkRequestRepository extends JpaRepository<PaymentLinkRequest, Integer> {
+    @Query("SELECT r FROM PaymentLinkRequest r JOIN FETCH r.order WHERE r.payosOrderCode = :payosOrderCode")
+    Optional<PaymentLinkRequest> findWithOrderByPayosOrderCode(@Param("payosOrderCode") Long payosOrderCode);
+
+    // Nhận việc: chỉ một worker (trên bất kỳ node nào) chuyển được pending -> processing
+    @Modifying
+    @Query("UPDATE PaymentLinkRequest r SET r.status = com.example.event_ticket_system.Enums.PaymentLinkStatus.processing, " +
+            "r.attempts = r.attempts + 1, r.updatedAt = :now " +
+            "WHERE r.requestId = :requestId " +
+            "AND r.status = com.example.event_ticket_system.Enums.PaymentLinkStatus.pending")
+    int claim(@Param("requestId") Integer requestId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE PaymentLinkRequest r SET r.status = com.example.event_ticket_system.Enums.PaymentLinkStatus.created, " +
+            "r.checkoutUrl = :checkoutUrl, r.paymentLinkId = :paymentLinkId, r.lastError = null, r.updatedAt = :now " +
+            "WHERE r.requestId = :requestId")
+    int markCreated(@Param("requestId") Integer requestId,
+                    @Param("checkoutUrl") String checkoutUrl,
+                    @Param("paymentLinkId") String paymentLinkId,
+                    @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE PaymentLinkRequest r SET r.status = com.example.event_ticket_system.Enums.PaymentLinkStatus.pending, " +
+            "r.lastError = :error, r.nextAttemptAt = :nextAttemptAt, r.updatedAt = :now " +
+            "WHERE r.requestId = :requestId")
+    int markRetry(@Param("requestId") Integer requestId,
+                  @Param("error") String error,
+                  @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                  @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE PaymentLinkRequest r SET r.status = com.example.event_ticket_system.Enums.PaymentLinkStatus.failed, " +
+            "r.lastError = :error, r.updatedAt = :now " +
+            "WHERE r.requestId = :requestId")
+    int markFailed(@Param("requestId") Integer requestId, @Param("error") String error, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE PaymentLinkRequest r SET r.linkOrderCode = :linkOrderCode, r.updatedAt = :now " +
+            "WHERE r.requestId = :requestId")
+    int updateLinkOrderCode(@Param("requestId") Integer requestId,
+                            @Param("linkOrderCode") Long linkOrderCode,
+                            @Param("now") LocalDateTime now);
+
+    // Worker chết giữa chừng (node bị tắt) thì trả việc về pending cho lần quét sau
+    @Modifying
+    @Query("UPDATE PaymentLinkRequest r SET r.status = com.example.event_ticket_system.Enums.PaymentLinkStatus.pending, " +
+            "r.nextAttemptAt = :now " +
+            "WHERE r.status = com.example.event_ticket_system.Enums.PaymentLinkStatus.processing " +
+            "AND r.updatedAt < :staleBefore")
+    int resetStale(@Param("staleBefore") LocalDateTime staleBefore, @Param("now") LocalDateTime now);
+
+    @Query("SELECT r.requestId FROM PaymentLinkRequest r " +
+            "WHERE r.status = com.example.event_ticket_system.Enums.PaymentLinkStatus.pending " +
+            "AND r.nextAttemptAt <= :now ORDER BY r.nextAttemptAt")
+    List<Integer> findDueRequestIds(@Param("now") LocalDateTime now, Pageable pageable);
+}
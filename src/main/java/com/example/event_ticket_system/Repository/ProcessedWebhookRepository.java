@@ -0,0 +1,10 @@
+package com.example.event_ticket_system.Repository;
+
+import com.example.event_ticket_system.Entity.ProcessedWebhook;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProcessedWebhookRepository extends JpaRepository<ProcessedWebhook, Integer> {
+    boolean existsByPayosOrderCodeAndReference(Long payosOrderCode, String reference);
+}
@@ -1,14 +1,41 @@
 package com.example.event_ticket_system.Repository;
 
+import com.example.event_ticket_system.DTO.response.EventCardStatsProjection;
+import com.example.event_ticket_system.DTO.response.TicketStockProjection;
 import com.example.event_ticket_system.Entity.Event;
 import com.example.event_ticket_system.Entity.Ticket;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface TicketRepository extends JpaRepository<Ticket,Integer> {
     List<Ticket> findByEvent(Event event);
     List<Ticket> findByEventEventId(Integer eventId);
+
+    // Nạp mọi loại vé của một đơn hàng cùng sự kiện trong một truy vấn
+    @Query("SELECT t FROM Ticket t JOIN FETCH t.event WHERE t.ticketId IN :ticketIds")
+    List<Ticket> findAllWithEventByTicketIdIn(@Param("ticketIds") Collection<Integer> ticketIds);
+
+    @Query("SELECT t.ticketId AS ticketId, t.quantityTotal AS quantityTotal, t.quantitySold AS quantitySold " +
+            "FROM Ticket t")
+    List<TicketStockProjection> findAllStock();
+
+    @Query("SELECT t.ticketId AS ticketId, t.quantityTotal AS quantityTotal, t.quantitySold AS quantitySold " +
+            "FROM Ticket t WHERE t.ticketId IN :ticketIds")
+    List<TicketStockProjection> findStockByTicketIds(@Param("ticketIds") Collection<Integer> ticketIds);
+
+    // Giá thấp nhất cho cả trang sự kiện trong một truy vấn (số vé đã bán nằm sẵn ở events.tickets_sold); sự kiện chưa có vé không có dòng
+    @Query("SELECT t.event.eventId AS eventId, MIN(t.price) AS minPrice " +
+            "FROM Ticket t WHERE t.event.eventId IN :eventIds GROUP BY t.event.eventId")
+    List<EventCardStatsProjection> findCardStatsByEventIds(@Param("eventIds") Collection<Integer> eventIds);
+
+    @Modifying
+    @Query("UPDATE Ticket t SET t.quantitySold = :quantitySold WHERE t.ticketId = :ticketId")
+    int updateQuantitySold(@Param("ticketId") Integer ticketId, @Param("quantitySold") int quantitySold);
 }
@@ -6,6 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -50,6 +51,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/events").authenticated()
                         .requestMatchers("/api/events/*").permitAll()
                         .requestMatchers("/api/chat").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/waiting-room/*", "/api/waiting-room/*/stream").permitAll()
                         .requestMatchers("/api/admin/**").hasAuthority("ROLE_admin")
                         .requestMatchers("/api/customer/**").hasAuthority("ROLE_customer")
                         .requestMatchers("/api/organizer/**").hasAuthority("ROLE_organizer")
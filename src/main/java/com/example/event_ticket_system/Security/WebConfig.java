@@ -1,5 +1,8 @@
 package com.example.event_ticket_system.Security;
 
+import com.example.event_ticket_system.Repository.OrderRepository;
+import com.example.event_ticket_system.Util.PayosOrderCodeGenerator;
+import com.example.event_ticket_system.Util.TicketTokenCodec;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -8,6 +11,8 @@ import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import vn.payos.PayOS;
 
+import java.util.HexFormat;
+
 @Configuration
 public class    WebConfig implements WebMvcConfigurer {
 
@@ -26,6 +31,14 @@ public class    WebConfig implements WebMvcConfigurer {
     @Value("${PAYOS_CHECKSUM_KEY}")
     private String checksumKey;
 
+    // Mỗi node phải có một id riêng (0-15) để mã PayOS không trùng giữa các node
+    @Value("${payos.order-code.node-id:0}")
+    private int orderCodeNodeId;
+
+    // Khoá HMAC của token vé (hex, tối thiểu 32 byte); máy soát vé offline dùng cùng khoá này
+    @Value("${ticket.token.secret}")
+    private String ticketTokenSecret;
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
@@ -48,4 +61,15 @@ public class    WebConfig implements WebMvcConfigurer {
     public PayOS payOS() {
         return new PayOS(clientId, apiKey, checksumKey);
     }
+
+    @Bean
+    public PayosOrderCodeGenerator payosOrderCodeGenerator(OrderRepository orderRepository) {
+        Long lastIssuedCode = orderRepository.findMaxPayosOrderCode();
+        return new PayosOrderCodeGenerator(orderCodeNodeId, lastIssuedCode == null ? 0 : lastIssuedCode);
+    }
+
+    @Bean
+    public TicketTokenCodec ticketTokenCodec() {
+        return new TicketTokenCodec(HexFormat.of().parseHex(ticketTokenSecret));
+    }
 }
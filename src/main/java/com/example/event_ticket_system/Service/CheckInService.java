@@ -0,0 +1,23 @@
+package com.example.event_ticket_system.Service;
+
+import com.example.event_ticket_system.DTO.response.CheckInResultDto;
+import com.example.event_ticket_system.DTO.response.CheckInSummaryDto;
+import jakarta.servlet.http.HttpServletRequest;
+
+public interface CheckInService {
+    /**
+     * Kiểm tra token vé quét tại cổng và ghi nhận một lượt vào (tối đa quantity lượt mỗi OrderTicket).
+     */
+    CheckInResultDto checkIn(Integer eventId, String token, HttpServletRequest request);
+
+    /**
+     * Tổng số lượt vào đã dùng của sự kiện; lần gọi đầu cũng nạp sẵn trạng thái soát vé.
+     */
+    CheckInSummaryDto getSummary(Integer eventId, HttpServletRequest request);
+
+    /**
+     * Đơn đã thanh toán vừa bị huỷ; gọi trong transaction huỷ đơn. Sau khi commit, trạng thái soát vé đã nạp
+     * của các sự kiện trong đơn bị bỏ để lần quét sau nạp lại (không còn vé của đơn này).
+     */
+    void revokeOrder(Integer orderId);
+}
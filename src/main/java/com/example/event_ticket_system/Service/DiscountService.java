@@ -1,7 +1,20 @@
 package com.example.event_ticket_system.Service;
 
-import com.example.event_ticket_system.Entity.Discount;
+import com.example.event_ticket_system.DTO.response.DiscountResponseDto;
+
+import java.util.Collection;
 
 public interface DiscountService {
-    Discount getDiscountByCode(String code);
+    DiscountResponseDto getDiscountByCode(String code);
+
+    /**
+     * Kiểm tra mã cho sự kiện và trừ một lượt dùng bằng một câu UPDATE có điều kiện.
+     * Chạy trong transaction của đơn hàng nên lượt dùng được hoàn lại nếu đơn bị rollback.
+     */
+    DiscountResponseDto redeem(String code, Integer eventId);
+
+    /**
+     * Xoá các mã khỏi cache (kể cả cache "không tồn tại") sau khi transaction hiện tại commit.
+     */
+    void evict(Collection<String> codes);
 }
@@ -3,41 +3,54 @@ package com.example.event_ticket_system.Service;
 import com.example.event_ticket_system.Entity.OrderTicket;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ByteArrayResource;
-import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.MailPreparationException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 
+/**
+ * Dựng email và đưa vào outbox; việc gửi SMTP do MailOutboxService thực hiện bất đồng bộ.
+ */
+@Slf4j
 @Service
 public class EmailService {
     private final JavaMailSender mailSender;
+    private final MailOutboxService mailOutboxService;
 
     @Autowired
-    public EmailService(JavaMailSender mailSender) {
+    public EmailService(JavaMailSender mailSender, MailOutboxService mailOutboxService) {
         this.mailSender = mailSender;
+        this.mailOutboxService = mailOutboxService;
     }
 
     /**
-     * Gửi email xác thực với nội dung xác thực được truyền vào.
+     * Gửi email xác thực với nội dung xác thực được truyền vào (ưu tiên cao trong outbox).
      */
     public void sendVerificationEmail(String toUserEmail, String verificationCode) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom("dlvietanh2k4@gmail.com");
-        message.setTo(toUserEmail);
-        message.setSubject("Mã xác thực Email");
-        message.setText("Mã xác thực email của bạn là: " + verificationCode + "\nMã này có hiệu lực trong 5 phút.");
-        mailSender.send(message);
+        try {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+            helper.setFrom("dlvietanh2k4@gmail.com");
+            helper.setTo(toUserEmail);
+            helper.setSubject("Mã xác thực Email");
+            helper.setText("Mã xác thực email của bạn là: " + verificationCode + "\nMã này có hiệu lực trong 5 phút.");
+            mailOutboxService.enqueue(message, MailOutboxService.PRIORITY_HIGH);
+        } catch (MessagingException e) {
+            throw new MailPreparationException("Could not build verification email", e);
+        }
     }
 
     /**
-     * Gửi email với nhiều QR codes (một cho mỗi loại vé)
+     * Gửi email với nhiều QR codes (một cho mỗi loại vé) và vé điện tử PDF của cả đơn
      */
     public void sendMultipleQRCodeEmail(String to, String subject, String text,
-                                        List<byte[]> qrCodes, List<OrderTicket> orderTickets) throws MessagingException {
+                                        List<byte[]> qrCodes, List<OrderTicket> orderTickets,
+                                        byte[] ticketPdf) throws MessagingException {
 
         if (orderTickets == null || orderTickets.isEmpty()) {
             throw new IllegalArgumentException("OrderTickets list cannot be null or empty");
@@ -88,7 +101,7 @@ public class EmailService {
         emailContent.append("</tr>");
         emailContent.append("</table>");
         emailContent.append("<br>");
-        emailContent.append("<p><strong>🔍 Lưu ý:</strong> Mỗi loại vé có một mã QR riêng được đính kèm. Vui lòng tải xuống và lưu trữ cẩn thận.</p>");
+        emailContent.append("<p><strong>🔍 Lưu ý:</strong> Mỗi loại vé có một mã QR riêng được đính kèm, cùng file PDF vé điện tử để in. Vui lòng tải xuống và lưu trữ cẩn thận.</p>");
         emailContent.append("<p><em>Cảm ơn bạn đã sử dụng dịch vụ của chúng tôi!</em></p>");
         emailContent.append("</body></html>");
 
@@ -110,12 +123,16 @@ public class EmailService {
                         ticketType);
 
                 helper.addAttachment(fileName, new ByteArrayResource(qrCode));
-                System.out.println("Attached QR code: " + fileName + " (" + qrCode.length + " bytes)");
+                log.debug("Attached QR code {} ({} bytes)", fileName, qrCode.length);
             }
         }
 
-        System.out.println("Sending email to: " + to + " with " + qrCodes.size() + " QR codes");
-        mailSender.send(message);
-        System.out.println("Email sent successfully!");
+        if (ticketPdf != null && ticketPdf.length > 0) {
+            String fileName = "Ve_" + orderTickets.get(0).getOrder().getOrderId() + ".pdf";
+            helper.addAttachment(fileName, new ByteArrayResource(ticketPdf), "application/pdf");
+        }
+
+        mailOutboxService.enqueue(message, MailOutboxService.PRIORITY_NORMAL);
+        log.info("Queued ticket email to {} with {} QR codes", to, qrCodes.size());
     }
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+package com.example.event_ticket_system.Service;
+
+import com.example.event_ticket_system.DTO.response.TicketsSoldMismatchProjection;
+import com.example.event_ticket_system.Repository.EventRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Duy trì cột events.tickets_sold (tổng vé của các đơn đã thanh toán) để danh sách "bán chạy"
+ * được sắp xếp và phân trang ngay trong SQL. Cột được cộng/trừ trong cùng transaction với việc đổi trạng thái đơn;
+ * backfill tính lại theo lô sự kiện và bộ kiểm tra định kỳ so sánh với order_tickets.
+ */
+@Slf4j
+@Service
+public class EventSalesService {
+    private final EventRepository eventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int backfillChunkSize;
+    private final AtomicInteger mismatches = new AtomicInteger();
+
+    public EventSalesService(EventRepository eventRepository,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${events.tickets-sold.backfill-chunk-size:500}") int backfillChunkSize) {
+        this.eventRepository = eventRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.backfillChunkSize = backfillChunkSize;
+        Gauge.builder("events.tickets_sold.mismatches", mismatches, AtomicInteger::get)
+                .description("Events whose tickets_sold differs from paid order_tickets at the last check")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Các đơn vừa chuyển sang paid; gọi trong transaction đổi trạng thái.
+     */
+    public void recordPaid(Collection<Integer> orderIds) {
+        if (!orderIds.isEmpty()) {
+            eventRepository.adjustTicketsSoldForOrders(orderIds, 1);
+        }
+    }
+
+    /**
+     * Các đơn đã paid vừa bị huỷ; gọi trong transaction huỷ đơn.
+     */
+    public void recordPaidCancelled(Collection<Integer> orderIds) {
+        if (!orderIds.isEmpty()) {
+            eventRepository.adjustTicketsSoldForOrders(orderIds, -1);
+        }
+    }
+
+    /**
+     * Tính lại tickets_sold cho mọi sự kiện, mỗi lô backfill-chunk-size sự kiện là một transaction ngắn.
+     * Trả về số sự kiện đã xử lý.
+     */
+    public int backfill() {
+        int total = 0;
+        Integer afterId = 0;
+        while (true) {
+            List<Integer> eventIds = eventRepository.findEventIdsAfter(afterId, PageRequest.of(0, backfillChunkSize));
+            if (eventIds.isEmpty()) {
+                break;
+            }
+            transactionTemplate.executeWithoutResult(status -> eventRepository.recomputeTicketsSold(eventIds));
+            total += eventIds.size();
+            afterId = eventIds.get(eventIds.size() - 1);
+            if (eventIds.size() < backfillChunkSize) {
+                break;
+            }
+        }
+        log.info("Recomputed tickets_sold for {} events", total);
+        return total;
+    }
+
+    public List<TicketsSoldMismatchProjection> findMismatches() {
+        List<TicketsSoldMismatchProjection> found = eventRepository.findTicketsSoldMismatches();
+        mismatches.set(found.size());
+        return found;
+    }
+
+    @Scheduled(fixedDelayString = "${events.tickets-sold.check-interval-ms:3600000}", initialDelayString = "${events.tickets-sold.check-interval-ms:3600000}")
+    public void checkConsistency() {
+        try {
+            List<TicketsSoldMismatchProjection> found = findMismatches();
+            if (!found.isEmpty()) {
+                // Đơn đang đổi trạng thái lúc kiểm tra có thể gây lệch tạm thời; lệch kéo dài thì chạy backfill
+                log.warn("tickets_sold differs from paid order_tickets for {} events, first event id {}",
+                        found.size(), found.get(0).getEventId());
+            }
+        } catch (Exception e) {
+            log.error("tickets_sold consistency check failed", e);
+        }
+    }
+}
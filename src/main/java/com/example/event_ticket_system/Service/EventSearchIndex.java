@@ -0,0 +1,173 @@
+package com.example.event_ticket_system.Service;
+
+import com.example.event_ticket_system.DTO.response.EventSearchDocumentProjection;
+import com.example.event_ticket_system.Entity.Event;
+import com.example.event_ticket_system.Entity.Ward;
+import com.example.event_ticket_system.Repository.EventRepository;
+import com.example.event_ticket_system.Util.InvertedIndex;
+import com.example.event_ticket_system.Util.VietnameseText;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Tìm sự kiện theo tên/địa chỉ không phân biệt dấu ("ha noi" khớp "Hà Nội") bằng chỉ mục ngược trong bộ nhớ,
+ * thay cho LIKE '%...%' quét cả bảng events. Chỉ mục được dựng khi khởi động, cập nhật sau commit khi tạo/sửa/duyệt
+ * sự kiện trên node này và đồng bộ định kỳ theo updated_at (thay đổi từ node khác). Chưa dựng xong thì search trả về
+ * Optional.empty() để nơi gọi dùng lại LIKE.
+ */
+@Slf4j
+@Service
+public class EventSearchIndex {
+    public static final int FIELD_NAME = 1;
+    public static final int FIELD_ADDRESS_NAME = 1 << 1;
+    public static final int FIELD_ADDRESS_DETAIL = 1 << 2;
+    public static final int FIELD_WARD = 1 << 3;
+    public static final int FIELD_DISTRICT = 1 << 4;
+    public static final int FIELD_PROVINCE = 1 << 5;
+    public static final int ADDRESS_FIELDS =
+            FIELD_ADDRESS_NAME | FIELD_ADDRESS_DETAIL | FIELD_WARD | FIELD_DISTRICT | FIELD_PROVINCE;
+
+    // Theo thứ tự bit ở trên: khớp tên sự kiện xếp trước khớp tên địa điểm, rồi mới đến địa chỉ hành chính
+    private static final int[] FIELD_WEIGHTS = {8, 4, 2, 2, 2, 2};
+    // Bù cho lệch đồng hồ giữa các node và transaction commit chậm hơn updated_at của nó
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(2);
+
+    private final EventRepository eventRepository;
+    private final InvertedIndex index = new InvertedIndex(FIELD_WEIGHTS);
+    private final int maxResults;
+    private final int maxFilterIds;
+    private final int loadChunkSize;
+    private final Timer queryTimer;
+    private volatile boolean ready;
+    private volatile LocalDateTime lastRefresh;
+
+    public EventSearchIndex(EventRepository eventRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${search.index.max-results:1000}") int maxResults,
+                            @Value("${search.index.max-filter-ids:1000}") int maxFilterIds,
+                            @Value("${search.index.load-chunk-size:2000}") int loadChunkSize) {
+        this.eventRepository = eventRepository;
+        this.maxResults = maxResults;
+        this.maxFilterIds = maxFilterIds;
+        this.loadChunkSize = loadChunkSize;
+        this.queryTimer = Timer.builder("search.index.query")
+                .description("In-memory event search latency")
+                .register(meterRegistry);
+        Gauge.builder("search.index.documents", index, InvertedIndex::size)
+                .description("Events held in the in-memory search index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sự kiện khớp mọi từ của query trong các trường fieldMask: ids là toàn bộ kết quả (dùng để lọc),
+     * ranked là tối đa max-results id xếp theo độ liên quan (chỉ dùng để sắp xếp).
+     * Optional.empty() khi chỉ mục chưa sẵn sàng, query không có từ nào, hoặc query quá rộng (khớp hơn max-filter-ids
+     * sự kiện, vd. một chữ cái): danh sách eventId IN (...) khi đó quá dài nên để nơi gọi dùng LIKE.
+     */
+    public Optional<InvertedIndex.Matches> search(String query, int fieldMask) {
+        if (!ready || VietnameseText.tokenize(query).isEmpty()) {
+            return Optional.empty();
+        }
+        InvertedIndex.Matches matches = queryTimer.record(() -> index.match(query, fieldMask, maxResults, maxFilterIds));
+        return matches.count() > maxFilterIds ? Optional.empty() : Optional.of(matches);
+    }
+
+    /**
+     * Cập nhật chỉ mục cho sự kiện khi transaction hiện tại commit (ngay lập tức nếu không có transaction).
+     */
+    public void indexAfterCommit(Event event) {
+        Integer eventId = event.getEventId();
+        Ward ward = event.getWard();
+        String[] fields = {
+                event.getEventName(),
+                event.getAddressName(),
+                event.getAddressDetail(),
+                ward != null ? ward.getName() : null,
+                ward != null && ward.getDistrict() != null ? ward.getDistrict().getName() : null,
+                ward != null && ward.getDistrict() != null && ward.getDistrict().getProvince() != null
+                        ? ward.getDistrict().getProvince().getName() : null
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    index.put(eventId, fields);
+                }
+            });
+        } else {
+            index.put(eventId, fields);
+        }
+    }
+
+    /**
+     * Dựng lại toàn bộ chỉ mục từ bảng events (theo lô eventId) rồi thay chỉ mục cũ một lần.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            InvertedIndex fresh = new InvertedIndex(FIELD_WEIGHTS);
+            int total = 0;
+            Integer afterId = 0;
+            while (true) {
+                List<EventSearchDocumentProjection> documents =
+                        eventRepository.findSearchDocumentsAfter(afterId, PageRequest.of(0, loadChunkSize));
+                documents.forEach(document -> put(fresh, document));
+                total += documents.size();
+                if (documents.size() < loadChunkSize) {
+                    break;
+                }
+                afterId = documents.get(documents.size() - 1).getEventId();
+            }
+            index.replaceWith(fresh);
+            // Cập nhật sau commit xảy ra trong lúc dựng có thể bị ghi đè; lần refresh kế tiếp sẽ nạp lại chúng
+            lastRefresh = startedAt;
+            ready = true;
+            log.info("Built search index for {} events", total);
+        } catch (Exception e) {
+            log.error("Failed to build event search index, falling back to LIKE search", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.index.refresh-interval-ms:60000}", initialDelayString = "${search.index.refresh-interval-ms:60000}")
+    public void refresh() {
+        if (!ready) {
+            rebuild();
+            return;
+        }
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            List<EventSearchDocumentProjection> changed =
+                    eventRepository.findSearchDocumentsUpdatedSince(lastRefresh.minus(REFRESH_OVERLAP));
+            changed.forEach(document -> put(index, document));
+            lastRefresh = startedAt;
+        } catch (Exception e) {
+            log.error("Event search index refresh failed", e);
+        }
+    }
+
+    private static void put(InvertedIndex target, EventSearchDocumentProjection document) {
+        target.put(document.getEventId(),
+                document.getEventName(),
+                document.getAddressName(),
+                document.getAddressDetail(),
+                document.getWardName(),
+                document.getDistrictName(),
+                document.getProvinceName());
+    }
+}
@@ -12,11 +12,11 @@ import java.util.Map;
 public interface EventService {
     Integer createEvent(EventRequestDto eventRequestDto, MultipartFile logoFile, MultipartFile backgroundFile, HttpServletRequest request);
     DetailEventResponseDto getEventById(Integer eventId, HttpServletRequest request);
-    Map<String,Object> getEventsByOrganizer(HttpServletRequest request, String status, String approveStatus, LocalDateTime startTime, LocalDateTime endTime, String name, Integer page, Integer size);
-    Map<String, Object> getRecommendEvents(String category, String address, LocalDateTime startTime, LocalDateTime endTime, String name, Integer page, Integer size, String sortBy);
-    Map<String, Object> getPendingEvents(HttpServletRequest request,String address, LocalDateTime startTime, LocalDateTime endTime, String name,  Integer page, Integer size);
+    Map<String,Object> getEventsByOrganizer(HttpServletRequest request, String status, String approveStatus, LocalDateTime startTime, LocalDateTime endTime, String name, Integer page, Integer size, String cursor);
+    Map<String, Object> getRecommendEvents(String category, String address, LocalDateTime startTime, LocalDateTime endTime, String name, Integer page, Integer size, String sortBy, String cursor, boolean includeTotal);
+    Map<String, Object> getPendingEvents(HttpServletRequest request,String address, LocalDateTime startTime, LocalDateTime endTime, String name,  Integer page, Integer size, String cursor);
     void updateEvent(Integer eventId, UpdateEventRequestDto eventRequestDto, MultipartFile logoFile, MultipartFile backgroundFile, HttpServletRequest request);
-    Map<String, Object> getListEvents(HttpServletRequest request,String status, String approvalStatus, String address, LocalDateTime startTime, LocalDateTime endTime, String name, Integer page, Integer size);
+    Map<String, Object> getListEvents(HttpServletRequest request,String status, String approvalStatus, String address, LocalDateTime startTime, LocalDateTime endTime, String name, Integer page, Integer size, String cursor);
     byte[] generateExcelReport(HttpServletRequest request, Integer eventId);
     byte[] generatePdfReport(HttpServletRequest request, Integer eventId);
     byte[] generateBuyerReportExcel(HttpServletRequest request, Integer eventId);
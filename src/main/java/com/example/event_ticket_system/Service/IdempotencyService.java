@@ -0,0 +1,113 @@
+package com.example.event_ticket_system.Service;
+
+import com.example.event_ticket_system.Util.TtlCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Lưu kết quả của các request có header Idempotency-Key trong bộ nhớ (giới hạn số key, có hạn sống).
+ * Request lặp lại nhận lại kết quả cũ; các bản trùng gửi đồng thời chờ chung một lần thực thi.
+ * Lần thực thi lỗi thì key được giải phóng để client thử lại.
+ * Nội dung request được so bằng SHA-256 của JSON chuẩn hoá (khoá sắp theo thứ tự chữ cái).
+ */
+@Service
+public class IdempotencyService {
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final ObjectMapper CANONICAL_JSON = JsonMapper.builder()
+            .findAndAddModules()
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private record Execution(String fingerprint, CompletableFuture<Object> result) {
+    }
+
+    private final TtlCache<String, Execution> executions;
+    private final Duration ttl;
+    private final long waitTimeoutMillis;
+
+    public IdempotencyService(@Value("${idempotency.ttl-seconds:1800}") long ttlSeconds,
+                              @Value("${idempotency.max-keys:100000}") int maxKeys,
+                              @Value("${idempotency.wait-timeout-ms:30000}") long waitTimeoutMillis) {
+        this.executions = new TtlCache<>(maxKeys);
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.waitTimeoutMillis = waitTimeoutMillis;
+    }
+
+    /**
+     * Chạy action một lần cho mỗi key; key đã dùng thì trả về (hoặc chờ) kết quả của lần đầu.
+     * Cùng key nhưng nội dung request khác thì ném IllegalStateException.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Object request, Supplier<T> action) {
+        Execution execution = new Execution(fingerprint(request), new CompletableFuture<>());
+        Execution existing = executions.putIfAbsent(key, execution, ttl);
+        if (existing != null) {
+            return (T) await(existing, request);
+        }
+        try {
+            T value = action.get();
+            execution.result().complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            executions.invalidate(key, execution);
+            execution.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Kết quả đã có (hoặc đang chạy) của key, không thực thi gì mới.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> find(String key, Object request) {
+        Execution existing = executions.get(key);
+        return existing == null ? Optional.empty() : Optional.ofNullable((T) await(existing, request));
+    }
+
+    private Object await(Execution execution, Object request) {
+        if (!execution.fingerprint().equals(fingerprint(request))) {
+            throw new IllegalStateException("Idempotency-Key was already used for a different request");
+        }
+        try {
+            return execution.result().get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("A request with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the original request");
+        }
+    }
+
+    private static String fingerprint(Object request) {
+        try {
+            byte[] body = CANONICAL_JSON.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot fingerprint request", e);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.event_ticket_system.Service.Impl;
+
+import com.example.event_ticket_system.DTO.response.AdmissionProjection;
+import com.example.event_ticket_system.DTO.response.CheckInResultDto;
+import com.example.event_ticket_system.DTO.response.CheckInSummaryDto;
+import com.example.event_ticket_system.Entity.Event;
+import com.example.event_ticket_system.Enums.CheckInStatus;
+import com.example.event_ticket_system.Repository.EventRepository;
+import com.example.event_ticket_system.Repository.OrderTicketRepository;
+import com.example.event_ticket_system.Security.JwtUtil;
+import com.example.event_ticket_system.Service.CheckInService;
+import com.example.event_ticket_system.Util.AdmissionCounters;
+import com.example.event_ticket_system.Util.TicketTokenCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Soát vé tại cổng. Trạng thái của mỗi sự kiện (vé đã thanh toán, số lượt đã vào) được nạp một lần vào bộ nhớ;
+ * mỗi lần quét chỉ kiểm tra chữ ký token và tăng bộ đếm bằng CAS, không chạm DB.
+ * Số lượt vào được ghi xuống order_tickets.admitted_count theo lô (write-behind).
+ * Trạng thái nằm trên từng node: các cổng của một sự kiện cần được định tuyến về cùng một node.
+ * Sự kiện không được quét trong idle-evict-minutes (thường là đã kết thúc) bị bỏ khỏi bộ nhớ sau khi ghi xong;
+ * huỷ một đơn đã thanh toán cũng bỏ trạng thái của sự kiện đó để vé của đơn không còn được cho vào.
+ */
+@Slf4j
+@Service
+public class CheckInServiceImpl implements CheckInService {
+    private record EventAdmissions(Integer organizerId, AdmissionCounters counters, AtomicLong lastUsedMillis) {
+    }
+
+    private final OrderTicketRepository orderTicketRepository;
+    private final EventRepository eventRepository;
+    private final JwtUtil jwtUtil;
+    private final TicketTokenCodec ticketTokenCodec;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Integer, EventAdmissions> events = new ConcurrentHashMap<>();
+    private final Timer scanTimer;
+    private final Map<CheckInStatus, Counter> scanCounters = new EnumMap<>(CheckInStatus.class);
+    private final long idleEvictMillis;
+
+    public CheckInServiceImpl(OrderTicketRepository orderTicketRepository,
+                              EventRepository eventRepository,
+                              JwtUtil jwtUtil,
+                              TicketTokenCodec ticketTokenCodec,
+                              TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${checkin.idle-evict-minutes:30}") long idleEvictMinutes) {
+        this.orderTicketRepository = orderTicketRepository;
+        this.eventRepository = eventRepository;
+        this.jwtUtil = jwtUtil;
+        this.ticketTokenCodec = ticketTokenCodec;
+        this.transactionTemplate = transactionTemplate;
+        this.idleEvictMillis = TimeUnit.MINUTES.toMillis(idleEvictMinutes);
+        this.scanTimer = Timer.builder("checkin.scan.latency")
+                .description("Time to validate a scanned ticket and record the admission")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        for (CheckInStatus status : CheckInStatus.values()) {
+            scanCounters.put(status, Counter.builder("checkin.scans")
+                    .description("Scanned tickets by result")
+                    .tag("result", status.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public CheckInResultDto checkIn(Integer eventId, String token, HttpServletRequest request) {
+        Integer organizerId = authorizeOrganizer(request);
+        EventAdmissions admissions = admissions(eventId);
+        if (!admissions.organizerId().equals(organizerId)) {
+            throw new SecurityException("You do not have permission to check in tickets for this event.");
+        }
+        long start = System.nanoTime();
+        CheckInResultDto result;
+        while ((result = admit(eventId, admissions.counters(), token)) == null) {
+            // Bộ đếm đã đóng vì đang bị bỏ khỏi bộ nhớ: chờ ghi xong rồi quét lại trên bản nạp mới từ DB
+            awaitEviction(admissions);
+            admissions = admissions(eventId);
+        }
+        scanTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        scanCounters.get(result.getStatus()).increment();
+        return result;
+    }
+
+    @Override
+    public CheckInSummaryDto getSummary(Integer eventId, HttpServletRequest request) {
+        Integer organizerId = authorizeOrganizer(request);
+        EventAdmissions admissions = admissions(eventId);
+        if (!admissions.organizerId().equals(organizerId)) {
+            throw new SecurityException("You do not have permission to view check-ins for this event.");
+        }
+        return new CheckInSummaryDto(eventId, admissions.counters().totalQuantity(), admissions.counters().totalAdmitted());
+    }
+
+    // Trả về null nếu bộ đếm đã đóng
+    private CheckInResultDto admit(Integer eventId, AdmissionCounters counters, String token) {
+        TicketTokenCodec.TicketToken ticket = ticketTokenCodec.verify(token);
+        if (ticket == null) {
+            return new CheckInResultDto(CheckInStatus.invalid_ticket, null, null, null);
+        }
+        int orderTicketId = ticket.orderTicketId();
+        if (ticket.eventId() != eventId) {
+            return new CheckInResultDto(CheckInStatus.wrong_event, orderTicketId, null, null);
+        }
+        int admission = counters.tryAdmit(orderTicketId);
+        if (admission == AdmissionCounters.UNKNOWN) {
+            // Vé thanh toán sau lúc nạp; vé của đơn chưa thanh toán hoặc đã huỷ thì không có trong DB
+            Optional<AdmissionProjection> late = orderTicketRepository.findAdmission(orderTicketId, eventId);
+            if (late.isEmpty()) {
+                return new CheckInResultDto(CheckInStatus.invalid_ticket, orderTicketId, null, null);
+            }
+            counters.addLate(orderTicketId, late.get().getQuantity(), late.get().getAdmittedCount());
+            admission = counters.tryAdmit(orderTicketId);
+        }
+        if (admission == AdmissionCounters.CLOSED) {
+            return null;
+        }
+        int quantity = counters.quantity(orderTicketId);
+        if (admission == AdmissionCounters.FULL) {
+            return new CheckInResultDto(CheckInStatus.already_admitted, orderTicketId, quantity, quantity);
+        }
+        return new CheckInResultDto(CheckInStatus.admitted, orderTicketId, admission, quantity);
+    }
+
+    @Override
+    public void revokeOrder(Integer orderId) {
+        List<Integer> eventIds = orderTicketRepository.findEventIdsByOrderId(orderId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eventIds.forEach(CheckInServiceImpl.this::evict);
+                }
+            });
+        } else {
+            eventIds.forEach(this::evict);
+        }
+    }
+
+    /**
+     * Ghi các lượt vào mới xuống DB trong một transaction; lỗi thì đánh dấu lại để lần sau ghi tiếp.
+     * Sự kiện đã ghi hết và không được quét trong idle-evict-minutes thì bị bỏ khỏi bộ nhớ.
+     */
+    @Scheduled(fixedDelayString = "${checkin.flush-interval-ms:1000}")
+    public void flush() {
+        long idleBefore = System.currentTimeMillis() - idleEvictMillis;
+        events.forEach((eventId, admissions) -> {
+            if (persist(eventId, admissions) && admissions.lastUsedMillis().get() <= idleBefore) {
+                evict(eventId);
+            }
+        });
+    }
+
+    // Trả về false nếu ghi lỗi (các lượt vào được đánh dấu lại để lần sau ghi tiếp).
+    // Giữ khoá của sự kiện để evict không bỏ trạng thái khi một lần ghi khác chưa commit
+    private boolean persist(Integer eventId, EventAdmissions admissions) {
+        synchronized (admissions) {
+            Map<Integer, Integer> pending = new LinkedHashMap<>();
+            admissions.counters().drainDirty(pending::put);
+            if (pending.isEmpty()) {
+                return true;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> pending.forEach(orderTicketRepository::updateAdmittedCount));
+                return true;
+            } catch (Exception e) {
+                pending.keySet().forEach(admissions.counters()::markPending);
+                log.warn("Failed to persist {} check-ins for event {}, will retry", pending.size(), eventId, e);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Đóng bộ đếm, ghi hết lượt vào xuống DB rồi mới bỏ khỏi map: lượt quét nào cũng hoặc được ghi,
+     * hoặc bị từ chối và quét lại trên trạng thái nạp sau khi ghi xong. Ghi lỗi thì mở lại để flush thử tiếp.
+     */
+    private void evict(Integer eventId) {
+        EventAdmissions admissions = events.get(eventId);
+        if (admissions == null) {
+            return;
+        }
+        synchronized (admissions) {
+            if (events.get(eventId) != admissions) {
+                return;
+            }
+            admissions.counters().close();
+            if (!persist(eventId, admissions)) {
+                admissions.counters().reopen();
+                return;
+            }
+            events.remove(eventId, admissions);
+        }
+        log.info("Dropped check-in state for event {}", eventId);
+    }
+
+    // evict giữ khoá này từ lúc đóng bộ đếm đến khi bỏ khỏi map
+    private static void awaitEviction(EventAdmissions admissions) {
+        synchronized (admissions) {
+            // Chỉ chờ evict nhả khoá
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private EventAdmissions admissions(Integer eventId) {
+        EventAdmissions admissions = events.computeIfAbsent(eventId, this::load);
+        admissions.lastUsedMillis().set(System.currentTimeMillis());
+        return admissions;
+    }
+
+    private EventAdmissions load(Integer eventId) {
+        Event event = eventRepository.findById(eventId)
+                .orElseThrow(() -> new EntityNotFoundException("Event with ID " + eventId + " does not exist."));
+        List<AdmissionProjection> rows = orderTicketRepository.findAdmissionsByEventId(eventId);
+        int[] orderTicketIds = new int[rows.size()];
+        int[] quantities = new int[rows.size()];
+        int[] admitted = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            AdmissionProjection row = rows.get(i);
+            orderTicketIds[i] = row.getOrderTicketId();
+            quantities[i] = row.getQuantity();
+            admitted[i] = row.getAdmittedCount();
+        }
+        log.info("Loaded check-in state for event {} ({} order tickets)", eventId, rows.size());
+        return new EventAdmissions(event.getOrganizer().getId(), new AdmissionCounters(orderTicketIds, quantities, admitted),
+                new AtomicLong(System.currentTimeMillis()));
+    }
+
+    private Integer authorizeOrganizer(HttpServletRequest request) {
+        String token = request.getHeader("Authorization").substring(7);
+        if (!"ROLE_organizer".equals(jwtUtil.extractRole(token))) {
+            throw new SecurityException("You do not have permission to check in tickets for this event.");
+        }
+        return jwtUtil.extractUserId(token);
+    }
+}
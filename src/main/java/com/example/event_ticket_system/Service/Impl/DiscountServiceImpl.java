@@ -1,20 +1,94 @@
 package com.example.event_ticket_system.Service.Impl;
 
-import com.example.event_ticket_system.Entity.Discount;
+import com.example.event_ticket_system.DTO.response.DiscountResponseDto;
 import com.example.event_ticket_system.Repository.DiscountRepository;
 import com.example.event_ticket_system.Service.DiscountService;
+import com.example.event_ticket_system.Util.TtlCache;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Service
 public class DiscountServiceImpl implements DiscountService {
+    // Mã có thật được giữ lâu hơn; mã không tồn tại chỉ giữ ngắn để mã vừa tạo ở node khác sớm dùng được
+    static final Duration DISCOUNT_TTL = Duration.ofMinutes(5);
+    static final Duration MISSING_CODE_TTL = Duration.ofSeconds(30);
+    static final int MAX_CACHED_CODES = 10_000;
+
     @Autowired
     private DiscountRepository discountRepository;
 
+    // Optional.empty() là cache âm: mã không tồn tại bị từ chối mà không chạm MySQL
+    private final TtlCache<String, Optional<DiscountResponseDto>> cache = new TtlCache<>(MAX_CACHED_CODES);
+
     @Override
-    public Discount getDiscountByCode(String code) {
-        return discountRepository.findByCode(code)
+    public DiscountResponseDto getDiscountByCode(String code) {
+        return lookup(code)
                 .orElseThrow(() -> new EntityNotFoundException("Discount not found with code: " + code));
     }
+
+    @Override
+    public DiscountResponseDto redeem(String code, Integer eventId) {
+        DiscountResponseDto discount = lookup(code)
+                .orElseThrow(() -> new EntityNotFoundException("Discount code not found"));
+        // Check discount validity
+        LocalDate today = LocalDate.now();
+        if ((discount.validFrom() != null && today.isBefore(discount.validFrom())) ||
+                (discount.validTo() != null && today.isAfter(discount.validTo()))) {
+            throw new IllegalArgumentException("Discount code is not valid");
+        }
+        // Check if discount applies to event
+        if (!eventId.equals(discount.eventId())) {
+            throw new IllegalArgumentException("Discount code does not apply to this event");
+        }
+        // Bản cache đã báo hết lượt thì khỏi UPDATE; còn lượt thì DB mới là nơi quyết định
+        if (discount.maxUsage() == null || discount.maxUsage() <= 0
+                || discountRepository.redeem(discount.discountId()) == 0) {
+            // Đơn sẽ rollback nên cập nhật cache ngay, không đợi commit
+            cache.update(code, cached -> cached.map(d -> d.withMaxUsage(0)));
+            throw new IllegalArgumentException("Discount code has reached its maximum usage limit");
+        }
+        afterCommit(() -> cache.update(code, cached -> cached.map(d -> d.withMaxUsage(Math.max(0, d.maxUsage() - 1)))));
+        return discount;
+    }
+
+    @Override
+    public void evict(Collection<String> codes) {
+        List<String> snapshot = List.copyOf(codes);
+        snapshot.forEach(cache::invalidate);
+        // Xoá lần nữa sau commit để request đọc song song không nạp lại bản cũ vào cache
+        afterCommit(() -> snapshot.forEach(cache::invalidate));
+    }
+
+    private Optional<DiscountResponseDto> lookup(String code) {
+        Optional<DiscountResponseDto> cached = cache.get(code);
+        if (cached != null) {
+            return cached;
+        }
+        // Chỉ giữ bản chụp bất biến, không giữ entity hay Event đã tách khỏi persistence context
+        Optional<DiscountResponseDto> loaded = discountRepository.findByCode(code).map(DiscountResponseDto::from);
+        cache.put(code, loaded, loaded.isPresent() ? DISCOUNT_TTL : MISSING_CODE_TTL);
+        return loaded;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
 }
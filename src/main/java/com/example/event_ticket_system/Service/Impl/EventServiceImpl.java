@@ -10,15 +10,23 @@ import com.example.event_ticket_system.Enums.EventStatus;
 import com.example.event_ticket_system.Enums.UserRole;
 import com.example.event_ticket_system.Repository.*;
 import com.example.event_ticket_system.Security.JwtUtil;
+import com.example.event_ticket_system.Service.DiscountService;
+import com.example.event_ticket_system.Service.EventSearchIndex;
 import com.example.event_ticket_system.Service.EventService;
+import com.example.event_ticket_system.Service.ListingCountCache;
+import com.example.event_ticket_system.Util.InvertedIndex;
+import com.example.event_ticket_system.Util.KeysetCursor;
+import com.example.event_ticket_system.Util.PdfFonts;
 import com.itextpdf.text.*;
-import com.itextpdf.text.pdf.BaseFont;
 import com.itextpdf.text.pdf.PdfPCell;
 import com.itextpdf.text.pdf.PdfPTable;
 import com.itextpdf.text.pdf.PdfWriter;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.apache.poi.ss.usermodel.Row;
@@ -31,6 +39,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -45,9 +54,11 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -67,6 +78,12 @@ public class EventServiceImpl implements EventService {
 
     private final DiscountRepository discountRepository;
 
+    private final DiscountService discountService;
+
+    private final EventSearchIndex eventSearchIndex;
+
+    private final ListingCountCache listingCountCache;
+
     @Autowired
     private final JwtUtil jwtUtil;
 
@@ -118,6 +135,7 @@ public class EventServiceImpl implements EventService {
             event.setLogoUrl(logoUrl);
             event.setBackgroundUrl(backgroundUrl);
             event = eventRepository.save(event);
+            eventSearchIndex.indexAfterCommit(event);
 
             // Tạo các loại vé
             for (EventRequestDto.TicketRequest t : eventRequestDto.getTickets()) {
@@ -146,6 +164,10 @@ public class EventServiceImpl implements EventService {
                     newDiscount.setMaxUsage(discount.getDiscountMaxUses());
                     discountRepository.save(newDiscount);
                 }
+                // Mã mới có thể đang nằm trong cache "không tồn tại"
+                discountService.evict(eventRequestDto.getDiscounts().stream()
+                        .map(EventRequestDto.DiscountRequest::getDiscountCode)
+                        .toList());
             }
 
             return event.getEventId();
@@ -182,7 +204,8 @@ public class EventServiceImpl implements EventService {
                                                     LocalDateTime endTime,
                                                     String name,
                                                     Integer page,
-                                                    Integer size) {
+                                                    Integer size,
+                                                    String cursor) {
         Integer organizerId = jwtUtil.extractUserId(request.getHeader("Authorization").substring(7));
         User currentUser = userRepository.findById(organizerId)
                 .orElseThrow(() -> new EntityNotFoundException("Organizer not found with id: " + organizerId));
@@ -231,9 +254,19 @@ public class EventServiceImpl implements EventService {
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
 
-        Page<Event> eventPage = eventRepository.findAll(specification, pageable);
+        Map<String, Object> response = new HashMap<>();
+        List<Event> events;
+        if (cursor != null) {
+            events = findCursorPage(specification, KeysetField.updatedAt, Sort.Direction.DESC, cursor, size, response);
+        } else {
+            Page<Event> eventPage = eventRepository.findAll(specification, pageable);
+            events = eventPage.getContent();
+            response.put("pageSize", eventPage.getSize());
+            response.put("pageNo", eventPage.getNumber() + 1);
+            response.put("totalPages", eventPage.getTotalPages());
+        }
 
-        List<GetEventsByOrganizerResponseDto> eventDTOs = eventPage.getContent().stream().map(event -> {
+        List<GetEventsByOrganizerResponseDto> eventDTOs = events.stream().map(event -> {
             GetEventsByOrganizerResponseDto dto = new GetEventsByOrganizerResponseDto();
             dto.setEventId(event.getEventId());
             dto.setEventName(event.getEventName());
@@ -246,11 +279,7 @@ public class EventServiceImpl implements EventService {
             return dto;
         }).collect(Collectors.toList());
 
-        Map<String, Object> response = new HashMap<>();
         response.put("listEvents", eventDTOs);
-        response.put("pageSize", eventPage.getSize());
-        response.put("pageNo", eventPage.getNumber() + 1);
-        response.put("totalPages", eventPage.getTotalPages());
 
         return response;
     }
@@ -333,7 +362,7 @@ public class EventServiceImpl implements EventService {
     @Override
     public Map<String, Object> getRecommendEvents(
             String category, String address, LocalDateTime startTime, LocalDateTime endTime,
-            String name, Integer page, Integer size, String sortBy) {
+            String name, Integer page, Integer size, String sortBy, String cursor, boolean includeTotal) {
 
         if (page > 0) {
             page = page - 1;
@@ -351,9 +380,22 @@ public class EventServiceImpl implements EventService {
             }
         }
 
-        Pageable pageable = PageRequest.of(page, size);
-        if (!"totalTicketSold".equals(sortField)) {
-            Sort.Direction direction = "ASC".equalsIgnoreCase(sortDirection) ? Sort.Direction.ASC : Sort.Direction.DESC;
+        // Tìm theo văn bản qua chỉ mục trong bộ nhớ (không phân biệt dấu); Optional rỗng thì dùng LIKE như trước
+        Optional<InvertedIndex.Matches> addressMatches = "Vị trí khác".equalsIgnoreCase(address)
+                ? Optional.empty() : eventSearchIndex.search(address, EventSearchIndex.ADDRESS_FIELDS);
+        Optional<InvertedIndex.Matches> nameMatches = eventSearchIndex.search(name, EventSearchIndex.FIELD_NAME);
+        // Không chọn cách sắp xếp mà có tìm theo văn bản thì xếp theo độ liên quan (chế độ cursor vẫn theo cột sắp xếp)
+        List<Integer> relevance = cursor == null && (sortBy == null || sortBy.isEmpty())
+                ? nameMatches.or(() -> addressMatches).map(InvertedIndex.Matches::ranked).orElse(null) : null;
+
+        Sort.Direction direction = "ASC".equalsIgnoreCase(sortDirection) ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Pageable pageable;
+        if (relevance != null) {
+            pageable = PageRequest.of(page, size);
+        } else if ("totalTicketSold".equals(sortField)) {
+            // Sắp theo cột tickets_sold trong SQL; eventId giữ thứ tự ổn định giữa các trang khi số vé bằng nhau
+            pageable = PageRequest.of(page, size, Sort.by(direction, "ticketsSold").and(Sort.by(direction, "eventId")));
+        } else {
             pageable = PageRequest.of(page, size, Sort.by(direction, sortField));
         }
 
@@ -375,6 +417,8 @@ public class EventServiceImpl implements EventService {
                         criteriaBuilder.like(criteriaBuilder.lower(root.get("ward").get("district").get("province").get("name")), "%Hà Nội%"),
                         criteriaBuilder.like(criteriaBuilder.lower(root.get("ward").get("district").get("province").get("name")), "%Đà Lạt%")
                 )));
+            } else if (addressMatches.isPresent()) {
+                predicates.add(eventIdIn(root, criteriaBuilder, addressMatches.get().ids()));
             } else if (address != null && !address.isEmpty()) {
                 String pattern = "%" + address.toLowerCase() + "%";
                 Predicate addressNameLike = criteriaBuilder.like(criteriaBuilder.lower(root.get("addressName")), pattern);
@@ -399,15 +443,38 @@ public class EventServiceImpl implements EventService {
                     predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("startTime"), endTime));
                 }
             }
-            if (name != null && !name.isEmpty()) {
+            if (nameMatches.isPresent()) {
+                predicates.add(eventIdIn(root, criteriaBuilder, nameMatches.get().ids()));
+            } else if (name != null && !name.isEmpty()) {
                 predicates.add(criteriaBuilder.like(criteriaBuilder.lower(root.get("eventName")), "%" + name.toLowerCase() + "%"));
             }
+            // Câu đếm (Long) không cần ORDER BY
+            if (relevance != null && !relevance.isEmpty() && !Long.class.equals(query.getResultType())) {
+                // Ngoài top max-results thì cùng hạng, eventId giữ thứ tự ổn định giữa các trang
+                query.orderBy(criteriaBuilder.asc(relevanceRank(root, criteriaBuilder, relevance)),
+                        criteriaBuilder.desc(root.get("eventId")));
+            }
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
 
-        Page<Event> eventPage = eventRepository.findAll(specification, pageable);
+        Map<String, Object> response = new HashMap<>();
+        List<Event> events;
+        if (cursor != null) {
+            events = findCursorPage(specification, KeysetField.forSort(sortField), direction, cursor, size, response);
+        } else {
+            // Trang công khai: Slice (size + 1 dòng) thay vì Page để không chạy COUNT cùng mỗi trang
+            Slice<Event> eventSlice = eventRepository.findSlice(specification, pageable);
+            events = eventSlice.getContent();
+            response.put("pageSize", eventSlice.getSize());
+            response.put("pageNo", eventSlice.getNumber() + 1);
+            response.put("hasNext", eventSlice.hasNext());
+            if (includeTotal) {
+                response.put("totalPages", recommendTotalPages(category, address, startTime, endTime, name, specification, pageable, eventSlice));
+            }
+        }
+        Map<Integer, EventCardStatsProjection> cardStats = findCardStats(events);
 
-        List<RecommendEventsResponseDto> eventDTOs = eventPage.getContent().stream().map(event -> {
+        List<RecommendEventsResponseDto> eventDTOs = events.stream().map(event -> {
             RecommendEventsResponseDto dto = new RecommendEventsResponseDto();
             dto.setEventId(event.getEventId());
             dto.setEventName(event.getEventName());
@@ -422,37 +489,150 @@ public class EventServiceImpl implements EventService {
             dto.setEndTime(LocalDateTime.parse(event.getEndTime().toString()));
             dto.setCategory(event.getCategory());
             dto.setLogoUrl(event.getLogoUrl());
-            List<Ticket> tickets = ticketRepository.findByEvent(event);
-            String minPrice = tickets.stream()
-                    .map(Ticket::getPrice)
-                    .min(Double::compareTo)
-                    .map(String::valueOf)
-                    .orElse("0.0");
-            dto.setMinPrice(minPrice);
+            EventCardStatsProjection stats = cardStats.get(event.getEventId());
+            dto.setMinPrice(stats != null ? String.valueOf(stats.getMinPrice()) : "0.0");
             dto.setBackgroundUrl(event.getBackgroundUrl());
-            dto.setTotalTicketSold(orderTicketRepository.sumQuantityByEvent(event));
+            dto.setTotalTicketSold((long) event.getTicketsSold());
             return dto;
         }).collect(Collectors.toList());
 
-        // If sorting by totalTicketSold, sort in Java
-        if ("totalTicketSold".equals(sortField)) {
-            if ("ASC".equalsIgnoreCase(sortDirection)) {
-                eventDTOs.sort(Comparator.comparingLong(RecommendEventsResponseDto::getTotalTicketSold));
-            } else {
-                eventDTOs.sort(Comparator.comparingLong(RecommendEventsResponseDto::getTotalTicketSold).reversed());
+        response.put("listEvents", eventDTOs);
+        return response;
+    }
+
+    // totalPages cho client cần tổng: trang cuối cho biết tổng chính xác, còn lại lấy số đếm đã cache theo bộ lọc
+    private int recommendTotalPages(String category, String address, LocalDateTime startTime, LocalDateTime endTime,
+                                    String name, Specification<Event> specification, Pageable pageable,
+                                    Slice<Event> eventSlice) {
+        String countKey = String.join("|", "recommend", String.valueOf(category), String.valueOf(address),
+                String.valueOf(startTime), String.valueOf(endTime), String.valueOf(name));
+        long total;
+        if (!eventSlice.hasNext() && (eventSlice.hasContent() || eventSlice.getNumber() == 0)) {
+            total = pageable.getOffset() + eventSlice.getNumberOfElements();
+            listingCountCache.record(countKey, total);
+        } else {
+            total = listingCountCache.count(countKey, () -> eventRepository.count(specification));
+        }
+        int size = pageable.getPageSize();
+        return size == 0 ? 1 : (int) Math.ceil((double) total / size);
+    }
+
+    // Các cột dùng được làm khoá cursor (đều NOT NULL), kèm cách đọc giá trị từ sự kiện và từ cursor
+    private enum KeysetField {
+        updatedAt(Event::getUpdatedAt, LocalDateTime::parse),
+        startTime(Event::getStartTime, LocalDateTime::parse),
+        endTime(Event::getEndTime, LocalDateTime::parse),
+        eventName(Event::getEventName, value -> value),
+        ticketsSold(Event::getTicketsSold, Integer::valueOf),
+        eventId(Event::getEventId, Integer::valueOf);
+
+        private final Function<Event, Object> getter;
+        private final Function<String, Comparable<?>> parser;
+
+        KeysetField(Function<Event, Object> getter, Function<String, Comparable<?>> parser) {
+            this.getter = getter;
+            this.parser = parser;
+        }
+
+        static KeysetField forSort(String sortField) {
+            if ("totalTicketSold".equals(sortField)) {
+                return ticketsSold;
             }
+            for (KeysetField field : values()) {
+                if (field.name().equals(sortField)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("Cursor pagination does not support sorting by " + sortField);
         }
+    }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("listEvents", eventDTOs);
-        response.put("pageSize", eventPage.getSize());
-        response.put("pageNo", eventPage.getNumber() + 1);
-        response.put("totalPages", eventPage.getTotalPages());
-        return response;
+    /**
+     * Trang theo cursor (keyset): WHERE (cột, eventId) đứng sau dòng cuối trang trước, ORDER BY cột, eventId, LIMIT size + 1.
+     * Không đếm tổng và không dùng OFFSET nên trang sâu nhanh như trang đầu, sự kiện được cập nhật giữa chừng không làm lệch trang.
+     * cursor rỗng là trang đầu; ghi pageSize, nextCursor (null ở trang cuối) và hasNext vào response.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<Event> findCursorPage(Specification<Event> specification, KeysetField field, Sort.Direction direction,
+                                       String cursor, Integer size, Map<String, Object> response) {
+        if (size == null || size < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        Specification<Event> windowSpecification = specification;
+        if (!cursor.isEmpty()) {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            if (!field.name().equals(after.sortField()) || after.descending() != direction.isDescending()) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort order");
+            }
+            Comparable value;
+            try {
+                value = field.parser.apply(after.value());
+            } catch (DateTimeException | IllegalArgumentException e) {
+                // Cursor giải mã được nhưng giá trị bị sửa (ngày/số sai định dạng)
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+            windowSpecification = specification.and((root, query, criteriaBuilder) -> {
+                Path<Integer> eventIdPath = root.get("eventId");
+                Predicate idAfter = direction.isDescending()
+                        ? criteriaBuilder.lessThan(eventIdPath, after.id())
+                        : criteriaBuilder.greaterThan(eventIdPath, after.id());
+                if (field == KeysetField.eventId) {
+                    return idAfter;
+                }
+                Path<Comparable> sortPath = root.get(field.name());
+                Predicate valueAfter = direction.isDescending()
+                        ? criteriaBuilder.lessThan(sortPath, value)
+                        : criteriaBuilder.greaterThan(sortPath, value);
+                return criteriaBuilder.or(valueAfter, criteriaBuilder.and(criteriaBuilder.equal(sortPath, value), idAfter));
+            });
+        }
+        Sort sort = field == KeysetField.eventId
+                ? Sort.by(direction, "eventId")
+                : Sort.by(direction, field.name()).and(Sort.by(direction, "eventId"));
+
+        List<Event> events = eventRepository.findWindow(windowSpecification, sort, size + 1);
+        boolean hasNext = events.size() > size;
+        if (hasNext) {
+            events = events.subList(0, size);
+        }
+        String nextCursor = null;
+        if (hasNext) {
+            Event last = events.get(events.size() - 1);
+            nextCursor = new KeysetCursor(field.name(), direction.isDescending(),
+                    String.valueOf(field.getter.apply(last)), last.getEventId()).encode();
+        }
+        response.put("pageSize", size);
+        response.put("nextCursor", nextCursor);
+        response.put("hasNext", hasNext);
+        return events;
+    }
+
+    // Điều kiện eventId thuộc toàn bộ kết quả của chỉ mục tìm kiếm; kết quả rỗng thì không dòng nào khớp
+    private static Predicate eventIdIn(Root<Event> root, CriteriaBuilder criteriaBuilder, List<Integer> eventIds) {
+        return eventIds.isEmpty() ? criteriaBuilder.disjunction() : root.get("eventId").in(eventIds);
+    }
+
+    // Thứ hạng của sự kiện trong danh sách id đã xếp theo độ liên quan (CASE event_id WHEN ... THEN vị trí)
+    private static Expression<Integer> relevanceRank(Root<Event> root, CriteriaBuilder criteriaBuilder, List<Integer> rankedIds) {
+        CriteriaBuilder.SimpleCase<Integer, Integer> rank = criteriaBuilder.selectCase(root.<Integer>get("eventId"));
+        for (int i = 0; i < rankedIds.size(); i++) {
+            rank.when(rankedIds.get(i), i);
+        }
+        return rank.otherwise(rankedIds.size());
+    }
+
+    // Giá vé thấp nhất của cả trang, theo eventId
+    private Map<Integer, EventCardStatsProjection> findCardStats(List<Event> events) {
+        if (events.isEmpty()) {
+            return Map.of();
+        }
+        List<Integer> eventIds = events.stream().map(Event::getEventId).toList();
+        return ticketRepository.findCardStatsByEventIds(eventIds).stream()
+                .collect(Collectors.toMap(EventCardStatsProjection::getEventId, stats -> stats));
     }
 
     @Override
-    public Map<String, Object> getPendingEvents(HttpServletRequest request, String address, LocalDateTime startTime, LocalDateTime endTime, String name, Integer page, Integer size) {
+    public Map<String, Object> getPendingEvents(HttpServletRequest request, String address, LocalDateTime startTime, LocalDateTime endTime, String name, Integer page, Integer size, String cursor) {
         Integer userId = jwtUtil.extractUserId(request.getHeader("Authorization").substring(7));
         User currentUser = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId));
@@ -465,10 +645,14 @@ public class EventServiceImpl implements EventService {
         }
 
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "updatedAt"));
+        Optional<InvertedIndex.Matches> addressMatches = eventSearchIndex.search(address, EventSearchIndex.ADDRESS_FIELDS);
+        Optional<InvertedIndex.Matches> nameMatches = eventSearchIndex.search(name, EventSearchIndex.FIELD_NAME);
 
         Specification<Event> specification = (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
-            if (address != null && !address.isEmpty()) {
+            if (addressMatches.isPresent()) {
+                predicates.add(eventIdIn(root, criteriaBuilder, addressMatches.get().ids()));
+            } else if (address != null && !address.isEmpty()) {
                 String pattern = "%" + address.toLowerCase() + "%";
 
                 Predicate addressNameLike = criteriaBuilder.like(
@@ -502,7 +686,9 @@ public class EventServiceImpl implements EventService {
                     predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("startTime"), endTime));
                 }
             }
-            if (name != null && !name.isEmpty()) {
+            if (nameMatches.isPresent()) {
+                predicates.add(eventIdIn(root, criteriaBuilder, nameMatches.get().ids()));
+            } else if (name != null && !name.isEmpty()) {
                 predicates.add(criteriaBuilder.like(
                         criteriaBuilder.lower(root.get("eventName")), "%" + name.toLowerCase() + "%"));
             }
@@ -510,9 +696,19 @@ public class EventServiceImpl implements EventService {
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
 
-        Page<Event> eventPage = eventRepository.findAll(specification, pageable);
+        Map<String, Object> response = new HashMap<>();
+        List<Event> events;
+        if (cursor != null) {
+            events = findCursorPage(specification, KeysetField.updatedAt, Sort.Direction.DESC, cursor, size, response);
+        } else {
+            Page<Event> eventPage = eventRepository.findAll(specification, pageable);
+            events = eventPage.getContent();
+            response.put("pageSize", eventPage.getSize());
+            response.put("pageNo", eventPage.getNumber() + 1);
+            response.put("totalPages", eventPage.getTotalPages());
+        }
 
-        List<GetEventsResponseDto> eventDTOs = eventPage.getContent().stream().map(event -> {
+        List<GetEventsResponseDto> eventDTOs = events.stream().map(event -> {
             GetEventsResponseDto dto = new GetEventsResponseDto();
             dto.setEventId(event.getEventId());
             dto.setEventName(event.getEventName());
@@ -525,17 +721,13 @@ public class EventServiceImpl implements EventService {
             return dto;
         }).collect(Collectors.toList());
 
-        Map<String, Object> response = new HashMap<>();
         response.put("listEvents", eventDTOs);
-        response.put("pageSize", eventPage.getSize());
-        response.put("pageNo", eventPage.getNumber() + 1);
-        response.put("totalPages", eventPage.getTotalPages());
 
         return response;
     }
 
     @Override
-    public Map<String, Object> getListEvents(HttpServletRequest request, String status, String approvalStatus, String address, LocalDateTime startTime, LocalDateTime endTime, String name, Integer page, Integer size) {
+    public Map<String, Object> getListEvents(HttpServletRequest request, String status, String approvalStatus, String address, LocalDateTime startTime, LocalDateTime endTime, String name, Integer page, Integer size, String cursor) {
         Integer userId = jwtUtil.extractUserId(request.getHeader("Authorization").substring(7));
         User currentUser = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId));
@@ -549,11 +741,15 @@ public class EventServiceImpl implements EventService {
         }
 
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "updatedAt"));
+        Optional<InvertedIndex.Matches> addressMatches = eventSearchIndex.search(address, EventSearchIndex.ADDRESS_FIELDS);
+        Optional<InvertedIndex.Matches> nameMatches = eventSearchIndex.search(name, EventSearchIndex.FIELD_NAME);
 
         Specification<Event> specification = (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
 
-            if (address != null && !address.isEmpty()) {
+            if (addressMatches.isPresent()) {
+                predicates.add(eventIdIn(root, criteriaBuilder, addressMatches.get().ids()));
+            } else if (address != null && !address.isEmpty()) {
                 String pattern = "%" + address.toLowerCase() + "%";
 
                 Predicate addressNameLike = criteriaBuilder.like(
@@ -587,7 +783,9 @@ public class EventServiceImpl implements EventService {
                     predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("startTime"), endTime));
                 }
             }
-            if (name != null && !name.isEmpty()) {
+            if (nameMatches.isPresent()) {
+                predicates.add(eventIdIn(root, criteriaBuilder, nameMatches.get().ids()));
+            } else if (name != null && !name.isEmpty()) {
                 predicates.add(criteriaBuilder.like(criteriaBuilder.lower(root.get("eventName")), "%" + name.toLowerCase() + "%"));
             }
             if (status != null && !status.isEmpty()) {
@@ -599,8 +797,18 @@ public class EventServiceImpl implements EventService {
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
 
-        Page<Event> eventPage = eventRepository.findAll(specification, pageable);
-        List<GetEventsResponseDto> eventDTOs = eventPage.getContent().stream().map(event -> {
+        Map<String, Object> response = new HashMap<>();
+        List<Event> events;
+        if (cursor != null) {
+            events = findCursorPage(specification, KeysetField.updatedAt, Sort.Direction.DESC, cursor, size, response);
+        } else {
+            Page<Event> eventPage = eventRepository.findAll(specification, pageable);
+            events = eventPage.getContent();
+            response.put("pageSize", eventPage.getSize());
+            response.put("pageNo", eventPage.getNumber() + 1);
+            response.put("totalPages", eventPage.getTotalPages());
+        }
+        List<GetEventsResponseDto> eventDTOs = events.stream().map(event -> {
             GetEventsResponseDto dto = new GetEventsResponseDto();
             dto.setEventId(event.getEventId());
             dto.setEventName(event.getEventName());
@@ -613,11 +821,7 @@ public class EventServiceImpl implements EventService {
             return dto;
         }).collect(Collectors.toList());
 
-        Map<String, Object> response = new HashMap<>();
         response.put("listEvents", eventDTOs);
-        response.put("pageSize", eventPage.getSize());
-        response.put("pageNo", eventPage.getNumber() + 1);
-        response.put("totalPages", eventPage.getTotalPages());
         return response;
     }
 
@@ -678,6 +882,7 @@ public class EventServiceImpl implements EventService {
             event.setApprovalStatus(ApprovalStatus.pending);
 
             eventRepository.save(event);
+            eventSearchIndex.indexAfterCommit(event);
             // Xử lý tickets
             List<UpdateEventRequestDto.TicketTypeDto> ticketDtos = eventRequestDto.getTicketTypes();
             if (ticketDtos != null) {
@@ -773,6 +978,11 @@ public class EventServiceImpl implements EventService {
                         discountRepository.save(newDiscount);
                     }
                 }
+
+                // Bỏ khỏi cache mọi mã vừa bị sửa, xoá hoặc thêm mới
+                Set<String> changedCodes = new HashSet<>(incomingDiscountCodes);
+                existingDiscounts.forEach(d -> changedCodes.add(d.getCode()));
+                discountService.evict(changedCodes);
             }
         } catch (IOException | InterruptedException e) {
             throw new RuntimeException("Cập nhật sự kiện thất bại: " + e.getMessage(), e);
@@ -888,10 +1098,8 @@ public class EventServiceImpl implements EventService {
         }
     }
 
-    public Font loadVietnameseFont(float size, boolean bold) throws IOException, DocumentException {
-        String fontPath = "src/main/resources/fonts/arial.ttf";
-        BaseFont baseFont = BaseFont.createFont(fontPath, BaseFont.IDENTITY_H, BaseFont.EMBEDDED);
-        return new Font(baseFont, size, bold ? Font.BOLD : Font.NORMAL);
+    public Font loadVietnameseFont(float size, boolean bold) {
+        return PdfFonts.font(size, bold);
     }
 
     public ByteArrayInputStream exportToPdf(List<TicketExportDto> dtos) throws DocumentException, IOException {
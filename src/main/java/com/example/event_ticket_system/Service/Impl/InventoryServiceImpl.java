@@ -0,0 +1,136 @@
+package com.example.event_ticket_system.Service.Impl;
+
+import com.example.event_ticket_system.DTO.response.InventoryReconciliationDto;
+import com.example.event_ticket_system.DTO.response.TicketQuantityProjection;
+import com.example.event_ticket_system.DTO.response.TicketStockProjection;
+import com.example.event_ticket_system.Repository.OrderTicketRepository;
+import com.example.event_ticket_system.Repository.TicketRepository;
+import com.example.event_ticket_system.Service.InventoryService;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Giữ chỗ vé trực tiếp trên bảng tickets bằng UPDATE có điều kiện,
+ * nên hai người mua cùng lúc không thể bán vượt quantityTotal.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "inventory.engine", havingValue = "database", matchIfMissing = true)
+public class InventoryServiceImpl implements InventoryService {
+    // Giữ chỗ có điều kiện: chỉ tăng quantity_sold khi còn đủ vé
+    private static final String RESERVE_SQL = "UPDATE tickets SET quantity_sold = quantity_sold + ? " +
+            "WHERE ticket_id = ? AND quantity_sold + ? <= quantity_total";
+    // Trả lại vé đã giữ, không bao giờ để quantity_sold xuống dưới 0
+    private static final String RELEASE_SQL = "UPDATE tickets SET quantity_sold = quantity_sold - ? " +
+            "WHERE ticket_id = ? AND quantity_sold >= ?";
+
+    private final TicketRepository ticketRepository;
+    private final OrderTicketRepository orderTicketRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public Map<Integer, Integer> reserve(Map<Integer, Integer> quantitiesByTicketId) {
+        List<Map.Entry<Integer, Integer>> lines = positiveLines(quantitiesByTicketId);
+        int[] updated = batchUpdate(RESERVE_SQL, lines);
+        Map<Integer, Integer> reserved = new LinkedHashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            // Các dòng đã giữ trong cùng lô sẽ được rollback cùng transaction của đơn hàng
+            if (updated[i] == 0) {
+                throw new IllegalArgumentException("Not enough tickets available for ticket: " + lines.get(i).getKey());
+            }
+            reserved.put(lines.get(i).getKey(), lines.get(i).getValue());
+        }
+        return reserved;
+    }
+
+    @Override
+    @Transactional
+    public Map<Integer, Integer> release(Map<Integer, Integer> quantitiesByTicketId) {
+        List<Map.Entry<Integer, Integer>> lines = positiveLines(quantitiesByTicketId);
+        int[] updated = batchUpdate(RELEASE_SQL, lines);
+        Map<Integer, Integer> released = new LinkedHashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            Map.Entry<Integer, Integer> line = lines.get(i);
+            if (updated[i] == 0) {
+                log.warn("Could not release {} tickets for ticket {}: quantity sold is lower than released amount",
+                        line.getValue(), line.getKey());
+                continue;
+            }
+            released.put(line.getKey(), line.getValue());
+        }
+        return released;
+    }
+
+    @Override
+    @Transactional
+    public Map<Integer, Integer> releaseOrder(Integer orderId) {
+        Map<Integer, Integer> quantities = new LinkedHashMap<>();
+        for (TicketQuantityProjection line : orderTicketRepository.sumQuantityByTicketForOrder(orderId)) {
+            quantities.put(line.getTicketId(), line.getQuantity().intValue());
+        }
+        return release(quantities);
+    }
+
+    @Override
+    public List<InventoryReconciliationDto> reconcile() {
+        Map<Integer, Long> ordered = new HashMap<>();
+        for (TicketQuantityProjection line : orderTicketRepository.sumActiveQuantityByTicket()) {
+            ordered.put(line.getTicketId(), line.getQuantity());
+        }
+        List<InventoryReconciliationDto> report = new ArrayList<>();
+        for (TicketStockProjection stock : ticketRepository.findAllStock()) {
+            long orderedQuantity = ordered.getOrDefault(stock.getTicketId(), 0L);
+            report.add(new InventoryReconciliationDto(
+                    stock.getTicketId(),
+                    stock.getQuantityTotal(),
+                    stock.getQuantitySold(),
+                    orderedQuantity,
+                    null,
+                    0,
+                    stock.getQuantitySold() == orderedQuantity
+            ));
+        }
+        return report;
+    }
+
+    private List<Map.Entry<Integer, Integer>> positiveLines(Map<Integer, Integer> quantitiesByTicketId) {
+        return quantitiesByTicketId.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .toList();
+    }
+
+    // Mọi loại vé của một đơn đi chung một JDBC batch, trả về số dòng cập nhật theo từng dòng
+    private int[] batchUpdate(String sql, List<Map.Entry<Integer, Integer>> lines) {
+        if (lines.isEmpty()) {
+            return new int[0];
+        }
+        return jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, lines.get(i).getValue());
+                ps.setInt(2, lines.get(i).getKey());
+                ps.setInt(3, lines.get(i).getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return lines.size();
+            }
+        });
+    }
+}
@@ -1,53 +1,112 @@
 package com.example.event_ticket_system.Service.Impl;
 
 import com.example.event_ticket_system.DTO.request.OrderRequestDto;
+import com.example.event_ticket_system.DTO.response.DiscountResponseDto;
 import com.example.event_ticket_system.DTO.response.GetOrdersResponseDto;
+import com.example.event_ticket_system.DTO.response.PaymentLinkResponseDto;
 import com.example.event_ticket_system.Entity.*;
 import com.example.event_ticket_system.Enums.DiscountType;
 import com.example.event_ticket_system.Enums.OrderStatus;
+import com.example.event_ticket_system.Enums.PaymentLinkStatus;
 import com.example.event_ticket_system.Enums.UserRole;
 import com.example.event_ticket_system.Repository.*;
 import com.example.event_ticket_system.Security.JwtUtil;
+import com.example.event_ticket_system.Service.CheckInService;
+import com.example.event_ticket_system.Service.DiscountService;
+import com.example.event_ticket_system.Service.EventSalesService;
+import com.example.event_ticket_system.Service.IdempotencyService;
+import com.example.event_ticket_system.Service.InventoryService;
 import com.example.event_ticket_system.Service.OrderService;
+import com.example.event_ticket_system.Service.PaymentLinkCancellationService;
+import com.example.event_ticket_system.Service.PaymentLinkService;
+import com.example.event_ticket_system.Service.PaymentWebhookLedger;
+import com.example.event_ticket_system.Service.PendingOrderExpiryService;
+import com.example.event_ticket_system.Service.TicketFulfillmentService;
+import com.example.event_ticket_system.Util.PayosOrderCodeGenerator;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import vn.payos.PayOS;
-import vn.payos.type.CheckoutResponseData;
-import vn.payos.type.ItemData;
-import vn.payos.type.PaymentData;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final TicketRepository ticketRepository;
-    private final DiscountRepository discountRepository;
+    private final DiscountService discountService;
     private final OrderTicketRepository orderTicketRepository;
-    private final PayOS payOS; // Inject PayOS
+    private final InventoryService inventoryService;
+    private final PendingOrderExpiryService pendingOrderExpiryService;
+    private final PayosOrderCodeGenerator payosOrderCodeGenerator;
+    private final PaymentLinkRequestRepository paymentLinkRequestRepository;
+    private final PaymentLinkService paymentLinkService;
+    private final PaymentLinkCancellationService paymentLinkCancellationService;
+    private final TicketFulfillmentService ticketFulfillmentService;
+    private final PaymentWebhookLedger paymentWebhookLedger;
+    private final EventSalesService eventSalesService;
+    private final CheckInService checkInService;
+    private final IdempotencyService idempotencyService;
+    private final TransactionTemplate transactionTemplate;
     private final JwtUtil jwtUtil;
 
     @Override
-    @Transactional
-    public CheckoutResponseData createOrder(OrderRequestDto dto, HttpServletRequest request) {
+    public PaymentLinkResponseDto createOrder(OrderRequestDto dto, String idempotencyKey, HttpServletRequest request) {
+        Integer userId = jwtUtil.extractUserId(request.getHeader("Authorization").substring(7));
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return placeOrderAndAwaitLink(dto, userId);
+        }
+        PaymentLinkResponseDto result = idempotencyService.execute(idempotencyScope(userId, idempotencyKey), dto,
+                () -> placeOrderAndAwaitLink(dto, userId));
+        return refreshIfPending(result, userId);
+    }
+
+    @Override
+    public Optional<PaymentLinkResponseDto> findIdempotentOrder(OrderRequestDto dto, String idempotencyKey, HttpServletRequest request) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return Optional.empty();
+        }
+        Integer userId = jwtUtil.extractUserId(request.getHeader("Authorization").substring(7));
+        return idempotencyService.<PaymentLinkResponseDto>find(idempotencyScope(userId, idempotencyKey), dto)
+                .map(result -> refreshIfPending(result, userId));
+    }
+
+    private PaymentLinkResponseDto placeOrderAndAwaitLink(OrderRequestDto dto, Integer userId) {
+        // Chỉ phần ghi DB nằm trong transaction; link PayOS được tạo bởi worker sau khi commit
+        PaymentLinkRequest paymentLinkRequest = transactionTemplate.execute(status -> placeOrder(dto, userId));
+        return paymentLinkService.awaitPaymentLink(paymentLinkRequest);
+    }
+
+    // Key chỉ có nghĩa trong phạm vi một người dùng
+    private static String idempotencyScope(Integer userId, String idempotencyKey) {
+        return "order:" + userId + ":" + idempotencyKey;
+    }
+
+    // Lần trả lời đầu có thể là pending; request lặp lại nhận trạng thái link hiện tại
+    private PaymentLinkResponseDto refreshIfPending(PaymentLinkResponseDto result, Integer userId) {
+        if (result.getStatus() != PaymentLinkStatus.pending) {
+            return result;
+        }
+        return paymentLinkService.getPaymentLink(result.getPayosOrderCode(), userId);
+    }
+
+    private PaymentLinkRequest placeOrder(OrderRequestDto dto, Integer userId) {
         // Validate user
-        User currentUser = userRepository.findById(
-                        jwtUtil.extractUserId(request.getHeader("Authorization").substring(7)))
+        User currentUser = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
         if (currentUser.getRole() != UserRole.customer) {
             throw new SecurityException("Only customers can create orders");
@@ -60,10 +119,20 @@ public class OrderServiceImpl implements OrderService {
         double totalAmount = 0.0;
         int totalQuantity = 0;
         List<OrderTicket> orderTickets = new ArrayList<>();
+        Map<Integer, Integer> requestedQuantities = new LinkedHashMap<>();
+
+        // Nạp tất cả loại vé (kèm sự kiện) trong một truy vấn thay vì findById cho từng dòng
+        Set<Integer> ticketIds = dto.getTickets().stream()
+                .map(OrderRequestDto.OrderTicketRequestDto::getTicketId)
+                .collect(Collectors.toSet());
+        Map<Integer, Ticket> ticketsById = ticketRepository.findAllWithEventByTicketIdIn(ticketIds).stream()
+                .collect(Collectors.toMap(Ticket::getTicketId, ticket -> ticket));
 
         for (OrderRequestDto.OrderTicketRequestDto ticketDto : dto.getTickets()) {
-            Ticket ticket = ticketRepository.findById(ticketDto.getTicketId())
-                    .orElseThrow(() -> new EntityNotFoundException("Ticket not found: " + ticketDto.getTicketId()));
+            Ticket ticket = ticketsById.get(ticketDto.getTicketId());
+            if (ticket == null) {
+                throw new EntityNotFoundException("Ticket not found: " + ticketDto.getTicketId());
+            }
             // Validate quantity (1-5)
             if (ticketDto.getQuantity() <= 0 || ticketDto.getQuantity() > 5) {
                 throw new IllegalArgumentException("Quantity must be between 1 and 5 for ticket: " + ticket.getTicketType());
@@ -95,40 +164,27 @@ public class OrderServiceImpl implements OrderService {
             orderTicket.setQuantity(ticketDto.getQuantity());
             orderTicket.setUnitPrice(ticket.getPrice());
             orderTickets.add(orderTicket);
+            requestedQuantities.merge(ticket.getTicketId(), ticketDto.getQuantity(), Integer::sum);
         }
 
         // Apply discount if provided
         if (dto.getDiscountCode() != null && !dto.getDiscountCode().isBlank()) {
-            Discount discount = discountRepository.findByCode(dto.getDiscountCode())
-                    .orElseThrow(() -> new EntityNotFoundException("Discount code not found"));
-            // Check discount validity
-            LocalDate today = LocalDate.now();
-            if ((discount.getValidFrom() != null && today.isBefore(discount.getValidFrom())) ||
-                    (discount.getValidTo() != null && today.isAfter(discount.getValidTo()))) {
-                throw new IllegalArgumentException("Discount code is not valid");
-            }
-            // Check if discount applies to event
-            if (!discount.getEvent().getEventId().equals(dto.getEventId())) {
-                throw new IllegalArgumentException("Discount code does not apply to this event");
-            }
-            // Check if discount usage available
-            if (discount.getMaxUsage() <= 0 ){
-                throw new IllegalArgumentException("Discount code has reached its maximum usage limit");
-            }
-            if (discount.getDiscountType() == DiscountType.percentage) {
-                totalAmount = totalAmount * (1 - discount.getValue() / 100.0);
-            } else if (discount.getDiscountType() == DiscountType.fixed_amount) {
-                totalAmount = Math.max(0, totalAmount - discount.getValue());
+            // Kiểm tra mã (qua cache) và trừ lượt dùng nguyên tử trên DB
+            DiscountResponseDto discount = discountService.redeem(dto.getDiscountCode(), dto.getEventId());
+            if (discount.discountType() == DiscountType.percentage) {
+                totalAmount = totalAmount * (1 - discount.value() / 100.0);
+            } else if (discount.discountType() == DiscountType.fixed_amount) {
+                totalAmount = Math.max(0, totalAmount - discount.value());
             }
             // Ensure total amount is not negative
             if (totalAmount < 0) {
                 totalAmount = 0;
             }
-            // Decrease discount usage
-            discount.setMaxUsage(discount.getMaxUsage() - 1);
-            discountRepository.save(discount);
         }
 
+        // Giữ chỗ nguyên tử trên DB, ném lỗi nếu người mua khác đã lấy hết vé
+        inventoryService.reserve(requestedQuantities);
+
         // Create order
         Order order = new Order();
         order.setUser(currentUser);
@@ -136,45 +192,59 @@ public class OrderServiceImpl implements OrderService {
         order.setStatus(OrderStatus.pending);
         order.setTotalAmount(totalAmount);
         // Generate PayOS order code
-        String currentTimeString = String.valueOf(new Date().getTime());
-        long payosOrderCode = Long.parseLong(currentTimeString.substring(currentTimeString.length() - 6));
+        long payosOrderCode = payosOrderCodeGenerator.nextCode();
         order.setPayosOrderCode(payosOrderCode);
         orderRepository.save(order);
+        // Tự huỷ đúng 15 phút sau khi đặt nếu chưa thanh toán
+        pendingOrderExpiryService.scheduleAfterCommit(order.getOrderId(), order.getOrderDate());
 
-        // Save order tickets and update ticket quantities
+        // Save order tickets (ticket quantities were already reserved above); gửi theo một JDBC batch khi commit
         for (OrderTicket ot : orderTickets) {
             ot.setOrder(order);
-            orderTicketRepository.save(ot);
-            Ticket ticket = ot.getTicket();
-            ticket.setQuantitySold(ticket.getQuantitySold() + ot.getQuantity());
-            ticketRepository.save(ticket);
         }
+        orderTicketRepository.saveAll(orderTickets);
+
+        // Ghi yêu cầu tạo link vào outbox cùng transaction với đơn hàng
+        LocalDateTime now = LocalDateTime.now();
+        PaymentLinkRequest paymentLinkRequest = new PaymentLinkRequest();
+        paymentLinkRequest.setOrder(order);
+        paymentLinkRequest.setPayosOrderCode(payosOrderCode);
+        paymentLinkRequest.setAmount((int) totalAmount);
+        paymentLinkRequest.setItemName("Tickets for " + orderTickets.get(0).getTicket().getEvent().getEventName());
+        paymentLinkRequest.setQuantity(totalQuantity);
+        paymentLinkRequest.setReturnUrl(dto.getReturnUrl());
+        paymentLinkRequest.setCancelUrl(dto.getCancelUrl());
+        paymentLinkRequest.setStatus(PaymentLinkStatus.pending);
+        paymentLinkRequest.setAttempts(0);
+        paymentLinkRequest.setNextAttemptAt(now);
+        paymentLinkRequest.setCreatedAt(now);
+        return paymentLinkRequestRepository.save(paymentLinkRequest);
+    }
 
-        // Create PayOS payment link
-        String eventName = ticketRepository.findById(dto.getTickets().get(0).getTicketId())
-                .map(ticket -> ticket.getEvent().getEventName())
-                .orElse("Event Tickets");
-        ItemData itemData = ItemData.builder()
-                .name("Tickets for " + eventName)
-                .price((int) totalAmount)
-                .quantity(totalQuantity)
-                .build();
-        PaymentData paymentData = PaymentData.builder()
-                .orderCode(payosOrderCode)
-                .description("Thanh toán Eventa")
-                .amount((int) totalAmount)
-                .item(itemData)
-                .returnUrl(dto.getReturnUrl())
-                .cancelUrl(dto.getCancelUrl())
-                .build();
-        try {
-            return payOS.createPaymentLink(paymentData);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to create PayOS payment link: " + e.getMessage());
+    @Override
+    @Transactional
+    public boolean markPaidFromWebhook(Long payosOrderCode, String reference) {
+        Order order = orderRepository.findByPayosOrderCode(payosOrderCode);
+        if (order == null) {
+            throw new IllegalArgumentException("Order not found for PayOS order code: " + payosOrderCode);
+        }
+        // Ghi sổ trước: lần gửi trùng chạy song song sẽ dừng ở khoá duy nhất của processed_webhooks
+        paymentWebhookLedger.record(payosOrderCode, reference);
+        // Webhook gửi lại cho đơn đã paid thì bỏ qua; đơn đã huỷ (vé đã trả về kho) thì cần đối soát tay
+        if (orderRepository.markPaidIfPending(order.getOrderId()) == 0) {
+            if (order.getStatus() == OrderStatus.cancelled) {
+                log.error("Received payment for cancelled order {} (PayOS order code {})", order.getOrderId(), payosOrderCode);
+            }
+            return false;
         }
+        eventSalesService.recordPaid(List.of(order.getOrderId()));
+        // QR và email chạy ở các bước sau, webhook được trả lời ngay sau khi commit
+        ticketFulfillmentService.enqueue(order);
+        return true;
     }
 
     @Override
+    @Transactional
     public void confirmPayment(String payosOrderCode, HttpServletRequest request) {
         // Validate user
         User currentUser = userRepository.findById(
@@ -190,16 +260,19 @@ public class OrderServiceImpl implements OrderService {
             throw new EntityNotFoundException("Order not found for PayOS order code: " + payosOrderCode);
         }
 
-        // Update order status based on payment status
-        if (order.getStatus() == OrderStatus.paid) {
+        // Chỉ đơn pending mới được xác nhận (cùng đường cập nhật có điều kiện với webhook/đối soát),
+        // nên tickets_sold không bị cộng hai lần và đơn đã huỷ không thể thành paid
+        if (orderRepository.markPaidIfPending(order.getOrderId()) == 0) {
+            if (order.getStatus() == OrderStatus.cancelled) {
+                throw new IllegalArgumentException("Cancelled orders cannot be confirmed");
+            }
             throw new IllegalArgumentException("Order is already paid");
         }
-
-        order.setStatus(OrderStatus.paid);
-        orderRepository.save(order);
+        eventSalesService.recordPaid(List.of(order.getOrderId()));
     }
 
     @Override
+    @Transactional
     public void cancelOrder(String orderCode, HttpServletRequest request) {
         // Validate user
         User currentUser = userRepository.findById(
@@ -215,15 +288,16 @@ public class OrderServiceImpl implements OrderService {
             throw new EntityNotFoundException("Order not found for PayOS order code: " + orderCode);
         }
 
-        // Cancel the order and restore ticket quantities
-        order.setStatus(OrderStatus.cancelled);
-        List<OrderTicket> orderTickets = orderTicketRepository.findByOrder(order);
-        for (OrderTicket orderTicket : orderTickets) {
-            Ticket ticket = orderTicket.getTicket();
-            ticket.setQuantitySold(ticket.getQuantitySold() - orderTicket.getQuantity());
-            ticketRepository.save(ticket);
+        // Cancel the order and restore ticket quantities (only the first cancel releases tickets)
+        String previousStatus = orderRepository.lockOrderStatus(order.getOrderId());
+        if (orderRepository.cancelIfNotCancelled(order.getOrderId(), order.getCancellationReason()) == 0) {
+            throw new IllegalArgumentException("Order is already cancelled");
         }
-        orderRepository.save(order);
+        if (OrderStatus.paid.name().equals(previousStatus)) {
+            eventSalesService.recordPaidCancelled(List.of(order.getOrderId()));
+            checkInService.revokeOrder(order.getOrderId());
+        }
+        inventoryService.releaseOrder(order.getOrderId());
     }
 
     @Override
@@ -310,25 +384,19 @@ public class OrderServiceImpl implements OrderService {
         return response;
     }
 
-    @Scheduled(fixedRate = 60000) // every 1 minute
+    @Override
     @Transactional
-    public void autoCancelPendingOrders() throws Exception {
-        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(15);
-        List<Order> oldPendingOrders = orderRepository.findByStatusAndOrderDateBefore(OrderStatus.pending, cutoff);
-        if (oldPendingOrders.isEmpty()) {
-            return;
-        }
-        for (Order order : oldPendingOrders) {
-            order.setStatus(OrderStatus.cancelled);
-            order.setCancellationReason("Order auto-cancelled due to timeout");
-            payOS.cancelPaymentLink(order.getPayosOrderCode(), "Order auto-cancelled due to timeout");
-            List<OrderTicket> orderTickets = orderTicketRepository.findByOrder(order);
-            for (OrderTicket orderTicket : orderTickets) {
-                Ticket ticket = orderTicket.getTicket();
-                ticket.setQuantitySold(ticket.getQuantitySold() - orderTicket.getQuantity());
-                ticketRepository.save(ticket);
-            }
-            orderRepository.save(order);
+    public boolean expirePendingOrder(Integer orderId) {
+        // Đơn có thể vừa được thanh toán, chỉ huỷ nếu vẫn còn pending
+        if (orderRepository.cancelIfPending(orderId, PendingOrderExpiryService.AUTO_CANCEL_REASON) == 0) {
+            return false;
         }
+        inventoryService.releaseOrder(orderId);
+        // Link PayOS được huỷ trên worker riêng sau khi commit, lỗi PayOS không chặn việc trả vé
+        orderRepository.findById(orderId)
+                .filter(order -> order.getPayosOrderCode() != null)
+                .ifPresent(order -> paymentLinkCancellationService.cancelAfterCommit(
+                List.of(order.getPayosOrderCode()), PendingOrderExpiryService.AUTO_CANCEL_REASON));
+        return true;
     }
-}
\ No newline at end of file
+}
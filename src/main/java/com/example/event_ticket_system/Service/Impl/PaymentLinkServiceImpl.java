@@ -0,0 +1,366 @@
+package com.example.event_ticket_system.Service.Impl;
+
+import com.example.event_ticket_system.DTO.response.PaymentLinkResponseDto;
+import com.example.event_ticket_system.Entity.Order;
+import com.example.event_ticket_system.Entity.PaymentLinkRequest;
+import com.example.event_ticket_system.Enums.OrderStatus;
+import com.example.event_ticket_system.Enums.PaymentLinkStatus;
+import com.example.event_ticket_system.Repository.OrderRepository;
+import com.example.event_ticket_system.Repository.PaymentLinkRequestRepository;
+import com.example.event_ticket_system.Service.EventSalesService;
+import com.example.event_ticket_system.Service.InventoryService;
+import com.example.event_ticket_system.Service.PaymentLinkService;
+import com.example.event_ticket_system.Service.TicketFulfillmentService;
+import com.example.event_ticket_system.Util.PayosOrderCodeGenerator;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.payos.PayOS;
+import vn.payos.type.CheckoutResponseData;
+import vn.payos.type.ItemData;
+import vn.payos.type.PaymentData;
+import vn.payos.type.PaymentLinkData;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tạo link thanh toán PayOS ngoài transaction của đơn hàng: đơn hàng và dòng outbox được commit trước,
+ * một pool worker có giới hạn gọi PayOS rồi gắn link vào outbox. Yêu cầu thất bại được thử lại với
+ * backoff; lần quét định kỳ nhặt lại các yêu cầu bị bỏ dở (pool đầy, node bị tắt giữa chừng).
+ */
+@Slf4j
+@Service
+public class PaymentLinkServiceImpl implements PaymentLinkService {
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long STALE_PROCESSING_MINUTES = 2;
+    private static final int RECOVERY_BATCH_SIZE = 100;
+    private static final String PAYMENT_DESCRIPTION = "Thanh toán Eventa";
+
+    private final PaymentLinkRequestRepository paymentLinkRequestRepository;
+    private final OrderRepository orderRepository;
+    private final InventoryService inventoryService;
+    private final EventSalesService eventSalesService;
+    private final TicketFulfillmentService ticketFulfillmentService;
+    private final PayosOrderCodeGenerator payosOrderCodeGenerator;
+    private final PayOS payOS;
+    private final TransactionTemplate transactionTemplate;
+    private final long waitTimeoutMillis;
+    private final ThreadPoolExecutor executor;
+    private final Map<Integer, CompletableFuture<PaymentLinkResponseDto>> inFlight = new ConcurrentHashMap<>();
+
+    public PaymentLinkServiceImpl(PaymentLinkRequestRepository paymentLinkRequestRepository,
+                                  OrderRepository orderRepository,
+                                  InventoryService inventoryService,
+                                  EventSalesService eventSalesService,
+                                  TicketFulfillmentService ticketFulfillmentService,
+                                  PayosOrderCodeGenerator payosOrderCodeGenerator,
+                                  PayOS payOS,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${payos.link.workers:8}") int workers,
+                                  @Value("${payos.link.queue-capacity:500}") int queueCapacity,
+                                  @Value("${payos.link.wait-timeout-ms:5000}") long waitTimeoutMillis) {
+        this.paymentLinkRequestRepository = paymentLinkRequestRepository;
+        this.orderRepository = orderRepository;
+        this.inventoryService = inventoryService;
+        this.eventSalesService = eventSalesService;
+        this.ticketFulfillmentService = ticketFulfillmentService;
+        this.payosOrderCodeGenerator = payosOrderCodeGenerator;
+        this.payOS = payOS;
+        this.transactionTemplate = transactionTemplate;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "payos-link-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public PaymentLinkResponseDto awaitPaymentLink(PaymentLinkRequest paymentLinkRequest) {
+        CompletableFuture<PaymentLinkResponseDto> future = submit(paymentLinkRequest.getRequestId());
+        try {
+            PaymentLinkResponseDto result = future.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+            if (result != null) {
+                return result;
+            }
+        } catch (TimeoutException e) {
+            log.info("Payment link for order code {} not ready after {} ms, client will poll",
+                    paymentLinkRequest.getPayosOrderCode(), waitTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Payment link worker failed for order code {}", paymentLinkRequest.getPayosOrderCode(), e.getCause());
+        }
+        return new PaymentLinkResponseDto(paymentLinkRequest.getPayosOrderCode(), PaymentLinkStatus.pending, null, null);
+    }
+
+    @Override
+    public PaymentLinkResponseDto getPaymentLink(Long payosOrderCode, Integer userId) {
+        PaymentLinkRequest paymentLinkRequest = paymentLinkRequestRepository.findWithOrderByPayosOrderCode(payosOrderCode)
+                .orElseThrow(() -> new EntityNotFoundException("Order not found for PayOS order code: " + payosOrderCode));
+        if (!paymentLinkRequest.getOrder().getUser().getId().equals(userId)) {
+            throw new SecurityException("You do not have permission to view this order");
+        }
+        return toDto(paymentLinkRequest);
+    }
+
+    /**
+     * Nhặt lại yêu cầu đến hạn thử lại, hoặc bị bỏ dở khi pool đầy / node bị tắt.
+     */
+    @Scheduled(fixedDelayString = "${payos.link.recovery-interval-ms:5000}")
+    public void recoverPendingRequests() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer reset = transactionTemplate.execute(status ->
+                paymentLinkRequestRepository.resetStale(now.minusMinutes(STALE_PROCESSING_MINUTES), now));
+        if (reset != null && reset > 0) {
+            log.warn("Reset {} payment link requests stuck in processing", reset);
+        }
+        List<Integer> due = paymentLinkRequestRepository.findDueRequestIds(now, PageRequest.of(0, RECOVERY_BATCH_SIZE));
+        for (Integer requestId : due) {
+            if (!inFlight.containsKey(requestId)) {
+                submit(requestId);
+            }
+        }
+    }
+
+    private CompletableFuture<PaymentLinkResponseDto> submit(Integer requestId) {
+        CompletableFuture<PaymentLinkResponseDto> future = new CompletableFuture<>();
+        CompletableFuture<PaymentLinkResponseDto> existing = inFlight.putIfAbsent(requestId, future);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> process(requestId));
+        } catch (RejectedExecutionException e) {
+            // Pool đầy: để lần quét định kỳ xử lý, client hỏi lại sau
+            inFlight.remove(requestId, future);
+            log.warn("Payment link queue is full, request {} deferred to recovery", requestId);
+            future.complete(null);
+        }
+        return future;
+    }
+
+    private void process(Integer requestId) {
+        PaymentLinkResponseDto result = null;
+        try {
+            result = attempt(requestId);
+        } catch (Exception e) {
+            log.error("Unexpected error while creating payment link for request {}", requestId, e);
+        } finally {
+            CompletableFuture<PaymentLinkResponseDto> future = inFlight.remove(requestId);
+            if (future != null) {
+                future.complete(result);
+            }
+        }
+    }
+
+    private PaymentLinkResponseDto attempt(Integer requestId) {
+        Integer claimed = transactionTemplate.execute(status ->
+                paymentLinkRequestRepository.claim(requestId, LocalDateTime.now()));
+        PaymentLinkRequest paymentLinkRequest = paymentLinkRequestRepository.findById(requestId)
+                .orElseThrow(() -> new EntityNotFoundException("Payment link request not found: " + requestId));
+        if (claimed == null || claimed == 0) {
+            // Đã có worker khác nhận hoặc đã xong
+            return toDto(paymentLinkRequest);
+        }
+        Integer orderId = paymentLinkRequest.getOrder().getOrderId();
+        Long payosOrderCode = paymentLinkRequest.getPayosOrderCode();
+        if (!isOrderPending(orderId)) {
+            transactionTemplate.executeWithoutResult(status ->
+                    paymentLinkRequestRepository.markFailed(requestId, "Order is no longer pending", LocalDateTime.now()));
+            return new PaymentLinkResponseDto(payosOrderCode, PaymentLinkStatus.failed, null, null);
+        }
+
+        String checkoutUrl;
+        String paymentLinkId;
+        long linkOrderCode = linkOrderCode(paymentLinkRequest);
+        try {
+            if (paymentLinkRequest.getAttempts() > 1) {
+                PaymentLinkData existing = findExistingLink(linkOrderCode);
+                if (existing != null && "PAID".equals(existing.getStatus())) {
+                    return settlePaidLink(paymentLinkRequest, existing);
+                }
+                if (existing != null) {
+                    Long replacement = replaceOrphanLink(paymentLinkRequest, linkOrderCode, existing);
+                    if (replacement == null) {
+                        transactionTemplate.executeWithoutResult(status ->
+                                paymentLinkRequestRepository.markFailed(requestId, "Order is no longer pending", LocalDateTime.now()));
+                        return new PaymentLinkResponseDto(payosOrderCode, PaymentLinkStatus.failed, null, null);
+                    }
+                    linkOrderCode = replacement;
+                }
+            }
+            CheckoutResponseData data = payOS.createPaymentLink(paymentData(paymentLinkRequest, linkOrderCode));
+            paymentLinkId = data.getPaymentLinkId();
+            checkoutUrl = data.getCheckoutUrl();
+        } catch (Exception e) {
+            return handleFailure(paymentLinkRequest, e);
+        }
+
+        // Đơn có thể vừa hết hạn trong lúc gọi PayOS: huỷ link để không ai thanh toán được một đơn đã huỷ
+        // (đơn hết hạn sau bước này thì luồng huỷ đơn tự huỷ link)
+        if (!isOrderPending(orderId)) {
+            cancelLink(linkOrderCode);
+            transactionTemplate.executeWithoutResult(status ->
+                    paymentLinkRequestRepository.markFailed(requestId, "Order is no longer pending", LocalDateTime.now()));
+            return new PaymentLinkResponseDto(payosOrderCode, PaymentLinkStatus.failed, null, null);
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                paymentLinkRequestRepository.markCreated(requestId, checkoutUrl, paymentLinkId, LocalDateTime.now()));
+        return new PaymentLinkResponseDto(payosOrderCode, PaymentLinkStatus.created, checkoutUrl, paymentLinkId);
+    }
+
+    private PaymentLinkResponseDto handleFailure(PaymentLinkRequest paymentLinkRequest, Exception e) {
+        Integer requestId = paymentLinkRequest.getRequestId();
+        Integer orderId = paymentLinkRequest.getOrder().getOrderId();
+        String error = truncate(e.getMessage());
+        LocalDateTime now = LocalDateTime.now();
+        if (paymentLinkRequest.getAttempts() >= MAX_ATTEMPTS) {
+            // Lần gọi cuối có thể đã tạo link và khách đã trả tiền: đơn đã thanh toán thì không được huỷ
+            PaymentLinkData existing = findExistingLink(linkOrderCode(paymentLinkRequest));
+            if (existing != null && "PAID".equals(existing.getStatus())) {
+                return settlePaidLink(paymentLinkRequest, existing);
+            }
+            log.error("Giving up on payment link for order {} after {} attempts", orderId, paymentLinkRequest.getAttempts(), e);
+            // Không tạo được link thì trả vé ngay thay vì chờ đơn hết hạn
+            transactionTemplate.executeWithoutResult(status -> {
+                paymentLinkRequestRepository.markFailed(requestId, error, now);
+                if (orderRepository.cancelIfPending(orderId, "Payment link could not be created") > 0) {
+                    inventoryService.releaseOrder(orderId);
+                }
+            });
+            return new PaymentLinkResponseDto(paymentLinkRequest.getPayosOrderCode(), PaymentLinkStatus.failed, null, null);
+        }
+        long backoffSeconds = 1L << paymentLinkRequest.getAttempts();
+        log.warn("Failed to create payment link for order {} (attempt {}), retrying in {} s",
+                orderId, paymentLinkRequest.getAttempts(), backoffSeconds, e);
+        transactionTemplate.executeWithoutResult(status ->
+                paymentLinkRequestRepository.markRetry(requestId, error, now.plusSeconds(backoffSeconds), now));
+        return new PaymentLinkResponseDto(paymentLinkRequest.getPayosOrderCode(), PaymentLinkStatus.pending, null, null);
+    }
+
+    private PaymentData paymentData(PaymentLinkRequest paymentLinkRequest, long linkOrderCode) {
+        ItemData itemData = ItemData.builder()
+                .name(paymentLinkRequest.getItemName())
+                .price(paymentLinkRequest.getAmount())
+                .quantity(paymentLinkRequest.getQuantity())
+                .build();
+        return PaymentData.builder()
+                .orderCode(linkOrderCode)
+                .description(PAYMENT_DESCRIPTION)
+                .amount(paymentLinkRequest.getAmount())
+                .item(itemData)
+                .returnUrl(paymentLinkRequest.getReturnUrl())
+                .cancelUrl(paymentLinkRequest.getCancelUrl())
+                .build();
+    }
+
+    private static long linkOrderCode(PaymentLinkRequest paymentLinkRequest) {
+        return paymentLinkRequest.getLinkOrderCode() != null
+                ? paymentLinkRequest.getLinkOrderCode()
+                : paymentLinkRequest.getPayosOrderCode();
+    }
+
+    /**
+     * Lần thử trước có thể đã tạo link ở PayOS nhưng mất phản hồi; trả về null nếu mã này chưa có link nào.
+     */
+    private PaymentLinkData findExistingLink(long linkOrderCode) {
+        try {
+            return payOS.getPaymentLinkInformation(linkOrderCode);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Link mồ côi đã được thanh toán: chuyển đơn sang paid như webhook, không tạo link mới và không bao giờ huỷ đơn.
+     */
+    private PaymentLinkResponseDto settlePaidLink(PaymentLinkRequest paymentLinkRequest, PaymentLinkData paid) {
+        Integer orderId = paymentLinkRequest.getOrder().getOrderId();
+        log.warn("Payment link {} for order {} was paid before its checkout URL was stored", paid.getId(), orderId);
+        transactionTemplate.executeWithoutResult(status -> {
+            if (orderRepository.markPaidIfPending(orderId) > 0) {
+                eventSalesService.recordPaid(List.of(orderId));
+                ticketFulfillmentService.enqueue(orderRepository.getReferenceById(orderId));
+            }
+            paymentLinkRequestRepository.markCreated(paymentLinkRequest.getRequestId(), null, paid.getId(), LocalDateTime.now());
+        });
+        return new PaymentLinkResponseDto(paymentLinkRequest.getPayosOrderCode(), PaymentLinkStatus.created, null, paid.getId());
+    }
+
+    /**
+     * Link mồ côi chưa thanh toán không dùng lại được: PayOS chỉ trả checkoutUrl lúc tạo, và không nhận lại
+     * orderCode đã dùng kể cả khi link cũ đã bị huỷ/hết hạn. Huỷ link cũ nếu còn PENDING rồi cấp orderCode mới
+     * cho cả đơn và outbox (webhook, đối soát, huỷ link đều đi theo mã trên đơn). Trả về null nếu đơn không còn pending.
+     */
+    private Long replaceOrphanLink(PaymentLinkRequest paymentLinkRequest, long orphanCode, PaymentLinkData orphan)
+            throws Exception {
+        if ("PENDING".equals(orphan.getStatus())) {
+            payOS.cancelPaymentLink(orphanCode, "Replaced by a new payment link");
+        }
+        long newCode = payosOrderCodeGenerator.nextCode();
+        Integer orderId = paymentLinkRequest.getOrder().getOrderId();
+        Boolean replaced = transactionTemplate.execute(status -> {
+            if (orderRepository.replacePayosOrderCodeIfPending(orderId, newCode) == 0) {
+                return false;
+            }
+            paymentLinkRequestRepository.updateLinkOrderCode(paymentLinkRequest.getRequestId(), newCode, LocalDateTime.now());
+            return true;
+        });
+        if (!Boolean.TRUE.equals(replaced)) {
+            return null;
+        }
+        paymentLinkRequest.setLinkOrderCode(newCode);
+        log.info("Order {} moved from PayOS order code {} to {} after an orphaned payment link",
+                orderId, orphanCode, newCode);
+        return newCode;
+    }
+
+    private void cancelLink(Long payosOrderCode) {
+        try {
+            payOS.cancelPaymentLink(payosOrderCode, "Order is no longer pending");
+        } catch (Exception e) {
+            log.warn("Failed to cancel PayOS payment link {}", payosOrderCode, e);
+        }
+    }
+
+    private boolean isOrderPending(Integer orderId) {
+        return orderRepository.findById(orderId)
+                .map(Order::getStatus)
+                .filter(status -> status == OrderStatus.pending)
+                .isPresent();
+    }
+
+    private PaymentLinkResponseDto toDto(PaymentLinkRequest paymentLinkRequest) {
+        return new PaymentLinkResponseDto(
+                paymentLinkRequest.getPayosOrderCode(),
+                paymentLinkRequest.getStatus(),
+                paymentLinkRequest.getCheckoutUrl(),
+                paymentLinkRequest.getPaymentLinkId()
+        );
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
@@ -1,8 +1,8 @@
 package com.example.event_ticket_system.Service.Impl;
 
+import com.example.event_ticket_system.DTO.response.EventCardStatsProjection;
 import com.example.event_ticket_system.DTO.response.RecommendEventsResponseDto;
 import com.example.event_ticket_system.Entity.Event;
-import com.example.event_ticket_system.Entity.Ticket;
 import com.example.event_ticket_system.Repository.EventRepository;
 import com.example.event_ticket_system.Repository.OrderTicketRepository;
 import com.example.event_ticket_system.Repository.TicketRepository;
@@ -15,6 +15,8 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 public class RecommendationServiceImpl implements RecommendationService {
@@ -46,6 +48,14 @@ public class RecommendationServiceImpl implements RecommendationService {
         if (events == null || events.isEmpty()) {
             events = eventRepository.findAllUpcomingEvents(LocalDateTime.now());
         }
+        if (events.isEmpty()) {
+            return List.of();
+        }
+
+        // Giá vé thấp nhất của mọi sự kiện trong một truy vấn
+        Map<Integer, EventCardStatsProjection> cardStats = ticketRepository.findCardStatsByEventIds(
+                        events.stream().map(Event::getEventId).toList()).stream()
+                .collect(Collectors.toMap(EventCardStatsProjection::getEventId, stats -> stats));
 
         // Map Event → DTO
         return events.stream()
@@ -64,18 +74,11 @@ public class RecommendationServiceImpl implements RecommendationService {
                     dto.setLogoUrl(event.getLogoUrl());
                     dto.setBackgroundUrl(event.getBackgroundUrl());
 
-                    // Lấy tổng số vé đã bán cho sự kiện này
-                    long totalTicketSold = orderTicketRepository.sumQuantityByEvent(event);
-                    dto.setTotalTicketSold(totalTicketSold);
-
-                    // Lấy giá vé thấp nhất
-                    List<Ticket> tickets = ticketRepository.findByEvent(event);
-                    String minPrice = tickets.stream()
-                            .map(Ticket::getPrice)
-                            .min(Double::compareTo)
-                            .map(String::valueOf)
-                            .orElse("0.0");
-                    dto.setMinPrice(minPrice);
+                    // Tổng số vé đã bán (đơn đã thanh toán) cho sự kiện này
+                    dto.setTotalTicketSold((long) event.getTicketsSold());
+                    // Giá vé thấp nhất
+                    EventCardStatsProjection stats = cardStats.get(event.getEventId());
+                    dto.setMinPrice(stats != null ? String.valueOf(stats.getMinPrice()) : "0.0");
 
                     return dto;
                 })
@@ -0,0 +1,305 @@
+package com.example.event_ticket_system.Service.Impl;
+
+import com.example.event_ticket_system.DTO.response.InventoryReconciliationDto;
+import com.example.event_ticket_system.DTO.response.TicketQuantityProjection;
+import com.example.event_ticket_system.DTO.response.TicketStockProjection;
+import com.example.event_ticket_system.Repository.OrderTicketRepository;
+import com.example.event_ticket_system.Repository.TicketRepository;
+import com.example.event_ticket_system.Service.InventoryService;
+import com.example.event_ticket_system.Util.StripedStockCounter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Engine tồn kho trong bộ nhớ, đặt trước TicketRepository (bật bằng inventory.engine=memory).
+ * Giữ chỗ/trả vé chỉ chạm bộ đếm stripe lock-free, phần chênh lệch được ghi dồn xuống
+ * tickets.quantity_sold theo lô định kỳ, nên người mua cùng một loại vé không còn xếp hàng
+ * trên cùng một dòng trong MySQL. Chỉ dùng khi chạy một node duy nhất.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "inventory.engine", havingValue = "memory")
+public class StripedInventoryServiceImpl implements InventoryService {
+    private final TicketRepository ticketRepository;
+    private final OrderTicketRepository orderTicketRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int stripes;
+
+    private final Map<Integer, TicketStock> stocks = new ConcurrentHashMap<>();
+
+    public StripedInventoryServiceImpl(TicketRepository ticketRepository,
+                                       OrderTicketRepository orderTicketRepository,
+                                       JdbcTemplate jdbcTemplate,
+                                       TransactionTemplate transactionTemplate,
+                                       @Value("${inventory.stripes:0}") int stripes) {
+        this.ticketRepository = ticketRepository;
+        this.orderTicketRepository = orderTicketRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        int wanted = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+        this.stripes = Math.min(64, Integer.highestOneBit(Math.max(1, wanted - 1)) << 1);
+    }
+
+    /**
+     * Dựng lại bộ đếm từ bảng tickets và order_tickets trước khi nhận request.
+     * order_tickets là nguồn chuẩn: nếu quantity_sold lệch (ví dụ mất lần ghi dồn cuối trước khi tắt máy)
+     * thì sửa lại bảng tickets cho khớp.
+     */
+    @PostConstruct
+    public void rebuild() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Integer, Long> ordered = activeQuantities();
+            int repaired = 0;
+            for (TicketStockProjection stock : ticketRepository.findAllStock()) {
+                int sold = ordered.getOrDefault(stock.getTicketId(), 0L).intValue();
+                if (stock.getQuantitySold() != sold) {
+                    ticketRepository.updateQuantitySold(stock.getTicketId(), sold);
+                    repaired++;
+                }
+                stocks.put(stock.getTicketId(), new TicketStock(stripes, stock.getQuantityTotal(), sold));
+            }
+            log.info("Rebuilt in-memory inventory for {} tickets ({} quantity_sold values repaired)", stocks.size(), repaired);
+        });
+    }
+
+    @Override
+    public Map<Integer, Integer> reserve(Map<Integer, Integer> quantitiesByTicketId) {
+        Map<Integer, Integer> reserved = new LinkedHashMap<>();
+        // Loại vé đang được giữ chỗ không bị refreshTotals bỏ khỏi bộ nhớ cho tới khi transaction kết thúc
+        List<TicketStock> pinned = new ArrayList<>();
+        try {
+            for (Map.Entry<Integer, Integer> entry : quantitiesByTicketId.entrySet()) {
+                int quantity = entry.getValue();
+                if (quantity <= 0) {
+                    continue;
+                }
+                TicketStock stock = pin(entry.getKey());
+                pinned.add(stock);
+                if (!stock.counter.tryTake(quantity)) {
+                    releaseNow(reserved);
+                    throw new IllegalArgumentException("Not enough tickets available for ticket: " + entry.getKey());
+                }
+                stock.unflushedSold.addAndGet(quantity);
+                reserved.put(entry.getKey(), quantity);
+            }
+        } catch (RuntimeException e) {
+            unpin(pinned);
+            throw e;
+        }
+        // Đơn hàng rollback thì trả lại ngay các vé vừa giữ
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        releaseNow(reserved);
+                    }
+                    unpin(pinned);
+                }
+            });
+        } else {
+            unpin(pinned);
+        }
+        return reserved;
+    }
+
+    @Override
+    public Map<Integer, Integer> release(Map<Integer, Integer> quantitiesByTicketId) {
+        Map<Integer, Integer> released = new LinkedHashMap<>();
+        quantitiesByTicketId.forEach((ticketId, quantity) -> {
+            if (quantity > 0) {
+                released.put(ticketId, quantity);
+            }
+        });
+        // Chỉ trả vé khi việc huỷ đơn đã commit, tránh bán lại vé của một đơn vẫn còn hiệu lực
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    releaseNow(released);
+                }
+            });
+        } else {
+            releaseNow(released);
+        }
+        return released;
+    }
+
+    @Override
+    public Map<Integer, Integer> releaseOrder(Integer orderId) {
+        Map<Integer, Integer> quantities = new LinkedHashMap<>();
+        for (TicketQuantityProjection line : orderTicketRepository.sumQuantityByTicketForOrder(orderId)) {
+            quantities.put(line.getTicketId(), line.getQuantity().intValue());
+        }
+        return release(quantities);
+    }
+
+    /**
+     * Ghi dồn phần chênh lệch quantity_sold của mọi loại vé trong một transaction, dùng JDBC batch.
+     */
+    @Scheduled(fixedDelayString = "${inventory.flush-interval-ms:1000}")
+    public void flush() {
+        Map<Integer, Integer> drained = new LinkedHashMap<>();
+        stocks.forEach((ticketId, stock) -> {
+            int delta = stock.unflushedSold.getAndSet(0);
+            if (delta != 0) {
+                drained.put(ticketId, delta);
+            }
+        });
+        if (drained.isEmpty()) {
+            return;
+        }
+        List<Object[]> batchArgs = new ArrayList<>(drained.size());
+        drained.forEach((ticketId, delta) -> batchArgs.add(new Object[]{delta, ticketId}));
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                    "UPDATE tickets SET quantity_sold = quantity_sold + ? WHERE ticket_id = ?", batchArgs));
+        } catch (DataAccessException e) {
+            // Cả lô đã rollback, cộng lại để lần flush sau ghi tiếp
+            drained.forEach((ticketId, delta) -> {
+                TicketStock stock = stocks.get(ticketId);
+                if (stock != null) {
+                    stock.unflushedSold.addAndGet(delta);
+                }
+            });
+            log.error("Failed to flush inventory deltas for {} tickets", drained.size(), e);
+        }
+    }
+
+    /**
+     * Đồng bộ quantityTotal khi ban tổ chức sửa số lượng vé, và bỏ các loại vé đã bị xoá.
+     * Một loại vé chỉ bị bỏ khi đã vắng mặt ở hai lần refresh liên tiếp (loại vé nạp sau truy vấn của lần này
+     * sẽ có mặt ở lần sau), không còn giữ chỗ nào đang chạy và không còn chênh lệch chưa ghi.
+     */
+    @Scheduled(fixedDelayString = "${inventory.refresh-interval-ms:30000}")
+    public void refreshTotals() {
+        Set<Integer> seen = new HashSet<>();
+        for (TicketStockProjection row : ticketRepository.findAllStock()) {
+            seen.add(row.getTicketId());
+            TicketStock stock = stocks.get(row.getTicketId());
+            if (stock != null) {
+                stock.missedRefreshes = 0;
+                if (stock.quantityTotal != row.getQuantityTotal()) {
+                    stock.counter.add(row.getQuantityTotal() - stock.quantityTotal);
+                    stock.quantityTotal = row.getQuantityTotal();
+                }
+            }
+        }
+        for (Integer ticketId : stocks.keySet()) {
+            if (seen.contains(ticketId)) {
+                continue;
+            }
+            // Cùng khoá với pin() nên không thể bỏ một loại vé ngay khi reserve vừa lấy nó
+            stocks.computeIfPresent(ticketId, (id, stock) -> {
+                stock.missedRefreshes++;
+                boolean idle = stock.pinned.get() == 0 && stock.unflushedSold.get() == 0;
+                return idle && stock.missedRefreshes >= 2 ? null : stock;
+            });
+        }
+    }
+
+    @Override
+    public List<InventoryReconciliationDto> reconcile() {
+        flush();
+        Map<Integer, Long> ordered = activeQuantities();
+        List<InventoryReconciliationDto> report = new ArrayList<>();
+        for (TicketStockProjection row : ticketRepository.findAllStock()) {
+            long orderedQuantity = ordered.getOrDefault(row.getTicketId(), 0L);
+            TicketStock stock = stocks.get(row.getTicketId());
+            Integer counterSold = null;
+            int unflushed = 0;
+            boolean consistent = row.getQuantitySold() == orderedQuantity;
+            if (stock != null) {
+                counterSold = stock.quantityTotal - stock.counter.available();
+                unflushed = stock.unflushedSold.get();
+                consistent = counterSold == orderedQuantity && row.getQuantitySold() + unflushed == counterSold;
+            }
+            report.add(new InventoryReconciliationDto(
+                    row.getTicketId(),
+                    row.getQuantityTotal(),
+                    row.getQuantitySold(),
+                    orderedQuantity,
+                    counterSold,
+                    unflushed,
+                    consistent
+            ));
+        }
+        return report;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private TicketStock pin(Integer ticketId) {
+        return stocks.compute(ticketId, (id, existing) -> {
+            TicketStock stock = existing != null ? existing : load(id);
+            stock.pinned.incrementAndGet();
+            return stock;
+        });
+    }
+
+    private static void unpin(List<TicketStock> pinned) {
+        pinned.forEach(stock -> stock.pinned.decrementAndGet());
+    }
+
+    private TicketStock load(Integer ticketId) {
+        // Loại vé mới tạo sau khi khởi động: chưa từng đi qua engine nên quantity_sold là chính xác
+        List<TicketStockProjection> rows = ticketRepository.findStockByTicketIds(List.of(ticketId));
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Ticket not found: " + ticketId);
+        }
+        TicketStockProjection row = rows.get(0);
+        return new TicketStock(stripes, row.getQuantityTotal(), row.getQuantitySold());
+    }
+
+    private void releaseNow(Map<Integer, Integer> quantities) {
+        quantities.forEach((ticketId, quantity) -> {
+            TicketStock stock = stocks.get(ticketId);
+            if (stock != null) {
+                stock.counter.add(quantity);
+                stock.unflushedSold.addAndGet(-quantity);
+            }
+        });
+    }
+
+    private Map<Integer, Long> activeQuantities() {
+        Map<Integer, Long> ordered = new HashMap<>();
+        for (TicketQuantityProjection line : orderTicketRepository.sumActiveQuantityByTicket()) {
+            ordered.put(line.getTicketId(), line.getQuantity());
+        }
+        return ordered;
+    }
+
+    private static final class TicketStock {
+        private final StripedStockCounter counter;
+        private final AtomicInteger unflushedSold = new AtomicInteger();
+        // Số lượt reserve đang dùng loại vé này mà transaction chưa kết thúc
+        private final AtomicInteger pinned = new AtomicInteger();
+        // Số lần refreshTotals liên tiếp không thấy loại vé trong bảng tickets (chỉ refreshTotals ghi)
+        private volatile int missedRefreshes;
+        // Chỉ được ghi bởi refreshTotals (một luồng scheduler)
+        private volatile int quantityTotal;
+
+        private TicketStock(int stripes, int quantityTotal, int quantitySold) {
+            this.counter = new StripedStockCounter(stripes, quantityTotal - quantitySold);
+            this.quantityTotal = quantityTotal;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.event_ticket_system.Service.Impl;
+
+import com.example.event_ticket_system.Entity.FulfillmentDeadLetter;
+import com.example.event_ticket_system.Entity.FulfillmentJob;
+import com.example.event_ticket_system.Entity.Order;
+import com.example.event_ticket_system.Entity.OrderTicket;
+import com.example.event_ticket_system.Enums.FulfillmentJobStatus;
+import com.example.event_ticket_system.Enums.FulfillmentStage;
+import com.example.event_ticket_system.Repository.FulfillmentDeadLetterRepository;
+import com.example.event_ticket_system.Repository.FulfillmentJobRepository;
+import com.example.event_ticket_system.Repository.OrderRepository;
+import com.example.event_ticket_system.Repository.OrderTicketRepository;
+import com.example.event_ticket_system.Service.EmailService;
+import com.example.event_ticket_system.Service.TicketFulfillmentService;
+import com.example.event_ticket_system.Service.TicketPdfService;
+import com.example.event_ticket_system.Service.TicketQrService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Giao vé theo từng bước sau khi webhook PayOS đã chuyển đơn sang paid: tạo QR rồi gửi email.
+ * Mỗi bước có pool và hàng đợi giới hạn riêng, trạng thái nằm trong bảng fulfillment_jobs nên
+ * việc bị lỗi (hoặc bị bỏ khi hàng đợi đầy, node bị tắt) được thử lại; hết lượt thì vào dead letter.
+ */
+@Slf4j
+@Service
+public class TicketFulfillmentServiceImpl implements TicketFulfillmentService {
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long STALE_PROCESSING_MINUTES = 5;
+    private static final int RECOVERY_BATCH_SIZE = 100;
+    private static final String EMAIL_SUBJECT = "Mã QR Vé Sự Kiện Của Bạn";
+    private static final String EMAIL_TEXT = "Cảm ơn bạn đã mua vé! Vui lòng xuất trình các mã QR này tại lối vào sự kiện.";
+
+    private final FulfillmentJobRepository fulfillmentJobRepository;
+    private final FulfillmentDeadLetterRepository fulfillmentDeadLetterRepository;
+    private final OrderRepository orderRepository;
+    private final OrderTicketRepository orderTicketRepository;
+    private final EmailService emailService;
+    private final TicketQrService ticketQrService;
+    private final TicketPdfService ticketPdfService;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<FulfillmentStage, ThreadPoolExecutor> executors = new EnumMap<>(FulfillmentStage.class);
+    private final Map<FulfillmentStage, Timer> stageTimers = new EnumMap<>(FulfillmentStage.class);
+    private final Counter deadLetterCounter;
+    // Việc đang nằm trong hàng đợi hoặc đang chạy trên node này, để lần quét không đưa vào hai lần
+    private final Set<Integer> inFlight = ConcurrentHashMap.newKeySet();
+
+    public TicketFulfillmentServiceImpl(FulfillmentJobRepository fulfillmentJobRepository,
+                                        FulfillmentDeadLetterRepository fulfillmentDeadLetterRepository,
+                                        OrderRepository orderRepository,
+                                        OrderTicketRepository orderTicketRepository,
+                                        EmailService emailService,
+                                        TicketQrService ticketQrService,
+                                        TicketPdfService ticketPdfService,
+                                        TransactionTemplate transactionTemplate,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${fulfillment.qr.workers:4}") int qrWorkers,
+                                        @Value("${fulfillment.email.workers:2}") int emailWorkers,
+                                        @Value("${fulfillment.queue-capacity:1000}") int queueCapacity) {
+        this.fulfillmentJobRepository = fulfillmentJobRepository;
+        this.fulfillmentDeadLetterRepository = fulfillmentDeadLetterRepository;
+        this.orderRepository = orderRepository;
+        this.orderTicketRepository = orderTicketRepository;
+        this.emailService = emailService;
+        this.ticketQrService = ticketQrService;
+        this.ticketPdfService = ticketPdfService;
+        this.transactionTemplate = transactionTemplate;
+        executors.put(FulfillmentStage.qr_code, newExecutor("fulfillment-qr-", qrWorkers, queueCapacity));
+        executors.put(FulfillmentStage.email, newExecutor("fulfillment-email-", emailWorkers, queueCapacity));
+        executors.forEach((stage, executor) -> {
+            Gauge.builder("fulfillment.queue.depth", executor, e -> e.getQueue().size())
+                    .description("Fulfillment jobs waiting for a worker")
+                    .tag("stage", stage.name())
+                    .register(meterRegistry);
+            stageTimers.put(stage, Timer.builder("fulfillment.stage.latency")
+                    .description("Time spent processing one fulfillment stage")
+                    .tag("stage", stage.name())
+                    .register(meterRegistry));
+        });
+        this.deadLetterCounter = Counter.builder("fulfillment.dead_letters")
+                .description("Fulfillment jobs moved to the dead letter table")
+                .register(meterRegistry);
+    }
+
+    private static ThreadPoolExecutor newExecutor(String threadPrefix, int workers, int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, threadPrefix + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executors.values().forEach(ThreadPoolExecutor::shutdown);
+    }
+
+    @Override
+    public void enqueue(Order order) {
+        LocalDateTime now = LocalDateTime.now();
+        FulfillmentJob job = new FulfillmentJob();
+        job.setOrder(order);
+        job.setStage(FulfillmentStage.qr_code);
+        job.setStatus(FulfillmentJobStatus.pending);
+        job.setAttempts(0);
+        job.setNextAttemptAt(now);
+        job.setCreatedAt(now);
+        FulfillmentJob saved = fulfillmentJobRepository.save(job);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(saved.getJobId(), FulfillmentStage.qr_code);
+                }
+            });
+        } else {
+            submit(saved.getJobId(), FulfillmentStage.qr_code);
+        }
+    }
+
+    /**
+     * Nhặt lại việc đến hạn thử lại, hoặc bị bỏ dở khi hàng đợi đầy / node bị tắt.
+     */
+    @Scheduled(fixedDelayString = "${fulfillment.recovery-interval-ms:10000}")
+    public void recoverPendingJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer reset = transactionTemplate.execute(status ->
+                fulfillmentJobRepository.resetStale(now.minusMinutes(STALE_PROCESSING_MINUTES), now));
+        if (reset != null && reset > 0) {
+            log.warn("Reset {} fulfillment jobs stuck in processing", reset);
+        }
+        for (FulfillmentJob job : fulfillmentJobRepository.findDueJobs(now, PageRequest.of(0, RECOVERY_BATCH_SIZE))) {
+            submit(job.getJobId(), job.getStage());
+        }
+    }
+
+    public int queueDepth(FulfillmentStage stage) {
+        return executors.get(stage).getQueue().size();
+    }
+
+    private void submit(Integer jobId, FulfillmentStage stage) {
+        ThreadPoolExecutor executor = executors.get(stage);
+        if (executor == null || !inFlight.add(jobId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                FulfillmentStage next = null;
+                try {
+                    next = process(jobId);
+                } catch (Exception e) {
+                    log.error("Unexpected error while processing fulfillment job {}", jobId, e);
+                } finally {
+                    inFlight.remove(jobId);
+                }
+                if (next != null) {
+                    submit(jobId, next);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Hàng đợi đầy: việc vẫn pending trong DB, lần quét định kỳ sẽ đưa vào lại
+            inFlight.remove(jobId);
+            log.warn("Fulfillment {} queue is full, job {} deferred to recovery", stage, jobId);
+        }
+    }
+
+    /**
+     * Chạy bước hiện tại của job, trả về bước kế tiếp cần đưa vào hàng đợi (null nếu không có).
+     */
+    private FulfillmentStage process(Integer jobId) {
+        Integer claimed = transactionTemplate.execute(status -> fulfillmentJobRepository.claim(jobId, LocalDateTime.now()));
+        if (claimed == null || claimed == 0) {
+            // Đã có worker khác nhận hoặc đã xong
+            return null;
+        }
+        FulfillmentJob job = fulfillmentJobRepository.findById(jobId)
+                .orElseThrow(() -> new EntityNotFoundException("Fulfillment job not found: " + jobId));
+        Integer orderId = job.getOrder().getOrderId();
+        FulfillmentStage stage = job.getStage();
+        Timer.Sample sample = Timer.start();
+        try {
+            if (stage == FulfillmentStage.qr_code) {
+                generateQrCodes(orderId);
+                transactionTemplate.executeWithoutResult(status ->
+                        fulfillmentJobRepository.advance(jobId, FulfillmentStage.email, LocalDateTime.now()));
+                return FulfillmentStage.email;
+            } else if (stage == FulfillmentStage.email) {
+                sendTicketEmail(orderId);
+                transactionTemplate.executeWithoutResult(status ->
+                        fulfillmentJobRepository.markCompleted(jobId, LocalDateTime.now()));
+            }
+        } catch (Exception e) {
+            handleFailure(job, e);
+        } finally {
+            Timer timer = stageTimers.get(stage);
+            if (timer != null) {
+                sample.stop(timer);
+            }
+        }
+        return null;
+    }
+
+    private void generateQrCodes(Integer orderId) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new EntityNotFoundException("Order not found: " + orderId));
+        // Chỉ lưu payload ngắn; ảnh được vẽ trước để bước email lấy từ cache
+        List<OrderTicket> orderTickets = orderTicketRepository.findWithTicketAndEventByOrderId(orderId);
+        ticketQrService.assignPayloads(order, orderTickets);
+        for (OrderTicket orderTicket : orderTickets) {
+            ticketQrService.render(orderTicket.getQrPayload());
+        }
+    }
+
+    private void sendTicketEmail(Integer orderId) throws Exception {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new EntityNotFoundException("Order not found: " + orderId));
+        List<OrderTicket> orderTickets = orderTicketRepository.findWithTicketAndEventByOrderId(orderId);
+        // Vé chưa có payload (job cũ) được gán ngay tại đây
+        ticketQrService.assignPayloads(order, orderTickets);
+        List<byte[]> qrCodes = new ArrayList<>();
+        for (OrderTicket orderTicket : orderTickets) {
+            qrCodes.add(ticketQrService.render(orderTicket.getQrPayload()).getPng());
+        }
+        byte[] ticketPdf = ticketPdfService.render(order, orderTickets);
+        emailService.sendMultipleQRCodeEmail(order.getUser().getEmail(), EMAIL_SUBJECT, EMAIL_TEXT, qrCodes, orderTickets, ticketPdf);
+    }
+
+    private void handleFailure(FulfillmentJob job, Exception e) {
+        Integer jobId = job.getJobId();
+        // Đã gồm cả lần thử hiện tại (được tăng khi claim)
+        int attempts = job.getAttempts();
+        String error = truncate(e.getMessage(), 1000);
+        LocalDateTime now = LocalDateTime.now();
+        if (attempts >= MAX_ATTEMPTS) {
+            log.error("Fulfillment job {} ({}) moved to dead letter after {} attempts", jobId, job.getStage(), attempts, e);
+            transactionTemplate.executeWithoutResult(status -> {
+                fulfillmentJobRepository.markDead(jobId, error, now);
+                FulfillmentDeadLetter deadLetter = new FulfillmentDeadLetter();
+                deadLetter.setJobId(jobId);
+                deadLetter.setOrderId(job.getOrder().getOrderId());
+                deadLetter.setStage(job.getStage());
+                deadLetter.setAttempts(attempts);
+                deadLetter.setError(truncate(e.toString(), 2000));
+                deadLetter.setFailedAt(now);
+                fulfillmentDeadLetterRepository.save(deadLetter);
+            });
+            deadLetterCounter.increment();
+            return;
+        }
+        long backoffSeconds = 1L << attempts;
+        log.warn("Fulfillment job {} ({}) failed (attempt {}), retrying in {} s", jobId, job.getStage(), attempts, backoffSeconds, e);
+        transactionTemplate.executeWithoutResult(status ->
+                fulfillmentJobRepository.markRetry(jobId, error, now.plusSeconds(backoffSeconds), now));
+    }
+
+    private static String truncate(String message, int maxLength) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > maxLength ? message.substring(0, maxLength) : message;
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.event_ticket_system.Service.Impl;
+
+import com.example.event_ticket_system.Entity.Event;
+import com.example.event_ticket_system.Entity.Order;
+import com.example.event_ticket_system.Entity.OrderTicket;
+import com.example.event_ticket_system.Enums.OrderStatus;
+import com.example.event_ticket_system.Repository.OrderRepository;
+import com.example.event_ticket_system.Repository.OrderTicketRepository;
+import com.example.event_ticket_system.Security.JwtUtil;
+import com.example.event_ticket_system.Service.TicketPdfService;
+import com.example.event_ticket_system.Service.TicketQrService;
+import com.example.event_ticket_system.Util.PdfFonts;
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.PdfContentByte;
+import com.itextpdf.text.pdf.PdfTemplate;
+import com.itextpdf.text.pdf.PdfWriter;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Vé điện tử PDF: mỗi loại vé trong đơn là một trang khổ A6 ngang gồm thông tin sự kiện và mã QR.
+ * Font được nạp một lần (PdfFonts) và toạ độ bố cục là hằng số; phần tĩnh của trang (khung, dải tiêu đề, nhãn)
+ * được vẽ một lần vào PdfTemplate rồi dùng lại cho mọi trang, nên mỗi đơn chỉ tốn vài mili giây.
+ * Chỉ nhúng một font (chữ đậm được giả lập bằng nét viền) vì phần tốn nhất còn lại là nhúng subset font vào từng file.
+ */
+@Service
+public class TicketPdfServiceImpl implements TicketPdfService {
+    private static final Rectangle PAGE = new Rectangle(420, 298);
+    private static final float MARGIN = 16;
+    private static final float INSET = 28;
+    private static final float HEADER_HEIGHT = 58;
+    private static final float LABEL_X = INSET;
+    private static final float VALUE_X = 104;
+    private static final float VALUE_WIDTH = 166;
+    private static final float ROW_TOP = 200;
+    private static final float ROW_HEIGHT = 20;
+    private static final float QR_SIZE = 112;
+    private static final float QR_X = PAGE.getWidth() - INSET - QR_SIZE;
+    private static final float QR_Y = 92;
+    private static final float FOOTER_LINE_Y = 80;
+    private static final float FOOTER_Y = 58;
+    private static final float NOTE_Y = 38;
+    private static final float TITLE_SIZE = 15;
+    private static final float TEXT_SIZE = 9.5f;
+    private static final float SMALL_SIZE = 8;
+    private static final BaseColor HEADER_COLOR = new BaseColor(0x1F, 0x3A, 0x5F);
+    private static final BaseColor LABEL_COLOR = new BaseColor(0x6B, 0x72, 0x80);
+    private static final BaseColor FRAME_COLOR = new BaseColor(0xD1, 0xD5, 0xDB);
+    private static final String[] LABELS = {"Thời gian", "Địa điểm", "Loại vé", "Số lượng", "Đơn giá", "Khách hàng"};
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
+    private static final Locale VIETNAMESE = Locale.forLanguageTag("vi-VN");
+
+    private final OrderRepository orderRepository;
+    private final OrderTicketRepository orderTicketRepository;
+    private final TicketQrService ticketQrService;
+    private final JwtUtil jwtUtil;
+
+    public TicketPdfServiceImpl(OrderRepository orderRepository,
+                                OrderTicketRepository orderTicketRepository,
+                                TicketQrService ticketQrService,
+                                JwtUtil jwtUtil) {
+        this.orderRepository = orderRepository;
+        this.orderTicketRepository = orderTicketRepository;
+        this.ticketQrService = ticketQrService;
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    public byte[] getOrderTicketsPdf(Integer userId, Integer orderId, HttpServletRequest request) {
+        String token = request.getHeader("Authorization").substring(7);
+        if (!"ROLE_customer".equals(jwtUtil.extractRole(token)) || !userId.equals(jwtUtil.extractUserId(token))) {
+            throw new SecurityException("You do not have permission to view tickets for this user.");
+        }
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new EntityNotFoundException("Order not found: " + orderId));
+        if (!userId.equals(order.getUser().getId())) {
+            throw new SecurityException("You do not have permission to view tickets for this user.");
+        }
+        if (order.getStatus() != OrderStatus.paid) {
+            throw new IllegalStateException("E-tickets are only available for paid orders");
+        }
+        List<OrderTicket> orderTickets = orderTicketRepository.findWithTicketAndEventByOrderId(orderId);
+        ticketQrService.assignPayloads(order, orderTickets);
+        return render(order, orderTickets);
+    }
+
+    @Override
+    public byte[] render(Order order, List<OrderTicket> orderTickets) {
+        if (orderTickets.isEmpty()) {
+            throw new IllegalArgumentException("Order " + order.getOrderId() + " has no tickets");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        Document document = new Document(PAGE, 0, 0, 0, 0);
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setFullCompression();
+            document.addTitle("Vé điện tử - Đơn hàng #" + order.getOrderId());
+            document.open();
+            PdfContentByte canvas = writer.getDirectContent();
+            PdfTemplate frame = frame(canvas);
+            for (int i = 0; i < orderTickets.size(); i++) {
+                if (i > 0) {
+                    document.newPage();
+                }
+                canvas.addTemplate(frame, 0, 0);
+                drawTicket(canvas, order, orderTickets.get(i), i + 1, orderTickets.size());
+            }
+            document.close();
+        } catch (DocumentException | IOException e) {
+            throw new IllegalStateException("Could not generate e-ticket PDF for order " + order.getOrderId(), e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Phần giống nhau trên mọi trang; PdfTemplate gắn với một PdfWriter nên được dựng một lần cho mỗi tài liệu.
+     */
+    private static PdfTemplate frame(PdfContentByte canvas) {
+        PdfTemplate template = canvas.createTemplate(PAGE.getWidth(), PAGE.getHeight());
+        float width = PAGE.getWidth() - 2 * MARGIN;
+        float height = PAGE.getHeight() - 2 * MARGIN;
+        float headerY = PAGE.getHeight() - MARGIN - HEADER_HEIGHT;
+
+        template.setColorStroke(FRAME_COLOR);
+        template.setLineWidth(1f);
+        template.roundRectangle(MARGIN, MARGIN, width, height, 8);
+        template.stroke();
+        template.setColorFill(HEADER_COLOR);
+        template.rectangle(MARGIN, headerY, width, HEADER_HEIGHT);
+        template.fill();
+
+        template.setLineDash(3f, 3f, 0f);
+        template.moveTo(INSET, FOOTER_LINE_Y);
+        template.lineTo(PAGE.getWidth() - INSET, FOOTER_LINE_Y);
+        template.stroke();
+        template.setLineDash(0f);
+
+        template.beginText();
+        bold(template, BaseColor.WHITE, SMALL_SIZE);
+        template.showTextAligned(Element.ALIGN_LEFT, "VÉ ĐIỆN TỬ", INSET, PAGE.getHeight() - MARGIN - 16, 0);
+        regular(template, LABEL_COLOR, TEXT_SIZE);
+        for (int row = 0; row < LABELS.length; row++) {
+            template.showTextAligned(Element.ALIGN_LEFT, LABELS[row], LABEL_X, ROW_TOP - row * ROW_HEIGHT, 0);
+        }
+        template.setFontAndSize(PdfFonts.regular(), SMALL_SIZE);
+        template.showTextAligned(Element.ALIGN_LEFT,
+                "Vui lòng xuất trình mã QR này tại cổng soát vé. Không chia sẻ mã cho người khác.", INSET, NOTE_Y, 0);
+        template.endText();
+        return template;
+    }
+
+    private void drawTicket(PdfContentByte canvas, Order order, OrderTicket orderTicket, int index, int count)
+            throws DocumentException, IOException {
+        Event event = orderTicket.getTicket().getEvent();
+        BaseFont font = PdfFonts.regular();
+        String[] values = {
+                event.getStartTime().format(TIME_FORMAT) + " - " + event.getEndTime().format(TIME_FORMAT),
+                address(event),
+                orderTicket.getTicket().getTicketType(),
+                String.valueOf(orderTicket.getQuantity()),
+                String.format(VIETNAMESE, "%,d VND", (long) orderTicket.getUnitPrice()),
+                order.getUser().getFullName()
+        };
+
+        canvas.beginText();
+        bold(canvas, BaseColor.WHITE, TITLE_SIZE);
+        canvas.showTextAligned(Element.ALIGN_LEFT, fit(event.getEventName(), font, TITLE_SIZE, PAGE.getWidth() - 2 * INSET),
+                INSET, PAGE.getHeight() - MARGIN - 40, 0);
+        regular(canvas, BaseColor.BLACK, TEXT_SIZE);
+        for (int row = 0; row < values.length; row++) {
+            canvas.showTextAligned(Element.ALIGN_LEFT, fit(values[row], font, TEXT_SIZE, VALUE_WIDTH),
+                    VALUE_X, ROW_TOP - row * ROW_HEIGHT, 0);
+        }
+        bold(canvas, BaseColor.BLACK, TEXT_SIZE);
+        canvas.showTextAligned(Element.ALIGN_LEFT, "Mã đơn hàng: #" + order.getOrderId(), INSET, FOOTER_Y, 0);
+        regular(canvas, BaseColor.BLACK, TEXT_SIZE);
+        canvas.showTextAligned(Element.ALIGN_RIGHT, "Vé " + index + "/" + count + " · Mã vé " + orderTicket.getOrderTicketId(),
+                PAGE.getWidth() - INSET, FOOTER_Y, 0);
+        canvas.endText();
+
+        Image qr = Image.getInstance(ticketQrService.render(orderTicket.getQrPayload()).getPng());
+        qr.scaleAbsolute(QR_SIZE, QR_SIZE);
+        qr.setAbsolutePosition(QR_X, QR_Y);
+        canvas.addImage(qr);
+    }
+
+    private static void regular(PdfContentByte canvas, BaseColor color, float size) {
+        canvas.setTextRenderingMode(PdfContentByte.TEXT_RENDER_MODE_FILL);
+        canvas.setColorFill(color);
+        canvas.setFontAndSize(PdfFonts.regular(), size);
+    }
+
+    // Giống cách iText giả lập Font.BOLD: tô thêm nét viền cùng màu quanh chữ
+    private static void bold(PdfContentByte canvas, BaseColor color, float size) {
+        canvas.setTextRenderingMode(PdfContentByte.TEXT_RENDER_MODE_FILL_STROKE);
+        canvas.setLineWidth(size / 30f);
+        canvas.setColorFill(color);
+        canvas.setColorStroke(color);
+        canvas.setFontAndSize(PdfFonts.regular(), size);
+    }
+
+    private static String address(Event event) {
+        String name = event.getAddressName();
+        String detail = event.getAddressDetail();
+        if (name == null || name.isBlank()) {
+            return detail == null ? "" : detail;
+        }
+        return detail == null || detail.isBlank() ? name : name + ", " + detail;
+    }
+
+    /**
+     * Cắt chuỗi (thêm "…") cho vừa độ rộng, vì nội dung được vẽ tại toạ độ cố định không tự xuống dòng.
+     */
+    static String fit(String text, BaseFont font, float size, float maxWidth) {
+        if (text == null) {
+            return "";
+        }
+        if (font.getWidthPoint(text, size) <= maxWidth) {
+            return text;
+        }
+        float available = maxWidth - font.getWidthPoint("…", size);
+        int end = text.length();
+        while (end > 0 && font.getWidthPoint(text.substring(0, end), size) > available) {
+            end--;
+        }
+        return text.substring(0, end).stripTrailing() + "…";
+    }
+}
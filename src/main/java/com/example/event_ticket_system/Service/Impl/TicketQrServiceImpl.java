@@ -0,0 +1,144 @@
+package com.example.event_ticket_system.Service.Impl;
+
+import com.example.event_ticket_system.DTO.response.QrImageDto;
+import com.example.event_ticket_system.Entity.Order;
+import com.example.event_ticket_system.Entity.OrderTicket;
+import com.example.event_ticket_system.Enums.OrderStatus;
+import com.example.event_ticket_system.Repository.OrderTicketRepository;
+import com.example.event_ticket_system.Security.JwtUtil;
+import com.example.event_ticket_system.Service.TicketQrService;
+import com.example.event_ticket_system.Util.QRCodeUtil;
+import com.example.event_ticket_system.Util.TicketTokenCodec;
+import com.example.event_ticket_system.Util.WeightedLruCache;
+import com.google.zxing.WriterException;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Vẽ ảnh QR từ payload trong order_tickets (token vé có chữ ký, xem TicketTokenCodec) khi có người xem hoặc khi gửi email.
+ * Ảnh phụ thuộc hoàn toàn vào payload nên được cache theo payload và có ETag mạnh suy ra từ payload.
+ */
+@Slf4j
+@Service
+public class TicketQrServiceImpl implements TicketQrService {
+    // Đổi khi cách vẽ ảnh thay đổi để ETag cũ không còn khớp
+    private static final String RENDER_VERSION = "qr1";
+
+    private final OrderTicketRepository orderTicketRepository;
+    private final JwtUtil jwtUtil;
+    private final TicketTokenCodec ticketTokenCodec;
+    private final TransactionTemplate transactionTemplate;
+    private final WeightedLruCache<String, QrImageDto> images;
+    // Tắt việc dọn ảnh cũ khi schema không có cột qr_code (cơ sở dữ liệu tạo mới)
+    private final AtomicBoolean legacyQrColumn = new AtomicBoolean(true);
+
+    public TicketQrServiceImpl(OrderTicketRepository orderTicketRepository,
+                               JwtUtil jwtUtil,
+                               TicketTokenCodec ticketTokenCodec,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${ticket.qr.cache-max-bytes:8388608}") long cacheMaxBytes) {
+        this.orderTicketRepository = orderTicketRepository;
+        this.jwtUtil = jwtUtil;
+        this.ticketTokenCodec = ticketTokenCodec;
+        this.transactionTemplate = transactionTemplate;
+        this.images = new WeightedLruCache<>(cacheMaxBytes, image -> image.getPng().length);
+    }
+
+    @Override
+    public QrImageDto getTicketQrCode(Integer userId, Integer orderTicketId, HttpServletRequest request) {
+        String token = request.getHeader("Authorization").substring(7);
+        if (!"ROLE_customer".equals(jwtUtil.extractRole(token)) || !userId.equals(jwtUtil.extractUserId(token))) {
+            throw new SecurityException("You do not have permission to view tickets for this user.");
+        }
+        OrderTicket orderTicket = orderTicketRepository.findWithOrderAndTicketById(orderTicketId)
+                .orElseThrow(() -> new EntityNotFoundException("Order ticket not found: " + orderTicketId));
+        Order order = orderTicket.getOrder();
+        if (!userId.equals(order.getUser().getId())) {
+            throw new SecurityException("You do not have permission to view tickets for this user.");
+        }
+        if (!isSignedToken(orderTicket.getQrPayload())) {
+            if (order.getStatus() != OrderStatus.paid) {
+                throw new IllegalStateException("QR code is only available for paid orders");
+            }
+            assignPayloads(order, List.of(orderTicket));
+        }
+        return render(orderTicket.getQrPayload());
+    }
+
+    @Override
+    public void assignPayloads(Order order, List<OrderTicket> orderTickets) {
+        Map<Integer, String> assigned = new LinkedHashMap<>();
+        for (OrderTicket orderTicket : orderTickets) {
+            // Vé chưa có payload, hoặc còn payload dạng văn bản cũ (o=..&ot=..) chưa ký, được cấp token mới
+            if (!isSignedToken(orderTicket.getQrPayload())) {
+                String payload = ticketTokenCodec.issue(
+                        orderTicket.getOrderTicketId(),
+                        orderTicket.getTicket().getTicketId(),
+                        orderTicket.getTicket().getEvent().getEventId(),
+                        orderTicket.getQuantity());
+                orderTicket.setQrPayload(payload);
+                assigned.put(orderTicket.getOrderTicketId(), payload);
+            }
+        }
+        if (assigned.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> assigned.forEach(orderTicketRepository::updateQrPayload));
+        clearLegacyQrCodes(assigned.keySet());
+    }
+
+    @Override
+    public QrImageDto render(String payload) {
+        return images.computeIfAbsent(payload, key -> {
+            try {
+                return new QrImageDto(QRCodeUtil.generateMiniQRCode(key), etag(key));
+            } catch (WriterException e) {
+                throw new IllegalStateException("Could not render QR code", e);
+            }
+        });
+    }
+
+    private boolean isSignedToken(String payload) {
+        return payload != null && ticketTokenCodec.verify(payload) != null;
+    }
+
+    private void clearLegacyQrCodes(Iterable<Integer> orderTicketIds) {
+        if (!legacyQrColumn.get()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> orderTicketIds.forEach(orderTicketRepository::clearLegacyQrCode));
+        } catch (InvalidDataAccessResourceUsageException e) {
+            legacyQrColumn.set(false);
+            log.info("Column order_tickets.qr_code not found, legacy QR cleanup disabled");
+        } catch (DataAccessException e) {
+            // Payload đã được lưu; ảnh cũ chỉ chiếm chỗ nên không làm hỏng request
+            log.warn("Failed to clear legacy QR images for order tickets {}", orderTicketIds, e);
+        }
+    }
+
+    private static String etag(String payload) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((RENDER_VERSION + ":" + payload).getBytes(StandardCharsets.UTF_8));
+            return "\"" + RENDER_VERSION + "-" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.example.event_ticket_system.DTO.response.*;
 import com.example.event_ticket_system.Entity.Event;
 import com.example.event_ticket_system.Entity.Order;
 import com.example.event_ticket_system.Entity.OrderTicket;
+import com.example.event_ticket_system.Enums.OrderStatus;
 import com.example.event_ticket_system.Repository.EventRepository;
 import com.example.event_ticket_system.Repository.OrderRepository;
 import com.example.event_ticket_system.Repository.OrderTicketRepository;
@@ -62,7 +63,9 @@ public class TicketServiceImpl implements TicketService{
                             ot.getTicket().getTicketType(),
                             ot.getUnitPrice(),
                             ot.getQuantity(),
-                            ot.getQrCode()
+                            order.getStatus() == OrderStatus.paid
+                                    ? "/api/users/ticket/" + userId + "/qr/" + ot.getOrderTicketId()
+                                    : null
                     ))
                     .collect(Collectors.toList());
 
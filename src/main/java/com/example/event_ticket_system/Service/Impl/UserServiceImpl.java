@@ -11,6 +11,7 @@ import com.example.event_ticket_system.Repository.EventRepository;
 import com.example.event_ticket_system.Repository.UserRepository;
 import com.example.event_ticket_system.Security.JwtUtil;
 import com.example.event_ticket_system.Service.AccountService;
+import com.example.event_ticket_system.Service.EventSearchIndex;
 import com.example.event_ticket_system.Service.UserService;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.persistence.criteria.Predicate;
@@ -60,6 +61,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private EventRepository eventRepository;
 
+    @Autowired
+    private EventSearchIndex eventSearchIndex;
+
     @Override
     public void deleteUsersByIds(List<Integer> ids, HttpServletRequest request) {
         String userRole = jwtUtil.extractRole(request.getHeader("Authorization").substring(7));
@@ -422,6 +426,7 @@ public class UserServiceImpl implements UserService {
             event.setApprovalStatus(ApprovalStatus.approved);
             event.setUpdatedAt(LocalDateTime.now());
             eventRepository.save(event);
+            eventSearchIndex.indexAfterCommit(event);
         } else {
             throw new RuntimeException("Approval failed.");
         }
@@ -459,6 +464,7 @@ public class UserServiceImpl implements UserService {
             event.setRejectionReason(eventRejectionReasonRequest.getRejectionReason());
             event.setUpdatedAt(LocalDateTime.now());
             eventRepository.save(event);
+            eventSearchIndex.indexAfterCommit(event);
         } else {
             throw new RuntimeException("Rejection failed.");
         }
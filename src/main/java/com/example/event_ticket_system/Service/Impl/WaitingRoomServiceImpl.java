@@ -0,0 +1,341 @@
+package com.example.event_ticket_system.Service.Impl;
+
+import com.example.event_ticket_system.DTO.request.WaitingRoomConfigRequestDto;
+import com.example.event_ticket_system.DTO.response.WaitingRoomStatusDto;
+import com.example.event_ticket_system.Entity.WaitingRoomConfig;
+import com.example.event_ticket_system.Enums.WaitingRoomStatus;
+import com.example.event_ticket_system.Repository.EventRepository;
+import com.example.event_ticket_system.Repository.WaitingRoomConfigRepository;
+import com.example.event_ticket_system.Service.WaitingRoomService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Phòng chờ theo từng sự kiện, giữ hoàn toàn trong bộ nhớ: xin token, xem vị trí và
+ * kiểm tra quyền đặt vé không chạm tới DB, nên lượng truy cập lúc mở bán không chiếm pool kết nối.
+ * Mỗi giây chỉ cho vào đúng số người đã cấu hình, theo thứ tự xếp hàng.
+ */
+@Slf4j
+@Service
+public class WaitingRoomServiceImpl implements WaitingRoomService {
+    // Người chờ không hỏi trạng thái quá lâu coi như đã bỏ đi, không chiếm lượt vào
+    private static final long ABANDON_AFTER_MILLIS = 60_000;
+    private static final long SSE_TIMEOUT_MILLIS = 30 * 60_000;
+
+    private final WaitingRoomConfigRepository waitingRoomConfigRepository;
+    private final EventRepository eventRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Integer, WaitingRoomConfig> configs = new ConcurrentHashMap<>();
+    private final Map<Integer, Room> rooms = new ConcurrentHashMap<>();
+    private final Map<String, QueueEntry> entries = new ConcurrentHashMap<>();
+    private final Map<String, SseEmitter> emitters = new ConcurrentHashMap<>();
+
+    public WaitingRoomServiceImpl(WaitingRoomConfigRepository waitingRoomConfigRepository,
+                                  EventRepository eventRepository,
+                                  MeterRegistry meterRegistry) {
+        this.waitingRoomConfigRepository = waitingRoomConfigRepository;
+        this.eventRepository = eventRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Nạp cấu hình vào bộ nhớ; chạy lại định kỳ để nhận thay đổi từ node khác.
+     */
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${waiting-room.config-refresh-ms:30000}", initialDelayString = "${waiting-room.config-refresh-ms:30000}")
+    public void refreshConfigs() {
+        Map<Integer, WaitingRoomConfig> loaded = new ConcurrentHashMap<>();
+        for (WaitingRoomConfig config : waitingRoomConfigRepository.findAll()) {
+            loaded.put(config.getEventId(), config);
+        }
+        configs.keySet().retainAll(loaded.keySet());
+        configs.putAll(loaded);
+    }
+
+    @Override
+    public WaitingRoomStatusDto join(Integer eventId, Integer userId) {
+        WaitingRoomConfig config = activeConfig(eventId);
+        if (config == null) {
+            return notRequired(eventId);
+        }
+        Room room = roomFor(eventId);
+        String token = room.tokensByUser.computeIfAbsent(userId, id -> {
+            QueueEntry entry = new QueueEntry(UUID.randomUUID().toString(), eventId, userId, room.nextSequence.incrementAndGet());
+            entries.put(entry.token, entry);
+            room.waiting.add(entry);
+            room.waitingCount.incrementAndGet();
+            return entry.token;
+        });
+        QueueEntry entry = entries.get(token);
+        if (entry == null) {
+            // Token cũ vừa bị thu hồi giữa chừng, xếp hàng lại
+            room.tokensByUser.remove(userId, token);
+            return join(eventId, userId);
+        }
+        entry.lastSeenMillis = System.currentTimeMillis();
+        return toStatus(entry, config);
+    }
+
+    @Override
+    public WaitingRoomStatusDto getStatus(String queueToken) {
+        QueueEntry entry = requireEntry(queueToken);
+        entry.lastSeenMillis = System.currentTimeMillis();
+        WaitingRoomConfig config = activeConfig(entry.eventId);
+        return config == null ? notRequired(entry.eventId) : toStatus(entry, config);
+    }
+
+    @Override
+    public SseEmitter stream(String queueToken) {
+        WaitingRoomStatusDto status = getStatus(queueToken);
+        SseEmitter emitter = new SseEmitter(SSE_TIMEOUT_MILLIS);
+        emitter.onCompletion(() -> emitters.remove(queueToken, emitter));
+        emitter.onTimeout(() -> emitters.remove(queueToken, emitter));
+        emitter.onError(e -> emitters.remove(queueToken, emitter));
+        SseEmitter previous = emitters.put(queueToken, emitter);
+        if (previous != null) {
+            previous.complete();
+        }
+        send(queueToken, emitter, status);
+        return emitter;
+    }
+
+    @Override
+    public WaitingRoomStatusDto checkAdmission(Integer eventId, Integer userId, String queueToken) {
+        WaitingRoomConfig config = activeConfig(eventId);
+        if (config == null) {
+            return notRequired(eventId);
+        }
+        QueueEntry entry = queueToken == null ? null : entries.get(queueToken);
+        if (entry == null || !entry.eventId.equals(eventId) || !entry.userId.equals(userId)) {
+            throw new SecurityException("A valid waiting room token is required to order tickets for this event");
+        }
+        entry.lastSeenMillis = System.currentTimeMillis();
+        return toStatus(entry, config);
+    }
+
+    @Override
+    public void complete(String queueToken) {
+        if (queueToken == null) {
+            return;
+        }
+        QueueEntry entry = entries.get(queueToken);
+        if (entry != null && entry.status == WaitingRoomStatus.admitted) {
+            remove(entry);
+        }
+    }
+
+    @Override
+    public WaitingRoomConfig getConfig(Integer eventId) {
+        return waitingRoomConfigRepository.findById(eventId)
+                .orElseThrow(() -> new EntityNotFoundException("Waiting room is not configured for event: " + eventId));
+    }
+
+    @Override
+    public WaitingRoomConfig updateConfig(Integer eventId, WaitingRoomConfigRequestDto dto) {
+        if (!eventRepository.existsById(eventId)) {
+            throw new EntityNotFoundException("Event not found");
+        }
+        WaitingRoomConfig config = waitingRoomConfigRepository.findById(eventId).orElseGet(WaitingRoomConfig::new);
+        config.setEventId(eventId);
+        config.setEnabled(dto.getEnabled());
+        config.setAdmissionRatePerSecond(dto.getAdmissionRatePerSecond());
+        config.setAdmissionWindowSeconds(dto.getAdmissionWindowSeconds());
+        config.setUpdatedAt(LocalDateTime.now());
+        WaitingRoomConfig saved = waitingRoomConfigRepository.save(config);
+        configs.put(eventId, saved);
+        return saved;
+    }
+
+    /**
+     * Mỗi giây cho vào tối đa admissionRatePerSecond người theo thứ tự, thu hồi lượt vào đã hết hạn
+     * và đẩy vị trí mới cho các client đang stream.
+     */
+    @Scheduled(fixedRate = 1000)
+    public void admit() {
+        long now = System.currentTimeMillis();
+        emitters.keySet().forEach(token -> {
+            QueueEntry entry = entries.get(token);
+            if (entry != null) {
+                entry.lastSeenMillis = now;
+            }
+        });
+        for (Room room : rooms.values()) {
+            WaitingRoomConfig config = activeConfig(room.eventId);
+            if (config == null) {
+                // Hàng đợi bị tắt: mọi người được đặt vé tự do, dọn các token còn lại
+                QueueEntry entry;
+                while ((entry = room.waiting.poll()) != null) {
+                    room.waitingCount.decrementAndGet();
+                    remove(entry);
+                }
+                continue;
+            }
+            int budget = config.getAdmissionRatePerSecond();
+            while (budget > 0) {
+                QueueEntry entry = room.waiting.poll();
+                if (entry == null) {
+                    break;
+                }
+                room.waitingCount.decrementAndGet();
+                room.admittedSequence = entry.sequence;
+                if (now - entry.lastSeenMillis > ABANDON_AFTER_MILLIS || !entries.containsKey(entry.token)) {
+                    remove(entry);
+                    continue;
+                }
+                entry.admittedUntilMillis = now + config.getAdmissionWindowSeconds() * 1000L;
+                entry.status = WaitingRoomStatus.admitted;
+                room.admitted.increment();
+                budget--;
+            }
+        }
+        entries.values().removeIf(entry -> {
+            boolean expired = entry.status == WaitingRoomStatus.admitted && entry.admittedUntilMillis < now;
+            if (expired) {
+                Room room = rooms.get(entry.eventId);
+                if (room != null) {
+                    room.tokensByUser.remove(entry.userId, entry.token);
+                }
+            }
+            return expired;
+        });
+        pushStatuses();
+    }
+
+    private void pushStatuses() {
+        emitters.forEach((token, emitter) -> {
+            QueueEntry entry = entries.get(token);
+            WaitingRoomConfig config = entry == null ? null : activeConfig(entry.eventId);
+            if (entry == null) {
+                emitter.complete();
+                emitters.remove(token, emitter);
+                return;
+            }
+            WaitingRoomStatusDto status = config == null ? notRequired(entry.eventId) : toStatus(entry, config);
+            send(token, emitter, status);
+            if (status.canOrder()) {
+                // Đã tới lượt: client chuyển sang đặt vé, không cần giữ kết nối nữa
+                emitter.complete();
+                emitters.remove(token, emitter);
+            }
+        });
+    }
+
+    private void send(String token, SseEmitter emitter, WaitingRoomStatusDto status) {
+        try {
+            emitter.send(SseEmitter.event().name("status").data(status));
+        } catch (IOException | IllegalStateException e) {
+            emitters.remove(token, emitter);
+        }
+    }
+
+    private WaitingRoomConfig activeConfig(Integer eventId) {
+        WaitingRoomConfig config = configs.get(eventId);
+        return config != null && Boolean.TRUE.equals(config.getEnabled()) ? config : null;
+    }
+
+    private QueueEntry requireEntry(String queueToken) {
+        QueueEntry entry = entries.get(queueToken);
+        if (entry == null) {
+            throw new EntityNotFoundException("Queue token not found or expired");
+        }
+        return entry;
+    }
+
+    private void remove(QueueEntry entry) {
+        entries.remove(entry.token, entry);
+        Room room = rooms.get(entry.eventId);
+        if (room != null) {
+            room.tokensByUser.remove(entry.userId, entry.token);
+        }
+    }
+
+    private Room roomFor(Integer eventId) {
+        return rooms.computeIfAbsent(eventId, id -> {
+            Room room = new Room(id, Counter.builder("waiting_room.admitted")
+                    .description("Number of queue token holders admitted to checkout")
+                    .tag("eventId", String.valueOf(id))
+                    .register(meterRegistry));
+            Gauge.builder("waiting_room.queue.length", room.waitingCount, AtomicInteger::get)
+                    .description("Number of buyers waiting in the queue")
+                    .tag("eventId", String.valueOf(id))
+                    .register(meterRegistry);
+            Gauge.builder("waiting_room.admission.rate", configs, map -> {
+                        WaitingRoomConfig config = activeConfig(id);
+                        return config == null ? 0 : config.getAdmissionRatePerSecond();
+                    })
+                    .description("Configured admissions per second")
+                    .tag("eventId", String.valueOf(id))
+                    .register(meterRegistry);
+            return room;
+        });
+    }
+
+    private WaitingRoomStatusDto toStatus(QueueEntry entry, WaitingRoomConfig config) {
+        if (entry.status == WaitingRoomStatus.admitted) {
+            return new WaitingRoomStatusDto(entry.eventId, entry.token, WaitingRoomStatus.admitted, null, null,
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.admittedUntilMillis), ZoneId.systemDefault()));
+        }
+        Room room = rooms.get(entry.eventId);
+        long position = Math.max(1, entry.sequence - (room == null ? 0 : room.admittedSequence));
+        long rate = config.getAdmissionRatePerSecond();
+        return new WaitingRoomStatusDto(entry.eventId, entry.token, WaitingRoomStatus.waiting, position,
+                (position + rate - 1) / rate, null);
+    }
+
+    private WaitingRoomStatusDto notRequired(Integer eventId) {
+        return new WaitingRoomStatusDto(eventId, null, WaitingRoomStatus.not_required, null, null, null);
+    }
+
+    private static final class Room {
+        private final Integer eventId;
+        private final Queue<QueueEntry> waiting = new ConcurrentLinkedQueue<>();
+        private final Map<Integer, String> tokensByUser = new ConcurrentHashMap<>();
+        private final AtomicLong nextSequence = new AtomicLong();
+        private final AtomicInteger waitingCount = new AtomicInteger();
+        private final Counter admitted;
+        // Chỉ được ghi bởi luồng admit
+        private volatile long admittedSequence;
+
+        private Room(Integer eventId, Counter admitted) {
+            this.eventId = eventId;
+            this.admitted = admitted;
+        }
+    }
+
+    private static final class QueueEntry {
+        private final String token;
+        private final Integer eventId;
+        private final Integer userId;
+        private final long sequence;
+        private volatile WaitingRoomStatus status = WaitingRoomStatus.waiting;
+        private volatile long lastSeenMillis = System.currentTimeMillis();
+        private volatile long admittedUntilMillis;
+
+        private QueueEntry(String token, Integer eventId, Integer userId, long sequence) {
+            this.token = token;
+            this.eventId = eventId;
+            this.userId = userId;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.event_ticket_system.Service;
+
+import com.example.event_ticket_system.DTO.response.InventoryReconciliationDto;
+
+import java.util.List;
+import java.util.Map;
+
+public interface InventoryService {
+    /**
+     * Giữ chỗ vé theo kiểu nguyên tử. Trả về số lượng đã giữ cho từng ticketId.
+     * Nếu một loại vé không đủ thì ném IllegalArgumentException và không giữ loại nào.
+     */
+    Map<Integer, Integer> reserve(Map<Integer, Integer> quantitiesByTicketId);
+
+    /**
+     * Trả lại số vé đã giữ trước đó, trả về số lượng thực sự được trả cho từng ticketId.
+     */
+    Map<Integer, Integer> release(Map<Integer, Integer> quantitiesByTicketId);
+
+    /**
+     * Trả lại toàn bộ vé của một đơn hàng (dùng cho các luồng huỷ đơn).
+     */
+    Map<Integer, Integer> releaseOrder(Integer orderId);
+
+    /**
+     * So sánh số vé đã bán giữa bảng tickets, order_tickets (và bộ đếm nếu có) cho từng loại vé.
+     */
+    List<InventoryReconciliationDto> reconcile();
+}
@@ -0,0 +1,59 @@
+package com.example.event_ticket_system.Service;
+
+import com.example.event_ticket_system.Util.TtlCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Tổng số dòng của danh sách công khai theo bộ lọc, cache ngắn hạn để totalPages không phải chạy COUNT ở mỗi request.
+ * Số có thể cũ tối đa ttl-seconds giây; màn hình quản trị cần số chính xác thì đếm trực tiếp, không qua cache này.
+ */
+@Service
+public class ListingCountCache {
+    private final TtlCache<String, Long> counts;
+    private final Duration ttl;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public ListingCountCache(MeterRegistry meterRegistry,
+                             @Value("${listing.count-cache.ttl-seconds:30}") long ttlSeconds,
+                             @Value("${listing.count-cache.max-entries:10000}") int maxEntries) {
+        this.counts = new TtlCache<>(maxEntries);
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.hitCounter = Counter.builder("listing.count.cache")
+                .description("Listing total lookups by cache outcome")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("listing.count.cache")
+                .description("Listing total lookups by cache outcome")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Tổng đã cache cho key, hoặc chạy counter rồi cache kết quả.
+     */
+    public long count(String key, LongSupplier counter) {
+        Long cached = counts.get(key);
+        if (cached != null) {
+            hitCounter.increment();
+            return cached;
+        }
+        missCounter.increment();
+        long total = counter.getAsLong();
+        counts.put(key, total, ttl);
+        return total;
+    }
+
+    /**
+     * Ghi tổng đã biết chính xác (vd. trang cuối cho biết luôn tổng) để request sau khỏi đếm.
+     */
+    public void record(String key, long total) {
+        counts.put(key, total, ttl);
+    }
+}
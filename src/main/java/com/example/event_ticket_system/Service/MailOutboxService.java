@@ -0,0 +1,434 @@
+package com.example.event_ticket_system.Service;
+
+import com.example.event_ticket_system.Entity.MailOutbox;
+import com.example.event_ticket_system.Enums.MailStatus;
+import com.example.event_ticket_system.Repository.MailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSenderFailedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hàng đợi email bền vững (bảng mail_outbox). Request chỉ dựng MIME message và ghi một dòng;
+ * một số worker cố định lấy từng lô email đến hạn và gửi qua một kết nối SMTP giữ lại giữa các lô.
+ * SMTP trả 4xx (hoặc mất kết nối) thì mọi worker tạm dừng theo backoff; 5xx thì email bị bỏ (dead).
+ * Email ưu tiên cao (mã OTP) có thêm worker riêng chỉ lấy email ưu tiên, nên không phải chờ sau một lô email vé.
+ */
+@Slf4j
+@Service
+public class MailOutboxService {
+    public static final int PRIORITY_NORMAL = 0;
+    public static final int PRIORITY_HIGH = 10;
+    private static final int MAX_ATTEMPTS = 6;
+    private static final long MAX_BACKOFF_SECONDS = 300;
+    private static final long STALE_SENDING_MINUTES = 5;
+    private static final long SENT_RETENTION_DAYS = 7;
+
+    private final MailOutboxRepository mailOutboxRepository;
+    private final JavaMailSenderImpl mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final int workers;
+    private final int priorityWorkers;
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final long idleCloseMillis;
+    // Báo cho worker đang chờ là có email mới
+    private final Semaphore wakeUp = new Semaphore(0);
+    private final Semaphore priorityWakeUp = new Semaphore(0);
+    private final AtomicLong depth = new AtomicLong();
+    private final Counter sentCounter;
+    private final Counter retryCounter;
+    private final Counter deadCounter;
+    private final Timer normalDeliveryTimer;
+    private final Timer priorityDeliveryTimer;
+    private final List<Thread> threads = new ArrayList<>();
+    private final Worker manualWorker = new Worker(Integer.MIN_VALUE, wakeUp);
+    private final Worker manualPriorityWorker = new Worker(PRIORITY_HIGH, priorityWakeUp);
+    // SMTP đang từ chối tạm thời: không worker nào gửi trước mốc này
+    private volatile long pausedUntilNanos = System.nanoTime();
+    private volatile boolean running;
+
+    public MailOutboxService(MailOutboxRepository mailOutboxRepository,
+                             JavaMailSender mailSender,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${mail.outbox.workers:2}") int workers,
+                             @Value("${mail.outbox.priority-workers:1}") int priorityWorkers,
+                             @Value("${mail.outbox.batch-size:20}") int batchSize,
+                             @Value("${mail.outbox.poll-interval-ms:2000}") long pollIntervalMillis,
+                             @Value("${mail.outbox.idle-close-ms:30000}") long idleCloseMillis) {
+        if (!(mailSender instanceof JavaMailSenderImpl impl)) {
+            throw new IllegalStateException("Mail outbox requires a JavaMailSenderImpl");
+        }
+        this.mailOutboxRepository = mailOutboxRepository;
+        this.mailSender = impl;
+        this.transactionTemplate = transactionTemplate;
+        this.workers = workers;
+        this.priorityWorkers = priorityWorkers;
+        this.batchSize = batchSize;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.idleCloseMillis = idleCloseMillis;
+        Gauge.builder("mail.outbox.depth", depth, AtomicLong::get)
+                .description("Emails waiting in the outbox")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("mail.outbox.sent")
+                .description("Emails delivered to the SMTP relay")
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("mail.outbox.retries")
+                .description("Email deliveries deferred after a transient SMTP failure")
+                .register(meterRegistry);
+        this.deadCounter = Counter.builder("mail.outbox.dead")
+                .description("Emails dropped after a permanent SMTP failure or too many attempts")
+                .register(meterRegistry);
+        this.normalDeliveryTimer = deliveryTimer(meterRegistry, "normal");
+        this.priorityDeliveryTimer = deliveryTimer(meterRegistry, "high");
+    }
+
+    private static Timer deliveryTimer(MeterRegistry meterRegistry, String priority) {
+        return Timer.builder("mail.outbox.delivery.latency")
+                .description("Time from queueing an email to its acceptance by the SMTP relay")
+                .tag("priority", priority)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        for (int i = 1; i <= workers; i++) {
+            startWorker(new Worker(Integer.MIN_VALUE, wakeUp), "mail-outbox-" + i);
+        }
+        for (int i = 1; i <= priorityWorkers; i++) {
+            startWorker(new Worker(PRIORITY_HIGH, priorityWakeUp), "mail-outbox-priority-" + i);
+        }
+    }
+
+    private void startWorker(Worker worker, String name) {
+        Thread thread = new Thread(worker::run, name);
+        thread.setDaemon(true);
+        thread.start();
+        threads.add(thread);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        threads.forEach(Thread::interrupt);
+        manualWorker.closeTransport();
+        manualPriorityWorker.closeTransport();
+    }
+
+    /**
+     * Ghi email vào outbox trong transaction hiện tại (nếu có); worker được đánh thức sau khi commit.
+     */
+    public void enqueue(MimeMessage message, int priority) {
+        LocalDateTime now = LocalDateTime.now();
+        MailOutbox mail = new MailOutbox();
+        try {
+            Address[] recipients = message.getAllRecipients();
+            mail.setRecipient(recipients == null || recipients.length == 0 ? "" : recipients[0].toString());
+            mail.setSubject(truncate(message.getSubject(), 255));
+            // writeTo gọi saveChanges một lần, Message-ID được giữ nguyên qua các lần thử lại
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            message.writeTo(bytes);
+            mail.setMimeMessage(bytes.toByteArray());
+        } catch (MessagingException | IOException e) {
+            throw new IllegalStateException("Could not serialize email for the outbox", e);
+        }
+        mail.setPriority(priority);
+        mail.setStatus(MailStatus.pending);
+        mail.setAttempts(0);
+        mail.setNextAttemptAt(now);
+        mail.setCreatedAt(now);
+        mailOutboxRepository.save(mail);
+        depth.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    signal(priority);
+                }
+            });
+        } else {
+            signal(priority);
+        }
+    }
+
+    /**
+     * Gửi một lô email đến hạn trên luồng hiện tại; trả về số email đã gửi.
+     */
+    public int drainOnce() {
+        synchronized (manualWorker) {
+            return manualWorker.drain();
+        }
+    }
+
+    /**
+     * Như drainOnce nhưng chỉ lấy email ưu tiên cao, giống worker ưu tiên.
+     */
+    public int drainPriorityOnce() {
+        synchronized (manualPriorityWorker) {
+            return manualPriorityWorker.drain();
+        }
+    }
+
+    public long depth() {
+        return depth.get();
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.recovery-interval-ms:30000}")
+    public void recover() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer reset = transactionTemplate.execute(status ->
+                mailOutboxRepository.resetStale(now.minusMinutes(STALE_SENDING_MINUTES), now));
+        if (reset != null && reset > 0) {
+            log.warn("Reset {} outbox emails stuck in sending", reset);
+            signal(PRIORITY_HIGH);
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                mailOutboxRepository.purgeSent(now.minusDays(SENT_RETENTION_DAYS)));
+        depth.set(mailOutboxRepository.countByStatus(MailStatus.pending));
+    }
+
+    private void signal(int priority) {
+        if (priority >= PRIORITY_HIGH && priorityWorkers > 0) {
+            release(priorityWakeUp, priorityWorkers);
+        }
+        release(wakeUp, workers);
+    }
+
+    private static void release(Semaphore semaphore, int workers) {
+        if (semaphore.availablePermits() < Math.max(1, workers)) {
+            semaphore.release();
+        }
+    }
+
+    private final class Worker {
+        // Chỉ lấy email có priority >= minPriority
+        private final int minPriority;
+        private final Semaphore wakeUp;
+        private Transport transport;
+        private long lastUsedNanos;
+
+        private Worker(int minPriority, Semaphore wakeUp) {
+            this.minPriority = minPriority;
+            this.wakeUp = wakeUp;
+        }
+
+        private void run() {
+            while (running) {
+                try {
+                    int sent = drain();
+                    if (sent == 0) {
+                        long waitMillis = Math.max(pollIntervalMillis, TimeUnit.NANOSECONDS.toMillis(pausedUntilNanos - System.nanoTime()));
+                        if (!wakeUp.tryAcquire(waitMillis, TimeUnit.MILLISECONDS)) {
+                            closeIfIdle();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Exception e) {
+                    log.error("Mail outbox worker failed", e);
+                    closeTransport();
+                    sleepQuietly(pollIntervalMillis);
+                }
+            }
+            closeTransport();
+        }
+
+        private int drain() {
+            if (System.nanoTime() - pausedUntilNanos < 0) {
+                return 0;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            List<MailOutbox> batch = transactionTemplate.execute(status -> {
+                List<Long> mailIds = mailOutboxRepository.lockDueMailIds(now, minPriority, batchSize);
+                if (mailIds.isEmpty()) {
+                    return List.<MailOutbox>of();
+                }
+                mailOutboxRepository.markSending(mailIds, now);
+                List<MailOutbox> mails = new ArrayList<>(mailOutboxRepository.findAllById(mailIds));
+                mails.sort(Comparator.comparing(MailOutbox::getPriority).reversed()
+                        .thenComparing(MailOutbox::getMailId));
+                return mails;
+            });
+            if (batch == null || batch.isEmpty()) {
+                return 0;
+            }
+            List<Long> sent = new ArrayList<>();
+            try {
+                for (int i = 0; i < batch.size(); i++) {
+                    MailOutbox mail = batch.get(i);
+                    try {
+                        send(mail);
+                        sent.add(mail.getMailId());
+                        recordDelivery(mail);
+                    } catch (MessagingException e) {
+                        int code = smtpReturnCode(e);
+                        if (code >= 500) {
+                            // Lỗi vĩnh viễn của riêng email này (ví dụ 550 hộp thư không tồn tại): bỏ và gửi tiếp
+                            markDead(mail, "SMTP " + code + ": " + e.getMessage());
+                            continue;
+                        }
+                        // 4xx hoặc mất kết nối: relay đang quá tải, dừng cả lô và lùi lại
+                        closeTransport();
+                        long backoffSeconds = Math.min(MAX_BACKOFF_SECONDS, 1L << Math.min(mail.getAttempts() + 1, 20));
+                        pausedUntilNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(backoffSeconds);
+                        deferRemaining(mail, batch.subList(i + 1, batch.size()), code, e, backoffSeconds);
+                        log.warn("SMTP relay deferred email {} ({}), pausing outbox for {}s", mail.getMailId(),
+                                code > 0 ? "SMTP " + code : e.getMessage(), backoffSeconds);
+                        break;
+                    }
+                }
+            } finally {
+                if (!sent.isEmpty()) {
+                    LocalDateTime sentAt = LocalDateTime.now();
+                    transactionTemplate.executeWithoutResult(status -> mailOutboxRepository.markSent(sent, sentAt));
+                    sentCounter.increment(sent.size());
+                    depth.updateAndGet(value -> Math.max(0, value - sent.size()));
+                }
+            }
+            return sent.size();
+        }
+
+        private void send(MailOutbox mail) throws MessagingException {
+            Session session = mailSender.getSession();
+            MimeMessage message = new MimeMessage(session, new ByteArrayInputStream(mail.getMimeMessage()));
+            Address[] recipients = message.getAllRecipients();
+            if (recipients == null || recipients.length == 0) {
+                throw new SMTPSendFailedException("RCPT", 554, "Email has no recipients", null, null, null, null);
+            }
+            if (transport == null || !transport.isConnected()) {
+                closeTransport();
+                transport = session.getTransport(mailSender.getProtocol() == null ? "smtp" : mailSender.getProtocol());
+                String username = mailSender.getUsername();
+                String password = mailSender.getPassword();
+                transport.connect(mailSender.getHost(), mailSender.getPort(),
+                        username == null || username.isEmpty() ? null : username,
+                        password == null || password.isEmpty() ? null : password);
+            }
+            transport.sendMessage(message, recipients);
+            lastUsedNanos = System.nanoTime();
+        }
+
+        private void recordDelivery(MailOutbox mail) {
+            if (mail.getCreatedAt() != null) {
+                Timer timer = mail.getPriority() >= PRIORITY_HIGH ? priorityDeliveryTimer : normalDeliveryTimer;
+                timer.record(Duration.between(mail.getCreatedAt(), LocalDateTime.now()));
+            }
+        }
+
+        private void deferRemaining(MailOutbox failed, List<MailOutbox> remaining, int code, Exception e, long backoffSeconds) {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime retryAt = now.plusSeconds(backoffSeconds);
+            List<Long> remainingIds = remaining.stream().map(MailOutbox::getMailId).toList();
+            String error = truncate((code > 0 ? "SMTP " + code + ": " : "") + e.getMessage(), 1000);
+            if (failed.getAttempts() >= MAX_ATTEMPTS) {
+                markDead(failed, error);
+            } else {
+                transactionTemplate.executeWithoutResult(status ->
+                        mailOutboxRepository.markRetry(failed.getMailId(), error, retryAt, now));
+                retryCounter.increment();
+            }
+            if (!remainingIds.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> mailOutboxRepository.release(remainingIds, retryAt, now));
+            }
+        }
+
+        private void markDead(MailOutbox mail, String error) {
+            LocalDateTime now = LocalDateTime.now();
+            log.error("Outbox email {} to {} dropped after {} attempts: {}", mail.getMailId(), mail.getRecipient(),
+                    mail.getAttempts(), error);
+            transactionTemplate.executeWithoutResult(status ->
+                    mailOutboxRepository.markDead(mail.getMailId(), truncate(error, 1000), now));
+            deadCounter.increment();
+            depth.updateAndGet(value -> Math.max(0, value - 1));
+        }
+
+        private void closeIfIdle() {
+            if (transport != null && System.nanoTime() - lastUsedNanos > TimeUnit.MILLISECONDS.toNanos(idleCloseMillis)) {
+                closeTransport();
+            }
+        }
+
+        private void closeTransport() {
+            if (transport != null) {
+                try {
+                    transport.close();
+                } catch (MessagingException e) {
+                    log.debug("Failed to close SMTP transport", e);
+                }
+                transport = null;
+            }
+        }
+    }
+
+    /**
+     * Mã trả lời SMTP trong chuỗi exception (0 nếu lỗi không đến từ máy chủ, ví dụ mất kết nối).
+     */
+    static int smtpReturnCode(Throwable error) {
+        Throwable current = error;
+        while (current != null) {
+            if (current instanceof SMTPAddressFailedException e) {
+                return e.getReturnCode();
+            }
+            if (current instanceof SMTPSenderFailedException e) {
+                return e.getReturnCode();
+            }
+            if (current instanceof SMTPSendFailedException e) {
+                return e.getReturnCode();
+            }
+            Throwable next = current instanceof MessagingException messaging ? messaging.getNextException() : null;
+            current = next != null ? next : current.getCause();
+        }
+        return 0;
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String truncate(String value, int maxLength) {
+        if (value == null) {
+            return null;
+        }
+        return value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+}
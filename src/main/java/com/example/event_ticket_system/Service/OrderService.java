@@ -1,15 +1,29 @@
 package com.example.event_ticket_system.Service;
 
 import com.example.event_ticket_system.DTO.request.OrderRequestDto;
+import com.example.event_ticket_system.DTO.response.PaymentLinkResponseDto;
 import jakarta.servlet.http.HttpServletRequest;
-import vn.payos.type.CheckoutResponseData;
 
 import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.Optional;
 
 public interface OrderService {
-    CheckoutResponseData createOrder(OrderRequestDto orderRequestDto, HttpServletRequest request);
+    /**
+     * idempotencyKey (có thể null): request lặp lại với cùng key trả về kết quả cũ, không giữ vé lần nữa.
+     */
+    PaymentLinkResponseDto createOrder(OrderRequestDto orderRequestDto, String idempotencyKey, HttpServletRequest request);
+    /**
+     * Kết quả của lần tạo đơn trước với cùng idempotencyKey, để trả lại trước khi kiểm tra phòng chờ.
+     */
+    Optional<PaymentLinkResponseDto> findIdempotentOrder(OrderRequestDto orderRequestDto, String idempotencyKey, HttpServletRequest request);
+    /**
+     * Webhook PayOS: ghi sổ webhook, chuyển đơn pending sang paid và xếp việc giao vé;
+     * trả về false nếu đơn không còn pending.
+     */
+    boolean markPaidFromWebhook(Long payosOrderCode, String reference);
     void confirmPayment(String payosOrderCode, HttpServletRequest request);
     void cancelOrder(String orderCode, HttpServletRequest request);
+    boolean expirePendingOrder(Integer orderId);
     Map<String, Object> getListOrders(HttpServletRequest request, String status, Double startAmount, Double endAmount, LocalDateTime startTime, LocalDateTime endTime, Integer page, Integer size);
 }
@@ -0,0 +1,64 @@
+package com.example.event_ticket_system.Service;
+
+import com.example.event_ticket_system.Util.TtlCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Gửi mã OTP xác thực email mà không chờ SMTP: mã được tạo rồi đưa vào outbox với ưu tiên cao (worker riêng).
+ * Các yêu cầu gửi lại cho cùng email trong khoảng resend-window được gộp vào lần gửi trước (mã cũ vẫn còn hiệu lực).
+ * Email được chuẩn hoá một lần và dùng chung cho khoá gộp lẫn khoá lưu mã.
+ */
+@Service
+public class OtpDispatchService {
+    private final VerificationCodeService verificationCodeService;
+    private final EmailService emailService;
+    private final TtlCache<String, Boolean> recent;
+    private final Duration resendWindow;
+    private final Counter dispatchedCounter;
+    private final Counter coalescedCounter;
+
+    public OtpDispatchService(VerificationCodeService verificationCodeService,
+                              EmailService emailService,
+                              MeterRegistry meterRegistry,
+                              @Value("${otp.resend-window-seconds:30}") long resendWindowSeconds,
+                              @Value("${otp.max-tracked-emails:100000}") int maxTrackedEmails) {
+        this.verificationCodeService = verificationCodeService;
+        this.emailService = emailService;
+        this.recent = new TtlCache<>(maxTrackedEmails);
+        this.resendWindow = Duration.ofSeconds(resendWindowSeconds);
+        this.dispatchedCounter = Counter.builder("otp.requests")
+                .description("OTP send requests by outcome")
+                .tag("result", "dispatched")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("otp.requests")
+                .description("OTP send requests by outcome")
+                .tag("result", "coalesced")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Tạo và xếp hàng gửi mã cho email; trả về false nếu yêu cầu bị gộp vào lần gửi gần đây.
+     */
+    public boolean dispatch(String email) {
+        String key = VerificationCodeService.normalizeEmail(email);
+        if (recent.putIfAbsent(key, Boolean.TRUE, resendWindow) != null) {
+            coalescedCounter.increment();
+            return false;
+        }
+        try {
+            String code = verificationCodeService.generateAndSaveCode(key);
+            emailService.sendVerificationEmail(key, code);
+        } catch (RuntimeException e) {
+            // Chưa xếp hàng được thì cho phép gửi lại ngay
+            recent.invalidate(key);
+            throw e;
+        }
+        dispatchedCounter.increment();
+        return true;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.event_ticket_system.Service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import vn.payos.PayOS;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Huỷ link PayOS của các đơn đã huỷ trên một số worker cố định, ngoài mọi transaction.
+ * Lỗi được thử lại với backoff; link không huỷ được vẫn tự hết hạn phía PayOS nên chỉ ghi log.
+ */
+@Slf4j
+@Service
+public class PaymentLinkCancellationService {
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final PayOS payOS;
+    private final ScheduledThreadPoolExecutor executor;
+
+    public PaymentLinkCancellationService(PayOS payOS,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${payos.link.cancel-workers:4}") int workers) {
+        this.payOS = payOS;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(workers, runnable -> {
+            Thread thread = new Thread(runnable, "payos-cancel-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("payos.link.cancel.queue", executor, e -> e.getQueue().size())
+                .description("PayOS payment link cancellations waiting for a worker")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Huỷ các link sau khi transaction hiện tại commit (đơn bị rollback thì link vẫn còn hiệu lực).
+     */
+    public void cancelAfterCommit(Collection<Long> payosOrderCodes, String reason) {
+        List<Long> codes = List.copyOf(payosOrderCodes);
+        if (codes.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    codes.forEach(code -> submit(code, reason, 1));
+                }
+            });
+        } else {
+            codes.forEach(code -> submit(code, reason, 1));
+        }
+    }
+
+    public int queueSize() {
+        return executor.getQueue().size();
+    }
+
+    private void submit(Long payosOrderCode, String reason, int attempt) {
+        long delaySeconds = attempt == 1 ? 0 : 1L << (attempt - 1);
+        try {
+            executor.schedule(() -> cancel(payosOrderCode, reason, attempt), delaySeconds, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            log.warn("Dropped cancellation of PayOS payment link {} during shutdown", payosOrderCode);
+        }
+    }
+
+    private void cancel(Long payosOrderCode, String reason, int attempt) {
+        try {
+            payOS.cancelPaymentLink(payosOrderCode, reason);
+        } catch (Exception e) {
+            if (attempt >= MAX_ATTEMPTS) {
+                log.warn("Failed to cancel PayOS payment link {} after {} attempts", payosOrderCode, attempt, e);
+                return;
+            }
+            submit(payosOrderCode, reason, attempt + 1);
+        }
+    }
+}
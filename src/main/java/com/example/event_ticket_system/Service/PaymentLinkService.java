@@ -0,0 +1,17 @@
+package com.example.event_ticket_system.Service;
+
+import com.example.event_ticket_system.DTO.response.PaymentLinkResponseDto;
+import com.example.event_ticket_system.Entity.PaymentLinkRequest;
+
+public interface PaymentLinkService {
+    /**
+     * Đẩy yêu cầu (đã commit) cho worker tạo link PayOS và chờ tối đa payos.link.wait-timeout-ms.
+     * Hết thời gian chờ thì trả về trạng thái pending để client hỏi lại sau.
+     */
+    PaymentLinkResponseDto awaitPaymentLink(PaymentLinkRequest paymentLinkRequest);
+
+    /**
+     * Trạng thái link thanh toán của một đơn; chỉ chủ đơn mới xem được.
+     */
+    PaymentLinkResponseDto getPaymentLink(Long payosOrderCode, Integer userId);
+}
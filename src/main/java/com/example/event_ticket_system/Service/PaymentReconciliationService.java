@@ -0,0 +1,265 @@
+package com.example.event_ticket_system.Service;
+
+import com.example.event_ticket_system.DTO.response.PaymentReconciliationReportDto;
+import com.example.event_ticket_system.DTO.response.ReconciliationCandidateProjection;
+import com.example.event_ticket_system.DTO.response.TicketQuantityProjection;
+import com.example.event_ticket_system.Repository.OrderRepository;
+import com.example.event_ticket_system.Repository.OrderTicketRepository;
+import com.example.event_ticket_system.Util.SmoothRateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.payos.PayOS;
+import vn.payos.type.PaymentLinkData;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Đối soát hàng loạt các đơn pending với PayOS, phòng khi webhook bị mất hoặc đến trễ.
+ * Trạng thái được hỏi song song trên một pool nhỏ, giãn đều theo payos.reconcile.rate-per-second;
+ * kết quả được áp trong một transaction bằng các câu UPDATE theo lô (paid / huỷ + trả vé).
+ * Chế độ dry-run chỉ trả về báo cáo.
+ */
+@Slf4j
+@Service
+public class PaymentReconciliationService {
+    public static final String RECONCILE_CANCEL_REASON = "Payment link cancelled or expired on PayOS";
+
+    private final PayOS payOS;
+    private final OrderRepository orderRepository;
+    private final OrderTicketRepository orderTicketRepository;
+    private final InventoryService inventoryService;
+    private final TicketFulfillmentService ticketFulfillmentService;
+    private final EventSalesService eventSalesService;
+    private final TransactionTemplate transactionTemplate;
+    private final SmoothRateLimiter rateLimiter;
+    private final ExecutorService lookupExecutor;
+    private final Duration minAge;
+    private final Duration cancelledLookback;
+    private final int maxOrders;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Counter paidCounter;
+    private final Counter cancelledCounter;
+    private final Counter failedCounter;
+
+    public PaymentReconciliationService(PayOS payOS,
+                                        OrderRepository orderRepository,
+                                        OrderTicketRepository orderTicketRepository,
+                                        InventoryService inventoryService,
+                                        TicketFulfillmentService ticketFulfillmentService,
+                                        EventSalesService eventSalesService,
+                                        TransactionTemplate transactionTemplate,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${payos.reconcile.min-age-minutes:5}") long minAgeMinutes,
+                                        @Value("${payos.reconcile.cancelled-lookback-hours:24}") long cancelledLookbackHours,
+                                        @Value("${payos.reconcile.max-orders:500}") int maxOrders,
+                                        @Value("${payos.reconcile.parallelism:4}") int parallelism,
+                                        @Value("${payos.reconcile.rate-per-second:5}") double ratePerSecond) {
+        this.payOS = payOS;
+        this.orderRepository = orderRepository;
+        this.orderTicketRepository = orderTicketRepository;
+        this.inventoryService = inventoryService;
+        this.ticketFulfillmentService = ticketFulfillmentService;
+        this.eventSalesService = eventSalesService;
+        this.transactionTemplate = transactionTemplate;
+        this.rateLimiter = new SmoothRateLimiter(ratePerSecond);
+        this.minAge = Duration.ofMinutes(minAgeMinutes);
+        this.cancelledLookback = Duration.ofHours(cancelledLookbackHours);
+        this.maxOrders = maxOrders;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.lookupExecutor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "payos-reconcile-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.paidCounter = Counter.builder("payos.reconcile.orders")
+                .description("Orders updated by PayOS reconciliation")
+                .tag("result", "paid")
+                .register(meterRegistry);
+        this.cancelledCounter = Counter.builder("payos.reconcile.orders")
+                .description("Orders updated by PayOS reconciliation")
+                .tag("result", "cancelled")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("payos.reconcile.lookup.failures")
+                .description("PayOS payment status lookups that failed during reconciliation")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lookupExecutor.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${payos.reconcile.interval-ms:300000}", initialDelayString = "${payos.reconcile.interval-ms:300000}")
+    public void scheduledReconcile() {
+        if (running.get()) {
+            return;
+        }
+        try {
+            PaymentReconciliationReportDto report = reconcile(false);
+            if (!report.getPaidOrderIds().isEmpty() || !report.getCancelledOrderIds().isEmpty()) {
+                log.warn("PayOS reconciliation marked {} orders paid and cancelled {} orders",
+                        report.getPaidOrderIds().size(), report.getCancelledOrderIds().size());
+            }
+        } catch (IllegalStateException e) {
+            // Lượt chạy tay đang diễn ra
+        } catch (Exception e) {
+            log.error("PayOS reconciliation failed", e);
+        }
+    }
+
+    /**
+     * Hỏi PayOS trạng thái của các đơn pending cũ hơn min-age (tối đa max-orders đơn) và các đơn bị huỷ tự động
+     * gần đây; nếu dryRun = false thì áp kết quả. Ném IllegalStateException nếu đang có lượt đối soát khác.
+     */
+    public PaymentReconciliationReportDto reconcile(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Payment reconciliation is already running");
+        }
+        try {
+            return doReconcile(dryRun);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private PaymentReconciliationReportDto doReconcile(boolean dryRun) {
+        long startNanos = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        List<ReconciliationCandidateProjection> pending = orderRepository.findPendingForReconciliation(
+                now.minus(minAge), PageRequest.of(0, maxOrders));
+        List<ReconciliationCandidateProjection> cancelled = orderRepository.findCancelledForReconciliation(
+                PendingOrderExpiryService.AUTO_CANCEL_REASON, now.minus(cancelledLookback), PageRequest.of(0, maxOrders));
+
+        List<ReconciliationCandidateProjection> candidates = new ArrayList<>(pending);
+        candidates.addAll(cancelled);
+        Map<Integer, PaymentLinkData> payments = fetchPayments(candidates);
+
+        List<Integer> toPay = new ArrayList<>();
+        List<Integer> toCancel = new ArrayList<>();
+        List<Integer> mismatched = new ArrayList<>();
+        List<Integer> failed = new ArrayList<>();
+        int stillPending = 0;
+        for (ReconciliationCandidateProjection order : pending) {
+            PaymentLinkData payment = payments.get(order.getOrderId());
+            if (payment == null) {
+                failed.add(order.getOrderId());
+                continue;
+            }
+            switch (String.valueOf(payment.getStatus())) {
+                case "PAID" -> {
+                    if (isFullyPaid(order, payment)) {
+                        toPay.add(order.getOrderId());
+                    } else {
+                        mismatched.add(order.getOrderId());
+                    }
+                }
+                case "CANCELLED", "EXPIRED" -> toCancel.add(order.getOrderId());
+                default -> stillPending++;
+            }
+        }
+        List<Integer> paidButCancelled = new ArrayList<>();
+        for (ReconciliationCandidateProjection order : cancelled) {
+            PaymentLinkData payment = payments.get(order.getOrderId());
+            if (payment == null) {
+                failed.add(order.getOrderId());
+            } else if ("PAID".equals(payment.getStatus())) {
+                paidButCancelled.add(order.getOrderId());
+                log.error("PayOS reports payment for cancelled order {} (PayOS order code {})",
+                        order.getOrderId(), order.getPayosOrderCode());
+            }
+        }
+        failedCounter.increment(failed.size());
+
+        if (!dryRun && (!toPay.isEmpty() || !toCancel.isEmpty())) {
+            List<List<Integer>> applied = apply(toPay, toCancel);
+            toPay = applied.get(0);
+            toCancel = applied.get(1);
+            paidCounter.increment(toPay.size());
+            cancelledCounter.increment(toCancel.size());
+        }
+        return new PaymentReconciliationReportDto(dryRun, candidates.size(), toPay, toCancel, stillPending,
+                paidButCancelled, mismatched, failed, Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+    }
+
+    private Map<Integer, PaymentLinkData> fetchPayments(List<ReconciliationCandidateProjection> candidates) {
+        Map<Integer, CompletableFuture<PaymentLinkData>> futures = new LinkedHashMap<>();
+        for (ReconciliationCandidateProjection order : candidates) {
+            futures.put(order.getOrderId(), CompletableFuture.supplyAsync(() -> {
+                try {
+                    rateLimiter.acquire();
+                    return payOS.getPaymentLinkInformation(order.getPayosOrderCode());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                } catch (Exception e) {
+                    log.warn("Failed to fetch PayOS payment for order {}: {}", order.getOrderId(), e.getMessage());
+                    return null;
+                }
+            }, lookupExecutor));
+        }
+        Map<Integer, PaymentLinkData> payments = new LinkedHashMap<>();
+        futures.forEach((orderId, future) -> {
+            PaymentLinkData payment = future.join();
+            if (payment != null) {
+                payments.put(orderId, payment);
+            }
+        });
+        return payments;
+    }
+
+    private static boolean isFullyPaid(ReconciliationCandidateProjection order, PaymentLinkData payment) {
+        // Link được tạo với amount = (int) totalAmount
+        int expected = order.getTotalAmount().intValue();
+        return payment.getAmount() != null && payment.getAmount() == expected
+                && payment.getAmountPaid() != null && payment.getAmountPaid() >= expected;
+    }
+
+    /**
+     * Áp kết quả trong một transaction: chỉ các đơn vẫn còn pending sau khi khoá mới bị đổi
+     * (webhook hoặc timing wheel có thể đã xử lý đơn trong lúc hỏi PayOS). Trả về [đơn đã paid, đơn đã huỷ].
+     */
+    private List<List<Integer>> apply(List<Integer> toPay, List<Integer> toCancel) {
+        return transactionTemplate.execute(status -> {
+            List<Integer> all = new ArrayList<>(toPay);
+            all.addAll(toCancel);
+            Set<Integer> locked = new HashSet<>(orderRepository.lockPendingOrderIds(all));
+            List<Integer> paid = toPay.stream().filter(locked::contains).toList();
+            List<Integer> cancelledIds = toCancel.stream().filter(locked::contains).toList();
+            if (!paid.isEmpty()) {
+                orderRepository.markPendingOrdersPaid(paid);
+                eventSalesService.recordPaid(paid);
+                for (Integer orderId : paid) {
+                    ticketFulfillmentService.enqueue(orderRepository.getReferenceById(orderId));
+                }
+            }
+            if (!cancelledIds.isEmpty()) {
+                orderRepository.cancelPendingOrders(cancelledIds, RECONCILE_CANCEL_REASON);
+                Map<Integer, Integer> quantities = new LinkedHashMap<>();
+                for (TicketQuantityProjection line : orderTicketRepository.sumQuantityByTicketForOrders(cancelledIds)) {
+                    quantities.put(line.getTicketId(), line.getQuantity().intValue());
+                }
+                inventoryService.release(quantities);
+            }
+            return List.of(paid, cancelledIds);
+        });
+    }
+}
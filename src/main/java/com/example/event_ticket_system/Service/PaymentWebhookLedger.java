@@ -0,0 +1,76 @@
+package com.example.event_ticket_system.Service;
+
+import com.example.event_ticket_system.Entity.ProcessedWebhook;
+import com.example.event_ticket_system.Repository.ProcessedWebhookRepository;
+import com.example.event_ticket_system.Util.TtlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Ghi nhận webhook PayOS đã xử lý theo (orderCode, reference).
+ * Phía trước là cache trong bộ nhớ có giới hạn để webhook gửi lại được trả lời ngay;
+ * phía sau là bảng processed_webhooks với khoá duy nhất, dùng khi cache không có và để chặn xử lý đồng thời.
+ */
+@Service
+public class PaymentWebhookLedger {
+    private final ProcessedWebhookRepository processedWebhookRepository;
+    private final TtlCache<String, Boolean> processed;
+    private final Duration ttl;
+
+    public PaymentWebhookLedger(ProcessedWebhookRepository processedWebhookRepository,
+                                @Value("${payos.webhook.ledger.max-entries:50000}") int maxEntries,
+                                @Value("${payos.webhook.ledger.ttl-hours:24}") long ttlHours) {
+        this.processedWebhookRepository = processedWebhookRepository;
+        this.processed = new TtlCache<>(maxEntries);
+        this.ttl = Duration.ofHours(ttlHours);
+    }
+
+    public boolean isProcessed(Long payosOrderCode, String reference) {
+        String key = key(payosOrderCode, reference);
+        if (processed.get(key) != null) {
+            return true;
+        }
+        if (processedWebhookRepository.existsByPayosOrderCodeAndReference(payosOrderCode, normalize(reference))) {
+            processed.put(key, Boolean.TRUE, ttl);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Ghi vào sổ trong transaction hiện tại; lần gửi trùng chạy song song sẽ vi phạm khoá duy nhất
+     * (DataIntegrityViolationException) và bị rollback. Cache chỉ được cập nhật sau khi commit.
+     */
+    public void record(Long payosOrderCode, String reference) {
+        processedWebhookRepository.save(new ProcessedWebhook(null, payosOrderCode, normalize(reference), LocalDateTime.now()));
+        String key = key(payosOrderCode, reference);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    processed.put(key, Boolean.TRUE, ttl);
+                }
+            });
+        } else {
+            processed.put(key, Boolean.TRUE, ttl);
+        }
+    }
+
+    public int cachedCount() {
+        return processed.size();
+    }
+
+    private static String key(Long payosOrderCode, String reference) {
+        return payosOrderCode + ":" + normalize(reference);
+    }
+
+    // Webhook thử nghiệm của PayOS có thể không có reference
+    private static String normalize(String reference) {
+        return reference == null ? "" : reference;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.event_ticket_system.Service;
+
+import com.example.event_ticket_system.DTO.response.PendingOrderProjection;
+import com.example.event_ticket_system.Repository.OrderRepository;
+import com.example.event_ticket_system.Util.HashedTimingWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Huỷ đơn pending đúng lúc hết hạn giữ vé thay vì chờ lần quét bảng orders kế tiếp.
+ * Mỗi đơn được đưa vào timing wheel (tick 1 giây) khi tạo đơn commit xong; việc huỷ chạy trên
+ * một pool nhỏ riêng để các cuộc gọi DB/PayOS không làm trễ tick.
+ */
+@Slf4j
+@Service
+public class PendingOrderExpiryService {
+    public static final Duration PENDING_ORDER_TTL = Duration.ofMinutes(15);
+    public static final String AUTO_CANCEL_REASON = "Order auto-cancelled due to timeout";
+
+    // 1024 ô x 1 giây ≈ 17 phút, đủ một vòng cho hạn 15 phút
+    private static final int WHEEL_SIZE = 1024;
+    private static final int EXPIRY_THREADS = 2;
+
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final HashedTimingWheel<Integer> wheel;
+    private final ExecutorService expiryExecutor;
+
+    public PendingOrderExpiryService(@Lazy OrderService orderService, OrderRepository orderRepository) {
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.wheel = new HashedTimingWheel<>(1, TimeUnit.SECONDS, WHEEL_SIZE, this::submitExpiry, "pending-order-wheel");
+        AtomicInteger threadCount = new AtomicInteger();
+        this.expiryExecutor = Executors.newFixedThreadPool(EXPIRY_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "pending-order-expiry-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        wheel.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        wheel.stop();
+        expiryExecutor.shutdown();
+    }
+
+    /**
+     * Lên lịch huỷ đơn sau khi transaction hiện tại commit; đơn bị rollback thì không cần theo dõi.
+     */
+    public void scheduleAfterCommit(Integer orderId, LocalDateTime orderDate) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    schedule(orderId, orderDate);
+                }
+            });
+        } else {
+            schedule(orderId, orderDate);
+        }
+    }
+
+    public void schedule(Integer orderId, LocalDateTime orderDate) {
+        LocalDateTime deadline = orderDate.plus(PENDING_ORDER_TTL);
+        wheel.schedule(orderId, Duration.between(LocalDateTime.now(), deadline).toMillis());
+    }
+
+    public int pendingCount() {
+        return wheel.pendingCount();
+    }
+
+    /**
+     * Dựng lại lịch từ các đơn còn pending sau khi khởi động lại; đơn đã quá hạn sẽ bị huỷ ở tick đầu tiên.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        int count = 0;
+        for (PendingOrderProjection order : orderRepository.findPendingOrders()) {
+            schedule(order.getOrderId(), order.getOrderDate());
+            count++;
+        }
+        log.info("Scheduled expiry for {} pending orders", count);
+    }
+
+    private void submitExpiry(Integer orderId) {
+        expiryExecutor.execute(() -> {
+            try {
+                // Đơn đã thanh toán hoặc đã huỷ thì expirePendingOrder không làm gì
+                orderService.expirePendingOrder(orderId);
+            } catch (Exception e) {
+                // Lần quét an toàn (PendingOrderSweepService) sẽ xử lý lại đơn này
+                log.error("Failed to expire pending order {}", orderId, e);
+            }
+        });
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.event_ticket_system.Service;
+
+import com.example.event_ticket_system.DTO.response.ExpiredOrderProjection;
+import com.example.event_ticket_system.DTO.response.TicketQuantityProjection;
+import com.example.event_ticket_system.Enums.OrderStatus;
+import com.example.event_ticket_system.Repository.OrderRepository;
+import com.example.event_ticket_system.Repository.OrderTicketRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lưới an toàn cho các đơn pending lọt khỏi timing wheel (ví dụ huỷ thất bại, node bị tắt).
+ * Mỗi lô (order.expiry.sweep-chunk-size đơn) là một transaction ngắn: khoá các đơn, huỷ bằng một câu UPDATE
+ * và trả vé gộp theo loại vé; link PayOS được huỷ sau khi commit trên worker riêng.
+ */
+@Slf4j
+@Service
+public class PendingOrderSweepService {
+    private final OrderRepository orderRepository;
+    private final OrderTicketRepository orderTicketRepository;
+    private final InventoryService inventoryService;
+    private final PaymentLinkCancellationService paymentLinkCancellationService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final AtomicLong backlog = new AtomicLong();
+    private final Timer sweepTimer;
+    private final Counter cancelledCounter;
+
+    public PendingOrderSweepService(OrderRepository orderRepository,
+                                    OrderTicketRepository orderTicketRepository,
+                                    InventoryService inventoryService,
+                                    PaymentLinkCancellationService paymentLinkCancellationService,
+                                    TransactionTemplate transactionTemplate,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${order.expiry.sweep-chunk-size:200}") int chunkSize) {
+        this.orderRepository = orderRepository;
+        this.orderTicketRepository = orderTicketRepository;
+        this.inventoryService = inventoryService;
+        this.paymentLinkCancellationService = paymentLinkCancellationService;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        Gauge.builder("order_expiry.backlog", backlog, AtomicLong::get)
+                .description("Expired pending orders still waiting to be cancelled")
+                .register(meterRegistry);
+        this.sweepTimer = Timer.builder("order_expiry.sweep.duration")
+                .description("Duration of the expired pending order sweep")
+                .register(meterRegistry);
+        this.cancelledCounter = Counter.builder("order_expiry.cancelled")
+                .description("Pending orders cancelled by the sweep")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${order.expiry.sweep-interval-ms:900000}", initialDelayString = "${order.expiry.sweep-interval-ms:900000}")
+    public void sweep() {
+        sweepTimer.record(() -> {
+            LocalDateTime cutoff = LocalDateTime.now().minus(PendingOrderExpiryService.PENDING_ORDER_TTL);
+            backlog.set(orderRepository.countByStatusAndOrderDateBefore(OrderStatus.pending, cutoff));
+            int total = 0;
+            while (true) {
+                int cancelled = cancelChunk(cutoff);
+                total += cancelled;
+                backlog.set(Math.max(0, backlog.get() - cancelled));
+                // Lô thiếu nghĩa là đã hết đơn quá hạn (hoặc phần còn lại đang bị luồng khác khoá)
+                if (cancelled < chunkSize) {
+                    break;
+                }
+            }
+            if (total > 0) {
+                log.warn("Safety sweep cancelled {} expired pending orders", total);
+            }
+        });
+    }
+
+    public long backlog() {
+        return backlog.get();
+    }
+
+    private int cancelChunk(LocalDateTime cutoff) {
+        List<ExpiredOrderProjection> chunk = transactionTemplate.execute(status -> {
+            List<ExpiredOrderProjection> locked = orderRepository.lockExpiredPendingOrders(cutoff, chunkSize);
+            if (locked.isEmpty()) {
+                return locked;
+            }
+            List<Integer> orderIds = locked.stream().map(ExpiredOrderProjection::getOrderId).toList();
+            orderRepository.cancelPendingOrders(orderIds, PendingOrderExpiryService.AUTO_CANCEL_REASON);
+            Map<Integer, Integer> quantities = new LinkedHashMap<>();
+            for (TicketQuantityProjection line : orderTicketRepository.sumQuantityByTicketForOrders(orderIds)) {
+                quantities.put(line.getTicketId(), line.getQuantity().intValue());
+            }
+            inventoryService.release(quantities);
+            return locked;
+        });
+        if (chunk == null || chunk.isEmpty()) {
+            return 0;
+        }
+        cancelledCounter.increment(chunk.size());
+        paymentLinkCancellationService.cancelAfterCommit(
+                chunk.stream().map(ExpiredOrderProjection::getPayosOrderCode).filter(Objects::nonNull).toList(),
+                PendingOrderExpiryService.AUTO_CANCEL_REASON);
+        return chunk.size();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.event_ticket_system.Service;
+
+import com.example.event_ticket_system.Entity.Order;
+
+public interface TicketFulfillmentService {
+    /**
+     * Ghi việc giao vé (QR + email) cho đơn vừa thanh toán vào transaction hiện tại;
+     * việc được đưa cho worker sau khi commit.
+     */
+    void enqueue(Order order);
+}
@@ -0,0 +1,19 @@
+package com.example.event_ticket_system.Service;
+
+import com.example.event_ticket_system.Entity.Order;
+import com.example.event_ticket_system.Entity.OrderTicket;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.List;
+
+public interface TicketPdfService {
+    /**
+     * Vé điện tử PDF của một đơn đã thanh toán của người dùng.
+     */
+    byte[] getOrderTicketsPdf(Integer userId, Integer orderId, HttpServletRequest request);
+
+    /**
+     * Dựng PDF một trang cho mỗi loại vé trong đơn; các vé phải đã có payload QR (xem TicketQrService.assignPayloads).
+     */
+    byte[] render(Order order, List<OrderTicket> orderTickets);
+}
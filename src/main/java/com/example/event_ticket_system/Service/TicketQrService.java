@@ -0,0 +1,25 @@
+package com.example.event_ticket_system.Service;
+
+import com.example.event_ticket_system.DTO.response.QrImageDto;
+import com.example.event_ticket_system.Entity.Order;
+import com.example.event_ticket_system.Entity.OrderTicket;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.List;
+
+public interface TicketQrService {
+    /**
+     * Ảnh QR của một vé thuộc đơn đã thanh toán của người dùng; vé cũ chưa có payload được chuyển đổi ngay lúc này.
+     */
+    QrImageDto getTicketQrCode(Integer userId, Integer orderTicketId, HttpServletRequest request);
+
+    /**
+     * Cấp token vé làm payload QR cho các vé chưa có token và xoá ảnh cũ trong cột qr_code nếu còn.
+     */
+    void assignPayloads(Order order, List<OrderTicket> orderTickets);
+
+    /**
+     * Vẽ ảnh PNG cho payload, dùng cache LRU giới hạn theo dung lượng.
+     */
+    QrImageDto render(String payload);
+}
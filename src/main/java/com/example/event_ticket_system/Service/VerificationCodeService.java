@@ -6,6 +6,7 @@ import org.springframework.stereotype.Service;
 
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -16,7 +17,15 @@ public class VerificationCodeService {
     private static final int EXPIRATION_MINUTES = 5; // mã có hiệu lực 5 phút
     private final SecureRandom secureRandom = new SecureRandom();
 
+    /**
+     * Dạng chuẩn của email dùng làm khoá lưu/tra mã (bỏ khoảng trắng, chữ thường).
+     */
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
     public String generateAndSaveCode(String email) {
+        email = normalizeEmail(email);
         // Tạo mã ngẫu nhiên 6 chữ số
         String code = String.format("%06d", secureRandom.nextInt(1000000));
         LocalDateTime expirationTime = LocalDateTime.now().plusMinutes(EXPIRATION_MINUTES);
@@ -26,6 +35,7 @@ public class VerificationCodeService {
     }
 
     public boolean verifyCode(String email, String code) {
+        email = normalizeEmail(email);
         CodeInfo info = codeCache.get(email);
         if (info == null) {
             logger.warn("No verification code found for email {}", email);
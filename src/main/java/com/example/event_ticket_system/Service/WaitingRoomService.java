@@ -0,0 +1,39 @@
+package com.example.event_ticket_system.Service;
+
+import com.example.event_ticket_system.DTO.request.WaitingRoomConfigRequestDto;
+import com.example.event_ticket_system.DTO.response.WaitingRoomStatusDto;
+import com.example.event_ticket_system.Entity.WaitingRoomConfig;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface WaitingRoomService {
+    /**
+     * Vào hàng đợi của sự kiện. Người đã có token thì nhận lại token cũ; sự kiện không bật hàng đợi
+     * thì trả về trạng thái not_required và không cấp token.
+     */
+    WaitingRoomStatusDto join(Integer eventId, Integer userId);
+
+    /**
+     * Trạng thái hiện tại của token, đồng thời đánh dấu người giữ token vẫn đang chờ.
+     */
+    WaitingRoomStatusDto getStatus(String queueToken);
+
+    /**
+     * Đăng ký nhận vị trí qua Server-Sent Events, được đẩy sau mỗi lượt cho vào.
+     */
+    SseEmitter stream(String queueToken);
+
+    /**
+     * Kiểm tra người dùng có được đặt vé cho sự kiện không. Ném SecurityException nếu token
+     * không hợp lệ; trả về trạng thái waiting nếu chưa tới lượt.
+     */
+    WaitingRoomStatusDto checkAdmission(Integer eventId, Integer userId, String queueToken);
+
+    /**
+     * Thu hồi token sau khi đặt vé thành công.
+     */
+    void complete(String queueToken);
+
+    WaitingRoomConfig getConfig(Integer eventId);
+
+    WaitingRoomConfig updateConfig(Integer eventId, WaitingRoomConfigRequestDto dto);
+}
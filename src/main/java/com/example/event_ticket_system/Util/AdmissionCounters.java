@@ -0,0 +1,225 @@
+package com.example.event_ticket_system.Util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+
+/**
+ * Số lượt đã vào cổng của từng OrderTicket trong một sự kiện.
+ * Vé có sẵn lúc nạp nằm trong mảng sắp theo orderTicketId (tìm bằng binary search, đếm bằng CAS trên AtomicIntegerArray);
+ * vé mua sau khi nạp được thêm vào một map nhỏ. Mỗi lượt vào đánh dấu vé "bẩn" để ghi xuống DB sau (write-behind).
+ * Trước khi bỏ bộ đếm khỏi bộ nhớ thì {@link #close()}: cờ đóng nằm ngay trong từng bộ đếm nên CAS của lượt quét
+ * đang chạy hoặc thấy cờ (CLOSED), hoặc thành công trước và được drainDirty sau đó ghi xuống, không lượt nào bị mất.
+ */
+public class AdmissionCounters {
+    public static final int FULL = -1;
+    public static final int UNKNOWN = -2;
+    public static final int CLOSED = -3;
+
+    // Bit đóng trong giá trị bộ đếm: lớn hơn mọi quantity nên vòng CAS "current < quantity" tự dừng
+    private static final int CLOSED_BIT = 1 << 30;
+
+    private record LateTicket(int quantity, AtomicInteger admitted, AtomicBoolean dirty) {
+    }
+
+    private final int[] orderTicketIds;
+    private final int[] quantities;
+    private final AtomicIntegerArray admitted;
+    private final AtomicLongArray dirty;
+    private final ConcurrentHashMap<Integer, LateTicket> late = new ConcurrentHashMap<>();
+    // Đọc/ghi dưới khoá của đối tượng (addLate, close, reopen); tryAdmit chỉ nhìn bit đóng trong bộ đếm
+    private boolean closed;
+
+    /**
+     * @param orderTicketIds id tăng dần
+     */
+    public AdmissionCounters(int[] orderTicketIds, int[] quantities, int[] admittedCounts) {
+        if (orderTicketIds.length != quantities.length || orderTicketIds.length != admittedCounts.length) {
+            throw new IllegalArgumentException("Admission arrays must have the same length");
+        }
+        this.orderTicketIds = orderTicketIds;
+        this.quantities = quantities;
+        this.admitted = new AtomicIntegerArray(admittedCounts);
+        this.dirty = new AtomicLongArray((orderTicketIds.length + 63) >>> 6);
+    }
+
+    public boolean contains(int orderTicketId) {
+        return indexOf(orderTicketId) >= 0 || late.containsKey(orderTicketId);
+    }
+
+    /**
+     * Thêm vé mua sau lúc nạp; bỏ qua nếu vé đã có.
+     */
+    public synchronized void addLate(int orderTicketId, int quantity, int admittedCount) {
+        if (indexOf(orderTicketId) < 0) {
+            LateTicket ticket = late.computeIfAbsent(orderTicketId,
+                    id -> new LateTicket(quantity, new AtomicInteger(admittedCount), new AtomicBoolean()));
+            // Vé thêm vào sau close() cũng phải đóng theo
+            if (closed) {
+                ticket.admitted().getAndUpdate(value -> value | CLOSED_BIT);
+            }
+        }
+    }
+
+    /**
+     * Ghi nhận một lượt vào; trả về số thứ tự lượt (1..quantity), FULL nếu đã dùng hết, UNKNOWN nếu không có vé,
+     * CLOSED nếu bộ đếm đã đóng (nơi gọi thử lại trên bộ đếm nạp mới).
+     */
+    public int tryAdmit(int orderTicketId) {
+        int index = indexOf(orderTicketId);
+        if (index >= 0) {
+            int quantity = quantities[index];
+            int current = admitted.get(index);
+            while (current < quantity) {
+                if (admitted.compareAndSet(index, current, current + 1)) {
+                    setDirty(index);
+                    return current + 1;
+                }
+                current = admitted.get(index);
+            }
+            return current >= CLOSED_BIT ? CLOSED : FULL;
+        }
+        LateTicket ticket = late.get(orderTicketId);
+        if (ticket == null) {
+            return UNKNOWN;
+        }
+        int current = ticket.admitted().get();
+        while (current < ticket.quantity()) {
+            if (ticket.admitted().compareAndSet(current, current + 1)) {
+                ticket.dirty().set(true);
+                return current + 1;
+            }
+            current = ticket.admitted().get();
+        }
+        return current >= CLOSED_BIT ? CLOSED : FULL;
+    }
+
+    public int quantity(int orderTicketId) {
+        int index = indexOf(orderTicketId);
+        if (index >= 0) {
+            return quantities[index];
+        }
+        LateTicket ticket = late.get(orderTicketId);
+        return ticket == null ? 0 : ticket.quantity();
+    }
+
+    public int admitted(int orderTicketId) {
+        int index = indexOf(orderTicketId);
+        if (index >= 0) {
+            return admitted.get(index) & ~CLOSED_BIT;
+        }
+        LateTicket ticket = late.get(orderTicketId);
+        return ticket == null ? 0 : ticket.admitted().get() & ~CLOSED_BIT;
+    }
+
+    /**
+     * Lấy (và xoá cờ) các vé có lượt vào chưa ghi xuống DB, kèm số lượt hiện tại.
+     */
+    public void drainDirty(BiConsumer<Integer, Integer> consumer) {
+        for (int word = 0; word < dirty.length(); word++) {
+            long bits = dirty.getAndSet(word, 0L);
+            while (bits != 0) {
+                int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                consumer.accept(orderTicketIds[index], admitted.get(index) & ~CLOSED_BIT);
+            }
+        }
+        late.forEach((orderTicketId, ticket) -> {
+            if (ticket.dirty().getAndSet(false)) {
+                consumer.accept(orderTicketId, ticket.admitted().get() & ~CLOSED_BIT);
+            }
+        });
+    }
+
+    /**
+     * Đánh dấu lại vé cần ghi, khi lần ghi trước thất bại.
+     */
+    public void markPending(int orderTicketId) {
+        int index = indexOf(orderTicketId);
+        if (index >= 0) {
+            setDirty(index);
+            return;
+        }
+        LateTicket ticket = late.get(orderTicketId);
+        if (ticket != null) {
+            ticket.dirty().set(true);
+        }
+    }
+
+    public long totalQuantity() {
+        long total = 0;
+        for (int quantity : quantities) {
+            total += quantity;
+        }
+        for (LateTicket ticket : late.values()) {
+            total += ticket.quantity();
+        }
+        return total;
+    }
+
+    public long totalAdmitted() {
+        long total = 0;
+        for (int i = 0; i < admitted.length(); i++) {
+            total += admitted.get(i) & ~CLOSED_BIT;
+        }
+        for (LateTicket ticket : late.values()) {
+            total += ticket.admitted().get() & ~CLOSED_BIT;
+        }
+        return total;
+    }
+
+    /**
+     * Chặn mọi lượt vào mới; lượt nào CAS thành công trước đó vẫn nằm trong drainDirty.
+     */
+    public synchronized void close() {
+        closed = true;
+        for (int i = 0; i < admitted.length(); i++) {
+            admitted.getAndUpdate(i, value -> value | CLOSED_BIT);
+        }
+        for (LateTicket ticket : late.values()) {
+            ticket.admitted().getAndUpdate(value -> value | CLOSED_BIT);
+        }
+    }
+
+    /**
+     * Mở lại sau close() khi không bỏ được bộ đếm (ghi xuống DB lỗi).
+     */
+    public synchronized void reopen() {
+        closed = false;
+        for (int i = 0; i < admitted.length(); i++) {
+            admitted.getAndUpdate(i, value -> value & ~CLOSED_BIT);
+        }
+        for (LateTicket ticket : late.values()) {
+            ticket.admitted().getAndUpdate(value -> value & ~CLOSED_BIT);
+        }
+    }
+
+    private void setDirty(int index) {
+        int word = index >>> 6;
+        long bit = 1L << index;
+        long current = dirty.get(word);
+        while ((current & bit) == 0 && !dirty.compareAndSet(word, current, current | bit)) {
+            current = dirty.get(word);
+        }
+    }
+
+    private int indexOf(int orderTicketId) {
+        int low = 0;
+        int high = orderTicketIds.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = orderTicketIds[mid];
+            if (value < orderTicketId) {
+                low = mid + 1;
+            } else if (value > orderTicketId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.event_ticket_system.Util;
+
+import java.util.Arrays;
+
+/**
+ * Base45 (RFC 9285): mỗi 2 byte thành 3 ký tự trong bảng chữ cái alphanumeric của QR,
+ * nên mã QR dùng được chế độ alphanumeric (5,5 bit/ký tự) thay vì chế độ byte.
+ */
+public final class Base45 {
+    private static final char[] ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:".toCharArray();
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            VALUES[ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    private Base45() {
+    }
+
+    public static String encode(byte[] data, int length) {
+        char[] out = new char[(length / 2) * 3 + (length % 2) * 2];
+        int position = 0;
+        int i = 0;
+        for (; i + 1 < length; i += 2) {
+            int value = ((data[i] & 0xFF) << 8) | (data[i + 1] & 0xFF);
+            out[position++] = ALPHABET[value % 45];
+            out[position++] = ALPHABET[(value / 45) % 45];
+            out[position++] = ALPHABET[value / 2025];
+        }
+        if (i < length) {
+            int value = data[i] & 0xFF;
+            out[position++] = ALPHABET[value % 45];
+            out[position] = ALPHABET[value / 45];
+        }
+        return new String(out);
+    }
+
+    /**
+     * Giải mã vào out, trả về số byte; -1 nếu chuỗi không hợp lệ hoặc không vừa out.
+     */
+    public static int decode(CharSequence text, byte[] out) {
+        int length = text.length();
+        if (length % 3 == 1) {
+            return -1;
+        }
+        int decodedLength = (length / 3) * 2 + (length % 3 == 2 ? 1 : 0);
+        if (decodedLength > out.length) {
+            return -1;
+        }
+        int position = 0;
+        int i = 0;
+        for (; i + 2 < length; i += 3) {
+            int c = value(text.charAt(i));
+            int d = value(text.charAt(i + 1));
+            int e = value(text.charAt(i + 2));
+            if ((c | d | e) < 0) {
+                return -1;
+            }
+            int value = c + d * 45 + e * 2025;
+            if (value > 0xFFFF) {
+                return -1;
+            }
+            out[position++] = (byte) (value >>> 8);
+            out[position++] = (byte) value;
+        }
+        if (i < length) {
+            int c = value(text.charAt(i));
+            int d = value(text.charAt(i + 1));
+            if ((c | d) < 0) {
+                return -1;
+            }
+            int value = c + d * 45;
+            if (value > 0xFF) {
+                return -1;
+            }
+            out[position++] = (byte) value;
+        }
+        return position;
+    }
+
+    private static int value(char c) {
+        return c < 128 ? VALUES[c] : -1;
+    }
+}
@@ -0,0 +1,388 @@
+package com.example.event_ticket_system.Util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Chỉ mục ngược trong bộ nhớ cho các tài liệu nhiều trường (tối đa 16 trường), khoá là id số nguyên không âm.
+ * Văn bản được chuẩn hoá bằng {@link VietnameseText}; mỗi từ của câu truy vấn khớp theo tiền tố và mọi từ đều phải khớp.
+ * Điểm của một từ là trọng số lớn nhất trong các trường khớp (+1 nếu khớp nguyên từ); kết quả xếp theo tổng điểm,
+ * cùng điểm thì id lớn (mới hơn) đứng trước. Đọc song song, ghi độc quyền.
+ * Tài liệu được đánh số thứ tự nội bộ liên tục để posting và điểm là mảng int, không boxing khi tìm.
+ */
+public class InvertedIndex {
+    // Dò từ của một tài liệu (vài chục lần đọc String rải rác) tốn cỡ quét ngần này phần tử posting liên tiếp
+    private static final int PROBE_COST = 32;
+
+    private final int[] maskWeights;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private TreeMap<String, Posting> postings = new TreeMap<>();
+    private HashMap<Integer, Integer> ordinals = new HashMap<>();
+    private ArrayDeque<Integer> freeOrdinals = new ArrayDeque<>();
+    private int ordinalCount;
+    private int[] docIds = new int[16];
+    // Theo số thứ tự: các từ của tài liệu và trường chứa từng từ (để xoá và để dò khi tập ứng viên đã nhỏ)
+    private String[][] docTerms = new String[16][];
+    private int[][] docFields = new int[16][];
+
+    public InvertedIndex(int... fieldWeights) {
+        if (fieldWeights.length == 0 || fieldWeights.length > 16) {
+            throw new IllegalArgumentException("Index must have between 1 and 16 fields");
+        }
+        // Trọng số của mọi tổ hợp trường, tra một lần thay vì duyệt bit khi chấm điểm
+        maskWeights = new int[1 << fieldWeights.length];
+        for (int mask = 1; mask < maskWeights.length; mask++) {
+            int field = Integer.numberOfTrailingZeros(mask);
+            maskWeights[mask] = Math.max(maskWeights[mask & (mask - 1)], fieldWeights[field]);
+        }
+    }
+
+    /**
+     * Thêm hoặc thay thế tài liệu; fieldTexts[i] là nội dung trường i (có thể null).
+     */
+    public void put(int docId, String... fieldTexts) {
+        if (docId < 0) {
+            throw new IllegalArgumentException("docId must not be negative");
+        }
+        HashMap<String, Integer> terms = new HashMap<>();
+        int fieldCount = Integer.numberOfTrailingZeros(maskWeights.length);
+        for (int field = 0; field < fieldTexts.length && field < fieldCount; field++) {
+            int bit = 1 << field;
+            for (String term : VietnameseText.tokenize(fieldTexts[field])) {
+                terms.merge(term, bit, (a, b) -> a | b);
+            }
+        }
+        String[] termArray = terms.keySet().toArray(new String[0]);
+        int[] fieldArray = new int[termArray.length];
+        for (int i = 0; i < termArray.length; i++) {
+            fieldArray[i] = terms.get(termArray[i]);
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(docId);
+            int ordinal = allocateOrdinal();
+            ordinals.put(docId, ordinal);
+            docIds[ordinal] = docId;
+            docTerms[ordinal] = termArray;
+            docFields[ordinal] = fieldArray;
+            for (int i = 0; i < termArray.length; i++) {
+                postings.computeIfAbsent(termArray[i], key -> new Posting()).add(ordinal, fieldArray[i]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int docId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(docId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Lấy toàn bộ nội dung của chỉ mục khác (dựng lại ngoài khoá rồi đổi một lần); không dùng lại other sau đó.
+     */
+    public void replaceWith(InvertedIndex other) {
+        if (!Arrays.equals(maskWeights, other.maskWeights)) {
+            throw new IllegalArgumentException("Indexes have different field weights");
+        }
+        lock.writeLock().lock();
+        try {
+            postings = other.postings;
+            ordinals = other.ordinals;
+            freeOrdinals = other.freeOrdinals;
+            ordinalCount = other.ordinalCount;
+            docIds = other.docIds;
+            docTerms = other.docTerms;
+            docFields = other.docFields;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Kết quả tìm: count là số tài liệu khớp, ids là mọi tài liệu khớp (không theo thứ tự; rỗng khi count vượt idLimit),
+     * ranked là tối đa rankLimit tài liệu điểm cao nhất.
+     */
+    public record Matches(int count, List<Integer> ids, List<Integer> ranked) {
+        private static final Matches NONE = new Matches(List.of(), List.of());
+
+        public Matches(List<Integer> ids, List<Integer> ranked) {
+            this(ids.size(), ids, ranked);
+        }
+    }
+
+    /**
+     * Id các tài liệu khớp mọi từ của query trong các trường thuộc fieldMask, xếp theo điểm giảm dần, tối đa limit.
+     * Query không có từ nào thì trả về danh sách rỗng.
+     */
+    public List<Integer> search(String query, int fieldMask, int limit) {
+        return limit <= 0 ? List.of() : find(query, fieldMask, limit, 0).ranked();
+    }
+
+    /**
+     * Như {@link #search} nhưng trả thêm toàn bộ tài liệu khớp để nơi gọi lọc trên đủ kết quả; rankLimit chỉ áp
+     * cho danh sách xếp hạng. Khớp nhiều hơn idLimit tài liệu thì chỉ trả count, không dựng danh sách id.
+     */
+    public Matches match(String query, int fieldMask, int rankLimit, int idLimit) {
+        return find(query, fieldMask, Math.max(rankLimit, 0), idLimit);
+    }
+
+    private Matches find(String query, int fieldMask, int limit, int idLimit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(VietnameseText.tokenize(query)));
+        if (tokens.isEmpty()) {
+            return Matches.NONE;
+        }
+        int mask = fieldMask & (maskWeights.length - 1);
+        lock.readLock().lock();
+        try {
+            int tokenCount = tokens.size();
+            List<SortedMap<String, Posting>> ranges = new ArrayList<>(tokenCount);
+            int[] sizes = new int[tokenCount];
+            for (int t = 0; t < tokenCount; t++) {
+                String token = tokens.get(t);
+                SortedMap<String, Posting> range = postings.subMap(token, token + Character.MAX_VALUE);
+                for (Posting posting : range.values()) {
+                    sizes[t] += posting.size;
+                }
+                if (sizes[t] == 0) {
+                    return Matches.NONE;
+                }
+                ranges.add(range);
+            }
+            // Bắt đầu từ từ có ít posting nhất, các từ sau chỉ lọc tập ứng viên
+            Integer[] order = new Integer[tokenCount];
+            for (int t = 0; t < tokenCount; t++) {
+                order[t] = t;
+            }
+            Arrays.sort(order, Comparator.comparingInt(t -> sizes[t]));
+
+            int[] tokenScores = new int[ordinalCount];
+            int first = order[0];
+            int[] candidates = new int[Math.min(sizes[first], ordinalCount)];
+            int candidateCount = 0;
+            scan(tokens.get(first), ranges.get(first), mask, tokenScores);
+            for (Posting posting : ranges.get(first).values()) {
+                for (int i = 0; i < posting.size; i++) {
+                    int ordinal = posting.ordinals[i];
+                    if (tokenScores[ordinal] > 0) {
+                        candidates[candidateCount++] = ordinal;
+                        // Đánh dấu âm để không thêm trùng khi tài liệu có nhiều từ cùng tiền tố
+                        tokenScores[ordinal] = -tokenScores[ordinal];
+                    }
+                }
+            }
+            int[] totals = new int[candidateCount];
+            for (int i = 0; i < candidateCount; i++) {
+                totals[i] = -tokenScores[candidates[i]];
+            }
+
+            for (int k = 1; k < tokenCount && candidateCount > 0; k++) {
+                int t = order[k];
+                String token = tokens.get(t);
+                int kept = 0;
+                if ((long) candidateCount * PROBE_COST < sizes[t]) {
+                    // Ít ứng viên: dò từ của từng tài liệu thay vì quét posting
+                    for (int i = 0; i < candidateCount; i++) {
+                        int score = probe(candidates[i], token, mask);
+                        if (score > 0) {
+                            candidates[kept] = candidates[i];
+                            totals[kept++] = totals[i] + score;
+                        }
+                    }
+                } else {
+                    Arrays.fill(tokenScores, 0);
+                    scan(token, ranges.get(t), mask, tokenScores);
+                    for (int i = 0; i < candidateCount; i++) {
+                        int score = tokenScores[candidates[i]];
+                        if (score > 0) {
+                            candidates[kept] = candidates[i];
+                            totals[kept++] = totals[i] + score;
+                        }
+                    }
+                }
+                candidateCount = kept;
+            }
+            List<Integer> ids = List.of();
+            if (candidateCount <= idLimit) {
+                Integer[] matched = new Integer[candidateCount];
+                for (int i = 0; i < candidateCount; i++) {
+                    matched[i] = docIds[candidates[i]];
+                }
+                ids = Arrays.asList(matched);
+            }
+            return new Matches(candidateCount, ids, top(candidates, totals, candidateCount, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void scan(String token, SortedMap<String, Posting> range, int mask, int[] tokenScores) {
+        // Các từ trong range đều bắt đầu bằng token nên cùng độ dài nghĩa là khớp nguyên từ
+        for (Map.Entry<String, Posting> term : range.entrySet()) {
+            int exactBonus = term.getKey().length() == token.length() ? 1 : 0;
+            Posting posting = term.getValue();
+            for (int i = 0; i < posting.size; i++) {
+                int weight = maskWeights[posting.fields[i] & mask];
+                if (weight > 0) {
+                    int ordinal = posting.ordinals[i];
+                    tokenScores[ordinal] = Math.max(tokenScores[ordinal], weight + exactBonus);
+                }
+            }
+        }
+    }
+
+    private int probe(int ordinal, String token, int mask) {
+        String[] terms = docTerms[ordinal];
+        int[] fields = docFields[ordinal];
+        int best = 0;
+        for (int i = 0; i < terms.length; i++) {
+            if (terms[i].startsWith(token)) {
+                int weight = maskWeights[fields[i] & mask];
+                if (weight > 0) {
+                    best = Math.max(best, weight + (terms[i].length() == token.length() ? 1 : 0));
+                }
+            }
+        }
+        return best;
+    }
+
+    private List<Integer> top(int[] candidates, int[] totals, int count, int limit) {
+        // Khoá (điểm << 32 | id): so sánh một số long là so điểm rồi đến id; heap nhỏ nhất kích thước limit
+        long[] heap = new long[Math.min(limit, count)];
+        int size = 0;
+        // Duyệt ngược: số thứ tự lớn thường là tài liệu mới (id lớn), nên phần lớn khoá sau bị loại ngay ở đỉnh heap
+        for (int i = count - 1; i >= 0; i--) {
+            long key = ((long) totals[i] << 32) | docIds[candidates[i]];
+            if (size < heap.length) {
+                heap[size] = key;
+                siftUp(heap, size++);
+            } else if (key > heap[0]) {
+                heap[0] = key;
+                siftDown(heap, size);
+            }
+        }
+        Arrays.sort(heap, 0, size);
+        List<Integer> ranked = new ArrayList<>(size);
+        for (int i = size - 1; i >= 0; i--) {
+            ranked.add((int) heap[i]);
+        }
+        return ranked;
+    }
+
+    private static void siftUp(long[] heap, int index) {
+        long key = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= key) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = key;
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        long key = heap[0];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (key <= heap[child]) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = key;
+    }
+
+    private int allocateOrdinal() {
+        Integer free = freeOrdinals.poll();
+        if (free != null) {
+            return free;
+        }
+        if (ordinalCount == docIds.length) {
+            int capacity = docIds.length * 2;
+            docIds = Arrays.copyOf(docIds, capacity);
+            docTerms = Arrays.copyOf(docTerms, capacity);
+            docFields = Arrays.copyOf(docFields, capacity);
+        }
+        return ordinalCount++;
+    }
+
+    private void removeLocked(int docId) {
+        Integer ordinal = ordinals.remove(docId);
+        if (ordinal == null) {
+            return;
+        }
+        for (String term : docTerms[ordinal]) {
+            Posting posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(ordinal);
+                if (posting.size == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+        docTerms[ordinal] = null;
+        docFields[ordinal] = null;
+        freeOrdinals.push(ordinal);
+    }
+
+    // Danh sách (số thứ tự tài liệu, trường chứa từ) của một từ, không theo thứ tự
+    private static final class Posting {
+        private int[] ordinals = new int[4];
+        private int[] fields = new int[4];
+        private int size;
+
+        private void add(int ordinal, int fieldMask) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                fields = Arrays.copyOf(fields, size * 2);
+            }
+            ordinals[size] = ordinal;
+            fields[size++] = fieldMask;
+        }
+
+        private void remove(int ordinal) {
+            for (int i = 0; i < size; i++) {
+                if (ordinals[i] == ordinal) {
+                    size--;
+                    ordinals[i] = ordinals[size];
+                    fields[i] = fields[size];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.event_ticket_system.Util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor phân trang keyset: cột sắp xếp, chiều sắp xếp, giá trị của cột đó và id của dòng cuối trang trước.
+ * Gửi cho client dưới dạng chuỗi mờ (Base64 URL của "v1|cột|chiều|id|giá trị"); giá trị đứng cuối nên được chứa '|'.
+ */
+public record KeysetCursor(String sortField, boolean descending, String value, int id) {
+    private static final String VERSION = "v1";
+
+    public String encode() {
+        String raw = String.join("|", VERSION, sortField, descending ? "desc" : "asc", String.valueOf(id), value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 5);
+            if (parts.length != 5 || !VERSION.equals(parts[0]) || !("desc".equals(parts[2]) || "asc".equals(parts[2]))) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new KeysetCursor(parts[1], "desc".equals(parts[2]), parts[4], Integer.parseInt(parts[3]));
+        } catch (IllegalArgumentException e) {
+            // Gồm cả lỗi Base64 và NumberFormatException
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.event_ticket_system.Util;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Sinh orderCode cho PayOS theo kiểu snowflake, luôn nằm trong 2^53 - 1 (giới hạn số của PayOS):
+ * 41 bit mili giây tính từ 2025-01-01 | 4 bit node | 8 bit thứ tự trong cùng mili giây.
+ * Không khoá: trạng thái (mili giây, thứ tự) nằm trong một AtomicLong và chỉ tăng, nên đồng hồ
+ * chạy lùi hoặc hết 256 mã trong một mili giây chỉ làm mượn trước mili giây kế tiếp, không bao giờ trùng.
+ */
+public class PayosOrderCodeGenerator {
+    public static final long EPOCH_MILLIS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    public static final int NODE_BITS = 4;
+    public static final int SEQUENCE_BITS = 8;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    public static final long MAX_CODE = (1L << 53) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+    // (mili giây kể từ EPOCH << SEQUENCE_BITS) | thứ tự của mã được cấp gần nhất
+    private final AtomicLong state;
+
+    public PayosOrderCodeGenerator(int nodeId, long lastIssuedCode) {
+        this(nodeId, lastIssuedCode, System::currentTimeMillis);
+    }
+
+    public PayosOrderCodeGenerator(int nodeId, long lastIssuedCode, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("PayOS order code node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+        // Sau khi khởi động lại chỉ cấp mã từ mili giây sau mã lớn nhất đã lưu, kể cả khi đồng hồ bị lùi
+        long lastTimestamp = Math.max(0, lastIssuedCode) >>> TIMESTAMP_SHIFT;
+        this.state = new AtomicLong(((lastTimestamp + 1) << SEQUENCE_BITS) - 1);
+    }
+
+    public long nextCode() {
+        while (true) {
+            long current = state.get();
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+            long next = Math.max(current + 1, now << SEQUENCE_BITS);
+            if (state.compareAndSet(current, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long code = (timestamp << TIMESTAMP_SHIFT) | nodeBits | (next & SEQUENCE_MASK);
+                if (code > MAX_CODE) {
+                    throw new IllegalStateException("PayOS order code space exhausted");
+                }
+                return code;
+            }
+        }
+    }
+
+    public static long timestampMillis(long code) {
+        return (code >>> TIMESTAMP_SHIFT) + EPOCH_MILLIS;
+    }
+
+    public static int nodeId(long code) {
+        return (int) ((code >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.event_ticket_system.Util;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Ghi BitMatrix của zxing thẳng thành PNG xám 1-bit (điểm đen = bit 0), không qua BufferedImage/ImageIO.
+ * Bộ đệm dòng quét, Deflater và CRC32 được dùng lại theo từng luồng; mỗi lần encode chỉ cấp phát mảng kết quả.
+ */
+public final class PngBitMatrixEncoder {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] IHDR = {'I', 'H', 'D', 'R'};
+    private static final byte[] IDAT = {'I', 'D', 'A', 'T'};
+    private static final byte[] IEND = {'I', 'E', 'N', 'D'};
+    private static final int IHDR_LENGTH = 13;
+    // length + type + crc của mỗi chunk
+    private static final int CHUNK_OVERHEAD = 12;
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private PngBitMatrixEncoder() {
+    }
+
+    public static byte[] encode(BitMatrix matrix) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        int stride = (width + 7) >>> 3;
+        int rawLength = height * (stride + 1);
+
+        Buffers buffers = BUFFERS.get();
+        byte[] raw = buffers.raw(rawLength);
+        int offset = 0;
+        for (int y = 0; y < height; y++) {
+            // Filter type 0 (None): dữ liệu 1-bit của QR nén tốt mà không cần lọc
+            raw[offset++] = 0;
+            for (int byteIndex = 0; byteIndex < stride; byteIndex++) {
+                int packed = 0;
+                int x = byteIndex << 3;
+                for (int bit = 0; bit < 8; bit++, x++) {
+                    // Điểm trắng = 1; phần đệm cuối dòng để trắng
+                    if (x >= width || !matrix.get(x, y)) {
+                        packed |= 0x80 >>> bit;
+                    }
+                }
+                raw[offset++] = (byte) packed;
+            }
+        }
+
+        Deflater deflater = buffers.deflater;
+        deflater.reset();
+        deflater.setInput(raw, 0, rawLength);
+        deflater.finish();
+        byte[] compressed = buffers.compressed(rawLength);
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == compressed.length) {
+                compressed = buffers.growCompressed();
+            }
+            compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+
+        byte[] png = new byte[SIGNATURE.length
+                + CHUNK_OVERHEAD + IHDR_LENGTH
+                + CHUNK_OVERHEAD + compressedLength
+                + CHUNK_OVERHEAD];
+        System.arraycopy(SIGNATURE, 0, png, 0, SIGNATURE.length);
+        int position = SIGNATURE.length;
+
+        byte[] header = buffers.header;
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = 1;  // bit depth
+        header[9] = 0;  // color type: grayscale
+        header[10] = 0; // compression: deflate
+        header[11] = 0; // filter method
+        header[12] = 0; // không interlace
+        position = writeChunk(png, position, IHDR, header, IHDR_LENGTH, buffers.crc);
+        position = writeChunk(png, position, IDAT, compressed, compressedLength, buffers.crc);
+        writeChunk(png, position, IEND, header, 0, buffers.crc);
+        return png;
+    }
+
+    private static int writeChunk(byte[] png, int position, byte[] type, byte[] data, int length, CRC32 crc) {
+        writeInt(png, position, length);
+        position += 4;
+        System.arraycopy(type, 0, png, position, 4);
+        System.arraycopy(data, 0, png, position + 4, length);
+        crc.reset();
+        crc.update(png, position, 4 + length);
+        position += 4 + length;
+        writeInt(png, position, (int) crc.getValue());
+        return position + 4;
+    }
+
+    private static void writeInt(byte[] target, int position, int value) {
+        target[position] = (byte) (value >>> 24);
+        target[position + 1] = (byte) (value >>> 16);
+        target[position + 2] = (byte) (value >>> 8);
+        target[position + 3] = (byte) value;
+    }
+
+    private static final class Buffers {
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        private final CRC32 crc = new CRC32();
+        private final byte[] header = new byte[IHDR_LENGTH];
+        private byte[] raw = new byte[0];
+        private byte[] compressed = new byte[0];
+
+        private byte[] raw(int length) {
+            if (raw.length < length) {
+                raw = new byte[length];
+            }
+            return raw;
+        }
+
+        private byte[] compressed(int rawLength) {
+            // Dữ liệu không nén được thì deflate chỉ phình thêm vài byte mỗi khối
+            int bound = rawLength + (rawLength >>> 10) + 64;
+            if (compressed.length < bound) {
+                compressed = new byte[bound];
+            }
+            return compressed;
+        }
+
+        private byte[] growCompressed() {
+            byte[] grown = new byte[compressed.length * 2];
+            System.arraycopy(compressed, 0, grown, 0, compressed.length);
+            compressed = grown;
+            return compressed;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.event_ticket_system.Util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Giới hạn tốc độ gọi API bên ngoài: các lượt gọi được giãn đều, cách nhau 1/permitsPerSecond giây
+ * (không cho dồn cục sau một lúc rảnh). Dùng chung được giữa nhiều luồng.
+ */
+public class SmoothRateLimiter {
+    private final long intervalNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong nextFreeNanos;
+
+    public SmoothRateLimiter(double permitsPerSecond) {
+        this(permitsPerSecond, System::nanoTime);
+    }
+
+    public SmoothRateLimiter(double permitsPerSecond, LongSupplier nanoClock) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.nanoClock = nanoClock;
+        this.nextFreeNanos = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * Giữ chỗ cho một lượt gọi; trả về số nano giây phải chờ trước khi gọi (0 nếu gọi được ngay).
+     */
+    public long reserve() {
+        long now = nanoClock.getAsLong();
+        long slot = nextFreeNanos.getAndAccumulate(now, (next, current) -> Math.max(next, current) + intervalNanos);
+        return Math.max(0, slot - now);
+    }
+
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.event_ticket_system.Util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Bộ đếm số vé còn lại được chia thành nhiều stripe, mỗi stripe cập nhật bằng CAS.
+ * Các luồng khác nhau ưu tiên stripe "nhà" của mình nên hiếm khi tranh chấp cùng một ô nhớ.
+ */
+public class StripedStockCounter {
+    // Mỗi stripe cách nhau 16 int (64 byte) để tránh false sharing giữa các core
+    private static final int PADDING = 16;
+
+    private final AtomicIntegerArray cells;
+    // Phần thiếu hụt khi quantityTotal bị giảm xuống dưới số vé đã bán; stripe luôn >= 0
+    private final AtomicInteger deficit = new AtomicInteger();
+    private final int stripes;
+    private final int mask;
+
+    public StripedStockCounter(int stripes, int initialAvailable) {
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a positive power of two");
+        }
+        this.stripes = stripes;
+        this.mask = stripes - 1;
+        this.cells = new AtomicIntegerArray(stripes * PADDING);
+        add(initialAvailable);
+    }
+
+    /**
+     * Lấy {@code quantity} vé nếu còn đủ. Không bao giờ lấy quá số vé đang có trong các stripe.
+     */
+    public boolean tryTake(int quantity) {
+        if (quantity <= 0) {
+            return true;
+        }
+        int home = homeStripe();
+        // Đường nhanh: một stripe đủ vé
+        for (int i = 0; i < stripes; i++) {
+            int index = ((home + i) & mask) * PADDING;
+            int current = cells.get(index);
+            while (current >= quantity) {
+                if (cells.compareAndSet(index, current, current - quantity)) {
+                    return true;
+                }
+                current = cells.get(index);
+            }
+        }
+        // Đường chậm: gom dần từ nhiều stripe, trả lại nếu gom không đủ
+        int taken = takeUpTo(quantity, home);
+        if (taken < quantity) {
+            add(taken);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Cộng (hoặc trừ khi âm) số vé còn lại. Dùng khi trả vé hoặc khi quantityTotal thay đổi.
+     */
+    public void add(int quantity) {
+        if (quantity > 0) {
+            int remaining = quantity;
+            // Bù phần thiếu hụt trước khi trả vé vào stripe
+            int currentDeficit = deficit.get();
+            while (currentDeficit > 0) {
+                int repaid = Math.min(currentDeficit, remaining);
+                if (deficit.compareAndSet(currentDeficit, currentDeficit - repaid)) {
+                    remaining -= repaid;
+                    break;
+                }
+                currentDeficit = deficit.get();
+            }
+            if (remaining > 0) {
+                cells.addAndGet(homeStripe() * PADDING, remaining);
+            }
+        } else if (quantity < 0) {
+            int taken = takeUpTo(-quantity, homeStripe());
+            if (taken < -quantity) {
+                deficit.addAndGet(-quantity - taken);
+            }
+        }
+    }
+
+    /**
+     * Tổng số vé còn lại. Chỉ là ảnh chụp gần đúng khi đang có cập nhật song song.
+     */
+    public int available() {
+        int sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum - deficit.get();
+    }
+
+    private int takeUpTo(int quantity, int home) {
+        int taken = 0;
+        for (int i = 0; i < stripes && taken < quantity; i++) {
+            int index = ((home + i) & mask) * PADDING;
+            int current = cells.get(index);
+            while (current > 0 && taken < quantity) {
+                int part = Math.min(current, quantity - taken);
+                if (cells.compareAndSet(index, current, current - part)) {
+                    taken += part;
+                    break;
+                }
+                current = cells.get(index);
+            }
+        }
+        return taken;
+    }
+
+    private int homeStripe() {
+        return (int) (Thread.currentThread().threadId() & mask);
+    }
+}
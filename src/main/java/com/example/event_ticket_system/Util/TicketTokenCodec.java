@@ -0,0 +1,133 @@
+package com.example.event_ticket_system.Util;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+
+/**
+ * Token vé nhị phân có chữ ký, để máy soát vé kiểm tra offline chỉ với khoá:
+ * [phiên bản][varint orderTicketId][varint ticketId][varint eventId][varint quantity][8 byte đầu của HMAC-SHA256],
+ * mã hoá Base45 (khoảng 26 ký tự, vừa QR version 2 ở chế độ alphanumeric).
+ * Kiểm tra token không cấp phát bộ đệm: Mac và bộ đệm được dùng lại theo từng luồng.
+ */
+public class TicketTokenCodec {
+    public static final int VERSION = 1;
+    public static final int MAC_LENGTH = 8;
+    private static final String ALGORITHM = "HmacSHA256";
+    // 1 byte phiên bản + 4 varint (tối đa 5 byte) + MAC
+    private static final int MAX_TOKEN_BYTES = 1 + 4 * 5 + MAC_LENGTH;
+
+    public record TicketToken(int orderTicketId, int ticketId, int eventId, int quantity) {
+    }
+
+    private static final class Buffers {
+        private final Mac mac;
+        private final byte[] token = new byte[MAX_TOKEN_BYTES];
+        private final byte[] digest = new byte[32];
+
+        private Buffers(SecretKeySpec key) {
+            try {
+                mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Could not initialise ticket token MAC", e);
+            }
+        }
+    }
+
+    private final ThreadLocal<Buffers> buffers;
+
+    public TicketTokenCodec(byte[] key) {
+        if (key == null || key.length < 32) {
+            throw new IllegalArgumentException("Ticket token key must be at least 32 bytes");
+        }
+        SecretKeySpec keySpec = new SecretKeySpec(key.clone(), ALGORITHM);
+        this.buffers = ThreadLocal.withInitial(() -> new Buffers(keySpec));
+    }
+
+    public String issue(int orderTicketId, int ticketId, int eventId, int quantity) {
+        Buffers local = buffers.get();
+        byte[] token = local.token;
+        int length = 0;
+        token[length++] = VERSION;
+        length = writeVarint(token, length, orderTicketId);
+        length = writeVarint(token, length, ticketId);
+        length = writeVarint(token, length, eventId);
+        length = writeVarint(token, length, quantity);
+        sign(local, token, length);
+        System.arraycopy(local.digest, 0, token, length, MAC_LENGTH);
+        return Base45.encode(token, length + MAC_LENGTH);
+    }
+
+    /**
+     * Nội dung token nếu chữ ký hợp lệ, null nếu token hỏng, sai phiên bản hoặc bị sửa.
+     */
+    public TicketToken verify(CharSequence text) {
+        Buffers local = buffers.get();
+        byte[] token = local.token;
+        int length = Base45.decode(text, token);
+        if (length < 1 + 4 + MAC_LENGTH || token[0] != VERSION) {
+            return null;
+        }
+        int bodyLength = length - MAC_LENGTH;
+        sign(local, token, bodyLength);
+        int diff = 0;
+        for (int i = 0; i < MAC_LENGTH; i++) {
+            diff |= token[bodyLength + i] ^ local.digest[i];
+        }
+        if (diff != 0) {
+            return null;
+        }
+        // Vị trí đọc và giá trị được gói trong một long: 32 bit cao là vị trí, 32 bit thấp là giá trị
+        long orderTicketId = readVarint(token, 1, bodyLength);
+        long ticketId = readVarint(token, position(orderTicketId), bodyLength);
+        long eventId = readVarint(token, position(ticketId), bodyLength);
+        long quantity = readVarint(token, position(eventId), bodyLength);
+        if (quantity < 0 || position(quantity) != bodyLength) {
+            return null;
+        }
+        return new TicketToken((int) orderTicketId, (int) ticketId, (int) eventId, (int) quantity);
+    }
+
+    private static void sign(Buffers local, byte[] token, int length) {
+        local.mac.update(token, 0, length);
+        try {
+            local.mac.doFinal(local.digest, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int writeVarint(byte[] target, int position, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Ticket token fields must not be negative");
+        }
+        while ((value & ~0x7F) != 0) {
+            target[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        target[position++] = (byte) value;
+        return position;
+    }
+
+    // Trả về -1 nếu varint hỏng; các lần đọc sau nhận vị trí âm nên cũng trả về -1
+    private static long readVarint(byte[] source, int position, int limit) {
+        if (position < 0) {
+            return -1;
+        }
+        int value = 0;
+        for (int shift = 0; shift < 35 && position < limit; shift += 7) {
+            byte b = source[position++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value < 0 ? -1 : ((long) position << 32) | value;
+            }
+        }
+        return -1;
+    }
+
+    private static int position(long packed) {
+        return packed < 0 ? -1 : (int) (packed >>> 32);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.event_ticket_system.Util;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cache trong bộ nhớ có giới hạn số phần tử, mỗi phần tử có hạn sống riêng.
+ * Khi đầy thì dọn các phần tử hết hạn trước, nếu vẫn đầy thì bỏ bớt phần tử bất kỳ;
+ * đủ cho dữ liệu đọc nhiều, ghi ít như metadata mã giảm giá.
+ */
+public class TtlCache<K, V> {
+    private record Entry<V>(V value, long expiresAtNanos) {
+    }
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final LongSupplier nanoClock;
+
+    public TtlCache(int maxSize) {
+        this(maxSize, System::nanoTime);
+    }
+
+    public TtlCache(int maxSize, LongSupplier nanoClock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache max size must be positive");
+        }
+        this.maxSize = maxSize;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Trả về null nếu không có hoặc đã hết hạn.
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtNanos() - nanoClock.getAsLong() <= 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    public void put(K key, V value, Duration ttl) {
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            evict();
+        }
+        entries.put(key, new Entry<>(value, nanoClock.getAsLong() + ttl.toNanos()));
+    }
+
+    /**
+     * Chỉ lưu khi chưa có giá trị còn hạn; trả về giá trị đang có, hoặc null nếu value vừa được lưu.
+     */
+    public V putIfAbsent(K key, V value, Duration ttl) {
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            evict();
+        }
+        Entry<V> created = new Entry<>(value, nanoClock.getAsLong() + ttl.toNanos());
+        Entry<V> result = entries.compute(key, (k, existing) ->
+                existing == null || existing.expiresAtNanos() - nanoClock.getAsLong() <= 0 ? created : existing);
+        return result == created ? null : result.value();
+    }
+
+    /**
+     * Thay giá trị còn hạn bằng kết quả của updater, giữ nguyên thời điểm hết hạn.
+     */
+    public void update(K key, UnaryOperator<V> updater) {
+        entries.computeIfPresent(key, (k, entry) -> new Entry<>(updater.apply(entry.value()), entry.expiresAtNanos()));
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Chỉ xoá nếu key vẫn đang giữ đúng value này.
+     */
+    public void invalidate(K key, V value) {
+        entries.computeIfPresent(key, (k, entry) -> entry.value() == value ? null : entry);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        long now = nanoClock.getAsLong();
+        entries.entrySet().removeIf(e -> e.getValue().expiresAtNanos() - now <= 0);
+        // Vẫn đầy thì bỏ khoảng 1/10 số phần tử để không phải dọn lại ở mỗi lần put
+        int toRemove = entries.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (toRemove-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
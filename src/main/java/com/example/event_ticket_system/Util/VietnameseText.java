@@ -0,0 +1,79 @@
+package com.example.event_ticket_system.Util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chuẩn hoá văn bản tiếng Việt cho tìm kiếm: bỏ dấu thanh và dấu phụ ("Hà Nội" -> "ha noi", "Đà Lạt" -> "da lat"),
+ * chữ thường, tách từ theo ký tự không phải chữ/số. Dùng bảng tra dựng sẵn nên không gọi Normalizer khi tìm.
+ */
+public final class VietnameseText {
+    // Ký tự < TABLE_SIZE được tra bảng: 0 = bỏ (dấu rời), ' ' = ngăn cách từ, còn lại là ký tự đã chuẩn hoá
+    private static final int TABLE_SIZE = 0x2000;
+    private static final char[] FOLD = new char[TABLE_SIZE];
+
+    static {
+        for (int c = 0; c < TABLE_SIZE; c++) {
+            FOLD[c] = foldSlow((char) c);
+        }
+    }
+
+    private VietnameseText() {
+    }
+
+    private static char foldSlow(char c) {
+        if (c == 'đ' || c == 'Đ') {
+            return 'd';
+        }
+        if (Character.getType(c) == Character.NON_SPACING_MARK) {
+            return 0;
+        }
+        String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+        char base = decomposed.charAt(0);
+        if (!Character.isLetterOrDigit(base)) {
+            return ' ';
+        }
+        return Character.toLowerCase(base);
+    }
+
+    private static char fold(char c) {
+        if (c < TABLE_SIZE) {
+            return FOLD[c];
+        }
+        return Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : ' ';
+    }
+
+    /**
+     * Chuỗi đã bỏ dấu, chữ thường, các từ cách nhau đúng một khoảng trắng.
+     */
+    public static String fold(String text) {
+        return String.join(" ", tokenize(text));
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char folded = fold(text.charAt(i));
+            if (folded == 0) {
+                continue;
+            }
+            if (folded == ' ') {
+                if (!current.isEmpty()) {
+                    tokens.add(current.toString());
+                    current.setLength(0);
+                }
+            } else {
+                current.append(folded);
+            }
+        }
+        if (!current.isEmpty()) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+}
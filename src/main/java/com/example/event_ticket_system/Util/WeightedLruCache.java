@@ -0,0 +1,76 @@
+package com.example.event_ticket_system.Util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Cache LRU giới hạn theo tổng trọng lượng (ví dụ số byte) thay vì số phần tử.
+ * Khi vượt giới hạn thì bỏ dần các phần tử lâu nhất không được dùng.
+ */
+public class WeightedLruCache<K, V> {
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxWeight;
+    private final ToIntFunction<V> weigher;
+    private long weight;
+
+    public WeightedLruCache(long maxWeight, ToIntFunction<V> weigher) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight must be positive");
+        }
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    public synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Lấy giá trị trong cache hoặc tạo mới; loader chạy ngoài khoá nên hai luồng có thể cùng tạo một key.
+     */
+    public V computeIfAbsent(K key, Function<K, V> loader) {
+        V cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        V value = loader.apply(key);
+        put(key, value);
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        int valueWeight = weigher.applyAsInt(value);
+        // Phần tử lớn hơn cả giới hạn thì không cache
+        if (valueWeight > maxWeight) {
+            return;
+        }
+        V previous = entries.put(key, value);
+        if (previous != null) {
+            weight -= weigher.applyAsInt(previous);
+        }
+        weight += valueWeight;
+        Iterator<Map.Entry<K, V>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            weight -= weigher.applyAsInt(eldest.next().getValue());
+            eldest.remove();
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        V removed = entries.remove(key);
+        if (removed != null) {
+            weight -= weigher.applyAsInt(removed);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+}
@@ -1,7 +1,7 @@
 package com.example.event_ticket_system.discount.controller;
 
 import com.example.event_ticket_system.Controller.DiscountController;
-import com.example.event_ticket_system.Entity.Discount;
+import com.example.event_ticket_system.DTO.response.DiscountResponseDto;
 import com.example.event_ticket_system.Enums.DiscountType;
 import com.example.event_ticket_system.Service.DiscountService;
 import jakarta.persistence.EntityNotFoundException;
@@ -41,7 +41,7 @@ public class DiscountControllerTest {
     void getDiscountByCode_ShouldReturnDiscount_WhenCodeExists() throws Exception {
         String code = "DISCOUNT10";
 
-        Discount discount = new Discount(
+        DiscountResponseDto discount = new DiscountResponseDto(
                 1,
                 code,
                 "Giảm 10%",
@@ -49,7 +49,7 @@ public class DiscountControllerTest {
                 10.0,
                 LocalDate.now(),
                 LocalDate.now().plusDays(10),
-                null, // event = null cho đơn giản, nếu cần có thể mock Event
+                3,
                 100
         );
 
@@ -1,6 +1,8 @@
 package com.example.event_ticket_system.discount.service;
 
+import com.example.event_ticket_system.DTO.response.DiscountResponseDto;
 import com.example.event_ticket_system.Entity.Discount;
+import com.example.event_ticket_system.Entity.Event;
 import com.example.event_ticket_system.Enums.DiscountType;
 import com.example.event_ticket_system.Repository.DiscountRepository;
 import com.example.event_ticket_system.Service.Impl.DiscountServiceImpl;
@@ -13,11 +15,12 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class DiscountServiceImplTest {
@@ -43,6 +46,9 @@ class DiscountServiceImplTest {
                 null,
                 100
         );
+        Event event = new Event();
+        event.setEventId(3);
+        discount.setEvent(event);
     }
 
     @Test
@@ -52,12 +58,13 @@ class DiscountServiceImplTest {
                 .thenReturn(Optional.of(discount));
 
         // Act
-        Discount result = discountService.getDiscountByCode("DISCOUNT10");
+        DiscountResponseDto result = discountService.getDiscountByCode("DISCOUNT10");
 
         // Assert
         assertThat(result).isNotNull();
-        assertThat(result.getCode()).isEqualTo("DISCOUNT10");
-        assertThat(result.getValue()).isEqualTo(10.0);
+        assertThat(result.code()).isEqualTo("DISCOUNT10");
+        assertThat(result.value()).isEqualTo(10.0);
+        assertThat(result.eventId()).isEqualTo(3);
     }
 
     @Test
@@ -71,4 +78,91 @@ class DiscountServiceImplTest {
                 .isInstanceOf(EntityNotFoundException.class)
                 .hasMessageContaining("Discount not found with code: INVALID");
     }
+
+    @Test
+    void getDiscountByCode_ShouldServeFromCache_OnRepeatedLookups() {
+        when(discountRepository.findByCode("DISCOUNT10")).thenReturn(Optional.of(discount));
+
+        discountService.getDiscountByCode("DISCOUNT10");
+        DiscountResponseDto result = discountService.getDiscountByCode("DISCOUNT10");
+
+        assertThat(result.code()).isEqualTo("DISCOUNT10");
+        verify(discountRepository, times(1)).findByCode("DISCOUNT10");
+    }
+
+    @Test
+    void redeem_ShouldRejectUnknownCodeFromNegativeCache_WithoutQueryingAgain() {
+        when(discountRepository.findByCode("INVALID")).thenReturn(Optional.empty());
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> discountService.redeem("INVALID", 3))
+                    .isInstanceOf(EntityNotFoundException.class);
+        }
+        verify(discountRepository, times(1)).findByCode("INVALID");
+        verify(discountRepository, never()).redeem(any());
+    }
+
+    @Test
+    void redeem_ShouldDecrementAtomically_WhenUsageAvailable() {
+        when(discountRepository.findByCode("DISCOUNT10")).thenReturn(Optional.of(discount));
+        when(discountRepository.redeem(1)).thenReturn(1);
+
+        DiscountResponseDto result = discountService.redeem("DISCOUNT10", 3);
+
+        assertThat(result.value()).isEqualTo(10.0);
+        verify(discountRepository).redeem(1);
+        verify(discountRepository, never()).save(any());
+        // Cache phản ánh lượt vừa dùng mà không phải đọc lại DB
+        assertThat(discountService.getDiscountByCode("DISCOUNT10").maxUsage()).isEqualTo(99);
+        verify(discountRepository, times(1)).findByCode("DISCOUNT10");
+    }
+
+    @Test
+    void redeem_ShouldThrow_WhenConditionalDecrementMatchesNoRow() {
+        when(discountRepository.findByCode("DISCOUNT10")).thenReturn(Optional.of(discount));
+        when(discountRepository.redeem(1)).thenReturn(0);
+
+        assertThatThrownBy(() -> discountService.redeem("DISCOUNT10", 3))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("maximum usage limit");
+        // Lần sau bị từ chối ngay từ cache
+        assertThatThrownBy(() -> discountService.redeem("DISCOUNT10", 3))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(discountRepository, times(1)).redeem(1);
+    }
+
+    @Test
+    void redeem_ShouldThrow_WhenCodeBelongsToAnotherEvent() {
+        when(discountRepository.findByCode("DISCOUNT10")).thenReturn(Optional.of(discount));
+
+        assertThatThrownBy(() -> discountService.redeem("DISCOUNT10", 4))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("does not apply to this event");
+        verify(discountRepository, never()).redeem(any());
+    }
+
+    @Test
+    void getDiscountByCode_ShouldNotReflectLaterChangesToLoadedEntity() {
+        when(discountRepository.findByCode("DISCOUNT10")).thenReturn(Optional.of(discount));
+
+        discountService.getDiscountByCode("DISCOUNT10");
+        discount.setValue(50.0);
+        discount.getEvent().setEventId(4);
+
+        DiscountResponseDto cached = discountService.getDiscountByCode("DISCOUNT10");
+        assertThat(cached.value()).isEqualTo(10.0);
+        assertThat(cached.eventId()).isEqualTo(3);
+    }
+
+    @Test
+    void evict_ShouldReloadCode_AfterEventUpdate() {
+        when(discountRepository.findByCode("DISCOUNT10")).thenReturn(Optional.empty(), Optional.of(discount));
+
+        assertThatThrownBy(() -> discountService.getDiscountByCode("DISCOUNT10"))
+                .isInstanceOf(EntityNotFoundException.class);
+        discountService.evict(List.of("DISCOUNT10"));
+
+        assertThat(discountService.getDiscountByCode("DISCOUNT10").code()).isEqualTo("DISCOUNT10");
+        verify(discountRepository, times(2)).findByCode("DISCOUNT10");
+    }
 }
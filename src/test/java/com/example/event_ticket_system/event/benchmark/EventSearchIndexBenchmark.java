@@ -0,0 +1,72 @@
+package com.example.event_ticket_system.event.benchmark;
+
+import com.example.event_ticket_system.Util.InvertedIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo độ trễ tìm kiếm trên chỉ mục 100k sự kiện (cùng trọng số trường với EventSearchIndex): từ hiếm, địa chỉ phổ biến
+ * khớp rất nhiều sự kiện, và tiền tố ngắn. Chạy bằng main() (không thuộc bộ test của surefire).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventSearchIndexBenchmark {
+    private static final String[] NAME_WORDS = {
+            "Đêm", "nhạc", "Hội", "chợ", "Lễ", "hội", "Triển", "lãm", "Hoà", "tấu", "Giao", "lưu", "Sách", "Ẩm", "thực",
+            "Mùa", "thu", "Xuân", "Hè", "Đông", "Jazz", "Rock", "Bolero", "Cải", "lương", "Kịch", "Hài", "Thời", "trang"};
+    private static final String[][] PROVINCES = {
+            {"Hồ Chí Minh", "Quận 1", "Bến Nghé"}, {"Hà Nội", "Hoàn Kiếm", "Tràng Tiền"},
+            {"Lâm Đồng", "Đà Lạt", "Phường 10"}, {"Đà Nẵng", "Hải Châu", "Thạch Thang"},
+            {"Khánh Hoà", "Nha Trang", "Lộc Thọ"}, {"Thừa Thiên Huế", "Huế", "Phú Hội"}};
+
+    @Param({"100000"})
+    private int events;
+
+    private InvertedIndex index;
+
+    @Setup
+    public void setUp() {
+        index = new InvertedIndex(8, 4, 2, 2, 2, 2);
+        Random random = new Random(42);
+        for (int id = 1; id <= events; id++) {
+            String[] place = PROVINCES[random.nextInt(PROVINCES.length)];
+            String name = NAME_WORDS[random.nextInt(NAME_WORDS.length)] + " " + NAME_WORDS[random.nextInt(NAME_WORDS.length)]
+                    + " " + NAME_WORDS[random.nextInt(NAME_WORDS.length)] + " " + id;
+            index.put(id, name, "Sân khấu " + random.nextInt(500), random.nextInt(300) + " đường số " + random.nextInt(50),
+                    place[2], place[1], place[0]);
+        }
+    }
+
+    @Benchmark
+    public List<Integer> rareName() {
+        return index.search("dem nhac 77777", 1, 1000);
+    }
+
+    @Benchmark
+    public List<Integer> commonAddress() {
+        return index.search("ha noi", 62, 1000);
+    }
+
+    @Benchmark
+    public List<Integer> shortPrefix() {
+        return index.search("h", 63, 1000);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(EventSearchIndexBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
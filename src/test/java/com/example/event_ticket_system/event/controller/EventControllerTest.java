@@ -228,11 +228,11 @@ public class EventControllerTest {
         Map<String, Object> mockResponse = new HashMap<>();
         mockResponse.put("events", Arrays.asList("Event 1", "Event 2"));
 
-        when(eventService.getEventsByOrganizer(any(), any(), any(), any(), any(), any(), anyInt(), anyInt()))
+        when(eventService.getEventsByOrganizer(any(), any(), any(), any(), any(), any(), anyInt(), anyInt(), any()))
                 .thenReturn(mockResponse);
 
         ResponseEntity<Object> response = eventController.getEventsByOrganizer(
-                request, "test", "APPROVED", null, null, null,1, 10);
+                request, "test", "APPROVED", null, null, null,1, 10, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         Map<String, Object> body = (Map<String, Object>) response.getBody();
@@ -244,24 +244,24 @@ public class EventControllerTest {
 
     @Test
     void getEventsByOrganizer_ShouldResetPageSize_WhenPageAndSizeAreInvalid() {
-        when(eventService.getEventsByOrganizer(any(), any(), any(), any(), any(), any(), eq(0), eq(0)))
+        when(eventService.getEventsByOrganizer(any(), any(), any(), any(), any(), any(), eq(0), eq(0), any()))
                 .thenReturn(new HashMap<>());
 
         ResponseEntity<Object> response = eventController.getEventsByOrganizer(
-                request, null, null, null, null, null,0, 0);
+                request, null, null, null, null, null,0, 0, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         verify(eventService).getEventsByOrganizer(
-                any(), any(), any(), any(), any(), any(), eq(1), eq(1));
+                any(), any(), any(), any(), any(), any(), eq(1), eq(1), any());
     }
 
     @Test
     void getEventsByOrganizer_ShouldReturnForbidden_WhenSecurityExceptionThrown() {
-        when(eventService.getEventsByOrganizer(any(), any(), any(), any(), any(), any(), anyInt(), anyInt()))
+        when(eventService.getEventsByOrganizer(any(), any(), any(), any(), any(), any(), anyInt(), anyInt(), any()))
                 .thenThrow(new SecurityException("Access denied"));
 
         ResponseEntity<Object> response = eventController.getEventsByOrganizer(
-                request, null, null, null, null, null, 1, 10);
+                request, null, null, null, null, null, 1, 10, null);
 
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
         Map<String, Object> body = (Map<String, Object>) response.getBody();
@@ -270,11 +270,11 @@ public class EventControllerTest {
 
     @Test
     void getEventsByOrganizer_ShouldReturnNotFound_WhenEntityNotFoundExceptionThrown() {
-        when(eventService.getEventsByOrganizer(any(), any(), any(), any(), any(), any(), anyInt(), anyInt()))
+        when(eventService.getEventsByOrganizer(any(), any(), any(), any(), any(), any(), anyInt(), anyInt(), any()))
                 .thenThrow(new EntityNotFoundException("Organizer not found"));
 
         ResponseEntity<Object> response = eventController.getEventsByOrganizer(
-                request, null, null, null, null, null, 1, 10);
+                request, null, null, null, null, null, 1, 10, null);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         Map<String, Object> body = (Map<String, Object>) response.getBody();
@@ -283,11 +283,11 @@ public class EventControllerTest {
 
     @Test
     void getEventsByOrganizer_ShouldReturnInternalServerError_WhenUnexpectedExceptionThrown() {
-        when(eventService.getEventsByOrganizer(any(), any(), any(), any(), any(), any(), anyInt(), anyInt()))
+        when(eventService.getEventsByOrganizer(any(), any(), any(), any(), any(), any(), anyInt(), anyInt(), any()))
                 .thenThrow(new RuntimeException("Unexpected error"));
 
         ResponseEntity<Object> response = eventController.getEventsByOrganizer(
-                request, null, null, null, null, null, 1, 10);
+                request, null, null, null, null, null, 1, 10, null);
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         Map<String, Object> body = (Map<String, Object>) response.getBody();
@@ -348,11 +348,11 @@ public class EventControllerTest {
         mockResponse.put("events", List.of("Event 1", "Event 2"));
 
         when(eventService.getRecommendEvents(eq("music"), eq("Hanoi"), any(), any(), eq("Concert"),
-                eq(1), eq(10), eq("date")))
+                eq(1), eq(10), eq("date"), any(), anyBoolean()))
                 .thenReturn(mockResponse);
 
         ResponseEntity<Object> response = eventController.getRecommendEvents(
-                "music", "Hanoi", null, null, "Concert", 1, 10, "date");
+                "music", "Hanoi", null, null, "Concert", 1, 10, "date", null, true);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         Map<String, Object> body = (Map<String, Object>) response.getBody();
@@ -362,17 +362,31 @@ public class EventControllerTest {
         assertEquals(mockResponse, body.get("data"));
     }
 
+    @Test
+    void getRecommendEvents_ShouldReturnBadRequest_WhenCursorIsInvalid() {
+        when(eventService.getRecommendEvents(any(), any(), any(), any(), any(), eq(1), eq(10), any(), eq("broken"), anyBoolean()))
+                .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        ResponseEntity<Object> response = eventController.getRecommendEvents(
+                null, null, null, null, null, 1, 10, null, "broken", true);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        Map<String, Object> body = (Map<String, Object>) response.getBody();
+        assertNotNull(body);
+        assertEquals("Invalid cursor", body.get("message"));
+    }
+
     @Test
     void getRecommendEvents_ShouldResetPageAndSize_WhenPageAndSizeAreInvalid() {
         Map<String, Object> mockResponse = new HashMap<>();
         mockResponse.put("events", List.of("Event A", "Event B"));
 
         when(eventService.getRecommendEvents(eq("art"), eq("HCM"), any(), any(), eq("Gallery"),
-                eq(1), eq(1), eq("popularity")))
+                eq(1), eq(1), eq("popularity"), any(), anyBoolean()))
                 .thenReturn(mockResponse);
 
         ResponseEntity<Object> response = eventController.getRecommendEvents(
-                "art", "HCM", null, null, "Gallery", 0, 0, "popularity");
+                "art", "HCM", null, null, "Gallery", 0, 0, "popularity", null, true);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         Map<String, Object> body = (Map<String, Object>) response.getBody();
@@ -385,11 +399,11 @@ public class EventControllerTest {
     @Test
     void getRecommendEvents_ShouldReturnInternalServerError_WhenExceptionThrown() {
         when(eventService.getRecommendEvents(any(), any(), any(), any(), any(),
-                anyInt(), anyInt(), any()))
+                anyInt(), anyInt(), any(), any(), anyBoolean()))
                 .thenThrow(new RuntimeException("Unexpected error"));
 
         ResponseEntity<Object> response = eventController.getRecommendEvents(
-                null, null, null, null, null, 1, 10, null);
+                null, null, null, null, null, 1, 10, null, null, true);
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         Map<String, Object> body = (Map<String, Object>) response.getBody();
@@ -403,11 +417,11 @@ public class EventControllerTest {
         mockResponse.put("events", List.of("Event 1", "Event 2"));
 
         when(eventService.getPendingEvents(eq(request), eq("Hanoi"), any(), any(), eq("Concert"),
-                eq(1), eq(10)))
+                eq(1), eq(10), any()))
                 .thenReturn(mockResponse);
 
         ResponseEntity<Object> response = eventController.getPendingEvents(
-                request, "Hanoi", null, null, "Concert", 1, 10);
+                request, "Hanoi", null, null, "Concert", 1, 10, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         Map<String, Object> body = (Map<String, Object>) response.getBody();
@@ -423,11 +437,11 @@ public class EventControllerTest {
         mockResponse.put("events", List.of("Event A", "Event B"));
 
         when(eventService.getPendingEvents(eq(request), eq("HCM"), any(), any(), eq("Gallery"),
-                eq(1), eq(1)))
+                eq(1), eq(1), any()))
                 .thenReturn(mockResponse);
 
         ResponseEntity<Object> response = eventController.getPendingEvents(
-                request, "HCM", null, null, "Gallery", 0, 0);
+                request, "HCM", null, null, "Gallery", 0, 0, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         Map<String, Object> body = (Map<String, Object>) response.getBody();
@@ -439,11 +453,11 @@ public class EventControllerTest {
 
     @Test
     void getPendingEvents_ShouldReturnForbidden_WhenSecurityExceptionThrown() {
-        when(eventService.getPendingEvents(any(), any(), any(), any(), any(), anyInt(), anyInt()))
+        when(eventService.getPendingEvents(any(), any(), any(), any(), any(), anyInt(), anyInt(), any()))
                 .thenThrow(new SecurityException("Access denied"));
 
         ResponseEntity<Object> response = eventController.getPendingEvents(
-                request, null, null, null, null, 1, 10);
+                request, null, null, null, null, 1, 10, null);
 
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
         Map<String, Object> body = (Map<String, Object>) response.getBody();
@@ -453,11 +467,11 @@ public class EventControllerTest {
 
     @Test
     void getPendingEvents_ShouldReturnNotFound_WhenEntityNotFoundExceptionThrown() {
-        when(eventService.getPendingEvents(any(), any(), any(), any(), any(), anyInt(), anyInt()))
+        when(eventService.getPendingEvents(any(), any(), any(), any(), any(), anyInt(), anyInt(), any()))
                 .thenThrow(new EntityNotFoundException("No pending events found"));
 
         ResponseEntity<Object> response = eventController.getPendingEvents(
-                request, null, null, null, null, 1, 10);
+                request, null, null, null, null, 1, 10, null);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         Map<String, Object> body = (Map<String, Object>) response.getBody();
@@ -467,11 +481,11 @@ public class EventControllerTest {
 
     @Test
     void getPendingEvents_ShouldReturnInternalServerError_WhenUnexpectedExceptionThrown() {
-        when(eventService.getPendingEvents(any(), any(), any(), any(), any(), anyInt(), anyInt()))
+        when(eventService.getPendingEvents(any(), any(), any(), any(), any(), anyInt(), anyInt(), any()))
                 .thenThrow(new RuntimeException("Unexpected error"));
 
         ResponseEntity<Object> response = eventController.getPendingEvents(
-                request, null, null, null, null, 1, 10);
+                request, null, null, null, null, 1, 10, null);
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         Map<String, Object> body = (Map<String, Object>) response.getBody();
@@ -485,12 +499,12 @@ public class EventControllerTest {
         mockResponse.put("events", List.of("Event 1", "Event 2"));
 
         when(eventService.getListEvents(eq(request), eq("ACTIVE"), eq("APPROVED"),
-                eq("Hanoi"), any(), any(), eq("Concert"), eq(1), eq(10)))
+                eq("Hanoi"), any(), any(), eq("Concert"), eq(1), eq(10), any()))
                 .thenReturn(mockResponse);
 
         ResponseEntity<Object> response = eventController.getListEvents(
                 request, "ACTIVE", "APPROVED", "Hanoi",
-                null, null, "Concert", 1, 10);
+                null, null, "Concert", 1, 10, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         Map<String, Object> body = (Map<String, Object>) response.getBody();
@@ -506,12 +520,12 @@ public class EventControllerTest {
         mockResponse.put("events", List.of("Event A", "Event B"));
 
         when(eventService.getListEvents(eq(request), eq(null), eq(null),
-                eq("HCM"), any(), any(), eq("Gallery"), eq(1), eq(1)))
+                eq("HCM"), any(), any(), eq("Gallery"), eq(1), eq(1), any()))
                 .thenReturn(mockResponse);
 
         ResponseEntity<Object> response = eventController.getListEvents(
                 request, null, null, "HCM",
-                null, null, "Gallery", 0, 0);
+                null, null, "Gallery", 0, 0, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         Map<String, Object> body = (Map<String, Object>) response.getBody();
@@ -522,11 +536,11 @@ public class EventControllerTest {
 
     @Test
     void getListEvents_ShouldReturnForbidden_WhenSecurityExceptionThrown() {
-        when(eventService.getListEvents(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyInt()))
+        when(eventService.getListEvents(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyInt(), any()))
                 .thenThrow(new SecurityException("Access denied"));
 
         ResponseEntity<Object> response = eventController.getListEvents(
-                request, null, null, null, null, null, null, 1, 10);
+                request, null, null, null, null, null, null, 1, 10, null);
 
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
         Map<String, Object> body = (Map<String, Object>) response.getBody();
@@ -536,11 +550,11 @@ public class EventControllerTest {
 
     @Test
     void getListEvents_ShouldReturnNotFound_WhenEntityNotFoundExceptionThrown() {
-        when(eventService.getListEvents(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyInt()))
+        when(eventService.getListEvents(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyInt(), any()))
                 .thenThrow(new EntityNotFoundException("No events found"));
 
         ResponseEntity<Object> response = eventController.getListEvents(
-                request, null, null, null, null, null, null, 1, 10);
+                request, null, null, null, null, null, null, 1, 10, null);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         Map<String, Object> body = (Map<String, Object>) response.getBody();
@@ -550,11 +564,11 @@ public class EventControllerTest {
 
     @Test
     void getListEvents_ShouldReturnInternalServerError_WhenUnexpectedExceptionThrown() {
-        when(eventService.getListEvents(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyInt()))
+        when(eventService.getListEvents(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyInt(), any()))
                 .thenThrow(new RuntimeException("Unexpected error"));
 
         ResponseEntity<Object> response = eventController.getListEvents(
-                request, null, null, null, null, null, null, 1, 10);
+                request, null, null, null, null, null, null, 1, 10, null);
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         Map<String, Object> body = (Map<String, Object>) response.getBody();
@@ -0,0 +1,81 @@
+package com.example.event_ticket_system.event.service;
+
+import com.example.event_ticket_system.DTO.response.TicketsSoldMismatchProjection;
+import com.example.event_ticket_system.Repository.EventRepository;
+import com.example.event_ticket_system.Service.EventSalesService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EventSalesServiceTest {
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private EventSalesService eventSalesService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        eventSalesService = new EventSalesService(eventRepository, transactionTemplate, meterRegistry, 2);
+    }
+
+    @Test
+    void recordPaidAndCancelled_ShouldAdjustCounterWithOneSetBasedUpdate() {
+        eventSalesService.recordPaid(List.of(1, 2, 3));
+        eventSalesService.recordPaidCancelled(List.of(4));
+        eventSalesService.recordPaid(List.of());
+
+        verify(eventRepository).adjustTicketsSoldForOrders(List.of(1, 2, 3), 1);
+        verify(eventRepository).adjustTicketsSoldForOrders(List.of(4), -1);
+        verifyNoMoreInteractions(eventRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void backfill_ShouldRecomputeInKeysetChunks() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any(Consumer.class));
+        when(eventRepository.findEventIdsAfter(0, PageRequest.of(0, 2))).thenReturn(List.of(1, 5));
+        when(eventRepository.findEventIdsAfter(5, PageRequest.of(0, 2))).thenReturn(List.of(9));
+
+        int events = eventSalesService.backfill();
+
+        assertThat(events).isEqualTo(3);
+        verify(eventRepository).recomputeTicketsSold(List.of(1, 5));
+        verify(eventRepository).recomputeTicketsSold(List.of(9));
+        verify(transactionTemplate, times(2)).executeWithoutResult(any(Consumer.class));
+        verify(eventRepository, never()).findEventIdsAfter(eq(9), any());
+    }
+
+    @Test
+    void findMismatches_ShouldPublishMismatchGauge() {
+        TicketsSoldMismatchProjection mismatch = mock(TicketsSoldMismatchProjection.class);
+        when(eventRepository.findTicketsSoldMismatches()).thenReturn(List.of(mismatch));
+
+        assertThat(eventSalesService.findMismatches()).containsExactly(mismatch);
+        assertThat(meterRegistry.get("events.tickets_sold.mismatches").gauge().value()).isEqualTo(1.0);
+        verify(eventRepository, never()).adjustTicketsSoldForOrders(any(), anyInt());
+    }
+}
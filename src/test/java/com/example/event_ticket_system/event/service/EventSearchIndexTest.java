@@ -0,0 +1,181 @@
+package com.example.event_ticket_system.event.service;
+
+import com.example.event_ticket_system.DTO.response.EventSearchDocumentProjection;
+import com.example.event_ticket_system.Entity.District;
+import com.example.event_ticket_system.Entity.Event;
+import com.example.event_ticket_system.Entity.Province;
+import com.example.event_ticket_system.Entity.Ward;
+import com.example.event_ticket_system.Repository.EventRepository;
+import com.example.event_ticket_system.Service.EventSearchIndex;
+import com.example.event_ticket_system.Util.InvertedIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EventSearchIndexTest {
+
+    @Mock
+    private EventRepository eventRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private EventSearchIndex eventSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        eventSearchIndex = new EventSearchIndex(eventRepository, meterRegistry, 100, 200, 2);
+    }
+
+    private record Document(Integer eventId, String eventName, String addressName, String addressDetail,
+                            String wardName, String districtName, String provinceName)
+            implements EventSearchDocumentProjection {
+        public Integer getEventId() { return eventId; }
+        public String getEventName() { return eventName; }
+        public String getAddressName() { return addressName; }
+        public String getAddressDetail() { return addressDetail; }
+        public String getWardName() { return wardName; }
+        public String getDistrictName() { return districtName; }
+        public String getProvinceName() { return provinceName; }
+    }
+
+    private Optional<List<Integer>> ranked(String query, int fieldMask) {
+        return eventSearchIndex.search(query, fieldMask).map(InvertedIndex.Matches::ranked);
+    }
+
+    private void rebuildWith(Document... documents) {
+        // Lô 2 dòng: trang đầy thì nạp tiếp từ id cuối
+        when(eventRepository.findSearchDocumentsAfter(anyInt(), any(Pageable.class))).thenAnswer(inv -> {
+            int afterId = inv.getArgument(0);
+            int pageSize = inv.<Pageable>getArgument(1).getPageSize();
+            return List.of(documents).stream().filter(document -> document.eventId() > afterId).limit(pageSize).toList();
+        });
+        eventSearchIndex.rebuild();
+    }
+
+    @Test
+    void search_ShouldFallBackToLike_WhenIndexNotBuilt() {
+        assertThat(ranked("ha noi", EventSearchIndex.ADDRESS_FIELDS)).isEmpty();
+        verifyNoInteractions(eventRepository);
+    }
+
+    @Test
+    void search_ShouldIgnoreDiacriticsAndMatchPrefixes() {
+        rebuildWith(
+                new Document(1, "Đêm nhạc Trịnh Công Sơn", "Nhà hát Lớn", "1 Tràng Tiền", "Tràng Tiền", "Hoàn Kiếm", "Hà Nội"),
+                new Document(2, "Lễ hội hoa Đà Lạt", "Quảng trường Lâm Viên", null, "Phường 10", "Đà Lạt", "Lâm Đồng"),
+                new Document(3, "Hội chợ sách", "Nhà văn hoá Thanh niên", "4 Phạm Ngọc Thạch", "Bến Nghé", "Quận 1", "Hồ Chí Minh"));
+
+        assertThat(ranked("ha noi", EventSearchIndex.ADDRESS_FIELDS)).contains(List.of(1));
+        assertThat(ranked("HÀ NỘI", EventSearchIndex.ADDRESS_FIELDS)).contains(List.of(1));
+        assertThat(ranked("da la", EventSearchIndex.ADDRESS_FIELDS)).contains(List.of(2));
+        assertThat(ranked("trinh cong", EventSearchIndex.FIELD_NAME)).contains(List.of(1));
+        // Mọi từ đều phải khớp
+        assertThat(ranked("ha noi quan 1", EventSearchIndex.ADDRESS_FIELDS)).contains(List.of());
+        // Tên sự kiện không nằm trong nhóm trường địa chỉ
+        assertThat(ranked("hoi cho", EventSearchIndex.ADDRESS_FIELDS)).contains(List.of());
+        assertThat(ranked("   ", EventSearchIndex.FIELD_NAME)).isEmpty();
+        verify(eventRepository, times(2)).findSearchDocumentsAfter(anyInt(), any(Pageable.class));
+    }
+
+    @Test
+    void search_ShouldRankNameMatchesAndExactWordsFirst() {
+        rebuildWith(
+                new Document(1, "Hội chợ ẩm thực", "Công viên Lê Văn Tám", null, "Đa Kao", "Quận 1", "Hồ Chí Minh"),
+                new Document(2, "Đêm nhạc Sài Gòn", "Sân khấu Lan Anh", null, "Phường 10", "Quận 10", "Hồ Chí Minh"),
+                new Document(3, "Triển lãm tranh", "Nhà hát Sài Gòn", null, "Bến Nghé", "Quận 1", "Hồ Chí Minh"),
+                new Document(4, "Nhạc hội Sàigòn xưa", "Sân vận động", null, "Phường 12", "Quận 10", "Hồ Chí Minh"));
+
+        int allFields = EventSearchIndex.FIELD_NAME | EventSearchIndex.ADDRESS_FIELDS;
+        // Khớp nguyên từ trong tên (2) > khớp tiền tố trong tên (4) > khớp trong tên địa điểm (3)
+        assertThat(ranked("sai", allFields)).contains(List.of(2, 4, 3));
+        // Cùng điểm thì sự kiện mới hơn (id lớn) đứng trước
+        assertThat(ranked("quan 1", EventSearchIndex.ADDRESS_FIELDS)).contains(List.of(3, 1, 4, 2));
+    }
+
+    @Test
+    void search_ShouldReturnEveryMatchAndCapOnlyTheRanking() {
+        // max-results = 100 (setUp): 150 sự kiện ở Hà Nội vẫn phải lọc được đủ, chỉ thứ hạng bị cắt
+        Document[] documents = new Document[150];
+        for (int i = 0; i < documents.length; i++) {
+            documents[i] = new Document(i + 1, "Sự kiện " + i, "Nhà hát Lớn", null, "Tràng Tiền", "Hoàn Kiếm", "Hà Nội");
+        }
+        rebuildWith(documents);
+
+        InvertedIndex.Matches matches = eventSearchIndex.search("ha noi", EventSearchIndex.ADDRESS_FIELDS).orElseThrow();
+
+        assertThat(matches.ids()).hasSize(150).doesNotHaveDuplicates();
+        assertThat(matches.ranked()).hasSize(100).startsWith(150, 149);
+        assertThat(matches.ids()).containsAll(matches.ranked());
+    }
+
+    @Test
+    void search_ShouldFallBackToLike_WhenQueryMatchesMoreThanMaxFilterIds() {
+        // max-filter-ids = 200 (setUp): một chữ cái khớp cả 250 sự kiện thì không gửi danh sách IN khổng lồ xuống DB
+        Document[] documents = new Document[250];
+        for (int i = 0; i < documents.length; i++) {
+            documents[i] = new Document(i + 1, "Sự kiện " + i, "Nhà hát Lớn", null, "Tràng Tiền", "Hoàn Kiếm", "Hà Nội");
+        }
+        rebuildWith(documents);
+
+        assertThat(eventSearchIndex.search("h", EventSearchIndex.ADDRESS_FIELDS)).isEmpty();
+        assertThat(eventSearchIndex.search("su kien 12", EventSearchIndex.FIELD_NAME)).isPresent();
+    }
+
+    @Test
+    void indexAfterCommit_ShouldReplacePreviousTermsOfEvent() {
+        rebuildWith(new Document(1, "Đêm nhạc mùa hè", "Nhà hát Lớn", null, "Tràng Tiền", "Hoàn Kiếm", "Hà Nội"));
+
+        eventSearchIndex.indexAfterCommit(event(1, "Đêm nhạc mùa thu", "Nhà hát Hoà Bình", "Quận 10", "Hồ Chí Minh"));
+        eventSearchIndex.indexAfterCommit(event(2, "Mùa thu Hà Nội", "Hồ Gươm", "Hoàn Kiếm", "Hà Nội"));
+
+        assertThat(ranked("mua he", EventSearchIndex.FIELD_NAME)).contains(List.of());
+        assertThat(ranked("mua thu", EventSearchIndex.FIELD_NAME)).contains(List.of(2, 1));
+        assertThat(ranked("ha noi", EventSearchIndex.ADDRESS_FIELDS)).contains(List.of(2));
+        assertThat(meterRegistry.get("search.index.documents").gauge().value()).isEqualTo(2.0);
+    }
+
+    @Test
+    void refresh_ShouldPickUpEventsChangedSinceLastRefresh() {
+        rebuildWith(new Document(1, "Hội chợ sách", "Nhà văn hoá", null, "Bến Nghé", "Quận 1", "Hồ Chí Minh"));
+        when(eventRepository.findSearchDocumentsUpdatedSince(any(LocalDateTime.class)))
+                .thenReturn(List.of(new Document(1, "Hội chợ sách cũ", "Nhà văn hoá", null, "Bến Nghé", "Quận 1", "Hồ Chí Minh")));
+
+        eventSearchIndex.refresh();
+
+        assertThat(ranked("sach cu", EventSearchIndex.FIELD_NAME)).isEqualTo(Optional.of(List.of(1)));
+        verify(eventRepository).findSearchDocumentsUpdatedSince(any(LocalDateTime.class));
+        verify(eventRepository, never()).findSearchDocumentsAfter(eq(1), any(Pageable.class));
+    }
+
+    private Event event(int eventId, String name, String addressName, String districtName, String provinceName) {
+        Province province = new Province();
+        province.setName(provinceName);
+        District district = new District();
+        district.setName(districtName);
+        district.setProvince(province);
+        Ward ward = new Ward();
+        ward.setName("Phường 1");
+        ward.setDistrict(district);
+        Event event = new Event();
+        event.setEventId(eventId);
+        event.setEventName(name);
+        event.setAddressName(addressName);
+        event.setWard(ward);
+        return event;
+    }
+}
@@ -3,6 +3,7 @@ package com.example.event_ticket_system.event.service;
 import com.example.event_ticket_system.DTO.request.EventRequestDto;
 import com.example.event_ticket_system.DTO.request.UpdateEventRequestDto;
 import com.example.event_ticket_system.DTO.response.DetailEventResponseDto;
+import com.example.event_ticket_system.DTO.response.EventCardStatsProjection;
 import com.example.event_ticket_system.DTO.response.GetEventsResponseDto;
 import com.example.event_ticket_system.DTO.response.RecommendEventsResponseDto;
 import com.example.event_ticket_system.DTO.response.TicketExportDto;
@@ -13,7 +14,12 @@ import com.example.event_ticket_system.Enums.EventStatus;
 import com.example.event_ticket_system.Enums.UserRole;
 import com.example.event_ticket_system.Repository.*;
 import com.example.event_ticket_system.Security.JwtUtil;
+import com.example.event_ticket_system.Service.DiscountService;
+import com.example.event_ticket_system.Service.EventSearchIndex;
+import com.example.event_ticket_system.Service.ListingCountCache;
+import com.example.event_ticket_system.Util.InvertedIndex;
 import com.example.event_ticket_system.Service.Impl.EventServiceImpl;
+import com.example.event_ticket_system.Util.KeysetCursor;
 import com.itextpdf.text.DocumentException;
 import com.itextpdf.text.Font;
 import jakarta.persistence.EntityNotFoundException;
@@ -30,7 +36,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -43,6 +51,7 @@ import java.net.http.HttpResponse;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.LongSupplier;
 
 import static com.example.event_ticket_system.Enums.UserRole.organizer;
 import static org.junit.jupiter.api.Assertions.*;
@@ -73,6 +82,15 @@ class EventServiceImplTest {
     @Mock
     private DiscountRepository discountRepository;
 
+    @Mock
+    private DiscountService discountService;
+
+    @Mock
+    private EventSearchIndex eventSearchIndex;
+
+    @Mock
+    private ListingCountCache listingCountCache;
+
     @Mock
     private OrderTicketRepository orderTicketRepository;
 
@@ -154,6 +172,7 @@ class EventServiceImplTest {
 
         mockEvent = new Event();
         mockEvent.setEventId(123);
+        mockEvent.setTicketsSold(50);
         mockEvent.setEventName("Music Concert");
         mockEvent.setDescription("Live Music");
         mockEvent.setAddressName("Venue A");
@@ -186,8 +205,24 @@ class EventServiceImplTest {
         // Mock repository
         Page<Event> mockPage = new PageImpl<>(List.of(mockEvent), PageRequest.of(0, 10), 1);
         lenient().when(eventRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(mockPage);
+        lenient().when(eventRepository.findSlice(any(Specification.class), any(Pageable.class))).thenReturn(mockPage);
+        lenient().when(listingCountCache.count(anyString(), any())).thenAnswer(inv -> inv.<LongSupplier>getArgument(1).getAsLong());
         lenient().when(ticketRepository.findByEvent(any(Event.class))).thenReturn(List.of(mockTicket));
-        lenient().when(orderTicketRepository.sumQuantityByEvent(any(Event.class))).thenReturn(50L);
+        lenient().when(ticketRepository.findCardStatsByEventIds(anyCollection())).thenReturn(List.of(cardStats(123, 100.0)));
+    }
+
+    private static EventCardStatsProjection cardStats(int eventId, double minPrice) {
+        return new EventCardStatsProjection() {
+            @Override
+            public Integer getEventId() {
+                return eventId;
+            }
+
+            @Override
+            public Double getMinPrice() {
+                return minPrice;
+            }
+        };
     }
 
     // Create Event
@@ -208,6 +243,7 @@ class EventServiceImplTest {
 
         assertEquals(123, eventId);
         verify(eventRepository, times(1)).save(any(Event.class));
+        verify(eventSearchIndex).indexAfterCommit(mockEvent);
         verify(ticketRepository, times(1)).save(any(Ticket.class));
         verify(discountRepository, times(1)).save(any(Discount.class));
     }
@@ -370,7 +406,7 @@ class EventServiceImplTest {
         when(userRepository.findById(1)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () -> {
-            eventService.getEventsByOrganizer(request, null, null, null, null, null, 1, 10);
+            eventService.getEventsByOrganizer(request, null, null, null, null, null, 1, 10, null);
         });
     }
 
@@ -384,7 +420,7 @@ class EventServiceImplTest {
         when(userRepository.findById(1)).thenReturn(Optional.of(user));
 
         assertThrows(SecurityException.class, () -> {
-            eventService.getEventsByOrganizer(request, null, null, null, null, null, 1, 10);
+            eventService.getEventsByOrganizer(request, null, null, null, null, null, 1, 10, null);
         });
     }
 
@@ -408,7 +444,7 @@ class EventServiceImplTest {
         when(eventRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(page);
 
         Map<String, Object> result = eventService.getEventsByOrganizer(
-                request, null, null, null, null, null, 1, 10);
+                request, null, null, null, null, null, 1, 10, null);
 
         assertNotNull(result);
         assertEquals(1, ((List<?>) result.get("listEvents")).size());
@@ -442,7 +478,7 @@ class EventServiceImplTest {
                 LocalDateTime.now().plusDays(7),
                 "Tech",
                 2,
-                10
+                10, null
         );
 
         assertNotNull(result);
@@ -476,7 +512,7 @@ class EventServiceImplTest {
                 LocalDateTime.now().plusDays(5),
                 "Art",
                 0, // Page is zero
-                10
+                10, null
         );
 
         assertNotNull(result);
@@ -494,7 +530,7 @@ class EventServiceImplTest {
 
         String status = "upcoming";
 
-        eventService.getEventsByOrganizer(request, status, null, null, null, null, 1, 10);
+        eventService.getEventsByOrganizer(request, status, null, null, null, null, 1, 10, null);
 
         ArgumentCaptor<Specification<Event>> captor = ArgumentCaptor.forClass(Specification.class);
         verify(eventRepository).findAll(captor.capture(), any(Pageable.class));
@@ -532,7 +568,7 @@ class EventServiceImplTest {
         String approvalStatus = "pending";
 
         // Act
-        eventService.getEventsByOrganizer(request, null, approvalStatus, null, null, null, 1, 10);
+        eventService.getEventsByOrganizer(request, null, approvalStatus, null, null, null, 1, 10, null);
 
         // Assert
         ArgumentCaptor<Specification<Event>> captor = ArgumentCaptor.forClass(Specification.class);
@@ -573,7 +609,7 @@ class EventServiceImplTest {
         LocalDateTime startTime = LocalDateTime.now();
         LocalDateTime endTime = startTime.plusDays(5);
 
-        eventService.getEventsByOrganizer(request, null, null, startTime, endTime, null, 1, 10);
+        eventService.getEventsByOrganizer(request, null, null, startTime, endTime, null, 1, 10, null);
 
         ArgumentCaptor<Specification<Event>> captor = ArgumentCaptor.forClass(Specification.class);
         verify(eventRepository).findAll(captor.capture(), any(Pageable.class));
@@ -619,7 +655,7 @@ class EventServiceImplTest {
 
         LocalDateTime startTime = LocalDateTime.now();
 
-        eventService.getEventsByOrganizer(request, null, null, startTime, null, null, 1, 10);
+        eventService.getEventsByOrganizer(request, null, null, startTime, null, null, 1, 10, null);
 
         ArgumentCaptor<Specification<Event>> captor = ArgumentCaptor.forClass(Specification.class);
         verify(eventRepository).findAll(captor.capture(), any(Pageable.class));
@@ -654,7 +690,7 @@ class EventServiceImplTest {
 
         LocalDateTime endTime = LocalDateTime.now().plusDays(5);
 
-        eventService.getEventsByOrganizer(request, null, null, null, endTime, null, 1, 10);
+        eventService.getEventsByOrganizer(request, null, null, null, endTime, null, 1, 10, null);
 
         ArgumentCaptor<Specification<Event>> captor = ArgumentCaptor.forClass(Specification.class);
         verify(eventRepository).findAll(captor.capture(), any(Pageable.class));
@@ -689,7 +725,7 @@ class EventServiceImplTest {
 
         String name = "music";
 
-        eventService.getEventsByOrganizer(request, null, null, null, null, name, 1, 10);
+        eventService.getEventsByOrganizer(request, null, null, null, null, name, 1, 10, null);
 
         ArgumentCaptor<Specification<Event>> captor = ArgumentCaptor.forClass(Specification.class);
         verify(eventRepository).findAll(captor.capture(), any(Pageable.class));
@@ -721,7 +757,7 @@ class EventServiceImplTest {
         Page<Event> mockPage = new PageImpl<>(List.of(mockEvent));
         when(eventRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(mockPage);
 
-        eventService.getEventsByOrganizer(request, null, approvalStatus, null, null, null, 1, 10);
+        eventService.getEventsByOrganizer(request, null, approvalStatus, null, null, null, 1, 10, null);
 
         ArgumentCaptor<Specification<Event>> captor = ArgumentCaptor.forClass(Specification.class);
         verify(eventRepository).findAll(captor.capture(), any(Pageable.class));
@@ -751,7 +787,7 @@ class EventServiceImplTest {
         Page<Event> mockPage = new PageImpl<>(List.of(mockEvent));
         when(eventRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(mockPage);
 
-        eventService.getEventsByOrganizer(request, null, null, null, null, name, 1, 10);
+        eventService.getEventsByOrganizer(request, null, null, null, null, name, 1, 10, null);
 
         ArgumentCaptor<Specification<Event>> captor = ArgumentCaptor.forClass(Specification.class);
         verify(eventRepository).findAll(captor.capture(), any(Pageable.class));
@@ -781,7 +817,7 @@ class EventServiceImplTest {
         Page<Event> mockPage = new PageImpl<>(List.of(mockEvent));
         when(eventRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(mockPage);
 
-        eventService.getEventsByOrganizer(request, status, null, null, null, null, 1, 10);
+        eventService.getEventsByOrganizer(request, status, null, null, null, null, 1, 10, null);
 
         ArgumentCaptor<Specification<Event>> captor = ArgumentCaptor.forClass(Specification.class);
         verify(eventRepository).findAll(captor.capture(), any(Pageable.class));
@@ -907,7 +943,7 @@ class EventServiceImplTest {
         String sortBy = "updatedAt:DESC";
 
         // When
-        Map<String, Object> result = eventService.getRecommendEvents(category, address, startTime, endTime, name, page, size, sortBy);
+        Map<String, Object> result = eventService.getRecommendEvents(category, address, startTime, endTime, name, page, size, sortBy, null, true);
 
         // Then
         assertNotNull(result);
@@ -940,7 +976,7 @@ class EventServiceImplTest {
         String sortBy = "updatedAt:DESC";
 
         // When
-        Map<String, Object> result = eventService.getRecommendEvents(category, address, startTime, endTime, name, page, size, sortBy);
+        Map<String, Object> result = eventService.getRecommendEvents(category, address, startTime, endTime, name, page, size, sortBy, null, true);
 
         // Then
         assertNotNull(result);
@@ -972,7 +1008,7 @@ class EventServiceImplTest {
         Integer size = 10;
 
         // When
-        Map<String, Object> result = eventService.getRecommendEvents(category, address, startTime, endTime, name, page, size, " ");
+        Map<String, Object> result = eventService.getRecommendEvents(category, address, startTime, endTime, name, page, size, " ", null, true);
 
         // Then
         assertNotNull(result);
@@ -995,14 +1031,14 @@ class EventServiceImplTest {
     @Test
     void testGetRecommendEvents_ShouldSortByEventNameAsc() {
         // Given
-        when(orderTicketRepository.sumQuantityByEvent(any(Event.class))).thenReturn(50L);
+        when(ticketRepository.findCardStatsByEventIds(List.of(123))).thenReturn(List.of(cardStats(123, 100.0)));
 
         String sortBy = "eventName:ASC";
 
         // When
         Map<String, Object> result = eventService.getRecommendEvents(
                 "Music", "Sample", LocalDateTime.now(), LocalDateTime.now().plusDays(3),
-                "Concert", 1, 10, sortBy
+                "Concert", 1, 10, sortBy, null, true
         );
 
         // Then
@@ -1027,24 +1063,29 @@ class EventServiceImplTest {
         secondEvent.setLogoUrl("logo2.jpg");
         secondEvent.setBackgroundUrl("bg2.jpg");
 
+        // Database đã sắp theo tickets_sold tăng dần
+        mockEvent.setTicketsSold(50);
+        secondEvent.setTicketsSold(100);
         Page<Event> mockPage = new PageImpl<>(List.of(mockEvent, secondEvent));
-        when(eventRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(mockPage);
-        when(ticketRepository.findByEvent(any(Event.class))).thenReturn(List.of(mockTicket));
-        when(orderTicketRepository.sumQuantityByEvent(mockEvent)).thenReturn(100L);
-        when(orderTicketRepository.sumQuantityByEvent(secondEvent)).thenReturn(50L);
+        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+        when(eventRepository.findSlice(any(Specification.class), pageableCaptor.capture())).thenReturn(mockPage);
+        when(ticketRepository.findCardStatsByEventIds(List.of(123, 456)))
+                .thenReturn(List.of(cardStats(123, 100.0), cardStats(456, 100.0)));
 
         String sortBy = "totalTicketSold:ASC";
 
         // When
         Map<String, Object> result = eventService.getRecommendEvents(
                 "Music", "Sample", LocalDateTime.now(), LocalDateTime.now().plusDays(3),
-                null, 1, 10, sortBy
+                null, 1, 10, sortBy, null, true
         );
 
         // Then
         List<RecommendEventsResponseDto> events = (List<RecommendEventsResponseDto>) result.get("listEvents");
         assertEquals(2, events.size());
         assertTrue(events.get(0).getTotalTicketSold() <= events.get(1).getTotalTicketSold());
+        assertEquals(Sort.Direction.ASC, pageableCaptor.getValue().getSort().getOrderFor("ticketsSold").getDirection());
+        assertEquals(Sort.Direction.ASC, pageableCaptor.getValue().getSort().getOrderFor("eventId").getDirection());
     }
 
     @Test
@@ -1064,35 +1105,39 @@ class EventServiceImplTest {
         secondEvent.setLogoUrl("logo2.jpg");
         secondEvent.setBackgroundUrl("bg2.jpg");
 
-        Page<Event> mockPage = new PageImpl<>(List.of(mockEvent, secondEvent));
-        when(eventRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(mockPage);
-        when(ticketRepository.findByEvent(any(Event.class))).thenReturn(List.of(mockTicket));
-        when(orderTicketRepository.sumQuantityByEvent(mockEvent)).thenReturn(50L);
-        when(orderTicketRepository.sumQuantityByEvent(secondEvent)).thenReturn(100L);
+        // Database đã sắp theo tickets_sold giảm dần
+        mockEvent.setTicketsSold(50);
+        secondEvent.setTicketsSold(100);
+        Page<Event> mockPage = new PageImpl<>(List.of(secondEvent, mockEvent));
+        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+        when(eventRepository.findSlice(any(Specification.class), pageableCaptor.capture())).thenReturn(mockPage);
+        when(ticketRepository.findCardStatsByEventIds(List.of(456, 123)))
+                .thenReturn(List.of(cardStats(123, 100.0), cardStats(456, 100.0)));
 
         String sortBy = "totalTicketSold:DESC";
 
         // When
         Map<String, Object> result = eventService.getRecommendEvents(
                 "Music", "Sample", LocalDateTime.now(), LocalDateTime.now().plusDays(3),
-                null, 1, 10, sortBy
+                null, 1, 10, sortBy, null, true
         );
 
         // Then
         List<RecommendEventsResponseDto> events = (List<RecommendEventsResponseDto>) result.get("listEvents");
         assertEquals(2, events.size());
         assertTrue(events.get(0).getTotalTicketSold() >= events.get(1).getTotalTicketSold());
+        assertEquals(Sort.Direction.DESC, pageableCaptor.getValue().getSort().getOrderFor("ticketsSold").getDirection());
     }
 
     @Test
     void testGetRecommendEvents_ShouldSkipAddressDetailIfNull() {
         // Given
         mockEvent.setAddressDetail(null);
-        when(orderTicketRepository.sumQuantityByEvent(any(Event.class))).thenReturn(50L);
+        when(ticketRepository.findCardStatsByEventIds(List.of(123))).thenReturn(List.of(cardStats(123, 100.0)));
 
         Map<String, Object> result = eventService.getRecommendEvents(
                 "Music", "Sample", LocalDateTime.now(), LocalDateTime.now().plusDays(3),
-                null, 1, 10, "eventName:ASC"
+                null, 1, 10, "eventName:ASC", null, true
         );
 
         List<RecommendEventsResponseDto> events = (List<RecommendEventsResponseDto>) result.get("listEvents");
@@ -1106,11 +1151,11 @@ class EventServiceImplTest {
     void testGetRecommendEvents_ShouldSkipAddressNameIfNull() {
         // Given
         mockEvent.setAddressName(null);
-        when(orderTicketRepository.sumQuantityByEvent(any(Event.class))).thenReturn(50L);
+        when(ticketRepository.findCardStatsByEventIds(List.of(123))).thenReturn(List.of(cardStats(123, 100.0)));
 
         Map<String, Object> result = eventService.getRecommendEvents(
                 "Music", "Sample", LocalDateTime.now(), LocalDateTime.now().plusDays(3),
-                null, 1, 10, "eventName:ASC"
+                null, 1, 10, "eventName:ASC", null, true
         );
 
         List<RecommendEventsResponseDto> events = (List<RecommendEventsResponseDto>) result.get("listEvents");
@@ -1120,6 +1165,199 @@ class EventServiceImplTest {
         assertTrue(address.contains("123 Street"));
     }
 
+    @Test
+    void testGetRecommendEvents_ShouldUseOneAggregateQueryPerPage() {
+        // Given: một trang 20 sự kiện, chỉ sự kiện đầu có vé
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Event event = new Event();
+            event.setEventId(1000 + i);
+            event.setEventName("Event " + i);
+            event.setWard(mockEvent.getWard());
+            event.setStartTime(LocalDateTime.now().plusDays(1));
+            event.setEndTime(LocalDateTime.now().plusDays(2));
+            event.setCategory("Music");
+            event.setTicketsSold(i == 0 ? 7 : 0);
+            events.add(event);
+        }
+        when(eventRepository.findSlice(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(events, PageRequest.of(0, 20), 20));
+        when(ticketRepository.findCardStatsByEventIds(anyCollection())).thenReturn(List.of(cardStats(1000, 150000.0)));
+
+        Map<String, Object> result = eventService.getRecommendEvents(null, null, null, null, null, 1, 20, null, null, true);
+
+        // Then: số truy vấn không phụ thuộc số sự kiện trên trang
+        List<RecommendEventsResponseDto> dtos = (List<RecommendEventsResponseDto>) result.get("listEvents");
+        assertEquals(20, dtos.size());
+        assertEquals("150000.0", dtos.get(0).getMinPrice());
+        assertEquals(7L, dtos.get(0).getTotalTicketSold());
+        assertEquals("0.0", dtos.get(1).getMinPrice());
+        assertEquals(0L, dtos.get(1).getTotalTicketSold());
+        verify(eventRepository, times(1)).findSlice(any(Specification.class), any(Pageable.class));
+        verify(ticketRepository, times(1)).findCardStatsByEventIds(events.stream().map(Event::getEventId).toList());
+        verify(ticketRepository, never()).findByEvent(any(Event.class));
+        verify(orderTicketRepository, never()).sumQuantityByEvent(any(Event.class));
+    }
+
+    @Test
+    void getRecommendEvents_ShouldFilterByIndexMatchesAndOrderByRelevance() {
+        when(eventSearchIndex.search("ha noi", EventSearchIndex.ADDRESS_FIELDS)).thenReturn(Optional.of(new InvertedIndex.Matches(List.of(3, 9, 7), List.of(7, 3))));
+        when(eventRepository.findSlice(any(Specification.class), any(Pageable.class))).thenReturn(new PageImpl<>(List.of()));
+
+        eventService.getRecommendEvents(null, "ha noi", null, null, null, 1, 10, null, null, true);
+
+        ArgumentCaptor<Specification<Event>> specCaptor = ArgumentCaptor.forClass(Specification.class);
+        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+        verify(eventRepository).findSlice(specCaptor.capture(), pageableCaptor.capture());
+        // Thứ tự do CASE theo kết quả chỉ mục quyết định, không sắp thêm theo updatedAt
+        assertTrue(pageableCaptor.getValue().getSort().isUnsorted());
+
+        CriteriaBuilder cb = mock(CriteriaBuilder.class, RETURNS_MOCKS);
+        CriteriaQuery<?> query = mock(CriteriaQuery.class);
+        Root<Event> root = mock(Root.class, RETURNS_MOCKS);
+        Path eventIdPath = mock(Path.class);
+        Predicate idIn = mock(Predicate.class);
+        CriteriaBuilder.SimpleCase rank = mock(CriteriaBuilder.SimpleCase.class, RETURNS_SELF);
+        jakarta.persistence.criteria.Order relevanceOrder = mock(jakarta.persistence.criteria.Order.class);
+        lenient().when(root.get("eventId")).thenReturn(eventIdPath);
+        // Lọc trên toàn bộ kết quả, không chỉ trên danh sách đã cắt theo max-results
+        when(eventIdPath.in(List.of(3, 9, 7))).thenReturn(idIn);
+        when(cb.selectCase(eventIdPath)).thenReturn(rank);
+        when(cb.asc(rank)).thenReturn(relevanceOrder);
+        jakarta.persistence.criteria.Order idOrder = mock(jakarta.persistence.criteria.Order.class);
+        when(cb.desc(eventIdPath)).thenReturn(idOrder);
+
+        specCaptor.getValue().toPredicate(root, query, cb);
+
+        verify(rank).when(7, 0);
+        verify(rank).when(3, 1);
+        verify(rank).otherwise(2);
+        verify(query).orderBy(relevanceOrder, idOrder);
+        verify(cb, never()).like(any(), anyString());
+    }
+
+    @Test
+    void getRecommendEvents_WithoutTotal_ShouldReturnSliceWithoutCounting() {
+        when(eventRepository.findSlice(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(mockEvent), PageRequest.of(0, 1), true));
+
+        Map<String, Object> result = eventService.getRecommendEvents(null, null, null, null, null, 1, 1, null, null, false);
+
+        assertEquals(true, result.get("hasNext"));
+        assertEquals(1, result.get("pageNo"));
+        assertFalse(result.containsKey("totalPages"));
+        verify(eventRepository, never()).count(any(Specification.class));
+        verifyNoInteractions(listingCountCache);
+    }
+
+    @Test
+    void getRecommendEvents_WithTotal_ShouldUseCachedCountPerFilter() {
+        when(eventRepository.findSlice(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(mockEvent), PageRequest.of(0, 10), true));
+        when(listingCountCache.count(eq("recommend|Music|null|null|null|null"), any())).thenReturn(25L);
+
+        Map<String, Object> result = eventService.getRecommendEvents("Music", null, null, null, null, 1, 10, null, null, true);
+
+        assertEquals(3, result.get("totalPages"));
+        verify(eventRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    void getRecommendEvents_OnLastPage_ShouldRecordExactTotalWithoutCounting() {
+        when(eventRepository.findSlice(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(mockEvent), PageRequest.of(2, 10), false));
+
+        Map<String, Object> result = eventService.getRecommendEvents(null, null, null, null, null, 3, 10, null, null, true);
+
+        assertEquals(3, result.get("totalPages"));
+        assertEquals(false, result.get("hasNext"));
+        verify(listingCountCache).record("recommend|null|null|null|null|null", 21L);
+        verify(listingCountCache, never()).count(anyString(), any());
+    }
+
+    @Test
+    void getRecommendEvents_WithTamperedCursorValue_ShouldThrowInvalidCursor() {
+        String cursor = new KeysetCursor("updatedAt", true, "not-a-date", 5).encode();
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> eventService.getRecommendEvents(
+                null, null, null, null, null, 1, 10, null, cursor, true));
+
+        assertEquals("Invalid cursor", e.getMessage());
+        verify(eventRepository, never()).findWindow(any(Specification.class), any(Sort.class), anyInt());
+    }
+
+    private Event soldEvent(int eventId, int ticketsSold) {
+        Event event = new Event();
+        event.setEventId(eventId);
+        event.setEventName("Event " + eventId);
+        event.setWard(mockEvent.getWard());
+        event.setStartTime(LocalDateTime.now().plusDays(1));
+        event.setEndTime(LocalDateTime.now().plusDays(2));
+        event.setTicketsSold(ticketsSold);
+        return event;
+    }
+
+    @Test
+    void getRecommendEvents_WithEmptyCursor_ShouldReturnFirstWindowAndNextCursor() {
+        when(eventRepository.findWindow(any(Specification.class), any(Sort.class), anyInt()))
+                .thenReturn(List.of(soldEvent(1003, 9), soldEvent(1001, 7), soldEvent(1002, 7)));
+
+        Map<String, Object> result = eventService.getRecommendEvents(
+                null, null, null, null, null, 1, 2, "totalTicketSold:DESC", "", true);
+
+        ArgumentCaptor<Sort> sortCaptor = ArgumentCaptor.forClass(Sort.class);
+        verify(eventRepository).findWindow(any(Specification.class), sortCaptor.capture(), eq(3));
+        assertEquals(Sort.by(Sort.Direction.DESC, "ticketsSold").and(Sort.by(Sort.Direction.DESC, "eventId")), sortCaptor.getValue());
+        verify(eventRepository, never()).findSlice(any(Specification.class), any(Pageable.class));
+
+        List<RecommendEventsResponseDto> dtos = (List<RecommendEventsResponseDto>) result.get("listEvents");
+        assertEquals(List.of(1003, 1001), dtos.stream().map(RecommendEventsResponseDto::getEventId).toList());
+        assertEquals(true, result.get("hasNext"));
+        assertEquals(2, result.get("pageSize"));
+        assertFalse(result.containsKey("totalPages"));
+        assertEquals(new KeysetCursor("ticketsSold", true, "7", 1001), KeysetCursor.decode((String) result.get("nextCursor")));
+    }
+
+    @Test
+    void getRecommendEvents_WithCursor_ShouldSeekPastLastRowOfPreviousWindow() {
+        when(eventRepository.findWindow(any(Specification.class), any(Sort.class), anyInt()))
+                .thenReturn(List.of(soldEvent(1000, 7)));
+        String cursor = new KeysetCursor("ticketsSold", true, "7", 1001).encode();
+
+        Map<String, Object> result = eventService.getRecommendEvents(
+                null, null, null, null, null, 1, 2, "totalTicketSold:DESC", cursor, true);
+
+        assertEquals(false, result.get("hasNext"));
+        assertNull(result.get("nextCursor"));
+
+        ArgumentCaptor<Specification<Event>> specCaptor = ArgumentCaptor.forClass(Specification.class);
+        verify(eventRepository).findWindow(specCaptor.capture(), any(Sort.class), eq(3));
+        CriteriaBuilder cb = mock(CriteriaBuilder.class, RETURNS_MOCKS);
+        Root<Event> root = mock(Root.class, RETURNS_MOCKS);
+        Path ticketsSoldPath = mock(Path.class);
+        Path eventIdPath = mock(Path.class);
+        lenient().when(root.get("ticketsSold")).thenReturn(ticketsSoldPath);
+        lenient().when(root.get("eventId")).thenReturn(eventIdPath);
+
+        specCaptor.getValue().toPredicate(root, mock(CriteriaQuery.class), cb);
+
+        // ticketsSold < 7 OR (ticketsSold = 7 AND eventId < 1001)
+        verify(cb).lessThan(ticketsSoldPath, (Comparable) 7);
+        verify(cb).equal(ticketsSoldPath, (Object) 7);
+        verify(cb).lessThan(eventIdPath, (Comparable) 1001);
+    }
+
+    @Test
+    void getRecommendEvents_WithCursorForOtherSort_ShouldThrowIllegalArgumentException() {
+        String cursor = new KeysetCursor("updatedAt", true, LocalDateTime.now().toString(), 1001).encode();
+
+        assertThrows(IllegalArgumentException.class, () -> eventService.getRecommendEvents(
+                null, null, null, null, null, 1, 2, "totalTicketSold:DESC", cursor, true));
+        assertThrows(IllegalArgumentException.class, () -> eventService.getRecommendEvents(
+                null, null, null, null, null, 1, 2, null, "not-a-cursor", true));
+        verify(eventRepository, never()).findWindow(any(Specification.class), any(Sort.class), anyInt());
+    }
+
     // Get pending events
     @Test
     public void testGetPendingEvents_success() {
@@ -1154,7 +1392,7 @@ class EventServiceImplTest {
 
         // Call the service
         Map<String, Object> response = eventService.getPendingEvents(
-                request, "some address", null, null, "Test", 1, 10
+                request, "some address", null, null, "Test", 1, 10, null
         );
 
         // Assertions
@@ -1184,7 +1422,7 @@ class EventServiceImplTest {
 
         // Expect SecurityException
         assertThrows(SecurityException.class, () -> {
-            eventService.getPendingEvents(request, null, null, null, null, 1, 10);
+            eventService.getPendingEvents(request, null, null, null, null, 1, 10, null);
         });
     }
 
@@ -1195,7 +1433,7 @@ class EventServiceImplTest {
         when(userRepository.findById(99)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () -> {
-            eventService.getPendingEvents(request, null, null, null, null, 1, 10);
+            eventService.getPendingEvents(request, null, null, null, null, 1, 10, null);
         });
     }
 
@@ -1224,7 +1462,7 @@ class EventServiceImplTest {
         when(eventRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(eventPage);
 
         // Act
-        Map<String, Object> response = eventService.getPendingEvents(request, null, null, null, null, 0, 10);
+        Map<String, Object> response = eventService.getPendingEvents(request, null, null, null, null, 0, 10, null);
 
         // Assert
         assertNotNull(response);
@@ -1252,7 +1490,7 @@ class EventServiceImplTest {
         LocalDateTime startTime = LocalDateTime.now();
         LocalDateTime endTime = LocalDateTime.now().plusDays(1);
 
-        eventService.getPendingEvents(request, address, startTime, endTime, name, 1, 10);
+        eventService.getPendingEvents(request, address, startTime, endTime, name, 1, 10, null);
 
         // Capture specification passed to repository
         ArgumentCaptor<Specification<Event>> specCaptor = ArgumentCaptor.forClass(Specification.class);
@@ -1341,9 +1579,9 @@ class EventServiceImplTest {
         when(eventRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(mockPage);
 
         // Empty string
-        eventService.getPendingEvents(request, "", null, null, null, 1, 10);
+        eventService.getPendingEvents(request, "", null, null, null, 1, 10, null);
         // Null
-        eventService.getPendingEvents(request, null, null, null, null, 1, 10);
+        eventService.getPendingEvents(request, null, null, null, null, 1, 10, null);
 
         ArgumentCaptor<Specification<Event>> captor = ArgumentCaptor.forClass(Specification.class);
         verify(eventRepository, times(2)).findAll(captor.capture(), any(Pageable.class));
@@ -1380,9 +1618,9 @@ class EventServiceImplTest {
         when(eventRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(mockPage);
 
         // Empty string
-        eventService.getPendingEvents(request, null, null, null, "", 1, 10);
+        eventService.getPendingEvents(request, null, null, null, "", 1, 10, null);
         // Null
-        eventService.getPendingEvents(request, null, null, null, null, 1, 10);
+        eventService.getPendingEvents(request, null, null, null, null, 1, 10, null);
 
         ArgumentCaptor<Specification<Event>> captor = ArgumentCaptor.forClass(Specification.class);
         verify(eventRepository, times(2)).findAll(captor.capture(), any(Pageable.class));
@@ -1413,7 +1651,7 @@ class EventServiceImplTest {
 
         LocalDateTime startTime = LocalDateTime.now().minusDays(1);
 
-        eventService.getPendingEvents(request, null, startTime, null, null, 1, 10);
+        eventService.getPendingEvents(request, null, startTime, null, null, 1, 10, null);
 
         ArgumentCaptor<Specification<Event>> captor = ArgumentCaptor.forClass(Specification.class);
         verify(eventRepository).findAll(captor.capture(), any(Pageable.class));
@@ -1445,7 +1683,7 @@ class EventServiceImplTest {
 
         LocalDateTime endTime = LocalDateTime.now().plusDays(1);
 
-        eventService.getPendingEvents(request, null, null, endTime, null, 1, 10);
+        eventService.getPendingEvents(request, null, null, endTime, null, 1, 10, null);
 
         ArgumentCaptor<Specification<Event>> captor = ArgumentCaptor.forClass(Specification.class);
         verify(eventRepository).findAll(captor.capture(), any(Pageable.class));
@@ -1488,7 +1726,7 @@ class EventServiceImplTest {
         // WHEN
         Map<String, Object> result = eventService.getListEvents(
                 request, status, approvalStatus, address,
-                startTime, endTime, name, 1, 10
+                startTime, endTime, name, 1, 10, null
         );
 
         // THEN
@@ -1521,7 +1759,7 @@ class EventServiceImplTest {
 
         // WHEN & THEN
         assertThrows(SecurityException.class, () -> {
-            eventService.getListEvents(request, null, null, null, null, null, null, 1, 10);
+            eventService.getListEvents(request, null, null, null, null, null, null, 1, 10, null);
         });
     }
 
@@ -1543,7 +1781,7 @@ class EventServiceImplTest {
 
         // WHEN
         Map<String, Object> result = eventService.getListEvents(
-                request, null, null, null, startTime, endTime, null, 1, 10
+                request, null, null, null, startTime, endTime, null, 1, 10, null
         );
 
         // THEN
@@ -1568,7 +1806,7 @@ class EventServiceImplTest {
 
         // WHEN
         Map<String, Object> result = eventService.getListEvents(
-                request, null, null, null, null, null, null, 0, 10
+                request, null, null, null, null, null, null, 0, 10, null
         );
 
         // THEN
@@ -1599,7 +1837,7 @@ class EventServiceImplTest {
         LocalDateTime startTime = LocalDateTime.now();
         LocalDateTime endTime = LocalDateTime.now().plusDays(1);
 
-        eventService.getListEvents(request, status, approvalStatus, address, startTime, endTime, name, 2, 10);
+        eventService.getListEvents(request, status, approvalStatus, address, startTime, endTime, name, 2, 10, null);
 
         ArgumentCaptor<Specification<Event>> specCaptor = ArgumentCaptor.forClass(Specification.class);
         verify(eventRepository).findAll(specCaptor.capture(), any(Pageable.class));
@@ -1666,7 +1904,7 @@ class EventServiceImplTest {
 
         LocalDateTime startTime = LocalDateTime.now();
 
-        eventService.getListEvents(request, null, null, null, startTime, null, null, 1, 10);
+        eventService.getListEvents(request, null, null, null, startTime, null, null, 1, 10, null);
 
         ArgumentCaptor<Specification<Event>> captor = ArgumentCaptor.forClass(Specification.class);
         verify(eventRepository).findAll(captor.capture(), any(Pageable.class));
@@ -1698,7 +1936,7 @@ class EventServiceImplTest {
 
         LocalDateTime endTime = LocalDateTime.now().plusDays(1);
 
-        eventService.getListEvents(request, null, null, null, null, endTime, null, 1, 10);
+        eventService.getListEvents(request, null, null, null, null, endTime, null, 1, 10, null);
 
         ArgumentCaptor<Specification<Event>> captor = ArgumentCaptor.forClass(Specification.class);
         verify(eventRepository).findAll(captor.capture(), any(Pageable.class));
@@ -1730,8 +1968,8 @@ class EventServiceImplTest {
         when(eventRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(mockPage);
 
         // WHEN
-        eventService.getListEvents(request, null, null, "", null, null, null, 1, 10);
-        eventService.getListEvents(request, null, null, null, null, null, null, 1, 10);
+        eventService.getListEvents(request, null, null, "", null, null, null, 1, 10, null);
+        eventService.getListEvents(request, null, null, null, null, null, null, 1, 10, null);
 
         // THEN
         ArgumentCaptor<Specification<Event>> captor = ArgumentCaptor.forClass(Specification.class);
@@ -1768,8 +2006,8 @@ class EventServiceImplTest {
         when(eventRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(mockPage);
 
         // WHEN
-        eventService.getListEvents(request, null, null, null, null, null, "", 1, 10);
-        eventService.getListEvents(request, null, null, null, null, null, null, 1, 10);
+        eventService.getListEvents(request, null, null, null, null, null, "", 1, 10, null);
+        eventService.getListEvents(request, null, null, null, null, null, null, 1, 10, null);
 
         // THEN
         ArgumentCaptor<Specification<Event>> captor = ArgumentCaptor.forClass(Specification.class);
@@ -1801,8 +2039,8 @@ class EventServiceImplTest {
         when(eventRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(mockPage);
 
         // WHEN
-        eventService.getListEvents(request, "", null, null, null, null, null, 1, 10);
-        eventService.getListEvents(request, null, null, null, null, null, null, 1, 10);
+        eventService.getListEvents(request, "", null, null, null, null, null, 1, 10, null);
+        eventService.getListEvents(request, null, null, null, null, null, null, 1, 10, null);
 
         // THEN
         ArgumentCaptor<Specification<Event>> captor = ArgumentCaptor.forClass(Specification.class);
@@ -1834,8 +2072,8 @@ class EventServiceImplTest {
         when(eventRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(mockPage);
 
         // WHEN
-        eventService.getListEvents(request, null, "", null, null, null, null, 1, 10);
-        eventService.getListEvents(request, null, null, null, null, null, null, 1, 10);
+        eventService.getListEvents(request, null, "", null, null, null, null, 1, 10, null);
+        eventService.getListEvents(request, null, null, null, null, null, null, 1, 10, null);
 
         // THEN
         ArgumentCaptor<Specification<Event>> captor = ArgumentCaptor.forClass(Specification.class);
@@ -2919,7 +3157,7 @@ class EventServiceImplTest {
         JwtUtil jwtUtil = mock(JwtUtil.class);
 
         EventServiceImpl eventService = new EventServiceImpl(
-                eventRepository, userRepository, wardRepository, ticketRepository, orderTicketRepository, discountRepository, jwtUtil
+                eventRepository, userRepository, wardRepository, ticketRepository, orderTicketRepository, discountRepository, mock(DiscountService.class), mock(EventSearchIndex.class), mock(ListingCountCache.class), jwtUtil
         );
 
         HttpServletRequest request = mock(HttpServletRequest.class);
@@ -2987,7 +3225,7 @@ class EventServiceImplTest {
         JwtUtil jwtUtil = mock(JwtUtil.class);
 
         EventServiceImpl eventService = new EventServiceImpl(
-                eventRepository, userRepository, wardRepository, ticketRepository, orderTicketRepository, discountRepository, jwtUtil
+                eventRepository, userRepository, wardRepository, ticketRepository, orderTicketRepository, discountRepository, mock(DiscountService.class), mock(EventSearchIndex.class), mock(ListingCountCache.class), jwtUtil
         );
 
         HttpServletRequest request = mock(HttpServletRequest.class);
@@ -3014,7 +3252,7 @@ class EventServiceImplTest {
         JwtUtil jwtUtil = mock(JwtUtil.class);
 
         EventServiceImpl eventService = new EventServiceImpl(
-                eventRepository, userRepository, wardRepository, ticketRepository, orderTicketRepository, discountRepository, jwtUtil
+                eventRepository, userRepository, wardRepository, ticketRepository, orderTicketRepository, discountRepository, mock(DiscountService.class), mock(EventSearchIndex.class), mock(ListingCountCache.class), jwtUtil
         );
 
         HttpServletRequest request = mock(HttpServletRequest.class);
@@ -0,0 +1,44 @@
+package com.example.event_ticket_system.event.service;
+
+import com.example.event_ticket_system.Service.ListingCountCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ListingCountCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ListingCountCache listingCountCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        listingCountCache = new ListingCountCache(meterRegistry, 30, 100);
+    }
+
+    @Test
+    void count_ShouldRunCounterOncePerKeyWithinTtl() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThat(listingCountCache.count("recommend|Music", () -> calls.incrementAndGet() * 10L)).isEqualTo(10);
+        assertThat(listingCountCache.count("recommend|Music", () -> calls.incrementAndGet() * 10L)).isEqualTo(10);
+        assertThat(listingCountCache.count("recommend|Sport", () -> calls.incrementAndGet() * 10L)).isEqualTo(20);
+
+        assertThat(calls).hasValue(2);
+        assertThat(meterRegistry.get("listing.count.cache").tag("result", "hit").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("listing.count.cache").tag("result", "miss").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void record_ShouldServeRecordedTotalWithoutCounting() {
+        listingCountCache.record("recommend|Music", 21);
+
+        assertThat(listingCountCache.count("recommend|Music", () -> {
+            throw new AssertionError("should not count");
+        })).isEqualTo(21);
+    }
+}
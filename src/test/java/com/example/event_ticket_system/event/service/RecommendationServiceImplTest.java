@@ -0,0 +1,126 @@
+package com.example.event_ticket_system.event.service;
+
+import com.example.event_ticket_system.DTO.response.EventCardStatsProjection;
+import com.example.event_ticket_system.DTO.response.RecommendEventsResponseDto;
+import com.example.event_ticket_system.Entity.District;
+import com.example.event_ticket_system.Entity.Event;
+import com.example.event_ticket_system.Entity.Province;
+import com.example.event_ticket_system.Entity.Ward;
+import com.example.event_ticket_system.Repository.EventRepository;
+import com.example.event_ticket_system.Repository.OrderTicketRepository;
+import com.example.event_ticket_system.Repository.TicketRepository;
+import com.example.event_ticket_system.Security.JwtUtil;
+import com.example.event_ticket_system.Service.Impl.RecommendationServiceImpl;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecommendationServiceImplTest {
+
+    @InjectMocks
+    private RecommendationServiceImpl recommendationService;
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private OrderTicketRepository orderTicketRepository;
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private HttpServletRequest request;
+
+    private Ward ward;
+
+    @BeforeEach
+    void setUp() {
+        when(request.getHeader("Authorization")).thenReturn("Bearer token");
+        when(jwtUtil.extractUserId("token")).thenReturn(1);
+        Province province = new Province();
+        province.setName("Hà Nội");
+        District district = new District();
+        district.setName("Hoàn Kiếm");
+        district.setProvince(province);
+        ward = new Ward();
+        ward.setName("Tràng Tiền");
+        ward.setDistrict(district);
+    }
+
+    private Event event(int eventId) {
+        Event event = new Event();
+        event.setEventId(eventId);
+        event.setEventName("Event " + eventId);
+        event.setWard(ward);
+        event.setStartTime(LocalDateTime.now().plusDays(1));
+        event.setEndTime(LocalDateTime.now().plusDays(2));
+        event.setCategory("Music");
+        return event;
+    }
+
+    private static EventCardStatsProjection cardStats(int eventId, double minPrice) {
+        return new EventCardStatsProjection() {
+            @Override
+            public Integer getEventId() {
+                return eventId;
+            }
+
+            @Override
+            public Double getMinPrice() {
+                return minPrice;
+            }
+        };
+    }
+
+    @Test
+    void recommendEventsForUser_ShouldLoadCardStatsInOneQuery() {
+        List<Event> events = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            events.add(event(i));
+        }
+        events.get(0).setTicketsSold(12);
+        when(orderTicketRepository.findFavouriteGenresByUserId(1)).thenReturn(List.of("Music"));
+        when(eventRepository.findUpcomingEventsByGenres(eq(List.of("Music")), any())).thenReturn(events);
+        when(ticketRepository.findCardStatsByEventIds(events.stream().map(Event::getEventId).toList()))
+                .thenReturn(List.of(cardStats(1, 200000.0), cardStats(2, 50000.0)));
+
+        List<RecommendEventsResponseDto> result = recommendationService.recommendEventsForUser(request);
+
+        assertThat(result).hasSize(50);
+        assertThat(result.get(0).getMinPrice()).isEqualTo("200000.0");
+        assertThat(result.get(0).getTotalTicketSold()).isEqualTo(12L);
+        assertThat(result.get(0).getAddress()).isEqualTo("Tràng Tiền, Hoàn Kiếm, Hà Nội");
+        assertThat(result.get(2).getMinPrice()).isEqualTo("0.0");
+        assertThat(result.get(2).getTotalTicketSold()).isZero();
+        verify(ticketRepository, times(1)).findCardStatsByEventIds(any());
+        verify(ticketRepository, never()).findByEvent(any());
+        verify(orderTicketRepository, never()).sumQuantityByEvent(any());
+    }
+
+    @Test
+    void recommendEventsForUser_ShouldSkipStatsQuery_WhenNoUpcomingEvents() {
+        when(orderTicketRepository.findFavouriteGenresByUserId(1)).thenReturn(List.of());
+        when(eventRepository.findUpcomingEventsByGenres(any(), any())).thenReturn(List.of());
+        when(eventRepository.findAllUpcomingEvents(any())).thenReturn(List.of());
+
+        assertThat(recommendationService.recommendEventsForUser(request)).isEmpty();
+        verifyNoInteractions(ticketRepository);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.event_ticket_system.mail.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Máy chủ SMTP tối giản chạy trong test: nhận mọi email, có thể cấu hình trả lỗi cho lệnh RCPT/DATA.
+ */
+class FakeSmtpServer implements AutoCloseable {
+    private final ServerSocket serverSocket;
+    private final Thread acceptThread;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final List<String> recipients = new CopyOnWriteArrayList<>();
+    private final List<String> messages = new CopyOnWriteArrayList<>();
+    private volatile String rcptReply = "250 OK";
+    private volatile String rcptFailureAddress;
+    private volatile String dataReply;
+    private volatile int failDataAfter = Integer.MAX_VALUE;
+
+    FakeSmtpServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        acceptThread = new Thread(this::acceptLoop, "fake-smtp");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    int connections() {
+        return connections.get();
+    }
+
+    List<String> messages() {
+        return messages;
+    }
+
+    List<String> recipients() {
+        return recipients;
+    }
+
+    /**
+     * Từ chối RCPT của một địa chỉ cụ thể với câu trả lời cho trước (ví dụ "550 No such user").
+     */
+    void rejectRecipient(String address, String reply) {
+        rcptFailureAddress = address;
+        rcptReply = reply;
+    }
+
+    /**
+     * Nhận {@code acceptedMessages} email rồi trả lời {@code reply} cho mọi lệnh DATA sau đó.
+     */
+    void failDataAfter(int acceptedMessages, String reply) {
+        failDataAfter = acceptedMessages;
+        dataReply = reply;
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                Thread session = new Thread(() -> handle(socket), "fake-smtp-session");
+                session.setDaemon(true);
+                session.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream out = socket.getOutputStream()) {
+            reply(out, "220 localhost fake SMTP");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO" -> reply(out, "250 localhost");
+                    case "HELO", "MAIL", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "RCPT" -> {
+                        String failure = rcptFailureAddress;
+                        if (failure != null && line.contains(failure)) {
+                            reply(out, rcptReply);
+                        } else {
+                            recipients.add(line.substring(line.indexOf(':') + 1).trim());
+                            reply(out, "250 OK");
+                        }
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        StringBuilder body = new StringBuilder();
+                        String data;
+                        while ((data = in.readLine()) != null && !data.equals(".")) {
+                            body.append(data).append("\r\n");
+                        }
+                        if (messages.size() >= failDataAfter) {
+                            reply(out, dataReply);
+                        } else {
+                            messages.add(body.toString());
+                            reply(out, "250 OK queued");
+                        }
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (SocketException e) {
+            // client đóng kết nối
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+}
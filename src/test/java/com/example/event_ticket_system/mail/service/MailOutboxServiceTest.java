@@ -0,0 +1,191 @@
+package com.example.event_ticket_system.mail.service;
+
+import com.example.event_ticket_system.Entity.MailOutbox;
+import com.example.event_ticket_system.Enums.MailStatus;
+import com.example.event_ticket_system.Repository.MailOutboxRepository;
+import com.example.event_ticket_system.Service.MailOutboxService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class MailOutboxServiceTest {
+
+    @Mock
+    private MailOutboxRepository mailOutboxRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private FakeSmtpServer smtpServer;
+    private JavaMailSenderImpl mailSender;
+    private SimpleMeterRegistry meterRegistry;
+    private MailOutboxService mailOutboxService;
+    private final List<MailOutbox> rows = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        smtpServer = new FakeSmtpServer();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtpServer.port());
+        meterRegistry = new SimpleMeterRegistry();
+        mailOutboxService = new MailOutboxService(mailOutboxRepository, mailSender, transactionTemplate,
+                meterRegistry, 0, 0, 20, 100, 30000);
+
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                inv.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any(Consumer.class));
+
+        when(mailOutboxRepository.save(any(MailOutbox.class))).thenAnswer(inv -> {
+            MailOutbox mail = inv.getArgument(0);
+            mail.setMailId((long) rows.size() + 1);
+            rows.add(mail);
+            return mail;
+        });
+        when(mailOutboxRepository.lockDueMailIds(any(LocalDateTime.class), anyInt(), anyInt())).thenAnswer(inv -> rows.stream()
+                .filter(mail -> mail.getStatus() == MailStatus.pending)
+                .filter(mail -> mail.getPriority() >= inv.<Integer>getArgument(1))
+                .limit(inv.<Integer>getArgument(2))
+                .map(MailOutbox::getMailId)
+                .toList());
+        when(mailOutboxRepository.markSending(anyCollection(), any())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            rows.stream().filter(mail -> ids.contains(mail.getMailId())).forEach(mail -> {
+                mail.setStatus(MailStatus.sending);
+                mail.setAttempts(mail.getAttempts() + 1);
+            });
+            return ids.size();
+        });
+        when(mailOutboxRepository.findAllById(any())).thenAnswer(inv -> {
+            Iterable<Long> ids = inv.getArgument(0);
+            List<MailOutbox> found = new ArrayList<>();
+            ids.forEach(id -> found.add(rows.get(id.intValue() - 1)));
+            return found;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mailOutboxService.shutdown();
+        smtpServer.close();
+    }
+
+    @Test
+    void drainOnce_sendsWholeBatchOverOneConnectionInPriorityOrder() throws Exception {
+        mailOutboxService.enqueue(message("a@example.com", "Vé của bạn"), MailOutboxService.PRIORITY_NORMAL);
+        mailOutboxService.enqueue(message("b@example.com", "Mã xác thực"), MailOutboxService.PRIORITY_HIGH);
+        mailOutboxService.enqueue(message("c@example.com", "Vé của bạn"), MailOutboxService.PRIORITY_NORMAL);
+
+        int sent = mailOutboxService.drainOnce();
+
+        assertThat(sent).isEqualTo(3);
+        assertThat(smtpServer.connections()).isEqualTo(1);
+        assertThat(smtpServer.recipients()).containsExactly("<b@example.com>", "<a@example.com>", "<c@example.com>");
+        verify(mailOutboxRepository).markSent(eq(List.of(2L, 1L, 3L)), any());
+        assertThat(meterRegistry.get("mail.outbox.sent").counter().count()).isEqualTo(3.0);
+
+        // Lô sau dùng lại kết nối đang mở
+        mailOutboxService.enqueue(message("d@example.com", "Vé của bạn"), MailOutboxService.PRIORITY_NORMAL);
+        assertThat(mailOutboxService.drainOnce()).isEqualTo(1);
+        assertThat(smtpServer.connections()).isEqualTo(1);
+    }
+
+    @Test
+    void drainPriorityOnce_sendsOnlyHighPriorityMailAndRecordsDeliveryLatency() throws Exception {
+        mailOutboxService.enqueue(message("bulk@example.com", "Vé của bạn"), MailOutboxService.PRIORITY_NORMAL);
+        mailOutboxService.enqueue(message("otp@example.com", "Mã xác thực"), MailOutboxService.PRIORITY_HIGH);
+
+        int sent = mailOutboxService.drainPriorityOnce();
+
+        assertThat(sent).isEqualTo(1);
+        assertThat(smtpServer.recipients()).containsExactly("<otp@example.com>");
+        verify(mailOutboxRepository).markSent(eq(List.of(2L)), any());
+        assertThat(meterRegistry.get("mail.outbox.delivery.latency").tag("priority", "high").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("mail.outbox.delivery.latency").tag("priority", "normal").timer().count()).isZero();
+    }
+
+    @Test
+    void drainOnce_transientFailure_retriesMessageReleasesRestAndPauses() throws Exception {
+        smtpServer.failDataAfter(1, "451 Too many messages, slow down");
+        mailOutboxService.enqueue(message("a@example.com", "1"), MailOutboxService.PRIORITY_NORMAL);
+        mailOutboxService.enqueue(message("b@example.com", "2"), MailOutboxService.PRIORITY_NORMAL);
+        mailOutboxService.enqueue(message("c@example.com", "3"), MailOutboxService.PRIORITY_NORMAL);
+
+        int sent = mailOutboxService.drainOnce();
+
+        assertThat(sent).isEqualTo(1);
+        verify(mailOutboxRepository).markSent(eq(List.of(1L)), any());
+        ArgumentCaptor<String> error = ArgumentCaptor.forClass(String.class);
+        verify(mailOutboxRepository).markRetry(eq(2L), error.capture(), any(), any());
+        assertThat(error.getValue()).startsWith("SMTP 451");
+        verify(mailOutboxRepository).release(eq(List.of(3L)), any(), any());
+        verify(mailOutboxRepository, never()).markDead(any(), anyString(), any());
+        assertThat(meterRegistry.get("mail.outbox.retries").counter().count()).isEqualTo(1.0);
+
+        // Đang tạm dừng: không lấy lô mới
+        clearInvocations(mailOutboxRepository);
+        assertThat(mailOutboxService.drainOnce()).isZero();
+        verify(mailOutboxRepository, never()).lockDueMailIds(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void drainOnce_permanentRecipientFailure_dropsMessageAndContinues() throws Exception {
+        smtpServer.rejectRecipient("bad@example.com", "550 No such user");
+        mailOutboxService.enqueue(message("bad@example.com", "1"), MailOutboxService.PRIORITY_NORMAL);
+        mailOutboxService.enqueue(message("ok@example.com", "2"), MailOutboxService.PRIORITY_NORMAL);
+
+        int sent = mailOutboxService.drainOnce();
+
+        assertThat(sent).isEqualTo(1);
+        ArgumentCaptor<String> error = ArgumentCaptor.forClass(String.class);
+        verify(mailOutboxRepository).markDead(eq(1L), error.capture(), any());
+        assertThat(error.getValue()).startsWith("SMTP 550");
+        verify(mailOutboxRepository).markSent(eq(List.of(2L)), any());
+        verify(mailOutboxRepository, never()).markRetry(any(), anyString(), any(), any());
+        assertThat(smtpServer.messages()).hasSize(1);
+        assertThat(smtpServer.connections()).isEqualTo(1);
+    }
+
+    private MimeMessage message(String to, String subject) throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+        helper.setFrom("noreply@example.com");
+        helper.setTo(to);
+        helper.setSubject(subject);
+        helper.setText("Nội dung");
+        return message;
+    }
+}
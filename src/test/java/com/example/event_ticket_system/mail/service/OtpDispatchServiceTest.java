@@ -0,0 +1,86 @@
+package com.example.event_ticket_system.mail.service;
+
+import com.example.event_ticket_system.Service.EmailService;
+import com.example.event_ticket_system.Service.OtpDispatchService;
+import com.example.event_ticket_system.Service.VerificationCodeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailPreparationException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OtpDispatchServiceTest {
+
+    @Mock
+    private VerificationCodeService verificationCodeService;
+
+    @Mock
+    private EmailService emailService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OtpDispatchService otpDispatchService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        otpDispatchService = new OtpDispatchService(verificationCodeService, emailService, meterRegistry, 30, 1000);
+    }
+
+    @Test
+    void dispatch_ShouldCoalesceRepeatedRequestsForSameEmail() {
+        when(verificationCodeService.generateAndSaveCode("user@example.com")).thenReturn("123456");
+
+        assertThat(otpDispatchService.dispatch("user@example.com")).isTrue();
+        assertThat(otpDispatchService.dispatch(" User@Example.com ")).isFalse();
+
+        verify(verificationCodeService, times(1)).generateAndSaveCode(anyString());
+        verify(emailService, times(1)).sendVerificationEmail("user@example.com", "123456");
+        assertThat(meterRegistry.get("otp.requests").tag("result", "dispatched").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("otp.requests").tag("result", "coalesced").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void dispatch_ShouldNotCoalesceDifferentEmails() {
+        when(verificationCodeService.generateAndSaveCode(anyString())).thenReturn("123456");
+
+        assertThat(otpDispatchService.dispatch("a@example.com")).isTrue();
+        assertThat(otpDispatchService.dispatch("b@example.com")).isTrue();
+
+        verify(emailService, times(2)).sendVerificationEmail(anyString(), eq("123456"));
+    }
+
+    @Test
+    void dispatch_ShouldAllowRetry_WhenQueueingFails() {
+        when(verificationCodeService.generateAndSaveCode("user@example.com")).thenReturn("123456");
+        doThrow(new MailPreparationException("broken")).doNothing()
+                .when(emailService).sendVerificationEmail("user@example.com", "123456");
+
+        assertThatThrownBy(() -> otpDispatchService.dispatch("user@example.com"))
+                .isInstanceOf(MailPreparationException.class);
+        assertThat(otpDispatchService.dispatch("user@example.com")).isTrue();
+
+        verify(emailService, times(2)).sendVerificationEmail("user@example.com", "123456");
+    }
+
+    @Test
+    void dispatch_ShouldStoreCodeUnderNormalisedEmail_SoAnyCasingVerifies() {
+        VerificationCodeService codes = new VerificationCodeService();
+        OtpDispatchService dispatcher = new OtpDispatchService(codes, emailService, new SimpleMeterRegistry(), 30, 1000);
+        ArgumentCaptor<String> code = ArgumentCaptor.forClass(String.class);
+
+        assertThat(dispatcher.dispatch(" User@Example.com ")).isTrue();
+        assertThat(dispatcher.dispatch("user@example.com")).isFalse();
+
+        verify(emailService).sendVerificationEmail(eq("user@example.com"), code.capture());
+        assertThat(codes.verifyCode("USER@example.com", code.getValue())).isTrue();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.event_ticket_system.order.benchmark;
+
+import com.example.event_ticket_system.Util.PayosOrderCodeGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo thông lượng cấp mã PayOS khi nhiều luồng cùng tạo đơn. Chạy bằng main() (không thuộc bộ test của surefire).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayosOrderCodeGeneratorBenchmark {
+    private PayosOrderCodeGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new PayosOrderCodeGenerator(1, 0);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long singleThread() {
+        return generator.nextCode();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long eightThreads() {
+        return generator.nextCode();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PayosOrderCodeGeneratorBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.event_ticket_system.order.service;
+
+import com.example.event_ticket_system.Util.HashedTimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HashedTimingWheelTest {
+
+    @Test
+    void schedule_ShouldFireInDeadlineOrder_AndNotBeforeDeadline() throws Exception {
+        Map<Integer, Long> firedAt = new ConcurrentHashMap<>();
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(3);
+        HashedTimingWheel<Integer> wheel = new HashedTimingWheel<>(10, TimeUnit.MILLISECONDS, 8, id -> {
+            firedAt.put(id, System.nanoTime());
+            order.add(id);
+            latch.countDown();
+        }, "test-wheel");
+        wheel.start();
+        long start = System.nanoTime();
+        // 300ms vượt quá một vòng (8 x 10ms) nên phải đi qua nhiều vòng
+        wheel.schedule(3, 300);
+        wheel.schedule(1, 30);
+        wheel.schedule(2, 120);
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        wheel.stop();
+
+        assertThat(order).containsExactly(1, 2, 3);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(firedAt.get(3) - start)).isGreaterThanOrEqualTo(300);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(firedAt.get(2) - start)).isGreaterThanOrEqualTo(120);
+        assertThat(wheel.pendingCount()).isZero();
+    }
+
+    @Test
+    void schedule_ShouldFireOverdueItemsOnNextTick() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(10, TimeUnit.MILLISECONDS, 8, id -> latch.countDown(), "test-wheel");
+        wheel.start();
+
+        wheel.schedule("overdue", -60_000);
+
+        assertThat(latch.await(1, TimeUnit.SECONDS)).isTrue();
+        wheel.stop();
+    }
+
+    @Test
+    void constructor_ShouldRejectNonPowerOfTwoWheelSize() {
+        assertThatThrownBy(() -> new HashedTimingWheel<Integer>(1, TimeUnit.SECONDS, 10, id -> { }, "test-wheel"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
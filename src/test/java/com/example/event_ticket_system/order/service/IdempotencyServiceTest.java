@@ -0,0 +1,127 @@
+package com.example.event_ticket_system.order.service;
+
+import com.example.event_ticket_system.DTO.request.OrderRequestDto;
+import com.example.event_ticket_system.Service.IdempotencyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyServiceTest {
+
+    private IdempotencyService idempotencyService;
+    private OrderRequestDto order;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(60, 100, 5000);
+        order = new OrderRequestDto();
+        order.setEventId(1);
+        order.setDiscountCode("DISCOUNT10");
+    }
+
+    @Test
+    void execute_ShouldReturnOriginalResult_WhenKeyIsReplayed() {
+        AtomicInteger executions = new AtomicInteger();
+
+        String first = idempotencyService.execute("order:5:abc", order, () -> "order-" + executions.incrementAndGet());
+        String replay = idempotencyService.execute("order:5:abc", order, () -> "order-" + executions.incrementAndGet());
+
+        assertThat(replay).isEqualTo(first).isEqualTo("order-1");
+        assertThat(executions).hasValue(1);
+        assertThat(idempotencyService.<String>find("order:5:abc", order)).contains("order-1");
+        assertThat(idempotencyService.<String>find("order:5:other", order)).isEmpty();
+    }
+
+    @Test
+    void execute_ShouldCollapseConcurrentDuplicates_IntoOneExecution() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> idempotencyService.execute("order:5:abc", order, () -> {
+                    executions.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "order-1";
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("order-1");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void execute_ShouldReject_WhenKeyIsReusedForDifferentRequest() {
+        idempotencyService.execute("order:5:abc", order, () -> "order-1");
+        OrderRequestDto other = new OrderRequestDto();
+        other.setEventId(2);
+
+        assertThatThrownBy(() -> idempotencyService.execute("order:5:abc", other, () -> "order-2"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("different request");
+    }
+
+    @Test
+    void execute_ShouldReplay_WhenRetryCarriesAnEqualBodyInANewObject() {
+        idempotencyService.execute("order:5:abc", order, () -> "order-1");
+        OrderRequestDto retry = new OrderRequestDto();
+        retry.setEventId(1);
+        retry.setDiscountCode("DISCOUNT10");
+
+        assertThat(idempotencyService.execute("order:5:abc", retry, () -> "order-2")).isEqualTo("order-1");
+    }
+
+    @Test
+    void execute_ShouldReject_WhenOnlyTicketLinesDiffer() {
+        order.setTickets(List.of(line(1, 2)));
+        idempotencyService.execute("order:5:abc", order, () -> "order-1");
+        OrderRequestDto other = new OrderRequestDto();
+        other.setEventId(1);
+        other.setDiscountCode("DISCOUNT10");
+        other.setTickets(List.of(line(1, 3)));
+
+        assertThatThrownBy(() -> idempotencyService.execute("order:5:abc", other, () -> "order-2"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("different request");
+    }
+
+    private static OrderRequestDto.OrderTicketRequestDto line(int ticketId, int quantity) {
+        OrderRequestDto.OrderTicketRequestDto line = new OrderRequestDto.OrderTicketRequestDto();
+        line.setTicketId(ticketId);
+        line.setQuantity(quantity);
+        return line;
+    }
+
+    @Test
+    void execute_ShouldReleaseKey_WhenOriginalExecutionFails() {
+        assertThatThrownBy(() -> idempotencyService.execute("order:5:abc", order, () -> {
+            throw new IllegalArgumentException("Not enough tickets available");
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        String retry = idempotencyService.execute("order:5:abc", order, () -> "order-1");
+
+        assertThat(retry).isEqualTo("order-1");
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.event_ticket_system.order.service;
+
+import com.example.event_ticket_system.DTO.response.TicketQuantityProjection;
+import com.example.event_ticket_system.Repository.OrderTicketRepository;
+import com.example.event_ticket_system.Repository.TicketRepository;
+import com.example.event_ticket_system.Service.Impl.InventoryServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryServiceImplTest {
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Mock
+    private OrderTicketRepository orderTicketRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private InventoryServiceImpl inventoryService;
+
+    @Test
+    void reserve_ShouldReturnReservedQuantityPerTicket_WhenStockIsAvailable() {
+        Map<Integer, Integer> requested = new LinkedHashMap<>();
+        requested.put(1, 2);
+        requested.put(2, 3);
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE tickets SET quantity_sold = quantity_sold +"), any(BatchPreparedStatementSetter.class)))
+                .thenReturn(new int[]{1, 1});
+
+        Map<Integer, Integer> reserved = inventoryService.reserve(requested);
+
+        assertThat(reserved).containsExactlyEntriesOf(requested);
+        // Mọi loại vé đi chung một batch
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+    }
+
+    @Test
+    void reserve_ShouldThrow_WhenConditionalUpdateMatchesNoRow() {
+        Map<Integer, Integer> requested = new LinkedHashMap<>();
+        requested.put(1, 2);
+        requested.put(2, 3);
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class)))
+                .thenReturn(new int[]{1, 0});
+
+        assertThatThrownBy(() -> inventoryService.reserve(requested))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Not enough tickets available for ticket: 2");
+    }
+
+    @Test
+    void reserve_ShouldSkipDatabase_WhenNothingRequested() {
+        Map<Integer, Integer> reserved = inventoryService.reserve(Map.of(1, 0));
+
+        assertThat(reserved).isEmpty();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void releaseOrder_ShouldReleaseGroupedQuantities() {
+        TicketQuantityProjection line = mock(TicketQuantityProjection.class);
+        when(line.getTicketId()).thenReturn(7);
+        when(line.getQuantity()).thenReturn(4L);
+        when(orderTicketRepository.sumQuantityByTicketForOrder(10)).thenReturn(List.of(line));
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE tickets SET quantity_sold = quantity_sold -"), any(BatchPreparedStatementSetter.class)))
+                .thenReturn(new int[]{1});
+
+        Map<Integer, Integer> released = inventoryService.releaseOrder(10);
+
+        assertThat(released).containsEntry(7, 4);
+    }
+
+    @Test
+    void release_ShouldSkipTicket_WhenNothingLeftToRelease() {
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class)))
+                .thenReturn(new int[]{0});
+
+        Map<Integer, Integer> released = inventoryService.release(Map.of(3, 1));
+
+        assertThat(released).isEmpty();
+    }
+}
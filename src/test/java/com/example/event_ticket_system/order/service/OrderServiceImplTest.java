@@ -0,0 +1,318 @@
+package com.example.event_ticket_system.order.service;
+
+import com.example.event_ticket_system.DTO.request.OrderRequestDto;
+import com.example.event_ticket_system.Entity.Event;
+import com.example.event_ticket_system.DTO.response.PaymentLinkResponseDto;
+import com.example.event_ticket_system.Entity.Order;
+import com.example.event_ticket_system.Entity.OrderTicket;
+import com.example.event_ticket_system.Entity.PaymentLinkRequest;
+import com.example.event_ticket_system.Entity.Ticket;
+import com.example.event_ticket_system.Entity.User;
+import com.example.event_ticket_system.Enums.OrderStatus;
+import com.example.event_ticket_system.Enums.PaymentLinkStatus;
+import com.example.event_ticket_system.Enums.UserRole;
+import com.example.event_ticket_system.Repository.*;
+import com.example.event_ticket_system.Security.JwtUtil;
+import com.example.event_ticket_system.Service.CheckInService;
+import com.example.event_ticket_system.Service.DiscountService;
+import com.example.event_ticket_system.Service.EventSalesService;
+import com.example.event_ticket_system.Service.IdempotencyService;
+import com.example.event_ticket_system.Service.Impl.OrderServiceImpl;
+import com.example.event_ticket_system.Service.InventoryService;
+import com.example.event_ticket_system.Service.PaymentLinkCancellationService;
+import com.example.event_ticket_system.Service.PaymentLinkService;
+import com.example.event_ticket_system.Service.PaymentWebhookLedger;
+import com.example.event_ticket_system.Service.PendingOrderExpiryService;
+import com.example.event_ticket_system.Service.TicketFulfillmentService;
+import com.example.event_ticket_system.Util.PayosOrderCodeGenerator;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.payos.PayOS;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceImplTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Mock
+    private DiscountService discountService;
+
+    @Mock
+    private OrderTicketRepository orderTicketRepository;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private PendingOrderExpiryService pendingOrderExpiryService;
+
+    @Mock
+    private PayOS payOS;
+
+    @Mock
+    private PayosOrderCodeGenerator payosOrderCodeGenerator;
+
+    @Mock
+    private PaymentLinkRequestRepository paymentLinkRequestRepository;
+
+    @Mock
+    private PaymentLinkService paymentLinkService;
+
+    @Mock
+    private PaymentLinkCancellationService paymentLinkCancellationService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private TicketFulfillmentService ticketFulfillmentService;
+
+    @Mock
+    private PaymentWebhookLedger paymentWebhookLedger;
+
+    @Mock
+    private EventSalesService eventSalesService;
+
+    @Mock
+    private CheckInService checkInService;
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private HttpServletRequest request;
+
+    @InjectMocks
+    private OrderServiceImpl orderService;
+
+    private OrderRequestDto fiveLineOrder(List<Ticket> tickets) {
+        OrderRequestDto dto = new OrderRequestDto();
+        dto.setEventId(1);
+        List<OrderRequestDto.OrderTicketRequestDto> lines = new ArrayList<>();
+        for (Ticket ticket : tickets) {
+            OrderRequestDto.OrderTicketRequestDto line = new OrderRequestDto.OrderTicketRequestDto();
+            line.setTicketId(ticket.getTicketId());
+            line.setQuantity(2);
+            lines.add(line);
+        }
+        dto.setTickets(lines);
+        dto.setReturnUrl("http://localhost/success");
+        dto.setCancelUrl("http://localhost/cancel");
+        return dto;
+    }
+
+    private List<Ticket> fiveTickets() {
+        Event event = new Event();
+        event.setEventId(1);
+        event.setEventName("Concert");
+        List<Ticket> tickets = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            tickets.add(new Ticket(i, event, 100000.0, "Type " + i, 100, 0, null, null));
+        }
+        return tickets;
+    }
+
+    private void mockCustomer() {
+        User customer = new User();
+        customer.setId(5);
+        customer.setRole(UserRole.customer);
+        when(request.getHeader("Authorization")).thenReturn("Bearer token");
+        when(jwtUtil.extractUserId("token")).thenReturn(5);
+        when(userRepository.findById(5)).thenReturn(Optional.of(customer));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+    }
+
+    @Test
+    void createOrder_ShouldIssueOneStatementPerTable_ForFiveLineOrder() {
+        mockCustomer();
+        List<Ticket> tickets = fiveTickets();
+        when(ticketRepository.findAllWithEventByTicketIdIn(any())).thenReturn(tickets);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setOrderId(42);
+            return order;
+        });
+        when(payosOrderCodeGenerator.nextCode()).thenReturn(123456789L);
+        when(paymentLinkRequestRepository.save(any(PaymentLinkRequest.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        PaymentLinkResponseDto created = new PaymentLinkResponseDto(123456789L, PaymentLinkStatus.created, "https://pay.payos.vn/web/abc", "abc");
+        when(paymentLinkService.awaitPaymentLink(any(PaymentLinkRequest.class))).thenReturn(created);
+
+        PaymentLinkResponseDto result = orderService.createOrder(fiveLineOrder(tickets), null, request);
+
+        assertThat(result).isEqualTo(created);
+        verifyNoInteractions(idempotencyService);
+
+        // Một truy vấn nạp vé (kèm sự kiện), một batch giữ chỗ, một insert đơn, một lô insert dòng đơn
+        verify(ticketRepository, times(1)).findAllWithEventByTicketIdIn(any());
+        verifyNoMoreInteractions(ticketRepository);
+        verify(inventoryService, times(1)).reserve(Map.of(1, 2, 2, 2, 3, 2, 4, 2, 5, 2));
+        verify(orderRepository, times(1)).save(any(Order.class));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<OrderTicket>> lines = ArgumentCaptor.forClass(List.class);
+        verify(orderTicketRepository, times(1)).saveAll(lines.capture());
+        verify(orderTicketRepository, never()).save(any());
+        assertThat(lines.getValue()).hasSize(5).allSatisfy(line -> assertThat(line.getOrder().getOrderId()).isEqualTo(42));
+        verify(pendingOrderExpiryService).scheduleAfterCommit(eq(42), any());
+        // Không gọi PayOS trong transaction; chỉ ghi một dòng outbox
+        ArgumentCaptor<PaymentLinkRequest> outbox = ArgumentCaptor.forClass(PaymentLinkRequest.class);
+        verify(paymentLinkRequestRepository, times(1)).save(outbox.capture());
+        assertThat(outbox.getValue().getPayosOrderCode()).isEqualTo(123456789L);
+        assertThat(outbox.getValue().getAmount()).isEqualTo(1000000);
+        assertThat(outbox.getValue().getQuantity()).isEqualTo(10);
+        assertThat(outbox.getValue().getItemName()).isEqualTo("Tickets for Concert");
+        verifyNoInteractions(payOS);
+    }
+
+    @Test
+    void createOrder_ShouldThrow_WhenTicketIsMissing() {
+        mockCustomer();
+        List<Ticket> tickets = fiveTickets();
+        when(ticketRepository.findAllWithEventByTicketIdIn(any())).thenReturn(tickets.subList(0, 4));
+
+        assertThatThrownBy(() -> orderService.createOrder(fiveLineOrder(tickets), null, request))
+                .isInstanceOf(jakarta.persistence.EntityNotFoundException.class)
+                .hasMessageContaining("Ticket not found: 5");
+        verifyNoInteractions(inventoryService, orderRepository, orderTicketRepository);
+    }
+
+    @Test
+    void markPaidFromWebhook_ShouldFlipOrderAndEnqueueFulfillment_WhenOrderIsPending() {
+        Order order = new Order();
+        order.setOrderId(42);
+        order.setStatus(OrderStatus.pending);
+        when(orderRepository.findByPayosOrderCode(123456789L)).thenReturn(order);
+        when(orderRepository.markPaidIfPending(42)).thenReturn(1);
+
+        boolean result = orderService.markPaidFromWebhook(123456789L, "FT123");
+
+        assertThat(result).isTrue();
+        verify(paymentWebhookLedger).record(123456789L, "FT123");
+        verify(ticketFulfillmentService).enqueue(order);
+        verify(eventSalesService).recordPaid(List.of(42));
+        verifyNoInteractions(orderTicketRepository);
+    }
+
+    @Test
+    void markPaidFromWebhook_ShouldNotEnqueueAgain_WhenWebhookIsRedelivered() {
+        Order order = new Order();
+        order.setOrderId(42);
+        order.setStatus(OrderStatus.paid);
+        when(orderRepository.findByPayosOrderCode(123456789L)).thenReturn(order);
+        when(orderRepository.markPaidIfPending(42)).thenReturn(0);
+
+        boolean result = orderService.markPaidFromWebhook(123456789L, "FT123");
+
+        assertThat(result).isFalse();
+        verifyNoInteractions(ticketFulfillmentService, eventSalesService);
+    }
+
+    @Test
+    void confirmPayment_ShouldCountSaleOnce_WhenOrderIsStillPending() {
+        User admin = new User();
+        admin.setId(1);
+        admin.setRole(UserRole.admin);
+        when(request.getHeader("Authorization")).thenReturn("Bearer token");
+        when(jwtUtil.extractUserId("token")).thenReturn(1);
+        when(userRepository.findById(1)).thenReturn(Optional.of(admin));
+        Order order = new Order();
+        order.setOrderId(42);
+        order.setStatus(OrderStatus.pending);
+        when(orderRepository.findByPayosOrderCode(123456789L)).thenReturn(order);
+        when(orderRepository.markPaidIfPending(42)).thenReturn(1);
+
+        orderService.confirmPayment("123456789", request);
+
+        verify(eventSalesService).recordPaid(List.of(42));
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void confirmPayment_ShouldRejectWithoutCounting_WhenOrderIsCancelled() {
+        User admin = new User();
+        admin.setId(1);
+        admin.setRole(UserRole.admin);
+        when(request.getHeader("Authorization")).thenReturn("Bearer token");
+        when(jwtUtil.extractUserId("token")).thenReturn(1);
+        when(userRepository.findById(1)).thenReturn(Optional.of(admin));
+        Order order = new Order();
+        order.setOrderId(42);
+        order.setStatus(OrderStatus.cancelled);
+        when(orderRepository.findByPayosOrderCode(123456789L)).thenReturn(order);
+        when(orderRepository.markPaidIfPending(42)).thenReturn(0);
+
+        assertThatThrownBy(() -> orderService.confirmPayment("123456789", request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Cancelled");
+        verifyNoInteractions(eventSalesService);
+    }
+
+    @Test
+    void cancelOrder_ShouldSubtractFromTicketsSold_WhenPaidOrderIsCancelled() {
+        User admin = new User();
+        admin.setId(1);
+        admin.setRole(UserRole.admin);
+        when(request.getHeader("Authorization")).thenReturn("Bearer token");
+        when(jwtUtil.extractUserId("token")).thenReturn(1);
+        when(userRepository.findById(1)).thenReturn(Optional.of(admin));
+        Order order = new Order();
+        order.setOrderId(42);
+        when(orderRepository.findByPayosOrderCode(123456789L)).thenReturn(order);
+        when(orderRepository.lockOrderStatus(42)).thenReturn("paid");
+        when(orderRepository.cancelIfNotCancelled(42, null)).thenReturn(1);
+
+        orderService.cancelOrder("123456789", request);
+
+        verify(eventSalesService).recordPaidCancelled(List.of(42));
+        verify(checkInService).revokeOrder(42);
+        verify(inventoryService).releaseOrder(42);
+    }
+
+    @Test
+    void cancelOrder_ShouldLeaveTicketsSold_WhenPendingOrderIsCancelled() {
+        User admin = new User();
+        admin.setId(1);
+        admin.setRole(UserRole.admin);
+        when(request.getHeader("Authorization")).thenReturn("Bearer token");
+        when(jwtUtil.extractUserId("token")).thenReturn(1);
+        when(userRepository.findById(1)).thenReturn(Optional.of(admin));
+        Order order = new Order();
+        order.setOrderId(42);
+        when(orderRepository.findByPayosOrderCode(123456789L)).thenReturn(order);
+        when(orderRepository.lockOrderStatus(42)).thenReturn("pending");
+        when(orderRepository.cancelIfNotCancelled(42, null)).thenReturn(1);
+
+        orderService.cancelOrder("123456789", request);
+
+        verifyNoInteractions(eventSalesService);
+        verify(inventoryService).releaseOrder(42);
+    }
+}
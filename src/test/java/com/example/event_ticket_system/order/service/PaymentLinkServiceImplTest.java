@@ -0,0 +1,236 @@
+package com.example.event_ticket_system.order.service;
+
+import com.example.event_ticket_system.DTO.response.PaymentLinkResponseDto;
+import com.example.event_ticket_system.Entity.Order;
+import com.example.event_ticket_system.Entity.PaymentLinkRequest;
+import com.example.event_ticket_system.Enums.OrderStatus;
+import com.example.event_ticket_system.Enums.PaymentLinkStatus;
+import com.example.event_ticket_system.Repository.OrderRepository;
+import com.example.event_ticket_system.Repository.PaymentLinkRequestRepository;
+import com.example.event_ticket_system.Service.Impl.PaymentLinkServiceImpl;
+import com.example.event_ticket_system.Service.EventSalesService;
+import com.example.event_ticket_system.Service.InventoryService;
+import com.example.event_ticket_system.Service.TicketFulfillmentService;
+import com.example.event_ticket_system.Util.PayosOrderCodeGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.payos.PayOS;
+import vn.payos.type.CheckoutResponseData;
+import vn.payos.type.PaymentData;
+import vn.payos.type.PaymentLinkData;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PaymentLinkServiceImplTest {
+
+    @Mock
+    private PaymentLinkRequestRepository paymentLinkRequestRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private EventSalesService eventSalesService;
+
+    @Mock
+    private TicketFulfillmentService ticketFulfillmentService;
+
+    @Mock
+    private PayOS payOS;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private PaymentLinkServiceImpl paymentLinkService;
+    private PaymentLinkRequest paymentLinkRequest;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        paymentLinkService = new PaymentLinkServiceImpl(paymentLinkRequestRepository, orderRepository, inventoryService,
+                eventSalesService, ticketFulfillmentService, new PayosOrderCodeGenerator(0, 123456789L),
+                payOS, transactionTemplate, 2, 10, 2000);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any(Consumer.class));
+
+        Order order = new Order();
+        order.setOrderId(42);
+        order.setStatus(OrderStatus.pending);
+        paymentLinkRequest = new PaymentLinkRequest();
+        paymentLinkRequest.setRequestId(7);
+        paymentLinkRequest.setOrder(order);
+        paymentLinkRequest.setPayosOrderCode(123456789L);
+        paymentLinkRequest.setAmount(200000);
+        paymentLinkRequest.setItemName("Tickets for Concert");
+        paymentLinkRequest.setQuantity(2);
+        paymentLinkRequest.setReturnUrl("http://localhost/success");
+        paymentLinkRequest.setCancelUrl("http://localhost/cancel");
+        paymentLinkRequest.setStatus(PaymentLinkStatus.pending);
+        paymentLinkRequest.setAttempts(1);
+        paymentLinkRequest.setNextAttemptAt(LocalDateTime.now());
+        when(paymentLinkRequestRepository.claim(eq(7), any())).thenReturn(1);
+        when(paymentLinkRequestRepository.findById(7)).thenReturn(Optional.of(paymentLinkRequest));
+        when(orderRepository.findById(42)).thenReturn(Optional.of(order));
+        when(orderRepository.replacePayosOrderCodeIfPending(eq(42), anyLong())).thenReturn(1);
+    }
+
+    // PayOS từ chối orderCode đã từng có link, kể cả khi link đó đã bị huỷ hoặc hết hạn
+    private void rejectDuplicateOrderCode(CheckoutResponseData data) throws Exception {
+        when(payOS.createPaymentLink(any(PaymentData.class))).thenAnswer(invocation -> {
+            if (invocation.<PaymentData>getArgument(0).getOrderCode() == 123456789L) {
+                throw new RuntimeException("Đơn thanh toán đã tồn tại");
+            }
+            return data;
+        });
+    }
+
+    private static PaymentLinkData existingLink(String status) {
+        return PaymentLinkData.builder()
+                .id("old")
+                .orderCode(123456789L)
+                .status(status)
+                .amount(200000)
+                .amountPaid(0)
+                .amountRemaining(200000)
+                .createdAt("2026-01-01T00:00:00+07:00")
+                .transactions(List.of())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        paymentLinkService.shutdown();
+    }
+
+    @Test
+    void awaitPaymentLink_ShouldReturnLink_WhenPayOSRespondsInTime() throws Exception {
+        CheckoutResponseData data = mock(CheckoutResponseData.class);
+        when(data.getCheckoutUrl()).thenReturn("https://pay.payos.vn/web/abc");
+        when(data.getPaymentLinkId()).thenReturn("abc");
+        when(payOS.createPaymentLink(any(PaymentData.class))).thenReturn(data);
+
+        PaymentLinkResponseDto result = paymentLinkService.awaitPaymentLink(paymentLinkRequest);
+
+        assertThat(result.getStatus()).isEqualTo(PaymentLinkStatus.created);
+        assertThat(result.getCheckoutUrl()).isEqualTo("https://pay.payos.vn/web/abc");
+        verify(paymentLinkRequestRepository).markCreated(eq(7), eq("https://pay.payos.vn/web/abc"), eq("abc"), any());
+    }
+
+    @Test
+    void awaitPaymentLink_ShouldScheduleRetry_WhenPayOSFails() throws Exception {
+        when(payOS.createPaymentLink(any(PaymentData.class))).thenThrow(new RuntimeException("timeout"));
+
+        PaymentLinkResponseDto result = paymentLinkService.awaitPaymentLink(paymentLinkRequest);
+
+        assertThat(result.getStatus()).isEqualTo(PaymentLinkStatus.pending);
+        verify(paymentLinkRequestRepository).markRetry(eq(7), eq("timeout"), any(), any());
+        verifyNoInteractions(inventoryService);
+    }
+
+    @Test
+    void awaitPaymentLink_ShouldCancelOrderAndReleaseTickets_AfterLastAttempt() throws Exception {
+        paymentLinkRequest.setAttempts(5);
+        when(payOS.getPaymentLinkInformation(123456789L)).thenThrow(new RuntimeException("not found"));
+        when(payOS.createPaymentLink(any(PaymentData.class))).thenThrow(new RuntimeException("unavailable"));
+        when(orderRepository.cancelIfPending(eq(42), any())).thenReturn(1);
+
+        PaymentLinkResponseDto result = paymentLinkService.awaitPaymentLink(paymentLinkRequest);
+
+        assertThat(result.getStatus()).isEqualTo(PaymentLinkStatus.failed);
+        verify(paymentLinkRequestRepository).markFailed(eq(7), eq("unavailable"), any());
+        verify(inventoryService).releaseOrder(42);
+    }
+
+    @Test
+    void awaitPaymentLink_ShouldReplaceOrphanPendingLinkUnderFreshOrderCode_OnRetry() throws Exception {
+        paymentLinkRequest.setAttempts(2);
+        PaymentLinkData orphan = existingLink("PENDING");
+        when(payOS.getPaymentLinkInformation(123456789L)).thenReturn(orphan);
+        CheckoutResponseData data = mock(CheckoutResponseData.class);
+        when(data.getCheckoutUrl()).thenReturn("https://pay.payos.vn/web/new");
+        when(data.getPaymentLinkId()).thenReturn("new");
+        rejectDuplicateOrderCode(data);
+
+        PaymentLinkResponseDto result = paymentLinkService.awaitPaymentLink(paymentLinkRequest);
+
+        assertThat(result.getStatus()).isEqualTo(PaymentLinkStatus.created);
+        assertThat(result.getCheckoutUrl()).isEqualTo("https://pay.payos.vn/web/new");
+        // Client vẫn hỏi bằng mã cũ, còn đơn và link chuyển sang mã mới
+        assertThat(result.getPayosOrderCode()).isEqualTo(123456789L);
+        verify(payOS).cancelPaymentLink(eq(123456789L), any());
+        ArgumentCaptor<Long> newCode = ArgumentCaptor.forClass(Long.class);
+        verify(orderRepository).replacePayosOrderCodeIfPending(eq(42), newCode.capture());
+        assertThat(newCode.getValue()).isNotEqualTo(123456789L);
+        verify(paymentLinkRequestRepository).updateLinkOrderCode(eq(7), eq(newCode.getValue()), any());
+        ArgumentCaptor<PaymentData> sent = ArgumentCaptor.forClass(PaymentData.class);
+        verify(payOS).createPaymentLink(sent.capture());
+        assertThat(sent.getValue().getOrderCode()).isEqualTo(newCode.getValue());
+        verify(paymentLinkRequestRepository).markCreated(eq(7), eq("https://pay.payos.vn/web/new"), eq("new"), any());
+    }
+
+    @Test
+    void awaitPaymentLink_ShouldCreateNewLink_WhenPreviousLinkExpired() throws Exception {
+        paymentLinkRequest.setAttempts(2);
+        when(payOS.getPaymentLinkInformation(123456789L))
+                .thenReturn(existingLink("EXPIRED"));
+        CheckoutResponseData data = mock(CheckoutResponseData.class);
+        when(data.getCheckoutUrl()).thenReturn("https://pay.payos.vn/web/new");
+        when(data.getPaymentLinkId()).thenReturn("new");
+        rejectDuplicateOrderCode(data);
+
+        PaymentLinkResponseDto result = paymentLinkService.awaitPaymentLink(paymentLinkRequest);
+
+        assertThat(result.getPaymentLinkId()).isEqualTo("new");
+        verify(payOS, never()).cancelPaymentLink(anyLong(), any());
+        verify(orderRepository).replacePayosOrderCodeIfPending(eq(42), anyLong());
+    }
+
+    @Test
+    void awaitPaymentLink_ShouldMarkOrderPaidAndStopRetrying_WhenOrphanLinkIsPaid() throws Exception {
+        paymentLinkRequest.setAttempts(5);
+        when(payOS.getPaymentLinkInformation(123456789L))
+                .thenReturn(existingLink("PAID"));
+        rejectDuplicateOrderCode(mock(CheckoutResponseData.class));
+        when(orderRepository.markPaidIfPending(42)).thenReturn(1);
+
+        PaymentLinkResponseDto result = paymentLinkService.awaitPaymentLink(paymentLinkRequest);
+
+        assertThat(result.getStatus()).isEqualTo(PaymentLinkStatus.created);
+        assertThat(result.getPaymentLinkId()).isEqualTo("old");
+        verify(payOS, never()).createPaymentLink(any(PaymentData.class));
+        verify(payOS, never()).cancelPaymentLink(anyLong(), any());
+        verify(eventSalesService).recordPaid(List.of(42));
+        verify(ticketFulfillmentService).enqueue(any());
+        verify(paymentLinkRequestRepository).markCreated(eq(7), isNull(), eq("old"), any());
+        verify(paymentLinkRequestRepository, never()).markRetry(any(), any(), any(), any());
+        verify(paymentLinkRequestRepository, never()).markFailed(any(), any(), any());
+        verify(orderRepository, never()).cancelIfPending(any(), any());
+        verifyNoInteractions(inventoryService);
+    }
+}
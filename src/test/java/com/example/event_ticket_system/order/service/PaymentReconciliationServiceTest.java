@@ -0,0 +1,194 @@
+package com.example.event_ticket_system.order.service;
+
+import com.example.event_ticket_system.DTO.response.PaymentReconciliationReportDto;
+import com.example.event_ticket_system.DTO.response.ReconciliationCandidateProjection;
+import com.example.event_ticket_system.DTO.response.TicketQuantityProjection;
+import com.example.event_ticket_system.Entity.Order;
+import com.example.event_ticket_system.Repository.OrderRepository;
+import com.example.event_ticket_system.Repository.OrderTicketRepository;
+import com.example.event_ticket_system.Service.EventSalesService;
+import com.example.event_ticket_system.Service.InventoryService;
+import com.example.event_ticket_system.Service.PaymentReconciliationService;
+import com.example.event_ticket_system.Service.TicketFulfillmentService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PaymentReconciliationServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderTicketRepository orderTicketRepository;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private TicketFulfillmentService ticketFulfillmentService;
+
+    @Mock
+    private EventSalesService eventSalesService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private PayosStub payos;
+    private SimpleMeterRegistry meterRegistry;
+    private PaymentReconciliationService reconciliationService;
+
+    @BeforeEach
+    void setUp() {
+        payos = new PayosStub()
+                .link(1001L, "PAID", 200000, 200000)
+                .link(1002L, "EXPIRED", 150000, 0)
+                .link(1003L, "PENDING", 100000, 0)
+                .link(1004L, "PAID", 300000, 100000)
+                .link(1006L, "PAID", 50000, 50000);
+        meterRegistry = new SimpleMeterRegistry();
+        reconciliationService = new PaymentReconciliationService(payos, orderRepository, orderTicketRepository,
+                inventoryService, ticketFulfillmentService, eventSalesService, transactionTemplate, meterRegistry, 5, 24, 500, 2, 1000);
+
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+        when(orderRepository.findPendingForReconciliation(any(), any())).thenReturn(List.of(
+                candidate(1, 1001L, 200000), candidate(2, 1002L, 150000), candidate(3, 1003L, 100000),
+                candidate(4, 1004L, 300000), candidate(5, 1005L, 80000)));
+        when(orderRepository.findCancelledForReconciliation(anyString(), any(), any()))
+                .thenReturn(List.of(candidate(6, 1006L, 50000)));
+        when(orderRepository.lockPendingOrderIds(anyCollection()))
+                .thenAnswer(invocation -> List.copyOf(invocation.<Collection<Integer>>getArgument(0)));
+        when(orderRepository.getReferenceById(any())).thenAnswer(invocation -> {
+            Order order = new Order();
+            order.setOrderId(invocation.getArgument(0));
+            return order;
+        });
+        when(orderTicketRepository.sumQuantityByTicketForOrders(List.of(2))).thenReturn(List.of(line(10, 3)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        reconciliationService.shutdown();
+    }
+
+    private static ReconciliationCandidateProjection candidate(int orderId, long payosOrderCode, double totalAmount) {
+        return new ReconciliationCandidateProjection() {
+            @Override
+            public Integer getOrderId() {
+                return orderId;
+            }
+
+            @Override
+            public Long getPayosOrderCode() {
+                return payosOrderCode;
+            }
+
+            @Override
+            public Double getTotalAmount() {
+                return totalAmount;
+            }
+        };
+    }
+
+    private static TicketQuantityProjection line(int ticketId, long quantity) {
+        return new TicketQuantityProjection() {
+            @Override
+            public Integer getTicketId() {
+                return ticketId;
+            }
+
+            @Override
+            public Long getQuantity() {
+                return quantity;
+            }
+        };
+    }
+
+    @Test
+    void reconcile_DryRun_ShouldClassifyOrdersWithoutWriting() {
+        PaymentReconciliationReportDto report = reconciliationService.reconcile(true);
+
+        assertThat(report.isDryRun()).isTrue();
+        assertThat(report.getCheckedOrders()).isEqualTo(6);
+        assertThat(report.getPaidOrderIds()).containsExactly(1);
+        assertThat(report.getCancelledOrderIds()).containsExactly(2);
+        assertThat(report.getStillPendingOrders()).isEqualTo(1);
+        assertThat(report.getAmountMismatchOrderIds()).containsExactly(4);
+        assertThat(report.getFailedOrderIds()).containsExactly(5);
+        assertThat(report.getPaidButCancelledOrderIds()).containsExactly(6);
+        assertThat(payos.calls()).containsExactlyInAnyOrder(1001L, 1002L, 1003L, 1004L, 1005L, 1006L);
+        verifyNoInteractions(transactionTemplate, inventoryService, ticketFulfillmentService, eventSalesService);
+        verify(orderRepository, never()).markPendingOrdersPaid(any());
+        verify(orderRepository, never()).cancelPendingOrders(any(), anyString());
+    }
+
+    @Test
+    void reconcile_ShouldApplyResultsWithSetBasedUpdates() {
+        PaymentReconciliationReportDto report = reconciliationService.reconcile(false);
+
+        assertThat(report.getPaidOrderIds()).containsExactly(1);
+        assertThat(report.getCancelledOrderIds()).containsExactly(2);
+        verify(transactionTemplate, times(1)).execute(any());
+        verify(orderRepository).lockPendingOrderIds(List.of(1, 2));
+        verify(orderRepository).markPendingOrdersPaid(List.of(1));
+        verify(eventSalesService).recordPaid(List.of(1));
+        verify(ticketFulfillmentService).enqueue(argThat(order -> order.getOrderId() == 1));
+        verify(orderRepository).cancelPendingOrders(eq(List.of(2)), eq(PaymentReconciliationService.RECONCILE_CANCEL_REASON));
+        verify(inventoryService).release(Map.of(10, 3));
+        assertThat(meterRegistry.get("payos.reconcile.orders").tag("result", "paid").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("payos.reconcile.lookup.failures").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void reconcile_ShouldSkipOrdersSettledWhileFetching() {
+        // Webhook đã xử lý đơn 1 trong lúc hỏi PayOS: khoá chỉ còn trả về đơn 2
+        when(orderRepository.lockPendingOrderIds(anyCollection())).thenReturn(List.of(2));
+
+        PaymentReconciliationReportDto report = reconciliationService.reconcile(false);
+
+        assertThat(report.getPaidOrderIds()).isEmpty();
+        assertThat(report.getCancelledOrderIds()).containsExactly(2);
+        verify(orderRepository, never()).markPendingOrdersPaid(any());
+        verifyNoInteractions(ticketFulfillmentService);
+    }
+
+    @Test
+    void reconcile_ShouldBoundParallelismAndSpaceOutCalls() {
+        PaymentReconciliationService limited = new PaymentReconciliationService(payos.latency(30), orderRepository,
+                orderTicketRepository, inventoryService, ticketFulfillmentService, eventSalesService, transactionTemplate,
+                new SimpleMeterRegistry(), 5, 24, 500, 2, 50);
+        try {
+            limited.reconcile(true);
+        } finally {
+            limited.shutdown();
+        }
+
+        assertThat(payos.maxInFlight()).isLessThanOrEqualTo(2);
+        List<Long> starts = payos.callNanos().stream().sorted().toList();
+        // 50 lượt/giây -> các lượt gọi cách nhau ít nhất ~20ms
+        assertThat(starts.get(starts.size() - 1) - starts.get(0)).isGreaterThanOrEqualTo(5 * 18_000_000L);
+    }
+}
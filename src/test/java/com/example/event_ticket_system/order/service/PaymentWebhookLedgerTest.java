@@ -0,0 +1,61 @@
+package com.example.event_ticket_system.order.service;
+
+import com.example.event_ticket_system.Entity.ProcessedWebhook;
+import com.example.event_ticket_system.Repository.ProcessedWebhookRepository;
+import com.example.event_ticket_system.Service.PaymentWebhookLedger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentWebhookLedgerTest {
+
+    @Mock
+    private ProcessedWebhookRepository processedWebhookRepository;
+
+    private PaymentWebhookLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new PaymentWebhookLedger(processedWebhookRepository, 100, 24);
+    }
+
+    @Test
+    void isProcessed_ShouldAnswerFromMemory_AfterRecord() {
+        ledger.record(123456789L, "FT123");
+
+        assertThat(ledger.isProcessed(123456789L, "FT123")).isTrue();
+        assertThat(ledger.isProcessed(123456789L, "FT123")).isTrue();
+        verify(processedWebhookRepository, never()).existsByPayosOrderCodeAndReference(anyLong(), anyString());
+
+        ArgumentCaptor<ProcessedWebhook> saved = ArgumentCaptor.forClass(ProcessedWebhook.class);
+        verify(processedWebhookRepository).save(saved.capture());
+        assertThat(saved.getValue().getPayosOrderCode()).isEqualTo(123456789L);
+        assertThat(saved.getValue().getReference()).isEqualTo("FT123");
+    }
+
+    @Test
+    void isProcessed_ShouldFallBackToTableOnce_WhenNotCached() {
+        when(processedWebhookRepository.existsByPayosOrderCodeAndReference(123456789L, "FT123")).thenReturn(true);
+
+        assertThat(ledger.isProcessed(123456789L, "FT123")).isTrue();
+        assertThat(ledger.isProcessed(123456789L, "FT123")).isTrue();
+
+        verify(processedWebhookRepository, times(1)).existsByPayosOrderCodeAndReference(123456789L, "FT123");
+        assertThat(ledger.cachedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void isProcessed_ShouldReturnFalse_ForNewDeliveryAndNotCacheMiss() {
+        when(processedWebhookRepository.existsByPayosOrderCodeAndReference(123456789L, "")).thenReturn(false);
+
+        assertThat(ledger.isProcessed(123456789L, null)).isFalse();
+        assertThat(ledger.cachedCount()).isZero();
+    }
+}
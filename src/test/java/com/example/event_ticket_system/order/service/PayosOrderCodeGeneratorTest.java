@@ -0,0 +1,93 @@
+package com.example.event_ticket_system.order.service;
+
+import com.example.event_ticket_system.Util.PayosOrderCodeGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PayosOrderCodeGeneratorTest {
+
+    @Test
+    void nextCode_ShouldNeverRepeat_UnderConcurrentGeneration() throws Exception {
+        PayosOrderCodeGenerator generator = new PayosOrderCodeGenerator(3, 0);
+        int threads = 8;
+        int perThread = 500_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                long[] codes = new long[perThread];
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    codes[i] = generator.nextCode();
+                }
+                return codes;
+            }));
+        }
+        start.countDown();
+        long[] all = new long[threads * perThread];
+        for (int t = 0; t < threads; t++) {
+            System.arraycopy(futures.get(t).get(60, TimeUnit.SECONDS), 0, all, t * perThread, perThread);
+        }
+        executor.shutdown();
+
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertThat(all[i]).isGreaterThan(all[i - 1]);
+        }
+        assertThat(all[0]).isPositive();
+        assertThat(all[all.length - 1]).isLessThanOrEqualTo(PayosOrderCodeGenerator.MAX_CODE);
+        assertThat(PayosOrderCodeGenerator.nodeId(all[0])).isEqualTo(3);
+    }
+
+    @Test
+    void nextCode_ShouldStayIncreasing_WhenClockMovesBackwards() {
+        AtomicLong clock = new AtomicLong(PayosOrderCodeGenerator.EPOCH_MILLIS + 1_000_000);
+        PayosOrderCodeGenerator generator = new PayosOrderCodeGenerator(0, 0, clock::get);
+        long first = generator.nextCode();
+
+        clock.addAndGet(-10_000);
+        long second = generator.nextCode();
+
+        assertThat(second).isGreaterThan(first);
+    }
+
+    @Test
+    void nextCode_ShouldBorrowNextMillisecond_WhenSequenceIsExhausted() {
+        AtomicLong clock = new AtomicLong(PayosOrderCodeGenerator.EPOCH_MILLIS + 5_000);
+        PayosOrderCodeGenerator generator = new PayosOrderCodeGenerator(0, 0, clock::get);
+        long last = 0;
+        for (int i = 0; i < 1000; i++) {
+            long code = generator.nextCode();
+            assertThat(code).isGreaterThan(last);
+            last = code;
+        }
+        assertThat(PayosOrderCodeGenerator.timestampMillis(last)).isGreaterThan(clock.get());
+    }
+
+    @Test
+    void constructor_ShouldResumeAfterLastIssuedCode_OnRestart() {
+        AtomicLong clock = new AtomicLong(PayosOrderCodeGenerator.EPOCH_MILLIS + 1_000_000);
+        long lastIssued = new PayosOrderCodeGenerator(5, 0, clock::get).nextCode();
+
+        // Khởi động lại với đồng hồ bị lùi, trên node khác
+        clock.addAndGet(-60_000);
+        PayosOrderCodeGenerator restarted = new PayosOrderCodeGenerator(2, lastIssued, clock::get);
+
+        assertThat(restarted.nextCode()).isGreaterThan(lastIssued);
+    }
+
+    @Test
+    void constructor_ShouldRejectNodeIdOutOfRange() {
+        assertThatThrownBy(() -> new PayosOrderCodeGenerator(PayosOrderCodeGenerator.MAX_NODE_ID + 1, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.event_ticket_system.order.service;
+
+import vn.payos.PayOS;
+import vn.payos.type.PaymentLinkData;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PayOS giả chạy trong bộ nhớ: trả trạng thái link đã khai báo trước, ghi lại các lượt gọi
+ * và số lượt gọi đồng thời lớn nhất.
+ */
+class PayosStub extends PayOS {
+    private final Map<Long, PaymentLinkData> links = new ConcurrentHashMap<>();
+    private final List<Long> calls = new CopyOnWriteArrayList<>();
+    private final List<Long> callNanos = new CopyOnWriteArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile long latencyMillis;
+
+    PayosStub() {
+        super("client-id", "api-key", "checksum-key");
+    }
+
+    PayosStub link(long orderCode, String status, int amount, int amountPaid) {
+        links.put(orderCode, PaymentLinkData.builder()
+                .id("link-" + orderCode)
+                .orderCode(orderCode)
+                .status(status)
+                .amount(amount)
+                .amountPaid(amountPaid)
+                .amountRemaining(amount - amountPaid)
+                .createdAt("2026-01-01T00:00:00+07:00")
+                .transactions(List.of())
+                .build());
+        return this;
+    }
+
+    PayosStub latency(long millis) {
+        this.latencyMillis = millis;
+        return this;
+    }
+
+    List<Long> calls() {
+        return calls;
+    }
+
+    List<Long> callNanos() {
+        return callNanos;
+    }
+
+    int maxInFlight() {
+        return maxInFlight.get();
+    }
+
+    @Override
+    public PaymentLinkData getPaymentLinkInformation(Long orderCode) throws Exception {
+        calls.add(orderCode);
+        callNanos.add(System.nanoTime());
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            PaymentLinkData link = links.get(orderCode);
+            if (link == null) {
+                throw new Exception("Không tìm thấy link thanh toán");
+            }
+            return link;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.event_ticket_system.order.service;
+
+import com.example.event_ticket_system.DTO.response.ExpiredOrderProjection;
+import com.example.event_ticket_system.DTO.response.TicketQuantityProjection;
+import com.example.event_ticket_system.Enums.OrderStatus;
+import com.example.event_ticket_system.Repository.OrderRepository;
+import com.example.event_ticket_system.Repository.OrderTicketRepository;
+import com.example.event_ticket_system.Service.InventoryService;
+import com.example.event_ticket_system.Service.PaymentLinkCancellationService;
+import com.example.event_ticket_system.Service.PendingOrderSweepService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PendingOrderSweepServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderTicketRepository orderTicketRepository;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private PaymentLinkCancellationService paymentLinkCancellationService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PendingOrderSweepService sweepService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sweepService = new PendingOrderSweepService(orderRepository, orderTicketRepository, inventoryService,
+                paymentLinkCancellationService, transactionTemplate, meterRegistry, 2);
+    }
+
+    private void runTransactionsInline() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+    }
+
+    private static ExpiredOrderProjection expired(int orderId, long payosOrderCode) {
+        return new ExpiredOrderProjection() {
+            @Override
+            public Integer getOrderId() {
+                return orderId;
+            }
+
+            @Override
+            public Long getPayosOrderCode() {
+                return payosOrderCode;
+            }
+        };
+    }
+
+    private static TicketQuantityProjection line(int ticketId, long quantity) {
+        return new TicketQuantityProjection() {
+            @Override
+            public Integer getTicketId() {
+                return ticketId;
+            }
+
+            @Override
+            public Long getQuantity() {
+                return quantity;
+            }
+        };
+    }
+
+    @Test
+    void sweep_ShouldCancelInChunks_AndReleaseStockGroupedByTicket() {
+        runTransactionsInline();
+        when(orderRepository.countByStatusAndOrderDateBefore(eq(OrderStatus.pending), any())).thenReturn(3L);
+        when(orderRepository.lockExpiredPendingOrders(any(), eq(2)))
+                .thenReturn(List.of(expired(1, 1001L), expired(2, 1002L)), List.of(expired(3, 1003L)));
+        when(orderTicketRepository.sumQuantityByTicketForOrders(List.of(1, 2))).thenReturn(List.of(line(10, 5), line(11, 1)));
+        when(orderTicketRepository.sumQuantityByTicketForOrders(List.of(3))).thenReturn(List.of(line(10, 2)));
+
+        sweepService.sweep();
+
+        // Một câu UPDATE và một lần trả vé cho mỗi lô
+        verify(orderRepository).cancelPendingOrders(eq(List.of(1, 2)), anyString());
+        verify(orderRepository).cancelPendingOrders(eq(List.of(3)), anyString());
+        verify(orderRepository, never()).cancelIfPending(anyInt(), anyString());
+        verify(inventoryService).release(Map.of(10, 5, 11, 1));
+        verify(inventoryService).release(Map.of(10, 2));
+        verify(paymentLinkCancellationService).cancelAfterCommit(eq(List.of(1001L, 1002L)), anyString());
+        verify(paymentLinkCancellationService).cancelAfterCommit(eq(List.of(1003L)), anyString());
+        assertThat(sweepService.backlog()).isZero();
+        assertThat(meterRegistry.get("order_expiry.cancelled").counter().count()).isEqualTo(3.0);
+        assertThat(meterRegistry.get("order_expiry.sweep.duration").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void sweep_ShouldDoNothing_WhenNoOrderHasExpired() {
+        runTransactionsInline();
+        when(orderRepository.countByStatusAndOrderDateBefore(eq(OrderStatus.pending), any())).thenReturn(0L);
+        when(orderRepository.lockExpiredPendingOrders(any(), eq(2))).thenReturn(List.of());
+
+        sweepService.sweep();
+
+        verify(orderRepository, never()).cancelPendingOrders(any(), anyString());
+        verifyNoInteractions(inventoryService, paymentLinkCancellationService);
+    }
+}
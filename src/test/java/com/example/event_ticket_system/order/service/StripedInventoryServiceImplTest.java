@@ -0,0 +1,108 @@
+package com.example.event_ticket_system.order.service;
+
+import com.example.event_ticket_system.DTO.response.TicketStockProjection;
+import com.example.event_ticket_system.Repository.OrderTicketRepository;
+import com.example.event_ticket_system.Repository.TicketRepository;
+import com.example.event_ticket_system.Service.Impl.StripedInventoryServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class StripedInventoryServiceImplTest {
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Mock
+    private OrderTicketRepository orderTicketRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private StripedInventoryServiceImpl inventoryService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        inventoryService = new StripedInventoryServiceImpl(ticketRepository, orderTicketRepository, jdbcTemplate,
+                transactionTemplate, 4);
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any(Consumer.class));
+        TicketStockProjection stock = mock(TicketStockProjection.class);
+        when(stock.getTicketId()).thenReturn(9);
+        when(stock.getQuantityTotal()).thenReturn(10);
+        when(stock.getQuantitySold()).thenReturn(0);
+        when(ticketRepository.findStockByTicketIds(List.of(9))).thenReturn(List.of(stock));
+        // Loại vé được nạp sau truy vấn findAllStock của các lần refresh
+        when(ticketRepository.findAllStock()).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void refreshTotals_ShouldKeepStockLoadedAfterItsQuery_UntilMissingForAFullCycle() {
+        inventoryService.reserve(Map.of(9, 2));
+        inventoryService.flush();
+
+        inventoryService.refreshTotals();
+        inventoryService.reserve(Map.of(9, 1));
+        verify(ticketRepository, times(1)).findStockByTicketIds(List.of(9));
+
+        inventoryService.flush();
+        inventoryService.refreshTotals();
+        inventoryService.refreshTotals();
+        inventoryService.reserve(Map.of(9, 1));
+        verify(ticketRepository, times(2)).findStockByTicketIds(List.of(9));
+    }
+
+    @Test
+    void refreshTotals_ShouldNotEvictStock_WhileReservationTransactionIsRunning() {
+        TransactionSynchronizationManager.initSynchronization();
+        inventoryService.reserve(Map.of(9, 2));
+        inventoryService.flush();
+
+        inventoryService.refreshTotals();
+        inventoryService.refreshTotals();
+        inventoryService.refreshTotals();
+        // Vẫn là bộ đếm cũ: 10 - 2 - 8 = 0, không nạp lại từ DB
+        inventoryService.reserve(Map.of(9, 8));
+        verify(ticketRepository, times(1)).findStockByTicketIds(List.of(9));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        inventoryService.flush();
+        inventoryService.refreshTotals();
+        inventoryService.reserve(Map.of(9, 1));
+        verify(ticketRepository, times(2)).findStockByTicketIds(List.of(9));
+    }
+}
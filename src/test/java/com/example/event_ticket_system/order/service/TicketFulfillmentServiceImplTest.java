@@ -0,0 +1,186 @@
+package com.example.event_ticket_system.order.service;
+
+import com.example.event_ticket_system.DTO.response.QrImageDto;
+import com.example.event_ticket_system.Entity.Event;
+import com.example.event_ticket_system.Entity.FulfillmentDeadLetter;
+import com.example.event_ticket_system.Entity.FulfillmentJob;
+import com.example.event_ticket_system.Entity.Order;
+import com.example.event_ticket_system.Entity.OrderTicket;
+import com.example.event_ticket_system.Entity.Ticket;
+import com.example.event_ticket_system.Entity.User;
+import com.example.event_ticket_system.Enums.FulfillmentJobStatus;
+import com.example.event_ticket_system.Enums.FulfillmentStage;
+import com.example.event_ticket_system.Repository.FulfillmentDeadLetterRepository;
+import com.example.event_ticket_system.Repository.FulfillmentJobRepository;
+import com.example.event_ticket_system.Repository.OrderRepository;
+import com.example.event_ticket_system.Repository.OrderTicketRepository;
+import com.example.event_ticket_system.Service.EmailService;
+import com.example.event_ticket_system.Service.Impl.TicketFulfillmentServiceImpl;
+import com.example.event_ticket_system.Service.TicketPdfService;
+import com.example.event_ticket_system.Service.TicketQrService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TicketFulfillmentServiceImplTest {
+
+    @Mock
+    private FulfillmentJobRepository fulfillmentJobRepository;
+
+    @Mock
+    private FulfillmentDeadLetterRepository fulfillmentDeadLetterRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderTicketRepository orderTicketRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private TicketQrService ticketQrService;
+
+    @Mock
+    private TicketPdfService ticketPdfService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TicketFulfillmentServiceImpl fulfillmentService;
+    private Order order;
+    private OrderTicket orderTicket;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        fulfillmentService = new TicketFulfillmentServiceImpl(fulfillmentJobRepository, fulfillmentDeadLetterRepository,
+                orderRepository, orderTicketRepository, emailService, ticketQrService, ticketPdfService, transactionTemplate, meterRegistry, 1, 1, 10);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any(Consumer.class));
+
+        User user = new User();
+        user.setId(5);
+        user.setEmail("customer@example.com");
+        order = new Order();
+        order.setOrderId(42);
+        order.setUser(user);
+        Event event = new Event();
+        event.setEventId(1);
+        event.setEventName("Concert");
+        orderTicket = new OrderTicket();
+        orderTicket.setOrderTicketId(7);
+        orderTicket.setTicket(new Ticket(3, event, 100000.0, "VIP", 100, 2, null, null));
+        orderTicket.setQuantity(2);
+        orderTicket.setUnitPrice(100000.0);
+        when(orderRepository.findById(42)).thenReturn(Optional.of(order));
+        when(orderTicketRepository.findWithTicketAndEventByOrderId(42)).thenReturn(List.of(orderTicket));
+        when(fulfillmentJobRepository.save(any(FulfillmentJob.class))).thenAnswer(invocation -> {
+            FulfillmentJob job = invocation.getArgument(0);
+            job.setJobId(11);
+            return job;
+        });
+        when(fulfillmentJobRepository.claim(eq(11), any())).thenReturn(1);
+        when(ticketQrService.render(anyString())).thenReturn(new QrImageDto(new byte[]{1}, "\"qr1-test\""));
+        when(ticketPdfService.render(eq(order), anyList())).thenReturn(new byte[]{'%', 'P', 'D', 'F'});
+    }
+
+    @AfterEach
+    void tearDown() {
+        fulfillmentService.shutdown();
+    }
+
+    private FulfillmentJob job(FulfillmentStage stage, int attempts) {
+        FulfillmentJob job = new FulfillmentJob();
+        job.setJobId(11);
+        job.setOrder(order);
+        job.setStage(stage);
+        job.setStatus(FulfillmentJobStatus.processing);
+        job.setAttempts(attempts);
+        job.setNextAttemptAt(LocalDateTime.now());
+        return job;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void enqueue_ShouldGenerateQrCodesThenSendEmail_OnSeparateStages() throws Exception {
+        when(fulfillmentJobRepository.findById(11))
+                .thenReturn(Optional.of(job(FulfillmentStage.qr_code, 1)), Optional.of(job(FulfillmentStage.email, 1)));
+        doAnswer(invocation -> {
+            invocation.<List<OrderTicket>>getArgument(1).forEach(ot -> ot.setQrPayload("o=42&ot=7"));
+            return null;
+        }).when(ticketQrService).assignPayloads(eq(order), anyList());
+
+        fulfillmentService.enqueue(order);
+
+        verify(fulfillmentJobRepository, timeout(5000)).markCompleted(eq(11), any());
+        verify(fulfillmentJobRepository).advance(eq(11), eq(FulfillmentStage.email), any());
+        ArgumentCaptor<List<byte[]>> qrCodes = ArgumentCaptor.forClass(List.class);
+        verify(emailService).sendMultipleQRCodeEmail(eq("customer@example.com"), anyString(), anyString(), qrCodes.capture(), eq(List.of(orderTicket)),
+                eq(new byte[]{'%', 'P', 'D', 'F'}));
+        assertThat(qrCodes.getValue()).containsExactly(new byte[]{1});
+        verify(ticketQrService, atLeast(2)).render("o=42&ot=7");
+        assertThat(meterRegistry.get("fulfillment.stage.latency").tag("stage", "qr_code").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void enqueue_ShouldScheduleRetry_WhenEmailFails() throws Exception {
+        when(fulfillmentJobRepository.findById(11)).thenReturn(Optional.of(job(FulfillmentStage.email, 1)));
+        orderTicket.setQrPayload("o=42&ot=7");
+        doThrow(new IllegalStateException("SMTP unavailable")).when(emailService)
+                .sendMultipleQRCodeEmail(anyString(), anyString(), anyString(), anyList(), anyList(), any());
+
+        fulfillmentService.enqueue(order);
+
+        verify(fulfillmentJobRepository, timeout(5000)).markRetry(eq(11), eq("SMTP unavailable"), any(), any());
+        verify(fulfillmentJobRepository, never()).markCompleted(any(), any());
+        verifyNoInteractions(fulfillmentDeadLetterRepository);
+    }
+
+    @Test
+    void enqueue_ShouldMoveJobToDeadLetter_AfterLastAttempt() throws Exception {
+        when(fulfillmentJobRepository.findById(11)).thenReturn(Optional.of(job(FulfillmentStage.email, 5)));
+        orderTicket.setQrPayload("o=42&ot=7");
+        doThrow(new IllegalStateException("SMTP unavailable")).when(emailService)
+                .sendMultipleQRCodeEmail(anyString(), anyString(), anyString(), anyList(), anyList(), any());
+
+        fulfillmentService.enqueue(order);
+
+        ArgumentCaptor<FulfillmentDeadLetter> deadLetter = ArgumentCaptor.forClass(FulfillmentDeadLetter.class);
+        verify(fulfillmentDeadLetterRepository, timeout(5000)).save(deadLetter.capture());
+        verify(fulfillmentJobRepository).markDead(eq(11), eq("SMTP unavailable"), any());
+        assertThat(deadLetter.getValue().getOrderId()).isEqualTo(42);
+        assertThat(deadLetter.getValue().getStage()).isEqualTo(FulfillmentStage.email);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.event_ticket_system.order.service;
+
+import com.example.event_ticket_system.DTO.response.WaitingRoomStatusDto;
+import com.example.event_ticket_system.Entity.WaitingRoomConfig;
+import com.example.event_ticket_system.Enums.WaitingRoomStatus;
+import com.example.event_ticket_system.Repository.EventRepository;
+import com.example.event_ticket_system.Repository.WaitingRoomConfigRepository;
+import com.example.event_ticket_system.Service.Impl.WaitingRoomServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WaitingRoomServiceImplTest {
+
+    @Mock
+    private WaitingRoomConfigRepository waitingRoomConfigRepository;
+
+    @Mock
+    private EventRepository eventRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private WaitingRoomServiceImpl waitingRoomService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        waitingRoomService = new WaitingRoomServiceImpl(waitingRoomConfigRepository, eventRepository, meterRegistry);
+    }
+
+    private void enableRoom(int eventId, int ratePerSecond) {
+        when(waitingRoomConfigRepository.findAll()).thenReturn(List.of(
+                new WaitingRoomConfig(eventId, true, ratePerSecond, 300, LocalDateTime.now())));
+        waitingRoomService.refreshConfigs();
+    }
+
+    @Test
+    void join_ShouldNotRequireQueue_WhenEventHasNoConfig() {
+        when(waitingRoomConfigRepository.findAll()).thenReturn(List.of());
+        waitingRoomService.refreshConfigs();
+
+        WaitingRoomStatusDto status = waitingRoomService.join(1, 10);
+
+        assertThat(status.getStatus()).isEqualTo(WaitingRoomStatus.not_required);
+        assertThat(status.getQueueToken()).isNull();
+        assertThat(waitingRoomService.checkAdmission(1, 10, null).canOrder()).isTrue();
+    }
+
+    @Test
+    void admit_ShouldLetInConfiguredRateInQueueOrder() {
+        enableRoom(1, 2);
+        WaitingRoomStatusDto first = waitingRoomService.join(1, 10);
+        WaitingRoomStatusDto second = waitingRoomService.join(1, 11);
+        WaitingRoomStatusDto third = waitingRoomService.join(1, 12);
+        assertThat(third.getPosition()).isEqualTo(3);
+        assertThat(third.getEstimatedWaitSeconds()).isEqualTo(2);
+        assertThat(meterRegistry.get("waiting_room.queue.length").gauge().value()).isEqualTo(3);
+
+        waitingRoomService.admit();
+
+        assertThat(waitingRoomService.checkAdmission(1, 10, first.getQueueToken()).getStatus()).isEqualTo(WaitingRoomStatus.admitted);
+        assertThat(waitingRoomService.checkAdmission(1, 11, second.getQueueToken()).getStatus()).isEqualTo(WaitingRoomStatus.admitted);
+        WaitingRoomStatusDto stillWaiting = waitingRoomService.checkAdmission(1, 12, third.getQueueToken());
+        assertThat(stillWaiting.canOrder()).isFalse();
+        assertThat(stillWaiting.getPosition()).isEqualTo(1);
+        assertThat(meterRegistry.get("waiting_room.admitted").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("waiting_room.queue.length").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void join_ShouldReturnSameToken_WhenUserJoinsTwice() {
+        enableRoom(1, 5);
+
+        WaitingRoomStatusDto first = waitingRoomService.join(1, 10);
+        WaitingRoomStatusDto again = waitingRoomService.join(1, 10);
+
+        assertThat(again.getQueueToken()).isEqualTo(first.getQueueToken());
+        assertThat(again.getPosition()).isEqualTo(1);
+    }
+
+    @Test
+    void checkAdmission_ShouldRejectTokenOfAnotherUser() {
+        enableRoom(1, 5);
+        WaitingRoomStatusDto status = waitingRoomService.join(1, 10);
+        waitingRoomService.admit();
+
+        assertThatThrownBy(() -> waitingRoomService.checkAdmission(1, 99, status.getQueueToken()))
+                .isInstanceOf(SecurityException.class);
+        assertThatThrownBy(() -> waitingRoomService.checkAdmission(1, 10, null))
+                .isInstanceOf(SecurityException.class);
+    }
+
+    @Test
+    void complete_ShouldRevokeAdmittedToken() {
+        enableRoom(1, 5);
+        WaitingRoomStatusDto status = waitingRoomService.join(1, 10);
+        waitingRoomService.admit();
+
+        waitingRoomService.complete(status.getQueueToken());
+
+        assertThatThrownBy(() -> waitingRoomService.checkAdmission(1, 10, status.getQueueToken()))
+                .isInstanceOf(SecurityException.class);
+    }
+}
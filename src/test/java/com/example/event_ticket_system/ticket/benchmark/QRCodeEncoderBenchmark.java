@@ -0,0 +1,89 @@
+package com.example.event_ticket_system.ticket.benchmark;
+
+import com.example.event_ticket_system.Util.PngBitMatrixEncoder;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh cách ghi PNG cũ (BufferedImage + setRGB + ImageIO) với PngBitMatrixEncoder cho QR 80x80 của vé.
+ * Chạy bằng main() (không thuộc bộ test của surefire); GCProfiler in gc.alloc.rate.norm (byte cấp phát mỗi lần).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QRCodeEncoderBenchmark {
+    private static final int SIZE = 80;
+
+    private BitMatrix bitMatrix;
+
+    @Setup
+    public void setUp() throws WriterException {
+        bitMatrix = new QRCodeWriter().encode("o=123456&ot=789012&t=345&u=678&e=901&q=2", BarcodeFormat.QR_CODE, SIZE, SIZE,
+                Map.of(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.L, EncodeHintType.MARGIN, 0));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public byte[] imageIo() throws IOException {
+        return writeWithImageIo(bitMatrix);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public byte[] bitMatrixEncoder() {
+        return PngBitMatrixEncoder.encode(bitMatrix);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public byte[] imageIoFourThreads() throws IOException {
+        return writeWithImageIo(bitMatrix);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public byte[] bitMatrixEncoderFourThreads() {
+        return PngBitMatrixEncoder.encode(bitMatrix);
+    }
+
+    // Cách QRCodeUtil.generateMiniQRCode ghi ảnh trước đây
+    private static byte[] writeWithImageIo(BitMatrix bitMatrix) throws IOException {
+        BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_BYTE_BINARY);
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                image.setRGB(x, y, bitMatrix.get(x, y) ? 0x000000 : 0xFFFFFF);
+            }
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(image, "PNG", baos);
+        return baos.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(QRCodeEncoderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.event_ticket_system.ticket.benchmark;
+
+import com.example.event_ticket_system.DTO.response.QrImageDto;
+import com.example.event_ticket_system.Entity.Event;
+import com.example.event_ticket_system.Entity.Order;
+import com.example.event_ticket_system.Entity.OrderTicket;
+import com.example.event_ticket_system.Entity.Ticket;
+import com.example.event_ticket_system.Entity.User;
+import com.example.event_ticket_system.Service.Impl.TicketPdfServiceImpl;
+import com.example.event_ticket_system.Service.TicketQrService;
+import com.example.event_ticket_system.Util.QRCodeUtil;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thời gian dựng vé PDF cho một đơn hai loại vé: TicketPdfServiceImpl (font dùng chung, bố cục cố định)
+ * so với cách của exportToPdf (đọc lại file font và dựng bảng PdfPTable cho mỗi tài liệu).
+ * Chạy bằng main() (không thuộc bộ test của surefire).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TicketPdfBenchmark {
+    private TicketPdfServiceImpl ticketPdfService;
+    private Order order;
+    private List<OrderTicket> orderTickets;
+    private byte[] qrPng;
+    private byte[] fontBytes;
+
+    @Setup
+    public void setUp() throws Exception {
+        qrPng = QRCodeUtil.generateMiniQRCode("AQ-SAMPLE-TICKET-TOKEN-1234567890");
+        try (InputStream in = TicketPdfBenchmark.class.getResourceAsStream("/fonts/arial.ttf")) {
+            fontBytes = in.readAllBytes();
+        }
+        TicketQrService qrService = new TicketQrService() {
+            @Override
+            public QrImageDto getTicketQrCode(Integer userId, Integer orderTicketId, HttpServletRequest request) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void assignPayloads(Order order, List<OrderTicket> orderTickets) {
+            }
+
+            @Override
+            public QrImageDto render(String payload) {
+                return new QrImageDto(qrPng, "\"qr1-bench\"");
+            }
+        };
+        ticketPdfService = new TicketPdfServiceImpl(null, null, qrService, null);
+
+        User user = new User();
+        user.setFullName("Nguyễn Văn A");
+        Event event = new Event();
+        event.setEventName("Đêm nhạc Trịnh Công Sơn");
+        event.setStartTime(LocalDateTime.of(2026, 12, 24, 19, 30));
+        event.setEndTime(LocalDateTime.of(2026, 12, 24, 22, 0));
+        event.setAddressName("Nhà hát Lớn");
+        event.setAddressDetail("1 Tràng Tiền, Hoàn Kiếm, Hà Nội");
+        order = new Order();
+        order.setOrderId(42);
+        order.setUser(user);
+        orderTickets = List.of(orderTicket(7, new Ticket(3, event, 500000.0, "VIP", 100, 2, null, null)),
+                orderTicket(8, new Ticket(4, event, 200000.0, "Thường", 300, 1, null, null)));
+    }
+
+    private OrderTicket orderTicket(int id, Ticket ticket) {
+        OrderTicket orderTicket = new OrderTicket();
+        orderTicket.setOrderTicketId(id);
+        orderTicket.setTicket(ticket);
+        orderTicket.setQuantity(1);
+        orderTicket.setUnitPrice(ticket.getPrice());
+        orderTicket.setQrPayload("payload-" + id);
+        return orderTicket;
+    }
+
+    @Benchmark
+    public byte[] sharedFontsFixedLayout() {
+        return ticketPdfService.render(order, orderTickets);
+    }
+
+    @Benchmark
+    public byte[] fontPerDocumentTableLayout() throws DocumentException, IOException {
+        Document document = new Document();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfWriter.getInstance(document, out);
+        document.open();
+        // Như loadVietnameseFont: mỗi tài liệu phân tích lại file TTF
+        BaseFont baseFont = BaseFont.createFont("arial.ttf", BaseFont.IDENTITY_H, BaseFont.EMBEDDED, false, fontBytes, null);
+        Font title = new Font(baseFont, 16f, Font.BOLD);
+        Font body = new Font(baseFont, 12f, Font.NORMAL);
+        for (OrderTicket orderTicket : orderTickets) {
+            document.add(new Paragraph(orderTicket.getTicket().getEvent().getEventName(), title));
+            PdfPTable table = new PdfPTable(2);
+            table.addCell(new PdfPCell(new Phrase("Loại vé", body)));
+            table.addCell(new PdfPCell(new Phrase(orderTicket.getTicket().getTicketType(), body)));
+            table.addCell(new PdfPCell(new Phrase("Khách hàng", body)));
+            table.addCell(new PdfPCell(new Phrase(order.getUser().getFullName(), body)));
+            document.add(table);
+            document.add(Image.getInstance(qrPng));
+            document.newPage();
+        }
+        document.close();
+        return out.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TicketPdfBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.event_ticket_system.ticket.benchmark;
+
+import com.example.event_ticket_system.Util.TicketTokenCodec;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo số token vé kiểm tra được mỗi giây trên một lõi (máy soát vé offline). Chạy bằng main() (không thuộc bộ test của surefire).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TicketTokenBenchmark {
+    private TicketTokenCodec codec;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        codec = new TicketTokenCodec(new byte[32]);
+        token = codec.issue(1_234_567, 4_321, 987, 2);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public TicketTokenCodec.TicketToken verify() {
+        return codec.verify(token);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String issue() {
+        return codec.issue(1_234_567, 4_321, 987, 2);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TicketTokenBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -2,6 +2,9 @@ package com.example.event_ticket_system.ticket.controller;
 
 import com.example.event_ticket_system.Controller.TicketController;
 import com.example.event_ticket_system.DTO.response.TicketResponseDTO;
+import com.example.event_ticket_system.DTO.response.QrImageDto;
+import com.example.event_ticket_system.Service.TicketPdfService;
+import com.example.event_ticket_system.Service.TicketQrService;
 import com.example.event_ticket_system.Service.TicketService;
 import com.example.event_ticket_system.Enums.OrderStatus;
 import jakarta.servlet.http.HttpServletRequest;
@@ -33,6 +36,12 @@ class TicketControllerTest {
     @Mock
     private TicketService ticketService;
 
+    @Mock
+    private TicketQrService ticketQrService;
+
+    @Mock
+    private TicketPdfService ticketPdfService;
+
     @InjectMocks
     private TicketController ticketController;
 
@@ -61,6 +70,61 @@ class TicketControllerTest {
                 .andExpect(jsonPath("$.data[0].tickets[0].quantity").value(2));
     }
 
+    @Test
+    void getOrderTicketsPdf_ShouldReturnPdfAttachment() throws Exception {
+        byte[] pdf = {'%', 'P', 'D', 'F'};
+        when(ticketPdfService.getOrderTicketsPdf(eq(1), eq(5001), any(HttpServletRequest.class))).thenReturn(pdf);
+
+        mockMvc.perform(get("/api/users/ticket/1/pdf/5001"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_PDF))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"Ve_5001.pdf\""))
+                .andExpect(content().bytes(pdf));
+    }
+
+    @Test
+    void getOrderTicketsPdf_ShouldReturnConflict_WhenOrderNotPaid() throws Exception {
+        when(ticketPdfService.getOrderTicketsPdf(eq(1), eq(5001), any(HttpServletRequest.class)))
+                .thenThrow(new IllegalStateException("E-tickets are only available for paid orders"));
+
+        mockMvc.perform(get("/api/users/ticket/1/pdf/5001"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("E-tickets are only available for paid orders"));
+    }
+
+    @Test
+    void getTicketQrCode_ShouldReturnPngWithEtag() throws Exception {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G'};
+        when(ticketQrService.getTicketQrCode(eq(1), eq(1001), any(HttpServletRequest.class)))
+                .thenReturn(new QrImageDto(png, "\"qr1-abc\""));
+
+        mockMvc.perform(get("/api/users/ticket/1/qr/1001"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(header().string("ETag", "\"qr1-abc\""))
+                .andExpect(content().bytes(png));
+    }
+
+    @Test
+    void getTicketQrCode_ShouldReturnNotModified_WhenEtagMatches() throws Exception {
+        when(ticketQrService.getTicketQrCode(eq(1), eq(1001), any(HttpServletRequest.class)))
+                .thenReturn(new QrImageDto(new byte[]{1}, "\"qr1-abc\""));
+
+        mockMvc.perform(get("/api/users/ticket/1/qr/1001").header("If-None-Match", "\"old\", \"qr1-abc\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void getTicketQrCode_ShouldReturnConflict_WhenOrderNotPaid() throws Exception {
+        when(ticketQrService.getTicketQrCode(eq(1), eq(1001), any(HttpServletRequest.class)))
+                .thenThrow(new IllegalStateException("QR code is only available for paid orders"));
+
+        mockMvc.perform(get("/api/users/ticket/1/qr/1001"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("QR code is only available for paid orders"));
+    }
+
     private static List<TicketResponseDTO> getTicketResponseDTOS() {
         TicketResponseDTO.TicketDetail detail = new TicketResponseDTO.TicketDetail(
                 101,
@@ -0,0 +1,244 @@
+package com.example.event_ticket_system.ticket.service;
+
+import com.example.event_ticket_system.DTO.response.AdmissionProjection;
+import com.example.event_ticket_system.DTO.response.CheckInResultDto;
+import com.example.event_ticket_system.Entity.Event;
+import com.example.event_ticket_system.Entity.User;
+import com.example.event_ticket_system.Enums.CheckInStatus;
+import com.example.event_ticket_system.Repository.EventRepository;
+import com.example.event_ticket_system.Repository.OrderTicketRepository;
+import com.example.event_ticket_system.Security.JwtUtil;
+import com.example.event_ticket_system.Service.Impl.CheckInServiceImpl;
+import com.example.event_ticket_system.Util.TicketTokenCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CheckInServiceImplTest {
+
+    @Mock
+    private OrderTicketRepository orderTicketRepository;
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private HttpServletRequest request;
+
+    private final TicketTokenCodec codec = new TicketTokenCodec(new byte[32]);
+    private CheckInServiceImpl checkInService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        checkInService = new CheckInServiceImpl(orderTicketRepository, eventRepository, jwtUtil, codec,
+                transactionTemplate, new SimpleMeterRegistry(), 30);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any(Consumer.class));
+        when(request.getHeader("Authorization")).thenReturn("Bearer token");
+        when(jwtUtil.extractRole("token")).thenReturn("ROLE_organizer");
+        when(jwtUtil.extractUserId("token")).thenReturn(9);
+
+        User organizer = new User();
+        organizer.setId(9);
+        Event event = new Event();
+        event.setEventId(1);
+        event.setOrganizer(organizer);
+        when(eventRepository.findById(1)).thenReturn(Optional.of(event));
+        when(orderTicketRepository.findAdmissionsByEventId(1))
+                .thenReturn(List.of(admission(10, 1, 0), admission(20, 3, 1), admission(30, 2, 2)));
+    }
+
+    private static AdmissionProjection admission(int orderTicketId, int quantity, int admittedCount) {
+        return new AdmissionProjection() {
+            @Override
+            public Integer getOrderTicketId() {
+                return orderTicketId;
+            }
+
+            @Override
+            public Integer getQuantity() {
+                return quantity;
+            }
+
+            @Override
+            public Integer getAdmittedCount() {
+                return admittedCount;
+            }
+        };
+    }
+
+    @Test
+    void checkIn_ShouldAdmitUpToQuantityThenReject() {
+        String token = codec.issue(20, 5, 1, 3);
+
+        CheckInResultDto second = checkInService.checkIn(1, token, request);
+        CheckInResultDto third = checkInService.checkIn(1, token, request);
+        CheckInResultDto fourth = checkInService.checkIn(1, token, request);
+
+        assertThat(second.getStatus()).isEqualTo(CheckInStatus.admitted);
+        assertThat(second.getAdmittedCount()).isEqualTo(2);
+        assertThat(third.getAdmittedCount()).isEqualTo(3);
+        assertThat(fourth.getStatus()).isEqualTo(CheckInStatus.already_admitted);
+        verify(orderTicketRepository, never()).findAdmission(anyInt(), anyInt());
+        verify(orderTicketRepository, times(1)).findAdmissionsByEventId(1);
+    }
+
+    @Test
+    void checkIn_ShouldRejectForgedAndForeignTickets() {
+        assertThat(checkInService.checkIn(1, "o=1&ot=10", request).getStatus()).isEqualTo(CheckInStatus.invalid_ticket);
+        assertThat(checkInService.checkIn(1, new TicketTokenCodec(new byte[]{
+                1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1
+        }).issue(10, 5, 1, 1), request).getStatus()).isEqualTo(CheckInStatus.invalid_ticket);
+        assertThat(checkInService.checkIn(1, codec.issue(10, 5, 2, 1), request).getStatus()).isEqualTo(CheckInStatus.wrong_event);
+    }
+
+    @Test
+    void checkIn_ShouldLookUpTicketPaidAfterLoad_AndRejectUnpaid() {
+        when(orderTicketRepository.findAdmission(40, 1)).thenReturn(Optional.of(admission(40, 1, 0)));
+        when(orderTicketRepository.findAdmission(50, 1)).thenReturn(Optional.empty());
+
+        assertThat(checkInService.checkIn(1, codec.issue(40, 5, 1, 1), request).getStatus()).isEqualTo(CheckInStatus.admitted);
+        assertThat(checkInService.checkIn(1, codec.issue(40, 5, 1, 1), request).getStatus()).isEqualTo(CheckInStatus.already_admitted);
+        assertThat(checkInService.checkIn(1, codec.issue(50, 5, 1, 1), request).getStatus()).isEqualTo(CheckInStatus.invalid_ticket);
+        verify(orderTicketRepository, times(1)).findAdmission(40, 1);
+    }
+
+    @Test
+    void checkIn_ShouldRejectOrganizerOfAnotherEvent() {
+        when(jwtUtil.extractUserId("token")).thenReturn(99);
+
+        assertThatThrownBy(() -> checkInService.checkIn(1, codec.issue(10, 5, 1, 1), request))
+                .isInstanceOf(SecurityException.class);
+    }
+
+    @Test
+    void checkIn_ShouldNeverAdmitMoreThanQuantity_UnderConcurrentScans() throws Exception {
+        String token = codec.issue(20, 5, 1, 3);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<CheckInResultDto>> scans = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                scans.add(() -> checkInService.checkIn(1, token, request));
+            }
+            long admitted = 0;
+            for (Future<CheckInResultDto> result : pool.invokeAll(scans)) {
+                if (result.get().getStatus() == CheckInStatus.admitted) {
+                    admitted++;
+                }
+            }
+            // Vé 20 có 3 lượt, đã dùng 1 lượt trước khi nạp
+            assertThat(admitted).isEqualTo(2);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void flush_ShouldWriteNewAdmissionsOnce_AndRetryAfterFailure() {
+        checkInService.checkIn(1, codec.issue(10, 5, 1, 1), request);
+        when(orderTicketRepository.updateAdmittedCount(10, 1)).thenThrow(new QueryTimeoutException("timeout")).thenReturn(1);
+
+        checkInService.flush();
+        checkInService.flush();
+        checkInService.flush();
+
+        verify(orderTicketRepository, times(2)).updateAdmittedCount(10, 1);
+        verify(orderTicketRepository, never()).updateAdmittedCount(eq(20), anyInt());
+    }
+
+    @Test
+    void revokeOrder_ShouldDropLoadedStateSoCancelledTicketsAreRejected() {
+        assertThat(checkInService.checkIn(1, codec.issue(10, 5, 1, 1), request).getStatus()).isEqualTo(CheckInStatus.admitted);
+        when(orderTicketRepository.findEventIdsByOrderId(6)).thenReturn(List.of(1));
+        // Đơn 6 (vé 20) bị huỷ: lần nạp lại không còn vé 20
+        when(orderTicketRepository.findAdmissionsByEventId(1)).thenReturn(List.of(admission(10, 1, 1), admission(30, 2, 2)));
+
+        checkInService.revokeOrder(6);
+
+        // Lượt vào chưa ghi của vé 10 được ghi trước khi bỏ trạng thái
+        verify(orderTicketRepository).updateAdmittedCount(10, 1);
+        assertThat(checkInService.checkIn(1, codec.issue(20, 6, 1, 3), request).getStatus()).isEqualTo(CheckInStatus.invalid_ticket);
+        verify(orderTicketRepository, times(2)).findAdmissionsByEventId(1);
+    }
+
+    @Test
+    void revokeOrder_ShouldNotLoseScanHoldingStateThatIsBeingDropped() throws Exception {
+        when(orderTicketRepository.findEventIdsByOrderId(6)).thenReturn(List.of(1));
+        checkInService.checkIn(1, codec.issue(10, 5, 1, 1), request);
+        // Vé 40 thanh toán sau lúc nạp: lượt quét dừng ở bước tra DB trong khi vẫn giữ trạng thái cũ
+        CountDownLatch lookingUp = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        when(orderTicketRepository.findAdmission(40, 1)).thenAnswer(invocation -> {
+            lookingUp.countDown();
+            resume.await(5, TimeUnit.SECONDS);
+            return Optional.of(admission(40, 1, 0));
+        });
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<CheckInResultDto> scan = pool.submit(() -> checkInService.checkIn(1, codec.issue(40, 7, 1, 1), request));
+            assertThat(lookingUp.await(5, TimeUnit.SECONDS)).isTrue();
+
+            checkInService.revokeOrder(6);
+            resume.countDown();
+
+            assertThat(scan.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(CheckInStatus.admitted);
+        } finally {
+            pool.shutdownNow();
+        }
+        checkInService.flush();
+
+        // Lượt vào được ghi trên trạng thái nạp lại, không rơi vào bộ đếm đã bị bỏ
+        verify(orderTicketRepository).updateAdmittedCount(40, 1);
+        verify(orderTicketRepository, times(2)).findAdmissionsByEventId(1);
+    }
+
+    @Test
+    void flush_ShouldDropIdleEventsAfterPersistingThem() {
+        CheckInServiceImpl evicting = new CheckInServiceImpl(orderTicketRepository, eventRepository, jwtUtil, codec,
+                transactionTemplate, new SimpleMeterRegistry(), 0);
+        evicting.checkIn(1, codec.issue(10, 5, 1, 1), request);
+
+        evicting.flush();
+        evicting.checkIn(1, codec.issue(20, 5, 1, 3), request);
+
+        verify(orderTicketRepository).updateAdmittedCount(10, 1);
+        verify(orderTicketRepository, times(2)).findAdmissionsByEventId(1);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.event_ticket_system.ticket.service;
+
+import com.example.event_ticket_system.Util.PngBitMatrixEncoder;
+import com.example.event_ticket_system.Util.QRCodeUtil;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.Result;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PngBitMatrixEncoderTest {
+
+    @Test
+    void encode_ShouldProduceOneBitPngMatchingMatrix() throws Exception {
+        // 83 không chia hết cho 8 nên dòng cuối có bit đệm
+        BitMatrix matrix = new QRCodeWriter().encode("o=1&ot=2&t=3&u=4&e=5&q=1", BarcodeFormat.QR_CODE, 83, 83,
+                Map.of(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.L, EncodeHintType.MARGIN, 0));
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(PngBitMatrixEncoder.encode(matrix)));
+
+        assertThat(image.getWidth()).isEqualTo(83);
+        assertThat(image.getHeight()).isEqualTo(83);
+        assertThat(image.getColorModel().getPixelSize()).isEqualTo(1);
+        for (int y = 0; y < 83; y++) {
+            for (int x = 0; x < 83; x++) {
+                int expected = matrix.get(x, y) ? 0x000000 : 0xFFFFFF;
+                assertThat(image.getRGB(x, y) & 0xFFFFFF).as("pixel %d,%d", x, y).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void encode_ShouldReuseBuffersAcrossDifferentSizes() throws Exception {
+        Map<EncodeHintType, Object> hints = Map.of(EncodeHintType.MARGIN, 0);
+        BitMatrix large = new QRCodeWriter().encode("large", BarcodeFormat.QR_CODE, 200, 200, hints);
+        BitMatrix small = new QRCodeWriter().encode("small", BarcodeFormat.QR_CODE, 40, 40, hints);
+
+        PngBitMatrixEncoder.encode(large);
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(PngBitMatrixEncoder.encode(small)));
+
+        assertThat(image.getWidth()).isEqualTo(40);
+        assertThat(image.getHeight()).isEqualTo(40);
+    }
+
+    @Test
+    void generateMiniQRCode_ShouldStillDecodeToShortenedContent() throws Exception {
+        byte[] png = QRCodeUtil.generateMiniQRCode("orderId=12&orderTicketId=34&ticketId=56&userId=78&eventId=90&quantity=2");
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        // Ảnh không có margin: thêm viền trắng để bộ đọc tìm được finder pattern
+        BufferedImage padded = new BufferedImage(image.getWidth() + 16, image.getHeight() + 16, BufferedImage.TYPE_INT_RGB);
+        var graphics = padded.createGraphics();
+        graphics.setColor(java.awt.Color.WHITE);
+        graphics.fillRect(0, 0, padded.getWidth(), padded.getHeight());
+        graphics.drawImage(image, 8, 8, null);
+        graphics.dispose();
+        Result result = new QRCodeReader().decode(new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(padded))));
+
+        assertThat(result.getText()).isEqualTo("o=12&ot=34&t=56&u=78&e=90&q=2");
+    }
+}
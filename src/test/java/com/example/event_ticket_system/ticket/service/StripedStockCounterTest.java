@@ -0,0 +1,71 @@
+package com.example.event_ticket_system.ticket.service;
+
+import com.example.event_ticket_system.Util.StripedStockCounter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedStockCounterTest {
+
+    @Test
+    void tryTake_ShouldNeverOversell_UnderConcurrentBuyers() throws Exception {
+        StripedStockCounter counter = new StripedStockCounter(8, 1000);
+        AtomicInteger sold = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            int quantity = i % 3 + 1;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < 500; j++) {
+                    if (counter.tryTake(quantity)) {
+                        sold.addAndGet(quantity);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(sold.get()).isLessThanOrEqualTo(1000);
+        assertThat(counter.available()).isEqualTo(1000 - sold.get());
+    }
+
+    @Test
+    void tryTake_ShouldGatherFromSeveralStripes_WhenNoSingleStripeHasEnough() throws InterruptedException {
+        StripedStockCounter counter = new StripedStockCounter(4, 0);
+        // Mỗi luồng cộng vào stripe nhà của nó nên vé bị rải ra nhiều stripe
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> counter.add(1));
+            thread.start();
+            thread.join();
+        }
+
+        assertThat(counter.tryTake(4)).isTrue();
+        assertThat(counter.available()).isZero();
+        assertThat(counter.tryTake(1)).isFalse();
+    }
+
+    @Test
+    void add_ShouldTrackDeficit_WhenTotalDropsBelowSold() {
+        StripedStockCounter counter = new StripedStockCounter(2, 3);
+
+        counter.add(-5);
+        assertThat(counter.available()).isEqualTo(-2);
+        assertThat(counter.tryTake(1)).isFalse();
+
+        counter.add(3);
+        assertThat(counter.available()).isEqualTo(1);
+        assertThat(counter.tryTake(1)).isTrue();
+    }
+}
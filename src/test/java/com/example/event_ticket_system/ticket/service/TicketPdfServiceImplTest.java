@@ -0,0 +1,134 @@
+package com.example.event_ticket_system.ticket.service;
+
+import com.example.event_ticket_system.DTO.response.QrImageDto;
+import com.example.event_ticket_system.Entity.Event;
+import com.example.event_ticket_system.Entity.Order;
+import com.example.event_ticket_system.Entity.OrderTicket;
+import com.example.event_ticket_system.Entity.Ticket;
+import com.example.event_ticket_system.Entity.User;
+import com.example.event_ticket_system.Enums.OrderStatus;
+import com.example.event_ticket_system.Repository.OrderRepository;
+import com.example.event_ticket_system.Repository.OrderTicketRepository;
+import com.example.event_ticket_system.Security.JwtUtil;
+import com.example.event_ticket_system.Service.Impl.TicketPdfServiceImpl;
+import com.example.event_ticket_system.Service.TicketQrService;
+import com.example.event_ticket_system.Util.QRCodeUtil;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TicketPdfServiceImplTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderTicketRepository orderTicketRepository;
+
+    @Mock
+    private TicketQrService ticketQrService;
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private HttpServletRequest request;
+
+    private TicketPdfServiceImpl ticketPdfService;
+    private Order order;
+    private List<OrderTicket> orderTickets;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ticketPdfService = new TicketPdfServiceImpl(orderRepository, orderTicketRepository, ticketQrService, jwtUtil);
+        when(request.getHeader("Authorization")).thenReturn("Bearer token");
+        when(jwtUtil.extractRole("token")).thenReturn("ROLE_customer");
+        when(jwtUtil.extractUserId("token")).thenReturn(5);
+        when(ticketQrService.render(anyString()))
+                .thenReturn(new QrImageDto(QRCodeUtil.generateMiniQRCode("ticket-token"), "\"qr1-test\""));
+
+        User user = new User();
+        user.setId(5);
+        user.setFullName("Nguyễn Văn A");
+        Event event = new Event();
+        event.setEventId(1);
+        event.setEventName("Đêm nhạc Trịnh Công Sơn");
+        event.setStartTime(LocalDateTime.of(2026, 12, 24, 19, 30));
+        event.setEndTime(LocalDateTime.of(2026, 12, 24, 22, 0));
+        event.setAddressName("Nhà hát Lớn");
+        event.setAddressDetail("1 Tràng Tiền, Hoàn Kiếm, Hà Nội");
+        order = new Order();
+        order.setOrderId(42);
+        order.setUser(user);
+        order.setStatus(OrderStatus.paid);
+        orderTickets = List.of(
+                orderTicket(7, new Ticket(3, event, 500000.0, "VIP", 100, 2, null, null), 2),
+                orderTicket(8, new Ticket(4, event, 200000.0, "Thường", 300, 1, null, null), 1));
+        when(orderRepository.findById(42)).thenReturn(Optional.of(order));
+        when(orderTicketRepository.findWithTicketAndEventByOrderId(42)).thenReturn(orderTickets);
+    }
+
+    private OrderTicket orderTicket(int id, Ticket ticket, int quantity) {
+        OrderTicket orderTicket = new OrderTicket();
+        orderTicket.setOrderTicketId(id);
+        orderTicket.setOrder(order);
+        orderTicket.setTicket(ticket);
+        orderTicket.setQuantity(quantity);
+        orderTicket.setUnitPrice(ticket.getPrice());
+        orderTicket.setQrPayload("payload-" + id);
+        return orderTicket;
+    }
+
+    @Test
+    void getOrderTicketsPdf_ShouldRenderOnePagePerTicketType() throws Exception {
+        byte[] pdf = ticketPdfService.getOrderTicketsPdf(5, 42, request);
+
+        PdfReader reader = new PdfReader(pdf);
+        try {
+            assertThat(reader.getNumberOfPages()).isEqualTo(2);
+            String firstPage = PdfTextExtractor.getTextFromPage(reader, 1);
+            assertThat(firstPage).contains("Đêm nhạc Trịnh Công Sơn", "VIP", "Mã đơn hàng: #42", "Nguyễn Văn A");
+            assertThat(PdfTextExtractor.getTextFromPage(reader, 2)).contains("Thường");
+        } finally {
+            reader.close();
+        }
+        verify(ticketQrService).assignPayloads(order, orderTickets);
+        verify(ticketQrService).render("payload-7");
+        verify(ticketQrService).render("payload-8");
+    }
+
+    @Test
+    void getOrderTicketsPdf_ShouldThrowIllegalState_WhenOrderNotPaid() {
+        order.setStatus(OrderStatus.pending);
+
+        assertThatThrownBy(() -> ticketPdfService.getOrderTicketsPdf(5, 42, request))
+                .isInstanceOf(IllegalStateException.class);
+        verifyNoInteractions(ticketQrService);
+    }
+
+    @Test
+    void getOrderTicketsPdf_ShouldThrowSecurityException_WhenOrderBelongsToAnotherUser() {
+        order.getUser().setId(6);
+
+        assertThatThrownBy(() -> ticketPdfService.getOrderTicketsPdf(5, 42, request))
+                .isInstanceOf(SecurityException.class);
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.event_ticket_system.ticket.service;
+
+import com.example.event_ticket_system.DTO.response.QrImageDto;
+import com.example.event_ticket_system.Entity.Event;
+import com.example.event_ticket_system.Entity.Order;
+import com.example.event_ticket_system.Entity.OrderTicket;
+import com.example.event_ticket_system.Entity.Ticket;
+import com.example.event_ticket_system.Entity.User;
+import com.example.event_ticket_system.Enums.OrderStatus;
+import com.example.event_ticket_system.Repository.OrderTicketRepository;
+import com.example.event_ticket_system.Security.JwtUtil;
+import com.example.event_ticket_system.Service.Impl.TicketQrServiceImpl;
+import com.example.event_ticket_system.Util.TicketTokenCodec;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TicketQrServiceImplTest {
+
+    @Mock
+    private OrderTicketRepository orderTicketRepository;
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private HttpServletRequest request;
+
+    private final TicketTokenCodec codec = new TicketTokenCodec(new byte[32]);
+    private TicketQrServiceImpl ticketQrService;
+    private Order order;
+    private OrderTicket orderTicket;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ticketQrService = new TicketQrServiceImpl(orderTicketRepository, jwtUtil, codec, transactionTemplate, 1024 * 1024);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any(Consumer.class));
+        when(request.getHeader("Authorization")).thenReturn("Bearer token");
+        when(jwtUtil.extractRole("token")).thenReturn("ROLE_customer");
+        when(jwtUtil.extractUserId("token")).thenReturn(5);
+
+        User user = new User();
+        user.setId(5);
+        Event event = new Event();
+        event.setEventId(1);
+        order = new Order();
+        order.setOrderId(42);
+        order.setUser(user);
+        order.setStatus(OrderStatus.paid);
+        orderTicket = new OrderTicket();
+        orderTicket.setOrderTicketId(7);
+        orderTicket.setOrder(order);
+        orderTicket.setTicket(new Ticket(3, event, 100000.0, "VIP", 100, 2, null, null));
+        orderTicket.setQuantity(2);
+        when(orderTicketRepository.findWithOrderAndTicketById(7)).thenReturn(Optional.of(orderTicket));
+    }
+
+    @Test
+    void getTicketQrCode_ShouldMigrateLegacyTicketAndCacheImage() {
+        QrImageDto first = ticketQrService.getTicketQrCode(5, 7, request);
+        QrImageDto second = ticketQrService.getTicketQrCode(5, 7, request);
+
+        assertThat(codec.verify(orderTicket.getQrPayload())).isEqualTo(new TicketTokenCodec.TicketToken(7, 3, 1, 2));
+        verify(orderTicketRepository).updateQrPayload(7, orderTicket.getQrPayload());
+        verify(orderTicketRepository).clearLegacyQrCode(7);
+        assertThat(first.getPng()).startsWith((byte) 0x89, (byte) 'P', (byte) 'N', (byte) 'G');
+        assertThat(first.getEtag()).startsWith("\"qr1-").endsWith("\"");
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void getTicketQrCode_ShouldReplaceUnsignedTextPayload() {
+        orderTicket.setQrPayload("o=42&ot=7&t=3&u=5&e=1&q=2");
+
+        ticketQrService.getTicketQrCode(5, 7, request);
+
+        assertThat(codec.verify(orderTicket.getQrPayload())).isNotNull();
+        verify(orderTicketRepository).updateQrPayload(7, orderTicket.getQrPayload());
+    }
+
+    @Test
+    void getTicketQrCode_ShouldKeepExistingToken() {
+        String token = codec.issue(7, 3, 1, 2);
+        orderTicket.setQrPayload(token);
+
+        ticketQrService.getTicketQrCode(5, 7, request);
+
+        assertThat(orderTicket.getQrPayload()).isEqualTo(token);
+        verify(orderTicketRepository, never()).updateQrPayload(anyInt(), any());
+    }
+
+    @Test
+    void getTicketQrCode_ShouldRejectTicketOfAnotherUser() {
+        order.getUser().setId(6);
+
+        assertThatThrownBy(() -> ticketQrService.getTicketQrCode(5, 7, request))
+                .isInstanceOf(SecurityException.class);
+        verify(orderTicketRepository, never()).updateQrPayload(anyInt(), any());
+    }
+
+    @Test
+    void getTicketQrCode_ShouldRejectUnpaidOrder() {
+        order.setStatus(OrderStatus.pending);
+
+        assertThatThrownBy(() -> ticketQrService.getTicketQrCode(5, 7, request))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("QR code is only available for paid orders");
+    }
+
+    @Test
+    void assignPayloads_ShouldStopClearingLegacyColumn_WhenSchemaHasNoQrCode() {
+        when(orderTicketRepository.clearLegacyQrCode(anyInt()))
+                .thenThrow(new InvalidDataAccessResourceUsageException("Unknown column 'qr_code'"));
+        OrderTicket other = new OrderTicket();
+        other.setOrderTicketId(8);
+        other.setTicket(orderTicket.getTicket());
+        other.setQuantity(1);
+
+        ticketQrService.assignPayloads(order, List.of(orderTicket));
+        ticketQrService.assignPayloads(order, List.of(other));
+
+        verify(orderTicketRepository, times(1)).clearLegacyQrCode(anyInt());
+        verify(orderTicketRepository).updateQrPayload(8, codec.issue(8, 3, 1, 1));
+    }
+}
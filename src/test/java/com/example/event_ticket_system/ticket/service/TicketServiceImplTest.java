@@ -106,6 +106,7 @@ class TicketServiceImplTest {
         assertThat(response.getTickets()).hasSize(1);
         assertThat(response.getTickets().getFirst().getEventName()).isEqualTo("Concert A");
         assertThat(response.getTickets().getFirst().getTicketType()).isEqualTo("VIP");
+        assertThat(response.getTickets().getFirst().getQrCodeUrl()).isEqualTo("/api/users/ticket/1/qr/1001");
     }
 
     @Test
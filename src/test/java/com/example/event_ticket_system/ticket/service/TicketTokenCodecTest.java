@@ -0,0 +1,59 @@
+package com.example.event_ticket_system.ticket.service;
+
+import com.example.event_ticket_system.Util.Base45;
+import com.example.event_ticket_system.Util.TicketTokenCodec;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TicketTokenCodecTest {
+    private static final byte[] KEY = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final TicketTokenCodec codec = new TicketTokenCodec(KEY);
+
+    @Test
+    void base45_ShouldMatchRfc9285Examples() {
+        assertThat(encode("AB")).isEqualTo("BB8");
+        assertThat(encode("Hello!!")).isEqualTo("%69 VD92EX0");
+        assertThat(encode("base-45")).isEqualTo("UJCLQE7W581");
+
+        byte[] out = new byte[16];
+        int length = Base45.decode("QED8WEX0", out);
+        assertThat(new String(out, 0, length, StandardCharsets.US_ASCII)).isEqualTo("ietf!");
+        assertThat(Base45.decode("GGW", out)).isEqualTo(-1);
+        assertThat(Base45.decode("abc", out)).isEqualTo(-1);
+    }
+
+    @Test
+    void issue_ShouldRoundTripAndStayShort() {
+        String token = codec.issue(123456, 789, 4321, 3);
+
+        assertThat(codec.verify(token)).isEqualTo(new TicketTokenCodec.TicketToken(123456, 789, 4321, 3));
+        // Đủ nhỏ cho QR version 2 ở chế độ alphanumeric (47 ký tự, mức sửa lỗi L)
+        assertThat(token.length()).isLessThanOrEqualTo(30);
+        assertThat(token).matches("[0-9A-Z $%*+\\-./:]+");
+    }
+
+    @Test
+    void verify_ShouldRejectTamperedOrForeignTokens() {
+        String token = codec.issue(7, 3, 1, 2);
+        char[] tampered = token.toCharArray();
+        tampered[4] = tampered[4] == 'A' ? 'B' : 'A';
+        byte[] otherKey = Arrays.copyOf(KEY, KEY.length);
+        otherKey[0] ^= 1;
+
+        assertThat(codec.verify(new String(tampered))).isNull();
+        assertThat(new TicketTokenCodec(otherKey).verify(token)).isNull();
+        assertThat(codec.verify("o=42&ot=7&t=3&u=5&e=1&q=2")).isNull();
+        assertThat(codec.verify(token.substring(0, token.length() - 3))).isNull();
+        assertThat(codec.verify("")).isNull();
+    }
+
+    private static String encode(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        return Base45.encode(bytes, bytes.length);
+    }
+}